@@ -0,0 +1,106 @@
+#!/bin/bash
+#
+# Builds and runs the JMH benchmarks and compares the results with a stored baseline.
+#
+# No baseline is committed as the scores depend on the machine. Run the script with --save-baseline on the
+# base revision first, then without it on the changed revision on the same machine. The baseline is stored
+# in benchmarks/baseline.csv or the file given by the BENCHMARK_BASELINE environment variable. Without a
+# baseline the benchmarks are run, nothing is compared and the script exits with 0.
+#
+# usage: run-benchmarks.sh [--save-baseline] [--threshold <percent>] [--skip-build] [JMH options...]
+#
+#   --save-baseline        store the results as the new baseline instead of comparing
+#   --threshold <percent>  allowed deviation from the baseline before a result counts as regression (default 10)
+#   --skip-build           use the previously built benchmarks.jar
+#
+# All other options are passed to JMH, e.g. a regular expression selecting the benchmarks:
+#   run-benchmarks.sh VersionBenchmark -p versionString=1.8*
+#
+# The script exits with 1 if at least one benchmark regressed compared to the baseline.
+
+set -e
+
+## resolve folder of this script, following all symlinks
+SCRIPT_SOURCE="${BASH_SOURCE[0]}"
+while [ -h "$SCRIPT_SOURCE" ]; do
+  SCRIPT_DIR="$( cd -P "$( dirname "$SCRIPT_SOURCE" )" && pwd )"
+  SCRIPT_SOURCE="$(readlink "$SCRIPT_SOURCE")"
+  [[ $SCRIPT_SOURCE != /* ]] && SCRIPT_SOURCE="$SCRIPT_DIR/$SCRIPT_SOURCE"
+done
+readonly SCRIPT_DIR="$( cd -P "$( dirname "$SCRIPT_SOURCE" )" && pwd )"
+
+readonly BENCHMARK_JAR="$SCRIPT_DIR/target/benchmarks.jar"
+readonly RESULTS="$SCRIPT_DIR/target/results.csv"
+BASELINE="${BENCHMARK_BASELINE:-$SCRIPT_DIR/baseline.csv}"
+
+SAVE_BASELINE=false
+SKIP_BUILD=false
+THRESHOLD=10
+JMH_ARGS=()
+
+while [ $# -gt 0 ]; do
+  case "$1" in
+    --save-baseline) SAVE_BASELINE=true ;;
+    --skip-build) SKIP_BUILD=true ;;
+    --threshold) shift; THRESHOLD="$1" ;;
+    *) JMH_ARGS+=("$1") ;;
+  esac
+  shift
+done
+
+if [ "$SKIP_BUILD" != "true" ] ; then
+  cd "$SCRIPT_DIR/.."
+  mvn -B -q -Pbenchmarks -pl benchmarks -am -DskipTests package
+fi
+
+mkdir -p "$(dirname "$RESULTS")"
+java -Duser.language=en -Duser.country=US -jar "$BENCHMARK_JAR" -rf csv -rff "$RESULTS" "${JMH_ARGS[@]}"
+
+if [ "$SAVE_BASELINE" == "true" ] ; then
+  cp "$RESULTS" "$BASELINE"
+  echo "Stored baseline $BASELINE"
+  exit 0
+fi
+
+if [ ! -f "$BASELINE" ] ; then
+  echo "No baseline found at $BASELINE, nothing compared. Run with --save-baseline on the base revision to create one"
+  echo "The results are in $RESULTS"
+  exit 0
+fi
+
+# columns: "Benchmark","Mode","Threads","Samples","Score","Score Error (99.9%)","Unit",["Param: name",...]
+# the key of a result is the benchmark name together with its parameters
+awk -F',' -v threshold="$THRESHOLD" '
+  function key() {
+    k = $1
+    for (i = 8; i <= NF; i++) {
+      k = k " " $i
+    }
+    return k
+  }
+  FNR == 1 { next }
+  { gsub(/"/, "") }
+  NR == FNR { baseline[key()] = $5; next }
+  {
+    k = key()
+    if (!(k in baseline)) {
+      printf "NEW         %-90s %14.3f %s\n", k, $5, $7
+      next
+    }
+    old = baseline[k]
+    change = old == 0 ? 0 : ($5 - old) * 100 / old
+    # throughput should grow, all other modes measure time which should shrink
+    regression = ($2 == "thrpt") ? -change : change
+    status = regression > threshold ? "REGRESSION" : (regression < -threshold ? "IMPROVED" : "OK")
+    if (status == "REGRESSION") {
+      regressions++
+    }
+    printf "%-11s %-90s %14.3f -> %14.3f %s (%+.1f%%)\n", status, k, old, $5, $7, change
+  }
+  END {
+    if (regressions > 0) {
+      printf "%d benchmark(s) regressed by more than %s%%\n", regressions, threshold
+      exit 1
+    }
+  }
+' "$BASELINE" "$RESULTS"
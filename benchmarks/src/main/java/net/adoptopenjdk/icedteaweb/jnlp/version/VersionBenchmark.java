@@ -0,0 +1,85 @@
+package net.adoptopenjdk.icedteaweb.jnlp.version;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Version matching as done when looking up resources in the cache and selecting a JRE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VersionBenchmark {
+
+    @Param({"1.8.0_222", "1.8*", "1.7+", "1.6 1.7.0_05+ 1.8*&1.8.0_100+ 9+"})
+    public String versionString;
+
+    private VersionString parsedVersionString;
+    private VersionId matchingVersionId;
+    private VersionId otherVersionId;
+    private VersionIdComparator comparator;
+    private List<VersionId> candidates;
+
+    @Setup
+    public void setUp() {
+        parsedVersionString = VersionString.fromString(versionString);
+        matchingVersionId = VersionId.fromString("1.8.0_222");
+        otherVersionId = VersionId.fromString("1.5.0-beta-12");
+        comparator = new VersionIdComparator(parsedVersionString);
+
+        candidates = new ArrayList<>();
+        for (int major = 5; major <= 11; major++) {
+            for (int update = 0; update < 30; update += 3) {
+                candidates.add(VersionId.fromString("1." + major + ".0_" + update));
+            }
+        }
+    }
+
+    @Benchmark
+    public VersionString parseVersionString() {
+        return VersionString.fromString(versionString);
+    }
+
+    @Benchmark
+    public VersionId parseVersionId() {
+        return VersionId.fromString("1.8.0_222-b10");
+    }
+
+    @Benchmark
+    public boolean containsMatchingVersion() {
+        return parsedVersionString.contains(matchingVersionId);
+    }
+
+    @Benchmark
+    public boolean containsOtherVersion() {
+        return parsedVersionString.contains(otherVersionId);
+    }
+
+    @Benchmark
+    public boolean containsVersionAsString() {
+        return parsedVersionString.contains("1.8.0_222");
+    }
+
+    @Benchmark
+    public List<VersionId> sortCandidates() {
+        final List<VersionId> sorted = new ArrayList<>(candidates);
+        sorted.sort(comparator);
+        return sorted;
+    }
+}
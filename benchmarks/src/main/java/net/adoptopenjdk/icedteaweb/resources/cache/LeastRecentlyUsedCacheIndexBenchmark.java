@@ -0,0 +1,109 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.sourceforge.jnlp.util.PropertiesFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in the {@link LeastRecentlyUsedCacheIndex} for caches of different sizes.
+ * Every resource is cached in three versions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeastRecentlyUsedCacheIndexBenchmark {
+
+    private static final String[] VERSIONS = {"1.0", "1.1", "2.0"};
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private File indexFile;
+    private LeastRecentlyUsedCacheIndex index;
+    private URL firstResource;
+    private URL lastResource;
+    private URL missingResource;
+    private VersionId version;
+    private VersionString versionString;
+
+    @Setup
+    public void setUp() throws IOException {
+        indexFile = Files.createTempFile("benchmark-index", ".properties").toFile();
+        final List<LeastRecentlyUsedCacheEntry> entries = new ArrayList<>();
+        final int resources = size / VERSIONS.length;
+        for (int i = 0; i < resources; i++) {
+            final URL resource = resourceUrl(i);
+            for (String v : VERSIONS) {
+                entries.add(new LeastRecentlyUsedCacheEntry(i + "-" + v, System.currentTimeMillis(), resource, VersionId.fromString(v)));
+            }
+        }
+        index = new LeastRecentlyUsedCacheIndex(new PropertiesFile(indexFile), entries);
+
+        firstResource = resourceUrl(0);
+        lastResource = resourceUrl(resources - 1);
+        missingResource = resourceUrl(resources);
+        version = VersionId.fromString("2.0");
+        versionString = VersionString.fromString("1.0+");
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (!indexFile.delete()) {
+            indexFile.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public Optional<LeastRecentlyUsedCacheEntry> findFirstEntry() {
+        return index.find(firstResource, version);
+    }
+
+    @Benchmark
+    public Optional<LeastRecentlyUsedCacheEntry> findLastEntry() {
+        return index.find(lastResource, version);
+    }
+
+    @Benchmark
+    public Optional<LeastRecentlyUsedCacheEntry> findMissingEntry() {
+        return index.find(missingResource, version);
+    }
+
+    @Benchmark
+    public Set<LeastRecentlyUsedCacheEntry> findAllMatchingVersionString() {
+        return index.findAll(lastResource, versionString);
+    }
+
+    @Benchmark
+    public Optional<LeastRecentlyUsedCacheEntry> findAndMarkAsAccessed() {
+        return index.findAndMarkAsAccessed(lastResource, version);
+    }
+
+    private static URL resourceUrl(final int i) throws IOException {
+        return new URL("https://host" + (i % 16) + ".example.com/app/lib/library-" + i + ".jar");
+    }
+}
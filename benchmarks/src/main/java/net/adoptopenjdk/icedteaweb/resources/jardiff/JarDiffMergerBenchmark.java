@@ -0,0 +1,105 @@
+package net.adoptopenjdk.icedteaweb.resources.jardiff;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Applies a synthetic jardiff which replaces, adds, removes and moves a tenth of the entries each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JarDiffMergerBenchmark {
+
+    private static final int ENTRY_SIZE = 4 * 1024;
+
+    @Param({"100", "1000"})
+    public int entries;
+
+    private File oldJarFile;
+    private File diffFile;
+    private JarFile oldJar;
+    private JarFile jarDiff;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(42);
+        oldJarFile = Files.createTempFile("benchmark-old", ".jar").toFile();
+        diffFile = Files.createTempFile("benchmark", ".jardiff").toFile();
+
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(oldJarFile))) {
+            for (int i = 0; i < entries; i++) {
+                writeEntry(out, entryName(i), random);
+            }
+        }
+
+        final int tenth = Math.max(1, entries / 10);
+        final StringBuilder index = new StringBuilder("version 1.0\n");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(diffFile))) {
+            for (int i = 0; i < tenth; i++) {
+                writeEntry(out, entryName(i), random);
+                writeEntry(out, entryName(entries + i), random);
+                index.append("remove ").append(entryName(tenth + i)).append('\n');
+                index.append("move ").append(entryName(2 * tenth + i)).append(' ').append("moved/").append(entryName(2 * tenth + i)).append('\n');
+            }
+            out.putNextEntry(new ZipEntry("META-INF/INDEX.JD"));
+            out.write(index.toString().getBytes(UTF_8));
+        }
+
+        oldJar = new JarFile(oldJarFile);
+        jarDiff = new JarFile(diffFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        oldJar.close();
+        jarDiff.close();
+        Files.deleteIfExists(oldJarFile.toPath());
+        Files.deleteIfExists(diffFile.toPath());
+    }
+
+    @Benchmark
+    public int merge() throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream(entries * ENTRY_SIZE);
+        JarDiffMerger.merge(oldJar, jarDiff, new JarOutputStream(result));
+        return result.size();
+    }
+
+    private static String entryName(final int i) {
+        return "net/example/app/package" + (i % 20) + "/Class" + i + ".class";
+    }
+
+    private static void writeEntry(final JarOutputStream out, final String name, final Random random) throws IOException {
+        final byte[] content = new byte[ENTRY_SIZE];
+        random.nextBytes(content);
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.closeEntry();
+    }
+}
@@ -0,0 +1,126 @@
+package net.sourceforge.jnlp;
+
+import net.adoptopenjdk.icedteaweb.xmlparser.ParseException;
+import net.adoptopenjdk.icedteaweb.xmlparser.ParserType;
+import net.adoptopenjdk.icedteaweb.xmlparser.XMLParser;
+import net.adoptopenjdk.icedteaweb.xmlparser.XmlNode;
+import net.adoptopenjdk.icedteaweb.xmlparser.XmlParserFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Parsing of a small and a huge JNLP file with the {@link XMLParser} alone and with the {@link Parser}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JnlpParserBenchmark {
+
+    private static final int HUGE_JAR_COUNT = 2000;
+    private static final int HUGE_PROPERTY_COUNT = 500;
+
+    @Param({"small", "huge"})
+    public String jnlp;
+
+    @Param({"NORMAL", "MALFORMED"})
+    public ParserType parserType;
+
+    private byte[] content;
+    private URL codebase;
+    private XMLParser xmlParser;
+    private ParserSettings settings;
+
+    @Setup
+    public void setUp() throws MalformedURLException {
+        content = ("huge".equals(jnlp) ? hugeJnlp() : smallJnlp()).getBytes(UTF_8);
+        codebase = new URL("https://example.invalid/app/");
+        xmlParser = XmlParserFactory.getParser(parserType);
+        settings = new ParserSettings(false, true, parserType == ParserType.MALFORMED);
+    }
+
+    @Benchmark
+    public XmlNode xmlParser() throws ParseException {
+        return xmlParser.getRootNode(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public JNLPFile jnlpFile() throws ParseException {
+        return new JNLPFile(new ByteArrayInputStream(content), codebase, settings);
+    }
+
+    private static String smallJnlp() {
+        return header()
+                + "  <resources>\n"
+                + "    <j2se version=\"1.8+\"/>\n"
+                + "    <jar href=\"app.jar\" main=\"true\"/>\n"
+                + "    <jar href=\"lib.jar\"/>\n"
+                + "  </resources>\n"
+                + footer();
+    }
+
+    private static String hugeJnlp() {
+        final StringBuilder result = new StringBuilder(header());
+        result.append("  <resources>\n");
+        result.append("    <j2se version=\"1.8+\" java-vm-args=\"-Xmx512m\"/>\n");
+        result.append("    <jar href=\"app.jar\" main=\"true\" version=\"1.0\"/>\n");
+        for (int i = 0; i < HUGE_JAR_COUNT; i++) {
+            result.append("    <jar href=\"lib/library-").append(i).append(".jar\" version=\"1.").append(i % 10)
+                    .append("\" download=\"").append(i % 3 == 0 ? "lazy" : "eager")
+                    .append("\" part=\"part").append(i % 20).append("\"/>\n");
+        }
+        for (int i = 0; i < HUGE_PROPERTY_COUNT; i++) {
+            result.append("    <property name=\"jnlp.property").append(i).append("\" value=\"value &amp; ").append(i).append("\"/>\n");
+        }
+        for (int i = 0; i < 20; i++) {
+            result.append("    <package name=\"net.example.part").append(i).append(".*\" part=\"part").append(i).append("\" recursive=\"true\"/>\n");
+        }
+        result.append("  </resources>\n");
+        for (String os : new String[]{"Windows", "Linux", "Mac OS X"}) {
+            result.append("  <resources os=\"").append(os).append("\">\n");
+            result.append("    <nativelib href=\"native/").append(os.replace(' ', '-')).append(".jar\"/>\n");
+            result.append("  </resources>\n");
+        }
+        result.append(footer());
+        return result.toString();
+    }
+
+    private static String header() {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<jnlp spec=\"1.0+\" codebase=\"https://example.invalid/app/\" href=\"app.jnlp\">\n"
+                + "  <information>\n"
+                + "    <title>Benchmark Application</title>\n"
+                + "    <vendor>IcedTea</vendor>\n"
+                + "    <description>Application used to benchmark the parser</description>\n"
+                + "    <offline-allowed/>\n"
+                + "  </information>\n"
+                + "  <security>\n"
+                + "    <all-permissions/>\n"
+                + "  </security>\n";
+    }
+
+    private static String footer() {
+        return "  <application-desc main-class=\"net.example.Main\">\n"
+                + "    <argument>-verbose</argument>\n"
+                + "  </application-desc>\n"
+                + "</jnlp>\n";
+    }
+}
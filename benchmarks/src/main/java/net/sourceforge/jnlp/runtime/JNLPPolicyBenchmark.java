@@ -0,0 +1,81 @@
+package net.sourceforge.jnlp.runtime;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FilePermission;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.Permission;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.PropertyPermission;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permission checks of the {@link JNLPPolicy} as done by the security manager for every privileged operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JNLPPolicyBenchmark {
+
+    private JNLPPolicy policy;
+    private ProtectionDomain itwDomain;
+    private ProtectionDomain extDomain;
+    private ProtectionDomain cachedJarDomain;
+    private Permission propertyPermission;
+    private Permission filePermission;
+
+    @Setup
+    public void setUp() throws MalformedURLException {
+        if (!JNLPRuntime.isInitialized()) {
+            // the policy asks the security manager for the running application but must not be installed
+            JNLPRuntime.setHeadless(true);
+            JNLPRuntime.setSecurityEnabled(false);
+            JNLPRuntime.initialize();
+        }
+        policy = new JNLPPolicy();
+
+        itwDomain = JNLPPolicy.class.getProtectionDomain();
+        final File extJar = new File(System.getProperty("java.home"), "lib" + File.separator + "ext" + File.separator + "benchmark.jar");
+        extDomain = domainFor(extJar.toURI().toURL());
+        final File cachedJar = new File(System.getProperty("java.io.tmpdir"), "cache" + File.separator + "0" + File.separator + "app.jar");
+        cachedJarDomain = domainFor(cachedJar.toURI().toURL());
+
+        propertyPermission = new PropertyPermission("user.home", "read");
+        filePermission = new FilePermission(System.getProperty("java.io.tmpdir") + File.separator + "-", "read");
+    }
+
+    @Benchmark
+    public boolean impliesForItwCode() {
+        return policy.implies(itwDomain, propertyPermission);
+    }
+
+    @Benchmark
+    public boolean impliesForSystemJar() {
+        return policy.implies(extDomain, propertyPermission);
+    }
+
+    @Benchmark
+    public boolean impliesForApplicationJar() {
+        return policy.implies(cachedJarDomain, filePermission);
+    }
+
+    private static ProtectionDomain domainFor(final URL location) {
+        return new ProtectionDomain(new CodeSource(location, (Certificate[]) null), null);
+    }
+}
@@ -0,0 +1,143 @@
+package net.sourceforge.jnlp.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typical record access of applications keeping their data in {@link javax.jnlp.FileContents}: fixed
+ * size records of an int, a long, a double and a short string, read sequentially, read at random and
+ * written sequentially, through {@link RandomAccessFile} and through the buffered and the memory
+ * mapped {@link XJNLPRandomAccessFile}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RandomAccessFileBenchmark {
+
+    private static final int RECORD_SIZE = Integer.BYTES + Long.BYTES + Double.BYTES + 2 + 10;
+    private static final int RECORDS = 1000;
+
+    @Param({"RandomAccessFile", "buffered", "mapped"})
+    public String implementation;
+
+    private File file;
+    private int[] randomRecords;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("records", ".bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            for (int i = 0; i < RECORDS; i++) {
+                writeRecord(raf, i);
+            }
+        }
+        final Random random = new Random(42);
+        randomRecords = new int[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            randomRecords[i] = random.nextInt(RECORDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public long readSequentially() throws IOException {
+        final Object raf = open("r");
+        try {
+            long sum = 0;
+            for (int i = 0; i < RECORDS; i++) {
+                sum += readRecord((DataInput) raf);
+            }
+            return sum;
+        } finally {
+            close(raf);
+        }
+    }
+
+    @Benchmark
+    public long readRandomly() throws IOException {
+        final Object raf = open("r");
+        try {
+            long sum = 0;
+            for (int record : randomRecords) {
+                seek(raf, (long) record * RECORD_SIZE);
+                sum += readRecord((DataInput) raf);
+            }
+            return sum;
+        } finally {
+            close(raf);
+        }
+    }
+
+    @Benchmark
+    public void writeSequentially() throws IOException {
+        final Object raf = open("rw");
+        try {
+            for (int i = 0; i < RECORDS; i++) {
+                writeRecord((DataOutput) raf, i);
+            }
+        } finally {
+            close(raf);
+        }
+    }
+
+    private static long readRecord(final DataInput in) throws IOException {
+        return in.readInt() + in.readLong() + (long) in.readDouble() + in.readUTF().length();
+    }
+
+    private static void writeRecord(final DataOutput out, final int i) throws IOException {
+        out.writeInt(i);
+        out.writeLong(i * 31L);
+        out.writeDouble(i / 3.0);
+        out.writeUTF(String.format("record%04d", i));
+    }
+
+    private Object open(final String mode) throws IOException {
+        switch (implementation) {
+            case "buffered":
+                return new XJNLPRandomAccessFile(file, mode, 0);
+            case "mapped":
+                return new XJNLPRandomAccessFile(file, mode, Long.MAX_VALUE);
+            default:
+                return new RandomAccessFile(file, mode);
+        }
+    }
+
+    private static void seek(final Object raf, final long pos) throws IOException {
+        if (raf instanceof RandomAccessFile) {
+            ((RandomAccessFile) raf).seek(pos);
+        } else {
+            ((XJNLPRandomAccessFile) raf).seek(pos);
+        }
+    }
+
+    private static void close(final Object raf) throws IOException {
+        ((Closeable) raf).close();
+    }
+}
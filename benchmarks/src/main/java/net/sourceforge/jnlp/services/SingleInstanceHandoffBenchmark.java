@@ -0,0 +1,67 @@
+package net.sourceforge.jnlp.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of handing the arguments of a second instance to the running instance of a single instance
+ * application, from connecting to the {@link SingleInstanceServer} until the listener has been notified.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingleInstanceHandoffBenchmark {
+
+    @Param({"1", "16"})
+    public int argumentCount;
+
+    private final BlockingQueue<String[]> received = new LinkedBlockingQueue<>();
+
+    private SingleInstanceServer server;
+    private String[] arguments;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = SingleInstanceServer.start(received::add);
+        arguments = new String[argumentCount];
+        for (int i = 0; i < argumentCount; i++) {
+            arguments[i] = "/home/user/Documents/file-" + i + ".txt";
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Benchmark
+    public String[] handoff() throws IOException, InterruptedException {
+        if (!SingleInstanceServer.send(server.getPort(), arguments)) {
+            throw new IllegalStateException("server is not listening");
+        }
+        return received.take();
+    }
+
+    @Benchmark
+    public boolean probe() {
+        return SingleInstanceServer.isListening(server.getPort());
+    }
+}
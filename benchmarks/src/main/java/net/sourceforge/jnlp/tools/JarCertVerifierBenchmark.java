@@ -0,0 +1,96 @@
+package net.sourceforge.jnlp.tools;
+
+import net.adoptopenjdk.icedteaweb.testing.tools.CodeSignerCreator;
+import net.sourceforge.jnlp.tools.JarCertVerifier.VerifyResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.CodeSigner;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+
+/**
+ * Signer evaluation of {@link JarCertVerifier} on synthetic signed jars.
+ * <p>
+ * The entries carry code signers created by {@link CodeSignerCreator} so the benchmark measures the
+ * evaluation of the signers and not the digest checks of the JDK while reading the jar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JarCertVerifierBenchmark {
+
+    private static final String DN = ", OU=JarCertVerifier Benchmark, O=IcedTea, L=Toronto, ST=Ontario, C=CA";
+
+    @Param({"10", "1000"})
+    public int entries;
+
+    private List<JarEntry> singleSignerEntries;
+    private List<JarEntry> twoSignerEntries;
+    private List<JarEntry> partiallySignedEntries;
+
+    @Setup
+    public void setUp() throws Exception {
+        final CodeSigner alpha = CodeSignerCreator.getOneCodeSigner("CN=Alpha Signer" + DN, new Date(), 365);
+        final CodeSigner beta = CodeSignerCreator.getOneCodeSigner("CN=Beta Signer" + DN, new Date(), 365);
+
+        singleSignerEntries = createEntries(new CodeSigner[]{alpha}, false);
+        twoSignerEntries = createEntries(new CodeSigner[]{alpha, beta}, false);
+        partiallySignedEntries = createEntries(new CodeSigner[]{alpha}, true);
+    }
+
+    @Benchmark
+    public VerifyResult singleSigner() {
+        return new JarCertVerifier(null).verifyJarEntryCerts("single.jar", true, singleSignerEntries);
+    }
+
+    @Benchmark
+    public VerifyResult twoSigners() {
+        return new JarCertVerifier(null).verifyJarEntryCerts("two.jar", true, twoSignerEntries);
+    }
+
+    @Benchmark
+    public VerifyResult partiallySigned() {
+        return new JarCertVerifier(null).verifyJarEntryCerts("partial.jar", true, partiallySignedEntries);
+    }
+
+    private List<JarEntry> createEntries(final CodeSigner[] signers, final boolean lastUnsigned) {
+        final List<JarEntry> result = new ArrayList<>(entries + 2);
+        result.add(new SignedEntry("META-INF/MANIFEST.MF", null));
+        result.add(new SignedEntry("net/example/app/", null));
+        for (int i = 0; i < entries; i++) {
+            final boolean unsigned = lastUnsigned && i == entries - 1;
+            result.add(new SignedEntry("net/example/app/Class" + i + ".class", unsigned ? null : signers));
+        }
+        return result;
+    }
+
+    private static class SignedEntry extends JarEntry {
+        private final CodeSigner[] signers;
+
+        SignedEntry(final String name, final CodeSigner[] signers) {
+            super(name);
+            this.signers = signers;
+        }
+
+        @Override
+        public CodeSigner[] getCodeSigners() {
+            return signers == null ? null : signers.clone();
+        }
+    }
+}
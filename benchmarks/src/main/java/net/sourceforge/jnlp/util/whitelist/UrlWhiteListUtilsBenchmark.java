@@ -0,0 +1,91 @@
+package net.sourceforge.jnlp.util.whitelist;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whitelist checks as done for every resource before it is downloaded.
+ * {@link UrlWhiteListUtils#isUrlInWhitelist(URL, List)} compiles the whitelist on every call while the
+ * application whitelist is compiled once and memoizes its decisions.
+ * <p>
+ * The hosts use the reserved top level domain {@code .invalid} so that the localhost check of
+ * {@link UrlWhiteListUtils#isUrlInWhitelist(URL, List)} does not depend on the network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlWhiteListUtilsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int entries;
+
+    private List<WhitelistEntry> whitelist;
+    private CompiledWhitelist memoizingWhitelist;
+    private URL firstHost;
+    private URL lastWildcardHost;
+    private URL notWhitelisted;
+
+    @Setup
+    public void setUp() throws MalformedURLException {
+        whitelist = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            if (i % 2 == 0) {
+                whitelist.add(UrlWhiteListUtils.parseEntry("https://host" + i + ".example.invalid:8443"));
+            } else {
+                whitelist.add(UrlWhiteListUtils.parseEntry("*.domain" + i + ".invalid"));
+            }
+        }
+        memoizingWhitelist = CompiledWhitelist.compile(whitelist);
+        firstHost = new URL("https://host0.example.invalid:8443/app/app.jar");
+        lastWildcardHost = new URL("https://www.domain" + (entries - 1) + ".invalid/app/app.jar");
+        notWhitelisted = new URL("https://elsewhere.invalid/app/app.jar");
+    }
+
+    @Benchmark
+    public boolean firstEntryMatches() {
+        return UrlWhiteListUtils.isUrlInWhitelist(firstHost, whitelist);
+    }
+
+    @Benchmark
+    public boolean lastEntryMatches() {
+        return UrlWhiteListUtils.isUrlInWhitelist(lastWildcardHost, whitelist);
+    }
+
+    @Benchmark
+    public boolean noEntryMatches() {
+        return UrlWhiteListUtils.isUrlInWhitelist(notWhitelisted, whitelist);
+    }
+
+    @Benchmark
+    public boolean memoizedLastEntryMatches() {
+        return memoizingWhitelist.isUrlInWhitelist(lastWildcardHost);
+    }
+
+    @Benchmark
+    public CompiledWhitelist compile() {
+        return CompiledWhitelist.compile(whitelist);
+    }
+
+    @Benchmark
+    public WhitelistEntry parseEntry() {
+        return UrlWhiteListUtils.parseEntry("*.example.invalid:443");
+    }
+}
@@ -12,6 +12,8 @@ public enum CommandLineOptions {
     VIEWER("-viewer", "BOViewer"),
     CLEARCACHE("-Xclearcache", "BXclearcache", NumberOfArguments.NONE_OR_ONE),
     LISTCACHEIDS("-Xcacheids", "BXcacheids", NumberOfArguments.NONE_OR_ONE),
+    POPULATESYSTEMCACHE("-Xpopulatesystemcache", "jnlp-url", "BXpopulatesystemcache", NumberOfArguments.ONE_OR_MORE),
+    PREFETCH("-Xprefetch", "jnlp-url", "BXprefetch", NumberOfArguments.ONE_OR_MORE),
     LICENSE("-license", "BOLicense"),
     HELP1("-help", "BOHelp1"),
     //javaws run-options
@@ -35,6 +37,7 @@ public enum CommandLineOptions {
     JNLP("-jnlp", "BOJnlp", NumberOfArguments.ONE),
     BROWSER("-browser", "BrowserArg", NumberOfArguments.ONE_OR_MORE),
     NOSPLASH("-Xnosplash", "BXNoSplash"),
+    TRACELAUNCH("-Xtrace-launch", "file", "BXtraceLaunch", NumberOfArguments.ONE),
     //itweb settings
     LIST("-list", "IBOList"),
     GET("-get", "name", "IBOGet", NumberOfArguments.ONE_OR_MORE),
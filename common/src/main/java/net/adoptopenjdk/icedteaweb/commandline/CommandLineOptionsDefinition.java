@@ -69,6 +69,8 @@ public class CommandLineOptionsDefinition {
                 CommandLineOptions.VIEWER,
                 CommandLineOptions.CLEARCACHE,
                 CommandLineOptions.LISTCACHEIDS,
+                CommandLineOptions.POPULATESYSTEMCACHE,
+                CommandLineOptions.PREFETCH,
                 CommandLineOptions.LICENSE,
                 CommandLineOptions.HELP1);
     }
@@ -92,7 +94,8 @@ public class CommandLineOptionsDefinition {
                 CommandLineOptions.TRUSTNONE,
                 CommandLineOptions.JNLP,
                 CommandLineOptions.BROWSER,
-                CommandLineOptions.NOSPLASH);
+                CommandLineOptions.NOSPLASH,
+                CommandLineOptions.TRACELAUNCH);
     }
 
     public static List<CommandLineOptions> getJavaWsOptions() {
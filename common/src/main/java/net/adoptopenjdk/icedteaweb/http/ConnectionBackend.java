@@ -0,0 +1,59 @@
+package net.adoptopenjdk.icedteaweb.http;
+
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+
+/**
+ * The strategies available to the {@link ConnectionFactory} for handling HTTP connections.
+ */
+public enum ConnectionBackend {
+
+    /**
+     * Every connection is disconnected when it is closed.
+     * Each request needs a new TCP connection and TLS handshake.
+     */
+    DISCONNECT("disconnect") {
+        @Override
+        CloseableHttpConnection wrap(final HttpURLConnection connection) {
+            return new CloseableHttpConnection(connection);
+        }
+    },
+
+    /**
+     * The response stream is closed when a connection is closed which returns the underlying socket
+     * to the keep-alive pool of the JDK. Later requests to the same host reuse the open socket.
+     */
+    KEEP_ALIVE("keep-alive") {
+        @Override
+        CloseableHttpConnection wrap(final HttpURLConnection connection) {
+            return new KeepAliveHttpConnection(connection);
+        }
+    };
+
+    private final String configValue;
+
+    ConnectionBackend(final String configValue) {
+        this.configValue = configValue;
+    }
+
+    /**
+     * @return the value selecting this backend in the deployment configuration
+     */
+    public String getConfigValue() {
+        return configValue;
+    }
+
+    abstract CloseableHttpConnection wrap(HttpURLConnection connection);
+
+    /**
+     * @param configValue the value of the deployment configuration
+     * @return the backend for the value
+     * @throws IllegalArgumentException if no backend matches the value
+     */
+    public static ConnectionBackend fromConfigValue(final String configValue) {
+        return Arrays.stream(values())
+                .filter(backend -> backend.configValue.equalsIgnoreCase(configValue))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown connection backend: " + configValue));
+    }
+}
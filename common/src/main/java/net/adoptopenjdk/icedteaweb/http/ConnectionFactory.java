@@ -15,10 +15,28 @@ import static net.adoptopenjdk.icedteaweb.http.HttpMethod.GET;
  */
 public class ConnectionFactory {
 
+    private static volatile ConnectionBackend backend = ConnectionBackend.DISCONNECT;
+
     private ConnectionFactory() {
         // do not instantiate.
     }
 
+    /**
+     * Selects how HTTP connections opened from now on are handled.
+     *
+     * @param connectionBackend the backend to use
+     */
+    public static void setBackend(final ConnectionBackend connectionBackend) {
+        backend = requireNonNull(connectionBackend, "connectionBackend");
+    }
+
+    /**
+     * @return the backend used for new HTTP connections
+     */
+    public static ConnectionBackend getBackend() {
+        return backend;
+    }
+
     /**
      * Opens a connection to an URL.
      *
@@ -111,6 +129,6 @@ public class ConnectionFactory {
             httpConnection.addRequestProperty(property.getKey(), property.getValue());
         }
 
-        return new CloseableHttpConnection(httpConnection);
+        return backend.wrap(httpConnection);
     }
 }
@@ -0,0 +1,58 @@
+package net.adoptopenjdk.icedteaweb.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+
+/**
+ * {@link CloseableHttpConnection} which keeps the underlying socket open for reuse.
+ * <p>
+ * Closing the connection closes the response stream instead of disconnecting.
+ * The JDK then returns the socket to its keep-alive pool, skipping any small unread
+ * rest of the body. A connection which has not been used is disconnected as before.
+ */
+class KeepAliveHttpConnection extends CloseableHttpConnection {
+    private final HttpURLConnection delegate;
+
+    private InputStream inputStream;
+    private boolean responseReceived = false;
+
+    KeepAliveHttpConnection(final HttpURLConnection delegate) {
+        super(delegate);
+        this.delegate = delegate;
+    }
+
+    /**
+     * closes the response stream which allows the JDK to reuse the socket.
+     */
+    @Override
+    public void close() {
+        try {
+            final InputStream errorStream = delegate.getErrorStream();
+            if (errorStream != null) {
+                errorStream.close();
+            } else if (inputStream != null) {
+                inputStream.close();
+            } else if (responseReceived) {
+                delegate.getInputStream().close();
+            } else {
+                delegate.disconnect();
+            }
+        } catch (IOException e) {
+            delegate.disconnect();
+        }
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        final int responseCode = super.getResponseCode();
+        responseReceived = true;
+        return responseCode;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        inputStream = super.getInputStream();
+        return inputStream;
+    }
+}
@@ -137,6 +137,11 @@ class SimpleRange {
         return versionId.equals(other.versionId) && modifier == other.modifier;
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * versionId.hashCode() + modifier.hashCode();
+    }
+
     /**
      * Check if this simple-range contains the given {@code versionId}.
      *
@@ -165,7 +170,7 @@ class SimpleRange {
         }
 
         if (hasGreaterThanOrEqualMatchModifier()) {
-            return versionId.isLessThan(otherVersionId) || versionId.isEqualTo(otherVersionId);
+            return versionId.compareTo(otherVersionId) <= 0;
         }
 
         throw new IllegalStateException("Simple range is neither exact, nor prefix, nor less");
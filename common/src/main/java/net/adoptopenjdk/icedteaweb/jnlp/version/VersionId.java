@@ -19,6 +19,8 @@ package net.adoptopenjdk.icedteaweb.jnlp.version;
 import net.adoptopenjdk.icedteaweb.Assert;
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static java.lang.String.format;
 import static net.adoptopenjdk.icedteaweb.jnlp.version.JNLPVersionPatterns.REGEXP_SEPARATOR;
@@ -44,6 +46,13 @@ public class VersionId implements Comparable<VersionId> {
 
     private static final String ZERO_ELEMENT = "0";
 
+    /**
+     * Upper bound of the intern table. Versions parsed once the table is full are not interned.
+     */
+    private static final int MAX_INTERNED = 4096;
+
+    private static final ConcurrentMap<String, VersionId> INTERNED = new ConcurrentHashMap<>();
+
     private final String versionId;
 
     /**
@@ -54,13 +63,37 @@ public class VersionId implements Comparable<VersionId> {
      */
     private final String[] tuple;
 
+    /**
+     * Whether the element of the tuple at the same index is numeric, see {@link #prepareForComparison(String)}.
+     */
+    private final boolean[] numeric;
+
+    /**
+     * The value of the numeric elements of the tuple, {@code 0} for alphanumeric elements.
+     */
+    private final int[] numericValues;
+
+    private final int hashCode;
+
     private VersionId(final String versionId) {
         this.versionId = versionId;
         this.tuple = versionId.split(REGEXP_SEPARATOR);
+        this.numeric = new boolean[tuple.length];
+        this.numericValues = new int[tuple.length];
+        for (int i = 0; i < tuple.length; i++) {
+            final Object element = prepareForComparison(tuple[i]);
+            if (element instanceof Integer) {
+                numeric[i] = true;
+                numericValues[i] = (Integer) element;
+            }
+        }
+        this.hashCode = computeHashCode();
     }
 
     /**
      * Construct a version-id by the given {@code versionId}.
+     * <p>
+     * Version-ids are immutable and interned, parsing the same string again returns the same instance.
      *
      * @param versionId a version-id
      * @return a version-id
@@ -68,11 +101,21 @@ public class VersionId implements Comparable<VersionId> {
     public static VersionId fromString(final String versionId) {
         Assert.requireNonNull(versionId, "versionId");
 
+        final VersionId interned = INTERNED.get(versionId);
+        if (interned != null) {
+            return interned;
+        }
+
         if (!versionId.matches(REGEXP_VERSION_ID)) {
             throw new IllegalArgumentException(format("'%s' is not a valid version-id according to JSR-56, Appendix A.", versionId));
         }
 
-        return new VersionId(versionId);
+        final VersionId parsed = new VersionId(versionId);
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return parsed;
+        }
+        final VersionId existing = INTERNED.putIfAbsent(versionId, parsed);
+        return existing != null ? existing : parsed;
     }
 
     public VersionString asVersionString() {
@@ -101,32 +144,31 @@ public class VersionId implements Comparable<VersionId> {
 
     @Override
     public boolean equals(final Object otherVersionId) {
+        if (otherVersionId == this) {
+            return true;
+        }
         if (otherVersionId == null || otherVersionId.getClass() != VersionId.class) {
             return false;
         }
         final VersionId other = (VersionId) otherVersionId;
 
-        final String[] tuple1 = asNormalizedTuple(other.tuple.length);
-        final String[] tuple2 = other.asNormalizedTuple(tuple.length);
-
-        for (int i = 0; i < tuple1.length; i++) {
-            final Object element1 = prepareForComparison(tuple1[i]);
-            final Object element2 = prepareForComparison(tuple2[i]);
+        return hashCode == other.hashCode && compareNormalized(other) == 0;
+    }
 
-            if (!element1.equals(element2)) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * The hash code is computed from the normalized tuple, trailing zero elements are ignored.
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
     }
 
     @Override
     public int compareTo(final VersionId versionId) {
-        if (isEqualTo(versionId)) {
+        if (versionId == this) {
             return 0;
         }
-
-        return isLessThan(versionId) ? -1 : 1;
+        return Integer.signum(compareNormalized(versionId));
     }
 
     /**
@@ -147,17 +189,7 @@ public class VersionId implements Comparable<VersionId> {
     boolean isPrefixMatchOf(final VersionId otherVersionId) {
         Assert.requireNonNull(otherVersionId, "otherVersionId");
 
-        final String[] tuple2 = otherVersionId.asNormalizedTuple(tuple.length);
-
-        for (int i = 0; i < tuple.length; i++) {
-            final Object element1 = prepareForComparison(tuple[i]);
-            final Object element2 = prepareForComparison(tuple2[i]);
-
-            if (!element1.equals(element2)) {
-                return false; // no prefix matches als elements are different
-            }
-        }
-        return true;
+        return compareElements(otherVersionId, tuple.length) == 0;
     }
 
     /**
@@ -181,26 +213,62 @@ public class VersionId implements Comparable<VersionId> {
     boolean isLessThan(final VersionId otherVersionId) {
         Assert.requireNonNull(otherVersionId, "otherVersionId");
 
-        final String[] tuple1 = asNormalizedTuple(otherVersionId.tuple.length);
-        final String[] tuple2 = otherVersionId.asNormalizedTuple(tuple.length);
+        return compareNormalized(otherVersionId) < 0;
+    }
 
-        for (int i = 0; i < tuple1.length; i++) {
-            final Object element1 = prepareForComparison(tuple1[i]);
-            final Object element2 = prepareForComparison(tuple2[i]);
+    /**
+     * Compares the normalized tuples of this and the {@code otherVersionId} without creating them.
+     */
+    private int compareNormalized(final VersionId otherVersionId) {
+        return compareElements(otherVersionId, Math.max(tuple.length, otherVersionId.tuple.length));
+    }
 
-            if (element1.equals(element2)) {
-                continue;
-            }
-            if (element1 instanceof Integer && element2 instanceof String) {
-                return true;
+    /**
+     * Compares the first {@code length} elements of the normalized tuples of this and the {@code otherVersionId}.
+     *
+     * @return a negative int, zero, or a positive int as this version-id is less than, equal to or greater than
+     * the {@code otherVersionId} in the compared elements
+     */
+    private int compareElements(final VersionId otherVersionId, final int length) {
+        for (int i = 0; i < length; i++) {
+            final boolean numeric1 = isNumericElement(i);
+            final boolean numeric2 = otherVersionId.isNumericElement(i);
+
+            final int result;
+            if (numeric1 && numeric2) {
+                result = Integer.compare(numericElement(i), otherVersionId.numericElement(i));
+            } else if (numeric1) {
+                result = -1;
+            } else if (numeric2) {
+                result = 1;
+            } else {
+                result = tuple[i].compareTo(otherVersionId.tuple[i]);
             }
-            if (element1 instanceof String && element2 instanceof Integer) {
-                return false;
+            if (result != 0) {
+                return result;
             }
+        }
+        return 0;
+    }
 
-            return ((Comparable) element1).compareTo(element2) < 0;
+    private boolean isNumericElement(final int index) {
+        return index >= tuple.length || numeric[index]; // padded with zero elements
+    }
+
+    private int numericElement(final int index) {
+        return index < tuple.length ? numericValues[index] : 0;
+    }
+
+    private int computeHashCode() {
+        int length = tuple.length;
+        while (length > 0 && numeric[length - 1] && numericValues[length - 1] == 0) {
+            length--;
+        }
+        int result = 1;
+        for (int i = 0; i < length; i++) {
+            result = 31 * result + (numeric[i] ? numericValues[i] : tuple[i].hashCode());
         }
-        return false;
+        return result;
     }
 
     /**
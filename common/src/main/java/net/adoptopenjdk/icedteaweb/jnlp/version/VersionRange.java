@@ -138,7 +138,12 @@ public class VersionRange {
     public boolean contains(final VersionId versionId) {
         Assert.requireNonNull(versionId, "versionId");
 
-        return Arrays.stream(simpleRanges).allMatch(simpleRange -> simpleRange.contains(versionId));
+        for (SimpleRange simpleRange : simpleRanges) {
+            if (!simpleRange.contains(versionId)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     boolean isEqualTo(final VersionRange otherVersionRange) {
@@ -155,6 +160,11 @@ public class VersionRange {
         return Arrays.equals(simpleRanges, other.simpleRanges);
     }
 
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(simpleRanges);
+    }
+
     /**
      * Provides a string representation of this {@link VersionRange}.
      *
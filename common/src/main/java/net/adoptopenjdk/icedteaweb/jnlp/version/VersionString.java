@@ -19,6 +19,8 @@ package net.adoptopenjdk.icedteaweb.jnlp.version;
 import net.adoptopenjdk.icedteaweb.Assert;
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
@@ -46,16 +48,33 @@ import static net.adoptopenjdk.icedteaweb.jnlp.version.JNLPVersionPatterns.REGEX
  */
 public class VersionString {
 
+    /**
+     * Upper bound of the intern table. Version-strings parsed once the table is full are not interned.
+     */
+    private static final int MAX_INTERNED = 1024;
+
+    private static final ConcurrentMap<String, VersionString> INTERNED = new ConcurrentHashMap<>();
+
     public static VersionString ANY_VERSION = fromString("0+");
 
     private final VersionRange[] versionRanges;
 
+    private final String asString;
+
+    private final VersionIdComparator comparator;
+
     private VersionString(final VersionRange[] versionRanges) {
         this.versionRanges = versionRanges;
+        this.comparator = new VersionIdComparator(this);
+        this.asString = Arrays.stream(versionRanges)
+                .map(VersionRange::toString)
+                .collect(Collectors.joining(" "));
     }
 
     /**
      * Construct a version-string by the given {@code versionString}.
+     * <p>
+     * Version-strings are immutable and interned, parsing the same string again returns the same instance.
      *
      * @param versionString a version-string
      * @return a versionString
@@ -63,6 +82,20 @@ public class VersionString {
     public static VersionString fromString(final String versionString) {
         Assert.requireNonNull(versionString, "versionString");
 
+        final VersionString interned = INTERNED.get(versionString);
+        if (interned != null) {
+            return interned;
+        }
+
+        final VersionString parsed = parse(versionString);
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return parsed;
+        }
+        final VersionString existing = INTERNED.putIfAbsent(versionString, parsed);
+        return existing != null ? existing : parsed;
+    }
+
+    private static VersionString parse(final String versionString) {
         final String trimmed = versionString.trim();
         if (!trimmed.matches(REGEXP_VERSION_STRING)) {
             throw new IllegalArgumentException(format("'%s' is not a valid version-string according to JSR-56, Appendix A.", versionString));
@@ -119,7 +152,7 @@ public class VersionString {
     public boolean contains(final VersionId versionId) {
         Assert.requireNonNull(versionId, "versionId");
 
-        return Arrays.stream(versionRanges).anyMatch(range -> range.contains(versionId));
+        return indexOfFirstRangeContaining(versionId) < versionRanges.length;
     }
 
     /**
@@ -150,6 +183,13 @@ public class VersionString {
         return diff != 0 ? diff : versionId1.compareTo(versionId2);
     }
 
+    /**
+     * @return the comparator of version-ids in the context of this version-string, see {@link #compare(VersionId, VersionId)}
+     */
+    public VersionIdComparator comparator() {
+        return comparator;
+    }
+
     private int indexOfFirstRangeContaining(final VersionId versionId) {
         final int length = versionRanges.length;
         for (int i = 0; i < length; i++) {
@@ -162,6 +202,9 @@ public class VersionString {
 
     @Override
     public boolean equals(final Object otherVersionString) {
+        if (otherVersionString == this) {
+            return true;
+        }
         if (otherVersionString == null || otherVersionString.getClass() != VersionString.class) {
             return false;
         }
@@ -170,6 +213,11 @@ public class VersionString {
         return Arrays.equals(versionRanges, other.versionRanges);
     }
 
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(versionRanges);
+    }
+
     /**
      * Provides string representation of this version-string.
      *
@@ -177,8 +225,6 @@ public class VersionString {
      */
     @Override
     public String toString() {
-        return Arrays.stream(versionRanges)
-                .map(VersionRange::toString)
-                .collect(Collectors.joining(" "));
+        return asString;
     }
 }
@@ -0,0 +1,127 @@
+package net.adoptopenjdk.icedteaweb.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectionFactoryTest {
+
+    private static final byte[] BODY = "Hello".getBytes(UTF_8);
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+    private URL url;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            }
+        });
+        server.start();
+        url = new URL("http://localhost:" + server.getAddress().getPort() + "/resource.jar");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        ConnectionFactory.setBackend(ConnectionBackend.DISCONNECT);
+    }
+
+    @Test
+    public void keepAliveBackendReusesConnection() throws Exception {
+        ConnectionFactory.setBackend(ConnectionBackend.KEEP_ALIVE);
+
+        probe();
+        download();
+        probe();
+        download();
+
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void disconnectBackendWrapsHttpConnections() throws IOException {
+        ConnectionFactory.setBackend(ConnectionBackend.DISCONNECT);
+
+        try (CloseableConnection connection = ConnectionFactory.openConnection(url)) {
+            assertEquals(CloseableHttpConnection.class, connection.getClass());
+        }
+    }
+
+    @Test
+    public void keepAliveBackendWrapsHttpConnections() throws IOException {
+        ConnectionFactory.setBackend(ConnectionBackend.KEEP_ALIVE);
+
+        try (CloseableConnection connection = ConnectionFactory.openConnection(url)) {
+            assertTrue(connection instanceof KeepAliveHttpConnection);
+        }
+    }
+
+    @Test
+    public void backendIsSelectedByConfigValue() {
+        assertEquals(ConnectionBackend.KEEP_ALIVE, ConnectionBackend.fromConfigValue("keep-alive"));
+        assertEquals(ConnectionBackend.DISCONNECT, ConnectionBackend.fromConfigValue("DISCONNECT"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownConfigValueIsRejected() {
+        ConnectionBackend.fromConfigValue("http2");
+    }
+
+    /**
+     * Only reads the response code like a prober does and leaves the body unread.
+     */
+    private void probe() throws Exception {
+        try (CloseableConnection connection = ConnectionFactory.openConnection(url, HttpMethod.GET, Collections.emptyMap())) {
+            assertEquals(200, connection.getResponseCode());
+            waitForBodyToArrive(connection);
+        }
+    }
+
+    private void download() throws Exception {
+        try (CloseableConnection connection = ConnectionFactory.openConnection(url)) {
+            try (InputStream in = connection.getInputStream()) {
+                final byte[] buffer = new byte[BODY.length];
+                int read = 0;
+                while (read < buffer.length) {
+                    read += in.read(buffer, read, buffer.length - read);
+                }
+                assertEquals("Hello", new String(buffer, UTF_8));
+            }
+        }
+    }
+
+    /**
+     * The JDK skips the unread body while closing only if it has already arrived, otherwise it skips it in a
+     * background thread and the connection cannot be reused right away. The server sends the body in a separate
+     * segment which the TCP stack may hold back until the headers are acknowledged.
+     */
+    private static void waitForBodyToArrive(final CloseableConnection connection) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (connection.getInputStream().available() < BODY.length) {
+            assertTrue("body did not arrive", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -21,6 +21,9 @@ import org.junit.Test;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class VersionIdTest {
@@ -223,6 +226,29 @@ public class VersionIdTest {
         assertGreaterThan("1.0.0-build42", "1.0.0-42");
     }
 
+    @Test
+    public void testParsedVersionIdsAreInterned() {
+        assertSame(versionId("1.2.3-build42"), versionId("1.2.3-build42"));
+        assertNotSame(versionId("1.2"), versionId("1.2.0"));
+    }
+
+    @Test
+    public void testEqualVersionIdsHaveEqualHashCodes() {
+        assertEquals(versionId("1.2"), versionId("1.2.0.0"));
+        assertEquals(versionId("1.2").hashCode(), versionId("1.2.0.0").hashCode());
+        assertEquals(versionId("01.2-build"), versionId("1.02-build"));
+        assertEquals(versionId("01.2-build").hashCode(), versionId("1.02-build").hashCode());
+        assertNotEquals(versionId("1.2"), versionId("1.2.0-0A"));
+    }
+
+    @Test
+    public void testNumericElementsOutsideOfIntRangeAreAlphanumeric() {
+        assertGreaterThan("1.2147483648", "1.2147483647");
+        assertGreaterThan("1.99999999999", "1.5");
+        assertLessThan("1.99999999999", "1.A");
+        assertLessThan("1.10000000000", "1.9999999999");
+    }
+
     private void assertGreaterThan(String versionId1, String versionId2) {
         assertTrue(versionId(versionId1).compareTo(versionId(versionId2)) > 0);
     }
@@ -36,6 +36,8 @@ package net.adoptopenjdk.icedteaweb.client.parts.dialogs.security;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.Resource;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
 import net.adoptopenjdk.icedteaweb.ui.swing.SwingUtils;
 import net.adoptopenjdk.icedteaweb.ui.swing.dialogresults.AccessWarningPaneComplexReturn;
 import net.adoptopenjdk.icedteaweb.ui.swing.dialogresults.DialogResult;
@@ -289,6 +291,12 @@ public class SecurityDialogs {
      * indicates success/proceed, and everything else indicates failure
      */
     private static DialogResult getUserResponse(final SecurityDialogMessage message) {
+        try (TraceSpan ignored = LaunchTrace.span("security", "securityDialog").withDetail("type", message.dialogType)) {
+            return showAndWaitForUserResponse(message);
+        }
+    }
+
+    private static DialogResult showAndWaitForUserResponse(final SecurityDialogMessage message) {
         /*
          * Want to show a security warning, while blocking the client
          * application. This would be easy except there is a bug in showing
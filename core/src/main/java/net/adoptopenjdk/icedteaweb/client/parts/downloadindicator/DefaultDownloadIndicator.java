@@ -18,6 +18,8 @@ package net.adoptopenjdk.icedteaweb.client.parts.downloadindicator;
 
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.DownloadProgress;
+import net.adoptopenjdk.icedteaweb.resources.DownloadProgressListener;
 import net.adoptopenjdk.icedteaweb.ui.swing.ScreenFinder;
 import net.adoptopenjdk.icedteaweb.ui.swing.SwingUtils;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
@@ -201,7 +203,7 @@ public class DefaultDownloadIndicator implements DownloadIndicator {
     /**
      * Groups the url progress in a panel.
      */
-    static class DownloadPanel extends JPanel implements DownloadServiceListener {
+    static class DownloadPanel extends JPanel implements DownloadServiceListener, DownloadProgressListener {
         private final DownloadPanel self;
 
         private enum States{
@@ -226,6 +228,9 @@ public class DefaultDownloadIndicator implements DownloadIndicator {
         private final List<ProgressPanel> progressPanels = new ArrayList<>();
         private States state=States.ONE_JAR;
         private ProgressPanel mainProgressPanel;
+        /** transfer rate and remaining time shown after the overall percent, only changed in the EDT */
+        private String rate = "";
+        private int overallPercent = 0;
         
         /** list of URLs being downloaded */
         private final List<URL> urls = new ArrayList<>();
@@ -348,7 +353,8 @@ public class DefaultDownloadIndicator implements DownloadIndicator {
             // don't get whole string from resource and sub in
             // values because it'll be doing a MessageFormat for
             // each update.
-            String s = downloading + " " + downloadName + ": " + percent + "% " + complete + ".";
+            overallPercent = percent;
+            String s = downloading + " " + downloadName + ": " + percent + "% " + complete + "." + rate;
             if (JNLPRuntime.isHeadless()){
                 LOG.info(s);
             }
@@ -385,6 +391,32 @@ public class DefaultDownloadIndicator implements DownloadIndicator {
             update(url, version, readSoFar, total, overallPercent);
         }
 
+        /**
+         * Called with the aggregated progress of all resources, shows the transfer rate and remaining time.
+         */
+        @Override
+        public void progress(final DownloadProgress progress) {
+            final String newRate = formatRate(progress);
+            SwingUtils.invokeLater(() -> {
+                if (!newRate.equals(rate)) {
+                    rate = newRate;
+                    setOverallPercent(overallPercent);
+                }
+            });
+        }
+
+        static String formatRate(final DownloadProgress progress) {
+            final long kiloBytesPerSecond = progress.getBytesPerSecond() / 1024;
+            if (progress.getOverallPercent() >= 100 || kiloBytesPerSecond <= 0) {
+                return "";
+            }
+            if (progress.getEtaMillis() == DownloadProgress.UNKNOWN) {
+                return " " + R("CDownloadRate", kiloBytesPerSecond);
+            }
+            final long remainingSeconds = (progress.getEtaMillis() + 999) / 1000;
+            return " " + R("CDownloadRateRemaining", kiloBytesPerSecond, remainingSeconds);
+        }
+
         /**
          * Called when an archive is patched.
          */
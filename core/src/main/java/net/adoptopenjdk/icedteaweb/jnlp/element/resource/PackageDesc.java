@@ -71,7 +71,7 @@ public class PackageDesc {
         if (name.endsWith(ASTERIX_SUFFIX)) {
             final String pkName = name.substring(0, name.length() - 1);
             if (className.startsWith(pkName)) {
-                String postfix = className.substring(pkName.length() + 1);
+                String postfix = className.substring(pkName.length());
                 return recursive || !postfix.contains(".");
             }
         }
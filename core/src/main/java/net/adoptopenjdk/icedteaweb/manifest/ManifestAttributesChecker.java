@@ -371,7 +371,7 @@ public class ManifestAttributesChecker {
             return;
         }
         final Set<URL> notOkUrls = new HashSet<>();
-        final boolean skipResourcesFromFileSystem = Boolean.parseBoolean(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_ASSUME_FILE_STEM_IN_CODEBASE));
+        final boolean skipResourcesFromFileSystem = JNLPRuntime.getConfiguration().getSnapshot().isAssumeFileStemInCodebase();
         for (URL u : usedUrls.keySet()) {
             if (UrlUtils.urlRelativeTo(u, codebase)) {
                 LOG.debug("OK - '{}' is from codebase '{}'.", u, codebase);
@@ -33,9 +33,13 @@ import java.net.URL;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.Attributes.Name;
 import java.util.jar.Manifest;
+import java.util.stream.Collectors;
 
 /**
  * This class allows to read the security and configuration attributes specified in the JAR file manifest.
@@ -47,6 +51,7 @@ public class ManifestAttributesReader {
     private final static Logger LOG = LoggerFactory.getLogger(ManifestAttributesReader.class);
 
     private final JNLPFile jnlpFile;
+    private final Map<String, CompiledCodebase> compiledCodebases = new ConcurrentHashMap<>();
     private JNLPClassLoader loader;
 
     public ManifestAttributesReader(final JNLPFile jnlpFile) {
@@ -154,7 +159,31 @@ public class ManifestAttributesReader {
         if (value == null) {
             return null;
         }
-        return ClasspathMatcher.ClasspathMatchers.compile(value, includePath);
+        final CompiledCodebase cached = compiledCodebases.get(name);
+        if (cached != null && cached.isCompiledFrom(value)) {
+            return cached.matchers;
+        }
+        final CompiledCodebase compiled = new CompiledCodebase(value, ClasspathMatcher.ClasspathMatchers.compile(value, includePath));
+        compiledCodebases.put(name, compiled);
+        return compiled.matchers;
+    }
+
+    /**
+     * The matchers compiled from a manifest attribute value. They are kept together with the value so they
+     * are compiled only once and keep their memoized decisions for as long as the manifest does not change.
+     */
+    private static class CompiledCodebase {
+        private final String value;
+        private final ClasspathMatcher.ClasspathMatchers matchers;
+
+        private CompiledCodebase(final String value, final ClasspathMatcher.ClasspathMatchers matchers) {
+            this.value = value;
+            this.matchers = matchers;
+        }
+
+        private boolean isCompiledFrom(final String otherValue) {
+            return Objects.equals(value, otherValue);
+        }
     }
 
     /**
@@ -205,7 +234,11 @@ public class ManifestAttributesReader {
             LOG.debug("Jars not ready to provide attribute {}", name);
             return null;
         }
-        return getAttributeFromJars(name, Arrays.asList(jnlpFile.getResources().getJARs()), loader.getTracker());
+        // deferred jars are not consulted as reading them would download them
+        final List<JARDesc> jars = Arrays.stream(jnlpFile.getResources().getJARs())
+                .filter(jar -> !loader.isDeferred(jar))
+                .collect(Collectors.toList());
+        return getAttributeFromJars(name, jars, loader.getTracker());
     }
 
     private ManifestBoolean getBooleanAttribute(final String name) throws IllegalArgumentException {
@@ -0,0 +1,74 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.CachedDaemonThreadPoolProvider.DaemonThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Downloads resources in the background while the application is running.
+ * <p>
+ * Resources are downloaded one at a time in the order they were queued on low priority threads.
+ * While a resource is prefetched it is marked as {@link Resource#isBackgroundDownload() background download}
+ * which limits the bandwidth used. A resource which is requested while it is still queued is downloaded
+ * immediately by the requesting thread and skipped by the prefetcher. A resource which is requested while
+ * it is prefetched is promoted to a regular download.
+ * </p>
+ */
+class BackgroundPrefetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BackgroundPrefetcher.class);
+
+    private static final ExecutorService QUEUE = Executors.newSingleThreadExecutor(new LowPriorityThreadFactory());
+    private static final ExecutorService DOWNLOADER = Executors.newSingleThreadExecutor(new LowPriorityThreadFactory());
+
+    private BackgroundPrefetcher() {
+    }
+
+    /**
+     * Queues a resource for background download.
+     *
+     * @param resource the resource to prefetch
+     */
+    static void prefetch(final Resource resource) {
+        if (resource.isComplete() || resource.isBeingProcessed()) {
+            return;
+        }
+        QUEUE.execute(() -> download(resource));
+    }
+
+    private static void download(final Resource resource) {
+        if (resource.isComplete() || resource.isBeingProcessed()) {
+            LOG.debug("Skipping prefetch of {} as it has already been requested", resource.getSimpleName());
+            return;
+        }
+
+        LOG.debug("Prefetching {} in the background", resource.getSimpleName());
+        resource.setBackgroundDownload(true);
+        try {
+            final Future<Resource> future = new ResourceHandler(resource).putIntoCache(DOWNLOADER);
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.debug("Prefetch of {} failed - {}", resource.getSimpleName(), e.getMessage());
+        } finally {
+            resource.setBackgroundDownload(false);
+        }
+    }
+
+    private static class LowPriorityThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate = new DaemonThreadFactory();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = delegate.newThread(r);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+/**
+ * The priority of a download. Queued downloads are started in the order of their priority and
+ * downloads of the same priority in the order they were scheduled. Lazy jars are not scheduled by priority,
+ * they are downloaded on demand or by {@link ResourceTracker#prefetchInBackground(java.net.URL...)}.
+ *
+ * @see ResourceTracker#addResource(java.net.URL, net.adoptopenjdk.icedteaweb.jnlp.version.VersionString, UpdatePolicy, DownloadPriority)
+ */
+public enum DownloadPriority {
+
+    /**
+     * A thread is blocked waiting for the resource.
+     */
+    REQUESTED,
+
+    /**
+     * The jar containing the main class of the application.
+     */
+    MAIN,
+
+    /**
+     * A jar the previous launch of the application needed during its startup.
+     */
+    STARTUP,
+
+    /**
+     * An eager jar of the part the main jar belongs to.
+     */
+    EAGER_MAIN_PART,
+
+    /**
+     * Any other eager jar and all resources added without a priority.
+     */
+    EAGER
+}
@@ -0,0 +1,73 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+/**
+ * Immutable snapshot of the aggregated progress of a group of downloads.
+ *
+ * @see DownloadProgressAggregator
+ */
+public class DownloadProgress {
+
+    /** Value of the ETA if it cannot be estimated. */
+    public static final long UNKNOWN = -1;
+
+    private final long transferred;
+    private final long totalSize;
+    private final int overallPercent;
+    private final long bytesPerSecond;
+    private final long etaMillis;
+
+    DownloadProgress(final long transferred, final long totalSize, final int overallPercent, final long bytesPerSecond, final long etaMillis) {
+        this.transferred = transferred;
+        this.totalSize = totalSize;
+        this.overallPercent = overallPercent;
+        this.bytesPerSecond = bytesPerSecond;
+        this.etaMillis = etaMillis;
+    }
+
+    /**
+     * @return the number of bytes transferred over all resources.
+     */
+    public long getTransferred() {
+        return transferred;
+    }
+
+    /**
+     * @return the total size in bytes of all resources or {@link #UNKNOWN} if the size of at least one
+     * incomplete resource is not known.
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * @return the overall completion in percent (0 - 100).
+     */
+    public int getOverallPercent() {
+        return overallPercent;
+    }
+
+    /**
+     * @return the smoothed aggregate transfer rate in bytes per second.
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return the estimated time in milliseconds until all downloads are complete or {@link #UNKNOWN}.
+     */
+    public long getEtaMillis() {
+        return etaMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "DownloadProgress{" +
+                "transferred=" + transferred +
+                ", totalSize=" + totalSize +
+                ", overallPercent=" + overallPercent +
+                ", bytesPerSecond=" + bytesPerSecond +
+                ", etaMillis=" + etaMillis +
+                '}';
+    }
+}
@@ -0,0 +1,195 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.CachedDaemonThreadPoolProvider.DaemonThreadFactory;
+
+import javax.jnlp.DownloadServiceListener;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static net.adoptopenjdk.icedteaweb.resources.DownloadProgress.UNKNOWN;
+import static net.adoptopenjdk.icedteaweb.resources.Resource.Status.ERROR;
+
+/**
+ * Publishes the progress of a group of resources to a {@link DownloadServiceListener}.
+ * <p>
+ * Download threads only update the counters of their {@link Resource} and never call a listener.
+ * A single shared ticker thread reads the counters at a bounded rate and publishes coalesced snapshots.
+ * For each resource only the latest state is reported and only if it has changed since the last snapshot.
+ * If the listener also implements {@link DownloadProgressListener} it additionally receives the aggregated
+ * {@link DownloadProgress} including the transfer rate and the estimated time of arrival.
+ * </p>
+ */
+class DownloadProgressAggregator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadProgressAggregator.class);
+
+    static final long PUBLISH_INTERVAL_MILLIS = 100;
+
+    /** weight of the latest measurement in the smoothed transfer rate */
+    private static final double RATE_SMOOTHING = 0.3d;
+
+    private static final ScheduledExecutorService TICKER = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+
+    private final Resource[] resources;
+    private final DownloadServiceListener listener;
+    private final LongSupplier clock;
+
+    private final long[] reportedTransferred;
+    private final long[] reportedSize;
+    private final boolean[] reportedFailure;
+
+    private long lastTransferred = 0;
+    private long lastPublishedAt;
+    private double bytesPerSecond = 0.0d;
+
+    private ScheduledFuture<?> tick;
+
+    DownloadProgressAggregator(final Resource[] resources, final DownloadServiceListener listener) {
+        this(resources, listener, System::currentTimeMillis);
+    }
+
+    DownloadProgressAggregator(final Resource[] resources, final DownloadServiceListener listener, final LongSupplier clock) {
+        this.resources = Assert.requireNonNull(resources, "resources");
+        this.listener = Assert.requireNonNull(listener, "listener");
+        this.clock = Assert.requireNonNull(clock, "clock");
+        this.reportedTransferred = new long[resources.length];
+        this.reportedSize = new long[resources.length];
+        this.reportedFailure = new boolean[resources.length];
+        for (int i = 0; i < resources.length; i++) {
+            reportedTransferred[i] = -1;
+            reportedSize[i] = -2;
+        }
+        this.lastPublishedAt = clock.getAsLong();
+    }
+
+    /**
+     * Starts publishing snapshots periodically on the shared ticker thread.
+     */
+    synchronized void start() {
+        if (tick == null) {
+            tick = TICKER.scheduleWithFixedDelay(this::publishQuietly, 0, PUBLISH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic publishing and publishes a final snapshot on the calling thread.
+     */
+    void stop() {
+        synchronized (this) {
+            if (tick != null) {
+                tick.cancel(false);
+                tick = null;
+            }
+        }
+        publishQuietly();
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (Exception e) {
+            LOG.debug("Download progress listener failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the current state of all resources and notifies the listener about changes.
+     *
+     * @return the aggregated progress
+     */
+    synchronized DownloadProgress publish() {
+        final DownloadProgress progress = snapshot();
+
+        for (int i = 0; i < resources.length; i++) {
+            final Resource resource = resources[i];
+            final String version = versionOf(resource);
+
+            if (resource.isSet(ERROR)) {
+                if (!reportedFailure[i]) {
+                    reportedFailure[i] = true;
+                    listener.downloadFailed(resource.getLocation(), version);
+                }
+                continue;
+            }
+
+            final long transferred = resource.getTransferred();
+            final long size = resource.getSize();
+            if (transferred != reportedTransferred[i] || size != reportedSize[i]) {
+                reportedTransferred[i] = transferred;
+                reportedSize[i] = size;
+                listener.progress(resource.getLocation(), version, transferred, size, progress.getOverallPercent());
+            }
+        }
+
+        if (listener instanceof DownloadProgressListener) {
+            ((DownloadProgressListener) listener).progress(progress);
+        }
+        return progress;
+    }
+
+    private DownloadProgress snapshot() {
+        long transferred = 0;
+        long totalSize = 0;
+        double percentSum = 0.0d;
+
+        for (final Resource resource : resources) {
+            final long resourceTransferred = resource.getTransferred();
+            final long resourceSize = resource.getSize();
+            transferred += resourceTransferred;
+
+            if (resource.isComplete()) {
+                percentSum += 100.0d;
+                totalSize = totalSize < 0 ? totalSize : totalSize + Math.max(resourceSize, resourceTransferred);
+            } else if (resourceSize > 0) {
+                percentSum += Math.max(0.0d, Math.min(100.0d, (100.0d * resourceTransferred) / resourceSize));
+                totalSize = totalSize < 0 ? totalSize : totalSize + resourceSize;
+            } else {
+                totalSize = UNKNOWN;
+            }
+        }
+
+        final int overallPercent = resources.length == 0 ? 100 : (int) (percentSum / resources.length);
+        updateRate(transferred);
+        final long eta = estimateRemainingMillis(transferred, totalSize);
+
+        return new DownloadProgress(transferred, totalSize, overallPercent, (long) bytesPerSecond, eta);
+    }
+
+    private void updateRate(final long transferred) {
+        final long now = clock.getAsLong();
+        final long elapsed = now - lastPublishedAt;
+        if (elapsed <= 0) {
+            return;
+        }
+        final double currentRate = (1000.0d * Math.max(0, transferred - lastTransferred)) / elapsed;
+        bytesPerSecond = bytesPerSecond == 0.0d ? currentRate : RATE_SMOOTHING * currentRate + (1 - RATE_SMOOTHING) * bytesPerSecond;
+        lastTransferred = transferred;
+        lastPublishedAt = now;
+    }
+
+    private long estimateRemainingMillis(final long transferred, final long totalSize) {
+        if (totalSize < 0) {
+            return UNKNOWN;
+        }
+        final long remaining = Math.max(0, totalSize - transferred);
+        if (remaining == 0) {
+            return 0;
+        }
+        if (bytesPerSecond < 1.0d) {
+            return UNKNOWN;
+        }
+        return (long) ((1000.0d * remaining) / bytesPerSecond);
+    }
+
+    private static String versionOf(final Resource resource) {
+        final VersionString version = resource.getRequestVersion();
+        return version != null ? version.toString() : null;
+    }
+}
@@ -0,0 +1,19 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+/**
+ * Optional extension of a {@link javax.jnlp.DownloadServiceListener} which is interested in the aggregated
+ * progress of all resources of a download.
+ * <p>
+ * The listener is called from the publishing thread of the {@link DownloadProgressAggregator} and never from
+ * a download thread.
+ * </p>
+ */
+public interface DownloadProgressListener {
+
+    /**
+     * Called after the per resource progress of a snapshot has been published.
+     *
+     * @param progress the aggregated progress
+     */
+    void progress(DownloadProgress progress);
+}
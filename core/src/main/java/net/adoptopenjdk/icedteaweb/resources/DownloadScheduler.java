@@ -0,0 +1,126 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.CachedDaemonThreadPoolProvider.DaemonThreadFactory;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the downloads of all {@link ResourceTracker resource trackers} on a shared, bounded pool of daemon threads.
+ * <p>
+ * Downloads which can not be started right away are queued by their {@link DownloadPriority}. The priority of a
+ * queued download can be raised when somebody starts waiting for the resource. A thread waiting for a resource which
+ * is still queued takes the download out of the queue and runs it itself. Therefore a waiting thread never depends
+ * on a free pool thread.
+ * </p>
+ */
+class DownloadScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadScheduler.class);
+
+    private static DownloadScheduler instance;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+
+    DownloadScheduler(final int threadCount) {
+        executor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), new DaemonThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return the scheduler with as many threads as configured by {@link ConfigurationConstants#KEY_PARALLEL_RESOURCE_DOWNLOAD_COUNT}
+     */
+    static synchronized DownloadScheduler getInstance() {
+        if (instance == null) {
+            final String threadCount = JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_PARALLEL_RESOURCE_DOWNLOAD_COUNT);
+            instance = new DownloadScheduler(Integer.parseInt(threadCount));
+        }
+        return instance;
+    }
+
+    /**
+     * @param resource the resource which is downloaded by the tasks passed to the executor
+     * @param priority the priority of the download
+     * @return an executor which schedules the download of the resource with the given priority
+     */
+    Executor executorFor(final Resource resource, final DownloadPriority priority) {
+        Assert.requireNonNull(resource, "resource");
+        Assert.requireNonNull(priority, "priority");
+        return task -> executor.execute(new ScheduledDownload(resource, priority, sequence.getAndIncrement(), task));
+    }
+
+    /**
+     * Raises the priority of the queued download of the resource. Does nothing if the download is not queued
+     * or already has the same or a higher priority.
+     *
+     * @param resource the resource
+     * @param priority the new priority
+     */
+    void promote(final Resource resource, final DownloadPriority priority) {
+        final ScheduledDownload queued = findQueued(resource);
+        if (queued != null && priority.compareTo(queued.priority) < 0 && executor.remove(queued)) {
+            LOG.debug("Promoting download of {} from {} to {}", resource.getSimpleName(), queued.priority, priority);
+            executor.execute(new ScheduledDownload(resource, priority, queued.sequence, queued.task));
+        }
+    }
+
+    /**
+     * Runs the download of the resource in the calling thread if it is still queued.
+     *
+     * @param resource the resource
+     * @return {@code true} if the download was queued and has been run
+     */
+    boolean runIfQueued(final Resource resource) {
+        final ScheduledDownload queued = findQueued(resource);
+        if (queued != null && executor.remove(queued)) {
+            LOG.debug("Downloading {} in the waiting thread", resource.getSimpleName());
+            queued.run();
+            return true;
+        }
+        return false;
+    }
+
+    private ScheduledDownload findQueued(final Resource resource) {
+        for (Runnable queued : executor.getQueue()) {
+            final ScheduledDownload download = (ScheduledDownload) queued;
+            if (download.resource == resource) {
+                return download;
+            }
+        }
+        return null;
+    }
+
+    private static class ScheduledDownload implements Runnable, Comparable<ScheduledDownload> {
+        private final Resource resource;
+        private final DownloadPriority priority;
+        private final long sequence;
+        private final Runnable task;
+
+        private ScheduledDownload(final Resource resource, final DownloadPriority priority, final long sequence, final Runnable task) {
+            this.resource = resource;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(final ScheduledDownload other) {
+            final int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
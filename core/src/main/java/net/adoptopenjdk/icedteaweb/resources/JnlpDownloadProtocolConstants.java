@@ -8,6 +8,10 @@ public interface JnlpDownloadProtocolConstants {
     String CONTENT_ENCODING_HEADER = "Content-Encoding";
     String CONTENT_TYPE_HEADER = "Content-Type";
     String LAST_MODIFIED_HEADER = "Last-Modified";
+    String ETAG_HEADER = "ETag";
+    String RANGE_HEADER = "Range";
+    String IF_RANGE_HEADER = "If-Range";
+    String CONTENT_RANGE_HEADER = "Content-Range";
 
     String VERSION_ID_HEADER = "x-java-jnlp-version-id";
 
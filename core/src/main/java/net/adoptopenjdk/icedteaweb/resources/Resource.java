@@ -19,10 +19,7 @@ package net.adoptopenjdk.icedteaweb.resources;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
 import net.sourceforge.jnlp.DownloadOptions;
 import net.sourceforge.jnlp.util.UrlUtils;
-import net.sourceforge.jnlp.util.WeakList;
 
-import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
 import java.io.File;
 import java.net.URL;
 import java.util.Objects;
@@ -50,12 +47,8 @@ import java.util.concurrent.Future;
  */
 public class Resource {
 
-    /** list of weak references of resources currently in use */
-    private static final WeakList<Resource> resources = new WeakList<>();
-    public static final String SIZE_PROPERTY = "size";
-    public static final String TRANSFERRED_PROPERTY = "transferred";
-
-    private final PropertyChangeSupport propertyChangeSupport;
+    /** weak interning table of resources currently in use */
+    private static final ResourceRegistry resources = new ResourceRegistry();
 
     public enum Status {
         INCOMPLETE,
@@ -90,6 +83,12 @@ public class Resource {
     /** the status of the resource */
     private volatile Status status = Status.INCOMPLETE;
 
+    /** whether the resource is downloaded in the background */
+    private volatile boolean backgroundDownload = false;
+
+    /** whether anybody has been waiting for the resource */
+    private volatile boolean requested = false;
+
     /**
      * Create a resource.
      */
@@ -98,15 +97,6 @@ public class Resource {
         this.requestVersion = requestVersion;
         this.downloadOptions = downloadOptions;
         this.updatePolicy = updatePolicy;
-        this.propertyChangeSupport = new PropertyChangeSupport(this);
-    }
-
-    public void addPropertyChangeListener(String propertyName, PropertyChangeListener listener) {
-        this.propertyChangeSupport.addPropertyChangeListener(propertyName, listener);
-    }
-
-    public void addPropertyChangeListener(PropertyChangeListener listener) {
-        this.propertyChangeSupport.addPropertyChangeListener(listener);
     }
 
     /**
@@ -120,24 +110,7 @@ public class Resource {
      * @return new resource, which is already added in resources list
      */
     static Resource createResource(final URL location, final VersionString requestVersion, final DownloadOptions downloadOptions, final UpdatePolicy updatePolicy) {
-        synchronized (resources) {
-            Resource resource = new Resource(location, requestVersion, downloadOptions, updatePolicy);
-
-            //FIXME - url ignores port during its comparison
-            //this may affect test-suites
-            int index = resources.indexOf(resource);
-            if (index >= 0) { // return existing object
-                Resource result = resources.get(index);
-                if (result != null) {
-                    return result;
-                }
-            }
-
-            resources.add(resource);
-            resources.trimToSize();
-
-            return resource;
-        }
+        return resources.getOrCreate(location, requestVersion, () -> new Resource(location, requestVersion, downloadOptions, updatePolicy));
     }
 
     /**
@@ -180,14 +153,14 @@ public class Resource {
     }
 
     /**
-     * Sets the amount transferred
+     * Sets the amount transferred.
+     * This is called from the download thread and does not notify any listeners.
+     * The progress is published by the {@link DownloadProgressAggregator}.
      *
      * @param transferred set the whole transferred amount to this value
      */
     public void setTransferred(long transferred) {
-        final long oldTransferred = this.transferred;
         this.transferred = transferred;
-        this.propertyChangeSupport.firePropertyChange(TRANSFERRED_PROPERTY, oldTransferred, this.transferred);
     }
 
     /**
@@ -205,9 +178,28 @@ public class Resource {
      * @param size desired size of resource
      */
     public void setSize(long size) {
-        final long oldSize = this.size;
         this.size = size;
-        this.propertyChangeSupport.firePropertyChange(SIZE_PROPERTY, oldSize, this.size);
+    }
+
+    /**
+     * @return true if the resource is prefetched in the background and nobody waits for it
+     */
+    public boolean isBackgroundDownload() {
+        return backgroundDownload && !requested;
+    }
+
+    /**
+     * @param backgroundDownload true while the resource is prefetched in the background
+     */
+    void setBackgroundDownload(boolean backgroundDownload) {
+        this.backgroundDownload = backgroundDownload;
+    }
+
+    /**
+     * Promotes a background download to a regular download as somebody is waiting for the resource.
+     */
+    void markAsRequested() {
+        this.requested = true;
     }
 
     boolean isBeingProcessed() {
@@ -9,6 +9,8 @@ import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.downloader.ResourceDownloader;
 import net.adoptopenjdk.icedteaweb.resources.initializer.InitializationResult;
 import net.adoptopenjdk.icedteaweb.resources.initializer.ResourceInitializer;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
 import net.sourceforge.jnlp.cache.CacheUtil;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
 import net.sourceforge.jnlp.util.whitelist.UrlWhiteListUtils;
@@ -109,10 +111,16 @@ class ResourceHandler {
     private Resource downloadResource() {
         LOG.debug("Download of resource {} will start now!", resource.getSimpleName());
         final ResourceInitializer initializer = ResourceInitializer.of(resource);
-        final InitializationResult initResult = initializer.init();
+        final InitializationResult initResult;
+        try (TraceSpan ignored = LaunchTrace.span("download", "initialize").withResource(resource.getLocation())) {
+            initResult = initializer.init();
+        }
         if (initResult.needsDownload()) {
             final ResourceDownloader downloader = ResourceDownloader.of(resource, initResult.getDownloadUrls());
-            downloader.download();
+            try (TraceSpan span = LaunchTrace.span("download", "download").withResource(resource.getLocation())) {
+                downloader.download();
+                span.withBytes(resource.getTransferred());
+            }
         }
         return resource;
     }
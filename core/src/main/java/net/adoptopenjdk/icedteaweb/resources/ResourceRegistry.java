@@ -0,0 +1,140 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.sourceforge.jnlp.util.UrlUtils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent interning table for {@link Resource Resources}.
+ * <p>
+ * Resources are keyed by their normalized location and the requested version. The table only holds weak references
+ * to the resources. Entries of resources which have been garbage collected are removed from the table using a
+ * {@link ReferenceQueue}.
+ * </p>
+ * <p>
+ * The key is built from the string representation of the location. Therefore lookups never call
+ * {@link URL#equals(Object)} or {@link URL#hashCode()} which may perform a DNS lookup.
+ * </p>
+ */
+class ResourceRegistry {
+
+    private final ConcurrentMap<Key, ResourceReference> table = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<Resource> staleReferences = new ReferenceQueue<>();
+
+    /**
+     * Returns the resource registered for the given location and version.
+     * If no such resource is alive the factory is called to create a new resource which is then registered.
+     *
+     * @param location the location of the resource
+     * @param version  the requested version of the resource
+     * @param factory  creates a new resource if no matching resource is registered
+     * @return the registered resource
+     */
+    Resource getOrCreate(final URL location, final VersionString version, final Supplier<Resource> factory) {
+        expungeStaleEntries();
+
+        final Key key = new Key(location, version);
+        final Resource[] result = new Resource[1];
+        table.compute(key, (k, reference) -> {
+            final Resource existing = reference != null ? reference.get() : null;
+            if (existing != null) {
+                result[0] = existing;
+                return reference;
+            }
+            result[0] = Objects.requireNonNull(factory.get(), "factory returned null");
+            return new ResourceReference(k, result[0], staleReferences);
+        });
+        return result[0];
+    }
+
+    /**
+     * @return the number of entries in the table, including entries of already collected resources
+     * which have not been expunged yet.
+     */
+    int size() {
+        return table.size();
+    }
+
+    void expungeStaleEntries() {
+        Reference<? extends Resource> reference;
+        while ((reference = staleReferences.poll()) != null) {
+            final ResourceReference resourceReference = (ResourceReference) reference;
+            table.remove(resourceReference.key, resourceReference);
+        }
+    }
+
+    private static class ResourceReference extends WeakReference<Resource> {
+        private final Key key;
+
+        private ResourceReference(final Key key, final Resource resource, final ReferenceQueue<Resource> queue) {
+            super(resource, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Key of a resource. Protocol and host are compared case insensitive, all other parts of the location are
+     * compared case sensitive. The port is normalized so an explicitly specified default port matches a
+     * location without port.
+     */
+    private static class Key {
+        private final String location;
+        private final String version;
+        private final int hashCode;
+
+        private Key(final URL location, final VersionString version) {
+            this.location = normalize(location);
+            this.version = version != null ? version.toString() : null;
+            this.hashCode = Objects.hash(this.location, this.version);
+        }
+
+        private static String normalize(final URL location) {
+            final URL normalized = UrlUtils.normalizeUrlQuietly(location);
+            final StringBuilder sb = new StringBuilder();
+            sb.append(lowerCase(normalized.getProtocol())).append("://");
+            sb.append(lowerCase(normalized.getHost()));
+            sb.append(':').append(UrlUtils.getSanitizedPort(normalized));
+            sb.append(normalized.getPath());
+            if (normalized.getQuery() != null) {
+                sb.append('?').append(normalized.getQuery());
+            }
+            if (normalized.getRef() != null) {
+                sb.append('#').append(normalized.getRef());
+            }
+            return sb.toString();
+        }
+
+        private static String lowerCase(final String s) {
+            return s != null ? s.toLowerCase(Locale.ENGLISH) : "";
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return hashCode == other.hashCode
+                    && location.equals(other.location)
+                    && Objects.equals(version, other.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
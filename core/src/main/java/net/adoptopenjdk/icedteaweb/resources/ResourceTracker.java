@@ -20,27 +20,23 @@ import net.adoptopenjdk.icedteaweb.Assert;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
-import net.adoptopenjdk.icedteaweb.resources.CachedDaemonThreadPoolProvider.DaemonThreadFactory;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
 import net.sourceforge.jnlp.DownloadOptions;
 import net.sourceforge.jnlp.cache.CacheUtil;
-import net.sourceforge.jnlp.config.ConfigurationConstants;
-import net.sourceforge.jnlp.runtime.JNLPRuntime;
 import net.sourceforge.jnlp.util.UrlUtils;
 
 import javax.jnlp.DownloadServiceListener;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 
 import static net.adoptopenjdk.icedteaweb.resources.Resource.Status.ERROR;
 import static net.adoptopenjdk.icedteaweb.resources.Resource.createResource;
@@ -60,14 +56,12 @@ import static net.sourceforge.jnlp.util.UrlUtils.normalizeUrlQuietly;
  * tracker.
  * </p>
  * <p>
- * Multiple threads are used to download and cache resources that
- * are actively being waited for (blocking a caller) or those that
- * have been started downloading by calling the startDownload
- * method.  Resources that are prefetched are downloaded one at a
- * time and only if no other trackers have requested downloads.
- * This allows the tracker to start downloading many items without
- * using many system resources, but still quickly download items
- * as needed.
+ * The downloads of all trackers share a bounded pool of threads.
+ * Prefetched resources are queued by their {@link DownloadPriority},
+ * so the main jar is downloaded before the eager jars of its part
+ * and those before any other jar. A resource which is actively
+ * waited for (blocking a caller) is moved to the front of the queue
+ * or downloaded by the waiting thread itself.
  * </p>
  *
  * @author <a href="mailto:jmaxwell@users.sourceforge.net">Jon A. Maxwell (JAM)</a> - initial author
@@ -147,7 +141,22 @@ public class ResourceTracker {
      * @param updatePolicy whether to check for updates if already in cache
      */
     public void addResource(URL location, final VersionString version, final UpdatePolicy updatePolicy) {
+        addResource(location, version, updatePolicy, DownloadPriority.EAGER);
+    }
+
+    /**
+     * Add a resource identified by the specified location and version. If this tracker prefetches
+     * resources the download is scheduled with the given priority. If the resource is already
+     * queued for download with a lower priority its priority is raised.
+     *
+     * @param location     the location of the resource
+     * @param version      the resource version
+     * @param updatePolicy whether to check for updates if already in cache
+     * @param priority     the priority of the download
+     */
+    public void addResource(URL location, final VersionString version, final UpdatePolicy updatePolicy, final DownloadPriority priority) {
         Assert.requireNonNull(location, "location");
+        Assert.requireNonNull(priority, "priority");
         LOG.debug("Will add resource at location '{}'", location);
 
 
@@ -155,7 +164,54 @@ public class ResourceTracker {
         final Resource resource = createResource(normalizedLocation, version, downloadOptions, updatePolicy);
         LOG.debug("Will add resource '{}'", resource.getSimpleName());
         if (addToResources(resource)) {
-            startDownloadingIfPrefetch(resource);
+            startDownloadingIfPrefetch(resource, priority);
+        }
+    }
+
+    /**
+     * Add a resource which is not downloaded before it is requested even if this tracker prefetches resources.
+     * The resource can be downloaded ahead of time by calling {@link #prefetchInBackground(URL...)}.
+     *
+     * @param location     the location of the resource
+     * @param version      the resource version
+     * @param updatePolicy whether to check for updates if already in cache
+     */
+    public void addDeferredResource(URL location, final VersionString version, final UpdatePolicy updatePolicy) {
+        Assert.requireNonNull(location, "location");
+        LOG.debug("Will add deferred resource at location '{}'", location);
+
+        final URL normalizedLocation = normalizeUrlQuietly(location);
+        final Resource resource = createResource(normalizedLocation, version, downloadOptions, updatePolicy);
+        addToResources(resource);
+    }
+
+    /**
+     * Starts downloading resources which were added as deferred resources. Resources which are already
+     * being downloaded are promoted to the given priority if it is higher. Does nothing unless this
+     * tracker prefetches resources.
+     *
+     * @param priority the priority of the downloads
+     * @param urls     the resources to download
+     * @throws IllegalResourceDescriptorException if a resource is not being tracked
+     */
+    public void startDownloads(final DownloadPriority priority, final URL... urls) {
+        Assert.requireNonNull(priority, "priority");
+        for (Resource resource : getResources(urls)) {
+            startDownloadingIfPrefetch(resource, priority);
+        }
+    }
+
+    /**
+     * Downloads resources on a low priority background thread with limited bandwidth.
+     * A resource requested by {@link #getCacheFile(URL)} or {@link #waitForResources(URL...)}
+     * is downloaded immediately regardless of its position in the background queue.
+     *
+     * @param urls the resources to prefetch
+     * @throws IllegalResourceDescriptorException if a resource is not being tracked
+     */
+    public void prefetchInBackground(final URL... urls) {
+        for (Resource resource : getResources(urls)) {
+            BackgroundPrefetcher.prefetch(resource);
         }
     }
 
@@ -181,9 +237,15 @@ public class ResourceTracker {
         }
     }
 
-    private void startDownloadingIfPrefetch(Resource resource) {
-        if (prefetch && !resource.isComplete() && !resource.isBeingProcessed()) {
-            triggerDownloadFor(resource, Executors.newSingleThreadExecutor(new DaemonThreadFactory()));
+    private void startDownloadingIfPrefetch(Resource resource, DownloadPriority priority) {
+        if (prefetch && !resource.isComplete()) {
+            final DownloadScheduler scheduler = DownloadScheduler.getInstance();
+            if (resource.isBeingProcessed()) {
+                // scheduled by another tracker sharing the resource
+                scheduler.promote(resource, priority);
+            } else {
+                triggerDownloadFor(resource, scheduler.executorFor(resource, priority));
+            }
         }
     }
 
@@ -300,6 +362,30 @@ public class ResourceTracker {
         waitForCompletion(getResources(urls));
     }
 
+    /**
+     * Wait for a group of resources to be downloaded and made
+     * available locally while publishing the progress to a listener.
+     * <p>
+     * The listener is never called from a download thread. Coalesced progress
+     * snapshots are published at a bounded rate by a {@link DownloadProgressAggregator}.
+     * </p>
+     *
+     * @param listener the listener to notify about the download progress
+     * @param urls     the resources to wait for
+     * @throws InterruptedException               if thread is interrupted
+     * @throws IllegalResourceDescriptorException if the resource is not being tracked
+     */
+    public void waitForResources(final DownloadServiceListener listener, final URL... urls) throws InterruptedException {
+        final Resource[] resourcesToWaitFor = getResources(urls);
+        final DownloadProgressAggregator progressAggregator = new DownloadProgressAggregator(resourcesToWaitFor, listener);
+        progressAggregator.start();
+        try {
+            waitForCompletion(resourcesToWaitFor);
+        } finally {
+            progressAggregator.stop();
+        }
+    }
+
     /**
      * Returns the number of bytes downloaded for a resource.
      *
@@ -368,58 +454,40 @@ public class ResourceTracker {
 
     /**
      * Wait for some resources.
+     * <p>
+     * The downloads of the resources are promoted to {@link DownloadPriority#REQUESTED}. A download which is
+     * still queued when it is waited for is run by the calling thread.
+     * </p>
      *
      * @param resources the resources to wait for
-     * @return {@code true} if the resources were downloaded or had errors,
-     * {@code false} if the timeout was reached
-     * @throws InterruptedException if another thread interrupted the wait
      */
     private void waitForCompletion(Resource... resources) {
         if (resources == null || resources.length == 0) {
             return;
         }
 
-        final int configuredThreadCount = Integer.parseInt(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_PARALLEL_RESOURCE_DOWNLOAD_COUNT));
-        final int threadCount = Math.min(configuredThreadCount, resources.length);
-        final ExecutorService downloadExecutor = Executors.newFixedThreadPool(threadCount, new DaemonThreadFactory());
-        try {
-            final List<Future<Resource>> futures = Arrays.asList(resources).stream()
-                    .map(r -> triggerDownloadFor(r, downloadExecutor))
-                    .collect(Collectors.toList());
+        for (Resource resource : resources) {
+            resource.markAsRequested();
+        }
 
-            for (Future<Resource> future : futures) {
-                future.get();
+        final DownloadScheduler scheduler = DownloadScheduler.getInstance();
+        try (TraceSpan ignored = LaunchTrace.span("download", "waitForCompletion").withDetail("resources", resources.length)) {
+            final List<Future<Resource>> futures = new ArrayList<>(resources.length);
+            for (Resource resource : resources) {
+                futures.add(triggerDownloadFor(resource, scheduler.executorFor(resource, DownloadPriority.REQUESTED)));
+                scheduler.promote(resource, DownloadPriority.REQUESTED);
+            }
+
+            for (int i = 0; i < resources.length; i++) {
+                scheduler.runIfQueued(resources[i]);
+                futures.get(i).get();
             }
         } catch (final Exception e) {
             throw new RuntimeException("Error while waiting for download", e);
-        } finally {
-            LOG.debug("Download done. Shutting down executor");
-            downloadExecutor.shutdownNow();
         }
     }
 
     private Future<Resource> triggerDownloadFor(Resource resource, final Executor downloadExecutor) {
         return new ResourceHandler(resource).putIntoCache(downloadExecutor);
     }
-
-    public void addDownloadListener(final URL resourceUrl, URL[] allResources, final DownloadServiceListener listener) {
-        final Resource resource = getResource(resourceUrl);
-        resource.addPropertyChangeListener(Resource.SIZE_PROPERTY, e -> listener.progress(resourceUrl, "version", resource.getTransferred(), resource.getSize(), getPercentageDownloaded(allResources)));
-        resource.addPropertyChangeListener(Resource.TRANSFERRED_PROPERTY, e -> listener.progress(resourceUrl, "version", resource.getTransferred(), resource.getSize(), getPercentageDownloaded(allResources)));
-    }
-
-    private int getPercentageDownloaded(URL[] allResources) {
-        return (int) Arrays.asList(allResources).stream()
-                .map(u -> getResource(u))
-                .mapToDouble(r -> {
-                    if (r.isComplete()) {
-                        return 100.0d;
-                    }
-                    if (r.isBeingProcessed() && r.getSize() > 0) {
-                        final double p = (100.0d * r.getTransferred()) / r.getSize();
-                        return Math.max(0.0d, Math.min(100.0d, p));
-                    }
-                    return 0.0d;
-                }).sum() / allResources.length;
-    }
 }
@@ -2,19 +2,34 @@ package net.adoptopenjdk.icedteaweb.resources.cache;
 
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.sourceforge.jnlp.cache.CacheUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * The Cache
+ * <p>
+ * If a system cache is configured it is consulted before the cache of the user.
+ * The system cache is read-only, the cache of the user is only written if a resource
+ * is missing in the system cache or if the copy in the system cache is outdated.
+ * </p>
  */
 public class Cache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Cache.class);
+
     /**
      * Clears the cache by deleting all content
      * <p>
@@ -50,6 +65,10 @@ public class Cache {
         if (!CacheUtil.isCacheable(resource)) {
             throw new IllegalArgumentException(resource + " is not a cacheable resource");
         }
+        final Optional<SystemCacheEntry> systemEntry = findInSystemCache(resource, version);
+        if (systemEntry.isPresent()) {
+            return systemEntry.get().getCacheFile();
+        }
         return LeastRecentlyUsedCache.getInstance().getOrCreateCacheFile(resource, version);
     }
 
@@ -100,7 +119,7 @@ public class Cache {
             throw new IllegalArgumentException(resource + " is not a cacheable resource");
         }
 
-        return LeastRecentlyUsedCache.getInstance().isCached(resource, version);
+        return findInSystemCache(resource, version).isPresent() || LeastRecentlyUsedCache.getInstance().isCached(resource, version);
     }
 
     public static ResourceInfo getInfo(final URL resource, final VersionId version) {
@@ -108,9 +127,29 @@ public class Cache {
             throw new IllegalArgumentException(resource + " is not a cacheable resource");
         }
 
+        final Optional<SystemCacheEntry> systemEntry = findInSystemCache(resource, version);
+        if (systemEntry.isPresent()) {
+            return systemEntry.get();
+        }
         return LeastRecentlyUsedCache.getInstance().getResourceInfo(resource, version).orElse(null);
     }
 
+    /**
+     * Returns the file in which data recorded about the resource is kept, e.g. the jars an application
+     * needs during its startup. The file belongs to the cache entry of the resource and is deleted with it.
+     *
+     * @param resource the resource {@link URL}
+     * @param version  the versions to look for
+     * @return the file which may not exist yet, or {@code null} if the resource is not in the cache of the user
+     * @throws IllegalArgumentException if the resource is not cacheable
+     */
+    public static File getProfileFile(final URL resource, final VersionString version) {
+        if (!CacheUtil.isCacheable(resource)) {
+            throw new IllegalArgumentException(resource + " is not a cacheable resource");
+        }
+        return LeastRecentlyUsedCache.getInstance().getProfileFile(resource, version).orElse(null);
+    }
+
     /**
      * Returns true if the cache has a local copy of the contents of
      * the URL matching the specified version.
@@ -124,25 +163,49 @@ public class Cache {
         if (!CacheUtil.isCacheable(resource)) {
             throw new IllegalArgumentException(resource + " is not a cacheable resource");
         }
-        return LeastRecentlyUsedCache.getInstance().getBestMatchingEntryInCache(resource, version).isPresent();
+        return LeastRecentlyUsedCache.getInstance().getBestMatchingEntryInCache(resource, version).isPresent()
+                || SystemCache.getInstance().map(sc -> !sc.findAll(resource, version).isEmpty()).orElse(false);
     }
 
     public static VersionId getBestMatchingVersionInCache(final URL resource, final VersionString version) {
         if (!CacheUtil.isCacheable(resource)) {
             throw new IllegalArgumentException(resource + " is not a cacheable resource");
         }
-        return LeastRecentlyUsedCache.getInstance().getBestMatchingEntryInCache(resource, version)
-                .map(LeastRecentlyUsedCacheEntry::getVersion)
-                .orElse(null);
+        final Optional<LeastRecentlyUsedCacheEntry> userEntry = LeastRecentlyUsedCache.getInstance().getBestMatchingEntryInCache(resource, version);
+        final List<SystemCacheEntry> systemEntries = SystemCache.getInstance()
+                .map(sc -> sc.findAll(resource, version))
+                .orElse(Collections.emptyList());
+        if (systemEntries.isEmpty() || version == null) {
+            return userEntry.map(LeastRecentlyUsedCacheEntry::getVersion).orElse(null);
+        }
+
+        final List<VersionId> candidates = new ArrayList<>();
+        userEntry.ifPresent(e -> candidates.add(e.getVersion()));
+        systemEntries.forEach(e -> candidates.add(e.getVersion()));
+        candidates.sort(version.comparator());
+        return candidates.get(0);
     }
 
     public static List<VersionId> getAllVersionsInCache(final URL resourceHref) {
         if (!CacheUtil.isCacheable(resourceHref)) {
             throw new IllegalArgumentException(resourceHref + " is not a cacheable resource");
         }
-        return LeastRecentlyUsedCache.getInstance().getAllEntriesInCache(resourceHref).stream()
+        final List<VersionId> versions = LeastRecentlyUsedCache.getInstance().getAllEntriesInCache(resourceHref).stream()
                 .map(LeastRecentlyUsedCacheEntry::getVersion)
                 .collect(Collectors.toList());
+        final List<SystemCacheEntry> systemEntries = SystemCache.getInstance()
+                .map(sc -> sc.findAll(resourceHref))
+                .orElse(Collections.emptyList());
+        if (systemEntries.isEmpty()) {
+            return versions;
+        }
+
+        systemEntries.stream()
+                .map(SystemCacheEntry::getVersion)
+                .filter(v -> !versions.contains(v))
+                .forEach(versions::add);
+        versions.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+        return versions;
     }
 
     /**
@@ -161,9 +224,70 @@ public class Cache {
             throw new IllegalArgumentException(resource + " is not a cacheable resource");
         }
 
+        final Optional<SystemCacheEntry> systemEntry = findInSystemCache(resource, version);
+        if (systemEntry.isPresent() && systemEntry.get().isCurrent(lastModified)) {
+            LOG.info("isUpToDate: {} - (v: {}) = true (system cache)", resource, version);
+            return true;
+        }
         return LeastRecentlyUsedCache.getInstance().isUpToDate(resource, version, lastModified);
     }
 
+    /* ***************
+     * SYSTEM CACHE
+     * ***************/
+
+    /**
+     * Copies the best matching version of a resource from the cache of the current user
+     * into the system cache configured by {@link net.sourceforge.jnlp.config.ConfigurationConstants#KEY_SYSTEM_CACHE_DIR}.
+     *
+     * @param resource the resource {@link URL}
+     * @param version  the version string, or {@code null}
+     * @return {@code true} if the resource was copied or the system cache already contains it,
+     * {@code false} if neither cache contains it
+     * @throws IOException if no system cache is configured or if it could not be written
+     */
+    public static boolean copyToSystemCache(final URL resource, final VersionString version) throws IOException {
+        if (!CacheUtil.isCacheable(resource)) {
+            throw new IllegalArgumentException(resource + " is not a cacheable resource");
+        }
+        final SystemCache systemCache = SystemCache.getInstance()
+                .orElseThrow(() -> new IOException("No system cache directory configured"));
+
+        final LeastRecentlyUsedCache userCache = LeastRecentlyUsedCache.getInstance();
+        final Optional<CacheEntry> userEntry = userCache.getBestMatchingEntryInCache(resource, version)
+                .flatMap(e -> userCache.getResourceInfo(e.getResourceHref(), e.getVersion()))
+                .filter(CacheEntry::isCached);
+        if (!userEntry.isPresent()) {
+            // resources which are current in the system cache are not downloaded into the cache of the user
+            return !systemCache.findAll(resource, version).isEmpty();
+        }
+        systemCache.add(userEntry.get(), userEntry.get().getCacheFile());
+        return true;
+    }
+
+    /**
+     * @return the entry of the system cache unless the cache of the user contains a newer copy of the resource
+     */
+    private static Optional<SystemCacheEntry> findInSystemCache(final URL resource, final VersionId version) {
+        return SystemCache.getInstance()
+                .flatMap(sc -> sc.find(resource, version))
+                .filter(systemEntry -> !isSupersededByUserCache(systemEntry));
+    }
+
+    private static boolean isSupersededByUserCache(final SystemCacheEntry systemEntry) {
+        return LeastRecentlyUsedCache.getInstance().getResourceInfo(systemEntry.getResourceHref(), systemEntry.getVersion())
+                .filter(CacheEntry::isCached)
+                .map(userEntry -> {
+                    if (userEntry.getLastModified() != systemEntry.getLastModified()) {
+                        return userEntry.getLastModified() > systemEntry.getLastModified();
+                    }
+                    // same modification time, only a different content downloaded later takes precedence
+                    return !Objects.equals(userEntry.getContentDigest(), systemEntry.getContentDigest())
+                            && userEntry.getDownloadedAt() > systemEntry.getDownloadedAt();
+                })
+                .orElse(false);
+    }
+
     /* ***************
      * CACHE IDs
      * ***************/
@@ -41,9 +41,14 @@ class CacheEntry implements ResourceInfo {
 
     static final String INFO_SUFFIX = ".info";
 
+    static final String PROFILE_SUFFIX = ".profile";
+
+    static final String CONTENT_DIGEST_ALGORITHM = "SHA-256";
+
     private static final String KEY_SIZE = "content-length";
     private static final String KEY_LAST_MODIFIED = "last-modified";
     private static final String KEY_DOWNLOADED_AT = "last-updated";
+    private static final String KEY_CONTENT_DIGEST = "sha-256";
     static final String KEY_JNLP_PATH = "jnlp-path";
 
     /** the remote resource location */
@@ -103,6 +108,11 @@ class CacheEntry implements ResourceInfo {
         return getLongKey(KEY_LAST_MODIFIED);
     }
 
+    @Override
+    public String getContentDigest() {
+        return properties.getProperty(KEY_CONTENT_DIGEST);
+    }
+
     String getJnlpPath() {
         return properties.getProperty(KEY_JNLP_PATH);
     }
@@ -182,11 +192,28 @@ class CacheEntry implements ResourceInfo {
     }
 
     void storeInfo(long downloadedAt, long lastModified, long size) {
+        storeInfo(downloadedAt, lastModified, size, null);
+    }
+
+    /**
+     * Stores the info about the cached file.
+     *
+     * @param downloadedAt  time of the download (in ms)
+     * @param lastModified  last modification time as reported by the server (in ms)
+     * @param size          size of the cached file in bytes
+     * @param contentDigest SHA-256 digest of the cached file as hex string, {@code null} if unknown
+     */
+    void storeInfo(long downloadedAt, long lastModified, long size, String contentDigest) {
         properties.lock();
         try {
             setLongKey(KEY_SIZE, size);
             setLongKey(KEY_LAST_MODIFIED, lastModified);
             setLongKey(KEY_DOWNLOADED_AT, downloadedAt);
+            if (contentDigest != null) {
+                properties.setProperty(KEY_CONTENT_DIGEST, contentDigest);
+            } else {
+                properties.remove(KEY_CONTENT_DIGEST);
+            }
 
             final String jnlpPath = JNLPRuntime.getJnlpPath();
             if (StringUtils.isBlank(jnlpPath)) {
@@ -0,0 +1,231 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exclusive lock on the directory of a single cache entry.
+ * <p>
+ * Downloads into an entry and the deletion of its directory are done while holding this lock, so threads
+ * and processes working on different entries never wait for each other. The lock is always taken before
+ * the lock of the {@link LeastRecentlyUsedCacheIndexHolder index} and never while holding it.
+ * </p>
+ * <p>
+ * Threads of this process are excluded by a lock of the directory which exists as long as a thread holds
+ * or waits for it. Other processes are excluded by a file lock on the {@value #LOCK_FILE_NAME} file in the
+ * directory. The lock is reentrant for the thread holding it.
+ * </p>
+ */
+final class CacheEntryLock implements Closeable {
+
+    static final String LOCK_FILE_NAME = ".lock";
+
+    /**
+     * locks of the directories which threads of this process hold or wait for
+     */
+    private static final ConcurrentHashMap<File, ThreadLock> THREAD_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * directories locked by the current thread, a file lock cannot be taken twice by the same process
+     */
+    private static final ThreadLocal<Set<File>> LOCKED_BY_THREAD = ThreadLocal.withInitial(HashSet::new);
+
+    private final File directory;
+    private final ThreadLock threadLock;
+    private final RandomAccessFile lockFile;
+    private final FileLock processLock;
+
+    private boolean deleteDirectoryOnClose = false;
+
+    private CacheEntryLock(final File directory, final ThreadLock threadLock, final RandomAccessFile lockFile, final FileLock processLock) {
+        this.directory = directory;
+        this.threadLock = threadLock;
+        this.lockFile = lockFile;
+        this.processLock = processLock;
+    }
+
+    /**
+     * Locks the directory of an entry, waiting for other threads and processes to release it.
+     *
+     * @param directory the existing directory of the entry
+     * @return the lock to close once the work on the entry is done
+     * @throws IOException if the lock file cannot be created or locked
+     */
+    static CacheEntryLock lock(final File directory) throws IOException {
+        final File key = Assert.requireNonNull(directory, "directory").getAbsoluteFile();
+        final ThreadLock threadLock = ThreadLock.acquire(key);
+        threadLock.lock();
+        return lockProcess(key, threadLock, true);
+    }
+
+    /**
+     * Locks the directory of an entry if no other thread or process holds the lock.
+     *
+     * @param directory the existing directory of the entry
+     * @return the lock to close once the work on the entry is done, {@code null} if the entry is locked
+     * @throws IOException if the lock file cannot be created or locked
+     */
+    static CacheEntryLock tryLock(final File directory) throws IOException {
+        final File key = Assert.requireNonNull(directory, "directory").getAbsoluteFile();
+        final ThreadLock threadLock = ThreadLock.acquire(key);
+        if (!threadLock.tryLock()) {
+            threadLock.release(key);
+            return null;
+        }
+        return lockProcess(key, threadLock, false);
+    }
+
+    /**
+     * Creates the directory of a new entry and locks it. Other threads of this process cannot lock the
+     * directory before it is returned locked.
+     *
+     * @param directory the directory to create
+     * @return the lock to close once the entry has been set up, {@code null} if the directory already exists
+     * @throws IOException if the lock file cannot be created or locked
+     */
+    static CacheEntryLock create(final File directory) throws IOException {
+        final File key = Assert.requireNonNull(directory, "directory").getAbsoluteFile();
+        final ThreadLock threadLock = ThreadLock.acquire(key);
+        threadLock.lock();
+        // mkdir fails if another thread or process created the directory first
+        if (!key.mkdirs()) {
+            threadLock.unlock(key);
+            return null;
+        }
+        return lockProcess(key, threadLock, true);
+    }
+
+    /**
+     * @return whether a thread of this process holds or waits for the lock of the directory
+     */
+    static boolean isUsedByThreads(final File directory) {
+        return THREAD_LOCKS.containsKey(directory.getAbsoluteFile());
+    }
+
+    /**
+     * @return whether threads of this process wait for the lock of the directory
+     */
+    static boolean hasQueuedThreads(final File directory) {
+        final ThreadLock threadLock = THREAD_LOCKS.get(directory.getAbsoluteFile());
+        return threadLock != null && threadLock.hasQueuedThreads();
+    }
+
+    private static CacheEntryLock lockProcess(final File directory, final ThreadLock threadLock, final boolean wait) throws IOException {
+        if (LOCKED_BY_THREAD.get().contains(directory)) {
+            return new CacheEntryLock(directory, threadLock, null, null);
+        }
+
+        final File file = new File(directory, LOCK_FILE_NAME);
+        RandomAccessFile lockFile = null;
+        try {
+            lockFile = new RandomAccessFile(file, "rw");
+            final FileLock processLock = wait ? lockFile.getChannel().lock() : lockFile.getChannel().tryLock();
+            if (processLock == null) {
+                lockFile.close();
+                threadLock.unlock(directory);
+                return null;
+            }
+            if (!file.exists()) {
+                // the process which held the lock deleted the directory
+                throw new FileNotFoundException("Directory " + directory + " has been deleted");
+            }
+            LOCKED_BY_THREAD.get().add(directory);
+            return new CacheEntryLock(directory, threadLock, lockFile, processLock);
+        } catch (IOException | RuntimeException e) {
+            try {
+                if (lockFile != null) {
+                    lockFile.close();
+                }
+            } finally {
+                threadLock.unlock(directory);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the absolute path of the locked directory
+     */
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Deletes the lock file and the directory when the lock is released. Apart from the lock file the directory
+     * must be empty by then. Threads and processes waiting for the lock fail once they get it. Has no effect on
+     * a lock the thread already held.
+     */
+    void deleteDirectoryOnClose() {
+        deleteDirectoryOnClose = true;
+    }
+
+    /**
+     * Releases the lock.
+     */
+    @Override
+    public void close() throws IOException {
+        if (lockFile == null) {
+            threadLock.unlock(directory);
+            return;
+        }
+        final File file = new File(directory, LOCK_FILE_NAME);
+        try {
+            try {
+                if (deleteDirectoryOnClose) {
+                    // fails on platforms which cannot delete open files, these delete it after closing it
+                    file.delete();
+                }
+                processLock.release();
+            } finally {
+                lockFile.close();
+            }
+            if (deleteDirectoryOnClose) {
+                Files.deleteIfExists(file.toPath());
+                Files.deleteIfExists(directory.toPath());
+            }
+        } finally {
+            LOCKED_BY_THREAD.get().remove(directory);
+            threadLock.unlock(directory);
+        }
+    }
+
+    /**
+     * Lock of a directory counting the threads which hold or wait for it. The lock is removed from
+     * {@link #THREAD_LOCKS} once the count drops to zero.
+     */
+    private static final class ThreadLock extends ReentrantLock {
+
+        /**
+         * only accessed while computing the mapping of the directory
+         */
+        private int users = 0;
+
+        static ThreadLock acquire(final File directory) {
+            return THREAD_LOCKS.compute(directory, (key, existing) -> {
+                final ThreadLock threadLock = existing != null ? existing : new ThreadLock();
+                threadLock.users++;
+                return threadLock;
+            });
+        }
+
+        void release(final File directory) {
+            THREAD_LOCKS.computeIfPresent(directory, (key, threadLock) -> --threadLock.users == 0 ? null : threadLock);
+        }
+
+        void unlock(final File directory) {
+            unlock();
+            release(directory);
+        }
+    }
+}
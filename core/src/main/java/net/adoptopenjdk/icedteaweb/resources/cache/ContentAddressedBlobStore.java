@@ -0,0 +1,138 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+
+/**
+ * Content addressed store for cached files.
+ * <p>
+ * Each distinct content is stored once as a blob named after its SHA-256 digest.
+ * Cache files with identical content are replaced by hard links to the blob.
+ * Deleting a cache file or a blob therefore never loses the content of another entry.
+ * A blob which is no longer referenced by any entry of the cache index is removed by
+ * {@link #removeUnreferencedBlobs(Set)}.
+ * </p>
+ * <p>
+ * If the file system does not support hard links the cache files are kept as they are.
+ * </p>
+ */
+class ContentAddressedBlobStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContentAddressedBlobStore.class);
+
+    static final String BLOBS_DIR_NAME = "blobs";
+
+    private static final String LINK_SUFFIX = ".link";
+
+    private final File blobsDir;
+
+    ContentAddressedBlobStore(final File cacheRoot) {
+        this.blobsDir = new File(Assert.requireNonNull(cacheRoot, "cacheRoot"), BLOBS_DIR_NAME);
+    }
+
+    /**
+     * @return true if the blob store contains any content
+     */
+    boolean exists() {
+        return blobsDir.isDirectory();
+    }
+
+    /**
+     * Shares the content of a cache file with all other cache files of the same content.
+     * If a blob with the same digest exists the cache file is replaced by a hard link to the blob.
+     * Otherwise the cache file becomes the blob.
+     *
+     * @param cacheFile the file in the cache
+     * @param digest    the SHA-256 digest of the cache file as hex string
+     * @return {@code true} if the cache file is linked to the blob
+     */
+    boolean share(final File cacheFile, final String digest) {
+        final File blob = getBlobFile(digest);
+        final Path blobPath = blob.toPath();
+        final Path cachePath = cacheFile.toPath();
+        final Path linkPath = new File(cacheFile.getParentFile(), cacheFile.getName() + LINK_SUFFIX).toPath();
+        try {
+            if (!blob.isFile()) {
+                final File blobDir = blob.getParentFile();
+                if (!blobDir.isDirectory() && !blobDir.mkdirs()) {
+                    LOG.debug("Could not create blob directory {}", blobDir);
+                    return false;
+                }
+                Files.createLink(blobPath, cachePath);
+                LOG.debug("Stored new blob {} for {}", digest, cacheFile);
+                return true;
+            }
+
+            if (Files.isSameFile(blobPath, cachePath)) {
+                return true;
+            }
+            if (blob.length() != cacheFile.length()) {
+                LOG.warn("Blob {} has unexpected size. Keeping separate copy of {}", digest, cacheFile);
+                return false;
+            }
+
+            Files.deleteIfExists(linkPath);
+            Files.createLink(linkPath, blobPath);
+            Files.move(linkPath, cachePath, StandardCopyOption.ATOMIC_MOVE);
+            LOG.debug("Replaced {} by link to existing blob {}", cacheFile, digest);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            LOG.debug("Blob {} was created concurrently. Keeping separate copy of {}", digest, cacheFile);
+            return false;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            LOG.debug("Could not link {} to blob {} - {}", cacheFile, digest, e.getMessage());
+            return false;
+        } finally {
+            deleteQuietly(linkPath);
+        }
+    }
+
+    /**
+     * Deletes all blobs which are not referenced by any entry.
+     * The content of entries linked to a deleted blob is not affected.
+     *
+     * @param referencedDigests digests of all entries remaining in the cache
+     */
+    void removeUnreferencedBlobs(final Set<String> referencedDigests) {
+        final File[] prefixDirs = blobsDir.listFiles(File::isDirectory);
+        if (prefixDirs == null) {
+            return;
+        }
+        for (File prefixDir : prefixDirs) {
+            final File[] blobs = prefixDir.listFiles();
+            if (blobs != null) {
+                for (File blob : blobs) {
+                    if (!referencedDigests.contains(blob.getName())) {
+                        LOG.debug("Deleting unreferenced blob {}", blob.getName());
+                        deleteQuietly(blob.toPath());
+                    }
+                }
+            }
+            final String[] remaining = prefixDir.list();
+            if (remaining != null && remaining.length == 0) {
+                deleteQuietly(prefixDir.toPath());
+            }
+        }
+    }
+
+    File getBlobFile(final String digest) {
+        return new File(new File(blobsDir, digest.substring(0, 2)), digest);
+    }
+
+    private static void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOG.debug("Failed to delete {} - {}", path, e.getMessage());
+        }
+    }
+}
@@ -36,12 +36,13 @@ package net.adoptopenjdk.icedteaweb.resources.cache;
 import net.adoptopenjdk.icedteaweb.io.FileUtils;
 import net.adoptopenjdk.icedteaweb.io.IOUtils;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
-import net.adoptopenjdk.icedteaweb.jnlp.version.VersionIdComparator;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.CachedDaemonThreadPoolProvider.DaemonThreadFactory;
 import net.adoptopenjdk.icedteaweb.os.OsUtil;
 import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.ConfigurationSnapshot;
 import net.sourceforge.jnlp.config.InfrastructureFileDescriptor;
 import net.sourceforge.jnlp.config.PathsAndFiles;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
@@ -57,17 +58,33 @@ import java.io.OutputStream;
 import java.net.URL;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import static java.util.Comparator.comparing;
@@ -88,57 +105,143 @@ class LeastRecentlyUsedCache {
         return CacheHolder.INSTANCE;
     }
 
+    private static final int DIRS_PER_LEVEL = 250;
+
+    /**
+     * number of entries removed from the index at once, bounds the time the index is locked
+     */
+    private static final int REMOVAL_BATCH_SIZE = 64;
+
+    /**
+     * eviction starts once the cache exceeds its maximal size and stops at this percentage of it
+     */
+    private static final int LOW_WATER_MARK_PERCENT = 90;
+
+    private static final long SWEEP_DELAY_SECONDS = 60;
+
+    private static final ExecutorService EVICTION_EXECUTOR = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+
+    private static final ScheduledExecutorService SWEEP_EXECUTOR = Executors.newSingleThreadScheduledExecutor(new LowPriorityThreadFactory());
+
     private final LeastRecentlyUsedCacheIndexHolder cacheIndex;
     private final InfrastructureFileDescriptor rootCacheDir;
+    private final LongSupplier maxSizeSupplier;
+    private final LongSupplier clock;
+
+    /**
+     * where the search for a free entry directory starts, the number of the directory after the one created last
+     */
+    private final AtomicInteger nextCacheDir = new AtomicInteger();
+
+    /**
+     * entries used after this time may be used by this process and are not evicted in the background
+     */
+    private final long createdAt;
+
+    private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+    private final AtomicBoolean sweepScheduled = new AtomicBoolean();
 
     /**
      * @param recentlyUsed file to be used as recently_used file
      * @param cacheDir     dir with cache
      */
-    private LeastRecentlyUsedCache(final InfrastructureFileDescriptor recentlyUsed, final InfrastructureFileDescriptor cacheDir) {
+    LeastRecentlyUsedCache(final InfrastructureFileDescriptor recentlyUsed, final InfrastructureFileDescriptor cacheDir) {
+        this(recentlyUsed, cacheDir, () -> JNLPRuntime.getConfiguration().getSnapshot().getCacheMaxSizeInBytes());
+    }
+
+    /**
+     * @param recentlyUsed    file to be used as recently_used file
+     * @param cacheDir        dir with cache
+     * @param maxSizeSupplier provides the maximal size of the cache in bytes, negative for unlimited
+     */
+    LeastRecentlyUsedCache(final InfrastructureFileDescriptor recentlyUsed, final InfrastructureFileDescriptor cacheDir, final LongSupplier maxSizeSupplier) {
+        this(recentlyUsed, cacheDir, maxSizeSupplier, System::currentTimeMillis);
+    }
+
+    /**
+     * @param recentlyUsed    file to be used as recently_used file
+     * @param cacheDir        dir with cache
+     * @param maxSizeSupplier provides the maximal size of the cache in bytes, negative for unlimited
+     * @param clock           provides the current time in ms
+     */
+    LeastRecentlyUsedCache(final InfrastructureFileDescriptor recentlyUsed, final InfrastructureFileDescriptor cacheDir, final LongSupplier maxSizeSupplier, final LongSupplier clock) {
         this.cacheIndex = new LeastRecentlyUsedCacheIndexHolder(recentlyUsed);
         this.rootCacheDir = cacheDir;
+        this.maxSizeSupplier = maxSizeSupplier;
+        this.clock = clock;
+        this.createdAt = clock.getAsLong();
     }
 
     File getOrCreateCacheFile(URL resourceHref, VersionId version) {
-        final LeastRecentlyUsedCacheEntry entry = cacheIndex.getSynchronized(idx ->
-                getOrCreateCacheEntry(idx, resourceHref, version)
-        );
-        return getCacheFile(entry);
+        return getCacheFile(getOrCreateCacheEntry(resourceHref, version));
     }
 
-    private LeastRecentlyUsedCacheEntry getOrCreateCacheEntry(LeastRecentlyUsedCacheIndex idx, URL resourceHref, VersionId version) {
-        return idx.findAndMarkAsAccessed(resourceHref, version)
-                .orElseGet(() -> createNewInfoFileAndIndexEntry(idx, resourceHref, version));
+    private LeastRecentlyUsedCacheEntry getOrCreateCacheEntry(URL resourceHref, VersionId version) {
+        return cacheIndex.getSynchronized(idx -> idx.findAndMarkAsAccessed(resourceHref, version))
+                .orElseGet(() -> createNewInfoFileAndIndexEntry((idx, entryId) -> idx.findAndMarkAsAccessed(resourceHref, version)
+                        // another thread or process may have added the resource since the first lookup
+                        .orElseGet(() -> idx.createEntry(resourceHref, version, entryId))));
     }
 
     File replaceExistingCacheFile(URL resourceHref, VersionId version) {
-        final LeastRecentlyUsedCacheEntry entry = cacheIndex.getSynchronized(idx -> {
+        final LeastRecentlyUsedCacheEntry entry = createNewInfoFileAndIndexEntry((idx, entryId) -> {
             // Old entry will still exist. (but removed at cleanup)
             idx.markEntryForDeletion(resourceHref, version);
-            return createNewInfoFileAndIndexEntry(idx, resourceHref, version);
+            return idx.createEntry(resourceHref, version, entryId);
         });
         return getCacheFile(entry);
     }
 
-    private LeastRecentlyUsedCacheEntry createNewInfoFileAndIndexEntry(LeastRecentlyUsedCacheIndex idx, URL resourceHref, VersionId version) {
-        final File dir = makeNewCacheDir();
-        final String entryId = entryIdFromCacheDir(dir);
-        createInfoFile(dir);
-        return idx.createEntry(resourceHref, version, entryId);
+    /**
+     * Prepares a new entry directory without holding the index lock and then adds the entry to the index.
+     * The directory is locked from its creation until the entry is in the index so
+     * {@link #sweepDirectoriesWithoutEntry()} does not take it for a directory without entry. A sweep in another
+     * process may find the directory before it is locked, but skips directories younger than the sweep delay.
+     *
+     * @param addToIndex adds the entry with the given id to the index and returns the entry to use
+     * @return the entry returned by {@code addToIndex}
+     */
+    private LeastRecentlyUsedCacheEntry createNewInfoFileAndIndexEntry(BiFunction<LeastRecentlyUsedCacheIndex, String, LeastRecentlyUsedCacheEntry> addToIndex) {
+        final File dir;
+        final String entryId;
+        final LeastRecentlyUsedCacheEntry entry;
+        try (final CacheEntryLock lock = makeNewCacheDir()) {
+            dir = lock.getDirectory();
+            entryId = entryIdFromCacheDir(dir);
+            createInfoFile(dir);
+            entry = cacheIndex.getSynchronized(idx -> addToIndex.apply(idx, entryId));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create a new cache directory", e);
+        }
+        if (!entryId.equals(entry.getId())) {
+            LOG.debug("Entry {} was created concurrently, discarding directory {}", entry.getId(), dir);
+            deleteEntryDirectory(dir);
+        }
+        return entry;
     }
 
-    private File makeNewCacheDir() {
+    /**
+     * Creates a new entry directory and locks it. The directory is claimed by {@link File#mkdir()}, which fails
+     * if another thread or process claimed it first.
+     *
+     * @return the lock of the new directory
+     */
+    private CacheEntryLock makeNewCacheDir() throws IOException {
         final String cacheDirPath = rootCacheDir.getFullPath();
-        for (int i = 0; i < 250; i++) {
-            for (int j = 0; j < 250; j++) {
-                String path = cacheDirPath + File.separator + i + File.separator + j;
-                File cDir = new File(path);
+        final int dirCount = DIRS_PER_LEVEL * DIRS_PER_LEVEL;
+        final int start = nextCacheDir.get();
+        for (int n = 0; n < dirCount; n++) {
+            final int candidate = (start + n) % dirCount;
+            final File levelOneDir = new File(cacheDirPath, Integer.toString(candidate / DIRS_PER_LEVEL));
+            final File cDir = new File(levelOneDir, Integer.toString(candidate % DIRS_PER_LEVEL));
+            if (!cDir.exists()) {
+                final CacheEntryLock lock = CacheEntryLock.create(cDir);
+                if (lock != null) {
+                    nextCacheDir.set(candidate + 1);
+                    return lock;
+                }
                 if (!cDir.exists()) {
-                    if (cDir.mkdirs()) {
-                        return cDir;
-                    }
-                    throw new RuntimeException("Cannot create directory " + cDir);
+                    throw new IOException("Cannot create directory " + cDir);
                 }
             }
         }
@@ -166,18 +269,36 @@ class LeastRecentlyUsedCache {
     File addToCache(DownloadInfo info, InputStream inputStream) throws IOException {
         final List<IOException> ex = new ArrayList<>();
 
-        final LeastRecentlyUsedCacheEntry entry = cacheIndex.getSynchronized(idx ->
-                getOrCreateCacheEntry(idx, info.getResourceHref(), info.getVersion())
-        );
+        final LeastRecentlyUsedCacheEntry entry = getOrCreateCacheEntry(info.getResourceHref(), info.getVersion());
 
         final CacheEntry infoFile = getInfoFile(entry);
         final File cacheFile = infoFile.getCacheFile();
-        try {
+        // only the entry is locked while downloading, the index is not locked at all
+        try (final CacheEntryLock ignored = CacheEntryLock.lock(cacheFile.getParentFile())) {
             LOG.debug("Downloading file: {} into: {}", info.getResourceHref(), cacheFile.getCanonicalPath());
-            try (final OutputStream out = new FileOutputStream(cacheFile)) {
+            final ContentAddressedBlobStore blobStore = getBlobStore();
+            if (blobStore.exists()) {
+                // the cache file may be a link to a shared blob which must not be overwritten
+                Files.deleteIfExists(cacheFile.toPath());
+            }
+
+            // the digest is calculated while the content is written so the file does not need to be read again
+            final MessageDigest contentDigest = createContentDigest();
+            try (final OutputStream out = new DigestOutputStream(new FileOutputStream(cacheFile), contentDigest)) {
                 IOUtils.copy(inputStream, out);
             }
-            infoFile.storeInfo(info.getDownloadedAt(), info.getLastModified(), cacheFile.length());
+            final String digest = toHex(contentDigest.digest());
+            if (isDeduplicationEnabled()) {
+                blobStore.share(cacheFile, digest);
+            }
+            final long size = cacheFile.length();
+            infoFile.storeInfo(info.getDownloadedAt(), info.getLastModified(), size, digest);
+            final long sizeOfUnDeletedEntries = cacheIndex.getSynchronized(idx -> {
+                idx.setSize(entry, size);
+                return idx.getSizeOfUnDeletedEntries();
+            });
+            evictInBackgroundIfAboveLimit(sizeOfUnDeletedEntries);
+            sweepInBackground();
         } catch (IOException e) {
             ex.add(e);
         }
@@ -189,6 +310,13 @@ class LeastRecentlyUsedCache {
         return cacheFile;
     }
 
+    /**
+     * @return the sum of the sizes of all cached files in bytes
+     */
+    long getTotalSize() {
+        return cacheIndex.getSynchronized(LeastRecentlyUsedCacheIndex::getTotalSize);
+    }
+
     Optional<CacheEntry> getResourceInfo(URL resourceHref, VersionId version) {
         return cacheIndex.getSynchronized(idx -> idx.find(resourceHref, version))
                 .map(this::getInfoFile);
@@ -228,33 +356,34 @@ class LeastRecentlyUsedCache {
     }
 
     Optional<LeastRecentlyUsedCacheEntry> getBestMatchingEntryInCache(final URL resourceHref, final VersionString version) {
-        final Comparator<VersionId> versionIdComparator = version != null ? new VersionIdComparator(version) : VersionId::compareTo;
+        final Comparator<VersionId> versionIdComparator = version != null ? version.comparator() : VersionId::compareTo;
         final Comparator<LeastRecentlyUsedCacheEntry> versionComparator = comparing(LeastRecentlyUsedCacheEntry::getVersion, versionIdComparator);
-        return cacheIndex.getSynchronized(idx -> {
-            final Set<LeastRecentlyUsedCacheEntry> allSet = idx.findAll(resourceHref, version);
-            final List<LeastRecentlyUsedCacheEntry> all = new ArrayList<>(allSet);
-            all.sort(versionComparator);
-
-            for (final LeastRecentlyUsedCacheEntry entry : all) {
-                if (getInfoFile(entry).isCached()) {
-                    return Optional.of(entry);
-                }
+        final List<LeastRecentlyUsedCacheEntry> all = cacheIndex.getSynchronized(idx -> new ArrayList<>(idx.findAll(resourceHref, version)));
+        all.sort(versionComparator);
+
+        // the info files are read without holding the index lock
+        for (final LeastRecentlyUsedCacheEntry entry : all) {
+            if (getInfoFile(entry).isCached()) {
+                return Optional.of(entry);
             }
+        }
 
-            return Optional.empty();
-        });
+        return Optional.empty();
+    }
+
+    Optional<File> getProfileFile(final URL resourceHref, final VersionString version) {
+        return getBestMatchingEntryInCache(resourceHref, version)
+                .map(entry -> new File(getCacheFile(entry).getParentFile(), CacheEntry.PROFILE_SUFFIX));
     }
 
     List<LeastRecentlyUsedCacheEntry> getAllEntriesInCache(final URL resourceHref) {
         final Comparator<LeastRecentlyUsedCacheEntry> versionComparator = comparing(LeastRecentlyUsedCacheEntry::getVersion);
-        return cacheIndex.getSynchronized(idx -> {
-            final Set<LeastRecentlyUsedCacheEntry> allSet = idx.findAll(resourceHref);
+        final Set<LeastRecentlyUsedCacheEntry> allSet = cacheIndex.getSynchronized(idx -> idx.findAll(resourceHref));
 
-            return allSet.stream()
-                    .filter(entry -> getInfoFile(entry).isCached())
-                    .sorted(versionComparator)
-                    .collect(Collectors.toList());
-        });
+        return allSet.stream()
+                .filter(entry -> getInfoFile(entry).isCached())
+                .sorted(versionComparator)
+                .collect(Collectors.toList());
     }
 
     List<CacheId> getCacheIds(String filter, boolean includeJnlpPath, boolean includeDomain) {
@@ -293,44 +422,83 @@ class LeastRecentlyUsedCache {
     }
 
     void deleteFromCache(URL resourceHref, VersionId version) {
-        cacheIndex.runSynchronized(idx -> idx
-                .find(resourceHref, version)
-                .ifPresent(entry -> deleteFromCache(idx, entry)));
+        deleteFromCache(idx -> idx.find(resourceHref, version)
+                .map(Collections::singletonList)
+                .orElse(Collections.emptyList()));
     }
 
     void deleteFromCache(URL resourceHref, VersionString version) {
-        cacheIndex.runSynchronized(idx -> idx
-                .findAll(resourceHref, version)
-                .forEach(entry -> deleteFromCache(idx, entry)));
+        deleteFromCache(idx -> new ArrayList<>(idx.findAll(resourceHref, version)));
     }
 
     void deleteFromCache(String cacheId) {
-        cacheIndex.runSynchronized(idx -> {
-            final List<LeastRecentlyUsedCacheEntry> allEntries = idx.getAllUnDeletedEntries();
-            allEntries.stream()
-                    .filter(entry -> cacheId.equals(entry.getDomain()) || cacheId.equals(getInfoFile(entry).getJnlpPath()))
-                    .forEach(entry -> deleteFromCache(idx, entry));
-        });
+        // the info files are read without holding the index lock
+        final List<LeastRecentlyUsedCacheEntry> entries = cacheIndex.getSynchronized(LeastRecentlyUsedCacheIndex::getAllUnDeletedEntries).stream()
+                .filter(entry -> cacheId.equals(entry.getDomain()) || cacheId.equals(getInfoFile(entry).getJnlpPath()))
+                .collect(Collectors.toList());
+        deleteFromCache(idx -> entries);
         if (OsUtil.isWindows()) {
             WindowsShortcutManager.removeWindowsShortcuts(cacheId.toLowerCase());
         }
     }
 
-    private void deleteFromCache(LeastRecentlyUsedCacheIndex idx, LeastRecentlyUsedCacheEntry entry) {
-        final File cacheFile = getCacheFile(entry);
-        final File directory = cacheFile.getParentFile();
+    /**
+     * Removes the selected entries from the index and then deletes their directories without holding the index lock.
+     */
+    private void deleteFromCache(Function<LeastRecentlyUsedCacheIndex, List<LeastRecentlyUsedCacheEntry>> selector) {
+        final List<LeastRecentlyUsedCacheEntry> entries = cacheIndex.getSynchronized(idx -> {
+            final List<LeastRecentlyUsedCacheEntry> selected = selector.apply(idx);
+            selected.forEach(idx::removeEntry);
+            return selected;
+        });
+        entries.forEach(entry -> deleteEntryDirectory(cacheDirFromEntryId(entry.getId())));
+    }
 
-        try {
-            LOG.info("Deleting cache file: {}", cacheFile.getAbsolutePath());
-            FileUtils.recursiveDelete(cacheFile, directory);
+    /**
+     * Deletes the directory of an entry which is no longer in the index.
+     * Waits for a download into the directory to complete.
+     */
+    private void deleteEntryDirectory(File directory) {
+        if (!directory.isDirectory()) {
+            return;
+        }
+        LOG.info("Deleting cached directory: {}", directory.getAbsolutePath());
+        try (final CacheEntryLock lock = CacheEntryLock.lock(directory)) {
+            deleteContentExceptLockFile(directory);
+            lock.deleteDirectoryOnClose();
+        } catch (IOException e) {
+            LOG.error("Failed to delete '{}'. continue...", directory.getAbsolutePath());
+        }
+    }
 
-            LOG.info("Deleting cached directory: {}", directory.getAbsolutePath());
-            FileUtils.recursiveDelete(directory, directory);
+    /**
+     * Deletes the directory of an entry if it is still not in the index after it has been locked.
+     * Directories locked by another thread or process are skipped as their entry is just being created.
+     */
+    private void deleteDirectoryWithoutEntry(File directory) {
+        final String entryId = entryIdFromCacheDir(directory);
+        try (final CacheEntryLock lock = CacheEntryLock.tryLock(directory)) {
+            if (lock == null) {
+                LOG.debug("skipping locked directory {}", directory);
+                return;
+            }
+            if (cacheIndex.getSynchronized(idx -> idx.containsEntry(entryId))) {
+                return;
+            }
+            deleteContentExceptLockFile(directory);
+            lock.deleteDirectoryOnClose();
         } catch (IOException e) {
-            LOG.error("Failed to delete '{}'. continue..." + directory.getAbsolutePath());
+            LOG.error("Failed to delete '{}'. continue...", directory.getAbsolutePath());
         }
+    }
 
-        idx.removeEntry(entry.getResourceHref(), entry.getVersion());
+    private void deleteContentExceptLockFile(File directory) throws IOException {
+        final File[] files = directory.listFiles(file -> !file.getName().equals(CacheEntryLock.LOCK_FILE_NAME));
+        if (files != null) {
+            for (File file : files) {
+                FileUtils.recursiveDelete(file, directory);
+            }
+        }
     }
 
     /**
@@ -350,10 +518,8 @@ class LeastRecentlyUsedCache {
         final File dir = rootCacheDir.getFile();
         LOG.debug("Clearing cache directory: {}", dir);
 
-        cacheIndex.runSynchronized(idx -> {
-            deleteAll(dir.listFiles(File::isDirectory));
-            idx.clear();
-        });
+        cacheIndex.runSynchronized(LeastRecentlyUsedCacheIndex::clear);
+        deleteAll(dir.listFiles(File::isDirectory));
 
         if (OsUtil.isWindows()) {
             WindowsShortcutManager.removeWindowsShortcuts("ALL");
@@ -362,16 +528,6 @@ class LeastRecentlyUsedCache {
         return true;
     }
 
-    private void deleteAll(Collection<File> files) {
-        if (files == null) {
-            return;
-        }
-
-        for (File file : files) {
-            deleteDir(file);
-        }
-    }
-
     private void deleteAll(File... files) {
         if (files == null) {
             return;
@@ -391,104 +547,298 @@ class LeastRecentlyUsedCache {
     }
 
     /**
-     * This will remove all old cache items.
+     * Removes the entries marked for deletion and evicts the least recently used entries until the cache
+     * is below its low-water mark. Only runs if no other javaws instance uses the cache.
      */
     void cleanCache() {
         if (cannotClearCache()) {
             return;
         }
 
-        final File[] levelOneDirs = rootCacheDir.getFile().listFiles(File::isDirectory);
-        if (isNullOrEmpty(levelOneDirs)) {
-            LOG.debug("found no folders in the cache dir - clear cache index");
-            cacheIndex.runSynchronized(LeastRecentlyUsedCacheIndex::clear);
-        } else {
-            LOG.debug("start cleaning the cache");
-            final Set<String> entryIdsFromFileSystem = collectAllEntryIdsFromFileSystem(levelOneDirs);
-            final Set<String> entryIdsFromIndex = new HashSet<>();
-            cacheIndex.runSynchronized(idx -> {
-
-                final long maxSize = getMaxSizeInBytes();
-                long curSize = 0;
-
-                final List<LeastRecentlyUsedCacheEntry> toRemoveFromIndex = new ArrayList<>();
-                for (LeastRecentlyUsedCacheEntry entry : idx.getAllEntries()) {
-                    entryIdsFromIndex.add(entry.getId());
-
-                    final CacheEntry infoFile = getInfoFile(entry);
-                    final File cacheFile = infoFile.getCacheFile();
-                    final File directory = cacheFile.getParentFile();
-
-                    if (!infoFile.exists()) {
-                        LOG.debug("missing info file for {}", entry.getResourceHref());
-                        toRemoveFromIndex.add(entry);
-                        deleteDir(directory);
-                        continue;
-                    }
+        LOG.debug("start cleaning the cache");
+        final int removed = removeInBatches(idx -> idx.removeMarkedForDeletion(REMOVAL_BATCH_SIZE));
+        final int evicted = evict(Long.MAX_VALUE);
+        LOG.debug("done cleaning the cache - removed {} and evicted {} entries", removed, evicted);
+    }
 
-                    if (entry.isMarkedForDeletion()) {
-                        LOG.debug("marked for deletion {}", entry.getResourceHref());
-                        toRemoveFromIndex.add(entry);
-                        deleteDir(directory);
-                        continue;
-                    }
-                    if (!cacheFile.isFile()) {
-                        LOG.debug("missing cache file {}", entry.getResourceHref());
-                        toRemoveFromIndex.add(entry);
-                        deleteDir(directory);
-                        continue;
-                    }
-                    final long size = cacheFile.length();
-                    if (maxSize >= 0 && curSize + size > maxSize) {
-                        LOG.debug("Current cache size is {} - file {} has size {} and would exceed max cache size {}",
-                                curSize, entry.getResourceHref(), size, maxSize);
-                        toRemoveFromIndex.add(entry);
-                        deleteDir(directory);
-                        continue;
+    /**
+     * Evicts the least recently used entries until the entries not marked for deletion are below the low-water
+     * mark of the cache. Entries marked for deletion are left to {@link #cleanCache()}. Entries whose directory is locked by another thread or
+     * process are skipped.
+     *
+     * @param accessedBefore only entries last accessed before this time (in ms) are evicted
+     * @return the number of evicted entries
+     */
+    private int evict(long accessedBefore) {
+        final long maxSize = getMaxSizeInBytes();
+        if (maxSize < 0) {
+            return 0;
+        }
+        final long targetSize = maxSize / 100 * LOW_WATER_MARK_PERCENT;
+        final Set<LeastRecentlyUsedCacheEntry> skipped = new HashSet<>();
+        int evicted = 0;
+        List<LeastRecentlyUsedCacheEntry> batch;
+        do {
+            batch = cacheIndex.getSynchronized(idx -> idx.findLeastRecentlyUsed(targetSize, REMOVAL_BATCH_SIZE, accessedBefore, skipped));
+            evicted += evictLocked(batch, targetSize, accessedBefore, skipped);
+        } while (!batch.isEmpty());
+        return evicted;
+    }
+
+    /**
+     * Locks the directories of the entries, removes the locked entries from the index at once and deletes their
+     * directories before releasing the locks.
+     *
+     * @param skipped collects the entries which could not be locked
+     * @return the number of evicted entries
+     */
+    private int evictLocked(List<LeastRecentlyUsedCacheEntry> batch, long targetSize, long accessedBefore, Set<LeastRecentlyUsedCacheEntry> skipped) {
+        final Map<LeastRecentlyUsedCacheEntry, CacheEntryLock> locks = new LinkedHashMap<>();
+        try {
+            for (LeastRecentlyUsedCacheEntry entry : batch) {
+                final File directory = cacheDirFromEntryId(entry.getId());
+                try {
+                    final CacheEntryLock lock = CacheEntryLock.tryLock(directory);
+                    if (lock != null) {
+                        locks.put(entry, lock);
+                    } else {
+                        LOG.debug("skipping locked directory {}", directory);
+                        skipped.add(entry);
                     }
+                } catch (IOException e) {
+                    LOG.debug("Failed to lock directory {} - {}", directory, e.getMessage());
+                    skipped.add(entry);
+                }
+            }
+            final List<LeastRecentlyUsedCacheEntry> lockedEntries = new ArrayList<>(locks.keySet());
+            final List<LeastRecentlyUsedCacheEntry> removed = cacheIndex.getSynchronized(idx -> idx.removeLeastRecentlyUsed(lockedEntries, targetSize, accessedBefore));
+            for (LeastRecentlyUsedCacheEntry entry : removed) {
+                final CacheEntryLock lock = locks.get(entry);
+                try {
+                    deleteContentExceptLockFile(lock.getDirectory());
+                    lock.deleteDirectoryOnClose();
+                } catch (IOException e) {
+                    LOG.error("Failed to delete '{}'. continue...", lock.getDirectory());
+                }
+            }
+            return removed.size();
+        } finally {
+            for (CacheEntryLock lock : locks.values()) {
+                try {
+                    lock.close();
+                } catch (IOException e) {
+                    LOG.debug("Failed to release directory {} - {}", lock.getDirectory(), e.getMessage());
+                }
+            }
+        }
+    }
 
-                    final File[] cacheDirFiles = directory.listFiles();
-                    if (!isNullOrEmpty(cacheDirFiles)) {
-                        for (File file : cacheDirFiles) {
-                            if (!file.equals(cacheFile) && !file.getName().equals(CacheEntry.INFO_SUFFIX)) {
-                                LOG.debug("found unknown file {}", file);
-                                deleteDir(file);
-                            }
-                        }
+    /**
+     * Removes entries from the index batch by batch. The index is only locked while a batch is removed,
+     * the directories of the batch are deleted afterwards.
+     *
+     * @param nextBatch removes the next batch of at most {@link #REMOVAL_BATCH_SIZE} entries from the index
+     * @return the number of removed entries
+     */
+    private int removeInBatches(Function<LeastRecentlyUsedCacheIndex, List<LeastRecentlyUsedCacheEntry>> nextBatch) {
+        int removed = 0;
+        List<LeastRecentlyUsedCacheEntry> batch;
+        do {
+            batch = cacheIndex.getSynchronized(nextBatch);
+            batch.forEach(entry -> deleteEntryDirectory(cacheDirFromEntryId(entry.getId())));
+            removed += batch.size();
+        } while (batch.size() >= REMOVAL_BATCH_SIZE);
+        return removed;
+    }
+
+    /**
+     * Starts evicting in the background if the cache grew beyond its maximal size.
+     * Entries used since this instance was created are not evicted. Nothing is evicted while
+     * other instances of javaws run, as they may use any entry. The cache is then evicted
+     * once the last instance exits.
+     * Entries marked for deletion are not counted as eviction does not remove them.
+     *
+     * @param sizeOfUnDeletedEntries the current size of the entries not marked for deletion in bytes
+     */
+    private void evictInBackgroundIfAboveLimit(long sizeOfUnDeletedEntries) {
+        final long maxSize = getMaxSizeInBytes();
+        if (maxSize >= 0 && sizeOfUnDeletedEntries > maxSize && evictionScheduled.compareAndSet(false, true)) {
+            LOG.debug("Cache size of {} bytes exceeds the maximum of {} bytes", sizeOfUnDeletedEntries, maxSize);
+            EVICTION_EXECUTOR.execute(() -> {
+                evictionScheduled.set(false);
+                try {
+                    if (otherInstancesMayBeRunning()) {
+                        LOG.debug("Not evicting entries from the cache while other instances of javaws are running");
+                        return;
                     }
+                    final int evicted = evict(createdAt);
+                    LOG.debug("Evicted {} entries from the cache", evicted);
+                } catch (RuntimeException e) {
+                    LOG.error("Failed to evict entries from the cache", e);
+                }
+            });
+        }
+    }
 
-                    curSize += size;
+    private void sweepInBackground() {
+        if (sweepScheduled.compareAndSet(false, true)) {
+            SWEEP_EXECUTOR.schedule(() -> {
+                try {
+                    sweepEntries();
+                    sweepDirectoriesWithoutEntry();
+                } catch (RuntimeException e) {
+                    LOG.error("Failed to sweep the cache", e);
                 }
+            }, SWEEP_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
 
-                toRemoveFromIndex.forEach(idx::removeEntry);
-            });
+    /**
+     * Checks the entries against the file system. This reads the directory of every entry, so it runs on
+     * a low priority thread and locks the index only to take a snapshot and to apply the changes.
+     * <ul>
+     *     <li>records the size of entries cached before sizes were kept in the index</li>
+     *     <li>removes entries with missing files which were not used since this instance was created</li>
+     *     <li>deletes unknown files in the entry directories</li>
+     *     <li>deletes blobs which are no longer shared by any entry</li>
+     * </ul>
+     */
+    void sweepEntries() {
+        if (!rootCacheDir.getFile().isDirectory()) {
+            return;
+        }
 
-            // delete dirs with no entry in the least recently used index
-            entryIdsFromFileSystem.removeAll(entryIdsFromIndex);
-            final List<File> dirsWithNoEntryInTheIndex = entryIdsFromFileSystem.stream()
-                    .map(this::cacheDirFromEntryId)
-                    .collect(Collectors.toList());
-            if (dirsWithNoEntryInTheIndex.size() > 0) {
-                LOG.debug("found directories with no entry in the index");
-                deleteAll(dirsWithNoEntryInTheIndex);
+        LOG.debug("start sweeping the cache entries");
+        final ContentAddressedBlobStore blobStore = getBlobStore();
+        final boolean hasBlobs = blobStore.exists();
+        final Set<String> referencedDigests = new HashSet<>();
+
+        final List<LeastRecentlyUsedCacheEntry> entries = cacheIndex.getSynchronized(idx -> new ArrayList<>(idx.getAllEntries()));
+        final List<LeastRecentlyUsedCacheEntry> toRemoveFromIndex = new ArrayList<>();
+        final Map<LeastRecentlyUsedCacheEntry, Long> unrecordedSizes = new HashMap<>();
+        for (LeastRecentlyUsedCacheEntry entry : entries) {
+            final CacheEntry infoFile = getInfoFile(entry);
+            final File cacheFile = infoFile.getCacheFile();
+
+            if (!infoFile.exists() || !cacheFile.isFile()) {
+                // entries used since this instance was created may still be downloaded
+                if (entry.getLastAccessed() < createdAt) {
+                    LOG.debug("missing files for {}", entry.getResourceHref());
+                    toRemoveFromIndex.add(entry);
+                }
+                continue;
+            }
+
+            if (entry.getSize() == 0) {
+                unrecordedSizes.put(entry, cacheFile.length());
             }
+            if (hasBlobs) {
+                final String digest = infoFile.getContentDigest();
+                if (digest != null) {
+                    referencedDigests.add(digest);
+                }
+            }
+            deleteUnknownFiles(cacheFile.getParentFile(), cacheFile);
+        }
+
+        final Set<String> snapshotIds = entries.stream()
+                .map(LeastRecentlyUsedCacheEntry::getId)
+                .collect(Collectors.toSet());
+        final long sizeOfUnDeletedEntries = cacheIndex.getSynchronized(idx -> {
+            toRemoveFromIndex.forEach(idx::removeEntry);
+            unrecordedSizes.forEach(idx::setSize);
+            if (hasBlobs) {
+                // entries added since the snapshot may already share a blob
+                idx.getAllEntries().stream()
+                        .filter(entry -> !snapshotIds.contains(entry.getId()))
+                        .map(entry -> getInfoFile(entry).getContentDigest())
+                        .filter(Objects::nonNull)
+                        .forEach(referencedDigests::add);
+            }
+            return idx.getSizeOfUnDeletedEntries();
+        });
+        toRemoveFromIndex.forEach(entry -> deleteEntryDirectory(cacheDirFromEntryId(entry.getId())));
+        if (hasBlobs) {
+            // a cache file linked to a deleted blob keeps its content
+            blobStore.removeUnreferencedBlobs(referencedDigests);
+        }
+        LOG.debug("done sweeping the cache entries - removed {} and recorded the size of {} entries", toRemoveFromIndex.size(), unrecordedSizes.size());
+
+        evictInBackgroundIfAboveLimit(sizeOfUnDeletedEntries);
+    }
+
+    /**
+     * Deletes the directories without entry in the index and the empty level one directories.
+     */
+    void sweepDirectoriesWithoutEntry() {
+        final File[] levelOneDirs = rootCacheDir.getFile().listFiles(this::isEntryDirectory);
+        if (isNullOrEmpty(levelOneDirs)) {
+            return;
+        }
 
-            // delete empty level one dirs
-            final List<File> emptyDirs = Arrays.stream(levelOneDirs)
-                    .filter(dir -> isNullOrEmpty(dir.list()))
-                    .collect(Collectors.toList());
-            if (emptyDirs.size() > 0) {
-                LOG.debug("found empty directories");
-                deleteAll(emptyDirs);
+        LOG.debug("start sweeping the cache directories");
+        // directories of entries just being created in another process may not be locked yet
+        final long createdBefore = clock.getAsLong() - TimeUnit.SECONDS.toMillis(SWEEP_DELAY_SECONDS);
+        final Set<String> entryIdsFromFileSystem = collectAllEntryIdsFromFileSystem(levelOneDirs, createdBefore);
+        final Set<String> entryIdsFromIndex = cacheIndex.getSynchronized(idx -> idx.getAllEntries().stream()
+                .map(LeastRecentlyUsedCacheEntry::getId)
+                .collect(Collectors.toSet()));
+
+        entryIdsFromFileSystem.removeAll(entryIdsFromIndex);
+        if (entryIdsFromFileSystem.size() > 0) {
+            LOG.debug("found directories with no entry in the index");
+            entryIdsFromFileSystem.stream()
+                    .map(this::cacheDirFromEntryId)
+                    .forEach(this::deleteDirectoryWithoutEntry);
+        }
+
+        // delete empty level one dirs, the deletion fails if an entry directory has been created meanwhile
+        final List<File> emptyDirs = Arrays.stream(levelOneDirs)
+                .filter(dir -> dir.lastModified() < createdBefore)
+                .filter(dir -> isNullOrEmpty(dir.list()))
+                .collect(Collectors.toList());
+        if (emptyDirs.size() > 0) {
+            LOG.debug("found empty directories");
+            emptyDirs.forEach(File::delete);
+        }
+        LOG.debug("done sweeping the cache directories");
+    }
+
+    /**
+     * Deletes files in the directory of an entry which do not belong to the entry.
+     * Directories locked by a download are skipped as the download may create temporary files.
+     */
+    private void deleteUnknownFiles(File directory, File cacheFile) {
+        try (final CacheEntryLock lock = CacheEntryLock.tryLock(directory)) {
+            if (lock == null) {
+                return;
             }
+            final File[] cacheDirFiles = directory.listFiles();
+            if (!isNullOrEmpty(cacheDirFiles)) {
+                for (File file : cacheDirFiles) {
+                    if (!file.equals(cacheFile) && !isEntryMetadataFile(file)) {
+                        LOG.debug("found unknown file {}", file);
+                        deleteDir(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Failed to lock directory {} - {}", directory, e.getMessage());
         }
-        LOG.debug("done cleaning the cache");
     }
 
-    private Set<String> collectAllEntryIdsFromFileSystem(File[] levelOneDirs) {
+    private boolean isEntryMetadataFile(File file) {
+        final String name = file.getName();
+        return name.equals(CacheEntry.INFO_SUFFIX) || name.equals(CacheEntry.PROFILE_SUFFIX) || name.equals(CacheEntryLock.LOCK_FILE_NAME);
+    }
+
+    /**
+     * @param createdBefore only directories last modified before this time (in ms) are included
+     */
+    private Set<String> collectAllEntryIdsFromFileSystem(File[] levelOneDirs, long createdBefore) {
         final Set<String> entryIds = new HashSet<>();
         for (File levelOneDir : levelOneDirs) {
-            final File[] levelTwoDirs = levelOneDir.listFiles(File::isDirectory);
+            final File[] levelTwoDirs = levelOneDir.listFiles(dir -> dir.isDirectory() && dir.lastModified() < createdBefore);
             if (levelTwoDirs != null) {
                 for (File levelTwoDir : levelTwoDirs) {
                     final String entryId = entryIdFromCacheDir(levelTwoDir);
@@ -501,19 +851,57 @@ class LeastRecentlyUsedCache {
         return entryIds;
     }
 
-    @SuppressWarnings("ConstantConditions")
     private long getMaxSizeInBytes() {
-        try {
-            final String maxSizePropertyValue = JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_CACHE_MAX_SIZE);
-            final long maxSizeInMegaBytes = Long.parseLong(maxSizePropertyValue);
-            return maxSizeInMegaBytes << 20; // Convert from megabyte to byte (Negative values will be considered unlimited.)
-        } catch (NumberFormatException ignored) {
-            return -1;
+        return maxSizeSupplier.getAsLong();
+    }
+
+    private boolean isDeduplicationEnabled() {
+        return JNLPRuntime.getConfiguration().getSnapshot().isCacheDeduplicationEnabled();
+    }
+
+    /**
+     * Evicts in the background if the maximal size of the cache has been lowered below its current size.
+     */
+    private void configurationChanged(final ConfigurationSnapshot snapshot, final Set<String> changedKeys) {
+        if (changedKeys.contains(ConfigurationConstants.KEY_CACHE_MAX_SIZE)) {
+            EVICTION_EXECUTOR.execute(() -> {
+                try {
+                    evictInBackgroundIfAboveLimit(cacheIndex.getSynchronized(LeastRecentlyUsedCacheIndex::getSizeOfUnDeletedEntries));
+                } catch (RuntimeException e) {
+                    LOG.error("Failed to check the size of the cache", e);
+                }
+            });
         }
     }
 
     // Helpers
 
+    private ContentAddressedBlobStore getBlobStore() {
+        return new ContentAddressedBlobStore(rootCacheDir.getFile());
+    }
+
+    private boolean isEntryDirectory(File file) {
+        return file.isDirectory() && !ContentAddressedBlobStore.BLOBS_DIR_NAME.equals(file.getName());
+    }
+
+    static MessageDigest createContentDigest() {
+        try {
+            return MessageDigest.getInstance(CacheEntry.CONTENT_DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every java implementation must support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
     private File getCacheFile(LeastRecentlyUsedCacheEntry entry) {
         final String[] idParts = entry.getId().split("-");
         final String cacheFilName = getCacheFileName(entry.getResourceHref());
@@ -549,6 +937,11 @@ class LeastRecentlyUsedCache {
         return path.substring(i + 1);
     }
 
+    private boolean otherInstancesMayBeRunning() {
+        // a running instance cannot lock the whole file while holding its own lock
+        return JNLPRuntime.isMarkedRunning() ? !JNLPRuntime.isOnlyRunningInstance() : !okToClearCache();
+    }
+
     private boolean cannotClearCache() {
         if (okToClearCache()) {
             final File cacheRoot = rootCacheDir.getFile();
@@ -592,6 +985,9 @@ class LeastRecentlyUsedCache {
                 LOG.info("No instance file found");
                 return true;
             }
+        } catch (OverlappingFileLockException e) {
+            LOG.info("The lock is held within this process");
+            return false;
         } catch (IOException e) {
             LOG.error("Failed to lock MAIN_LOCK (" + PathsAndFiles.MAIN_LOCK.getFullPath() + ")", e);
             return false;
@@ -606,8 +1002,23 @@ class LeastRecentlyUsedCache {
         }
     }
 
+    private static class LowPriorityThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate = new DaemonThreadFactory();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = delegate.newThread(r);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+
     private static class CacheHolder {
         private static final LeastRecentlyUsedCache INSTANCE = new LeastRecentlyUsedCache(PathsAndFiles.getRecentlyUsedFile(), PathsAndFiles.CACHE_DIR);
+
+        static {
+            JNLPRuntime.getConfiguration().addChangeListener(INSTANCE::configurationChanged);
+        }
     }
 
 }
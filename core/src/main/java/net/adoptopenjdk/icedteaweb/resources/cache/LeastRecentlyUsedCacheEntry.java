@@ -17,26 +17,56 @@ class LeastRecentlyUsedCacheEntry implements Comparable<LeastRecentlyUsedCacheEn
     private final URL resourceHref;
     private final VersionId version;
 
+    /**
+     * bytes used by the cached file, 0 if not yet known
+     */
+    private final long size;
+
     LeastRecentlyUsedCacheEntry(String id, long lastAccessed, URL resourceHref, VersionId version) {
+        this(id, lastAccessed, resourceHref, version, 0);
+    }
+
+    LeastRecentlyUsedCacheEntry(String id, long lastAccessed, URL resourceHref, VersionId version, long size) {
         this.id = id;
         this.lastAccessed = lastAccessed;
         this.markedForDeletion = false;
         this.resourceHref = resourceHref;
         this.version = version;
+        this.size = size;
     }
 
     LeastRecentlyUsedCacheEntry(String id, URL resourceHref, VersionId version) {
+        this(id, resourceHref, version, 0);
+    }
+
+    LeastRecentlyUsedCacheEntry(String id, URL resourceHref, VersionId version, long size) {
         this.id = id;
         this.lastAccessed = 0;
         this.markedForDeletion = true;
         this.resourceHref = resourceHref;
         this.version = version;
+        this.size = size;
+    }
+
+    LeastRecentlyUsedCacheEntry withSize(long newSize) {
+        if (markedForDeletion) {
+            return new LeastRecentlyUsedCacheEntry(id, resourceHref, version, newSize);
+        }
+        return new LeastRecentlyUsedCacheEntry(id, lastAccessed, resourceHref, version, newSize);
     }
 
     String getId() {
         return id;
     }
 
+    long getLastAccessed() {
+        return lastAccessed;
+    }
+
+    long getSize() {
+        return size;
+    }
+
     URL getResourceHref() {
         return resourceHref;
     }
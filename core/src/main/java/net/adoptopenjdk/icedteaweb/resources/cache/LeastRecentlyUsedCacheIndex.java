@@ -33,15 +33,26 @@ class LeastRecentlyUsedCacheIndex {
     private static final String KEY_DELETE = "delete";
     static final String KEY_HREF = "href";
     private static final String KEY_VERSION = "version";
+    private static final String KEY_SIZE = "size";
 
     private final PropertiesFile propertiesFile;
     private final List<LeastRecentlyUsedCacheEntry> entries;
 
+    private long totalSize;
+    /**
+     * the part of the total size used by entries marked for deletion, these are not evicted
+     */
+    private long markedForDeletionSize;
     private boolean dirty = false;
 
-    LeastRecentlyUsedCacheIndex(PropertiesFile propertiesFile, List<LeastRecentlyUsedCacheEntry> entries) {
+    LeastRecentlyUsedCacheIndex(PropertiesFile propertiesFile, List<LeastRecentlyUsedCacheEntry> entries, long totalSize) {
         this.propertiesFile = propertiesFile;
         this.entries = entries;
+        this.totalSize = totalSize;
+        this.markedForDeletionSize = entries.stream()
+                .filter(LeastRecentlyUsedCacheEntry::isMarkedForDeletion)
+                .mapToLong(LeastRecentlyUsedCacheEntry::getSize)
+                .sum();
     }
 
     /**
@@ -102,6 +113,13 @@ class LeastRecentlyUsedCacheIndex {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * @return {@code true} if the index contains an entry with the id, including entries marked for deletion
+     */
+    boolean containsEntry(String entryId) {
+        return entries.stream().anyMatch(e -> e.getId().equals(entryId));
+    }
+
     /**
      * @return all entries
      */
@@ -134,7 +152,8 @@ class LeastRecentlyUsedCacheIndex {
     void markEntryForDeletion(URL resourceHref, VersionId version) {
         find(resourceHref, version).ifPresent(entry -> {
             entries.remove(entry);
-            entries.add(new LeastRecentlyUsedCacheEntry(entry.getId(), entry.getResourceHref(), entry.getVersion()));
+            entries.add(new LeastRecentlyUsedCacheEntry(entry.getId(), entry.getResourceHref(), entry.getVersion(), entry.getSize()));
+            markedForDeletionSize += entry.getSize();
             propertiesFile.setProperty(entry.getId() + '.' + KEY_DELETE, TRUE.toString());
             dirty = true;
         });
@@ -151,20 +170,139 @@ class LeastRecentlyUsedCacheIndex {
      * Removes an entry from the index.
      */
     void removeEntry(LeastRecentlyUsedCacheEntry entry) {
-        entries.remove(entry);
+        final int i = entries.indexOf(entry);
+        if (i >= 0) {
+            final LeastRecentlyUsedCacheEntry removed = entries.remove(i);
+            totalSize -= removed.getSize();
+            if (removed.isMarkedForDeletion()) {
+                markedForDeletionSize -= removed.getSize();
+            }
+        }
         propertiesFile.remove(entry.getId() + '.' + KEY_HREF);
         propertiesFile.remove(entry.getId() + '.' + KEY_VERSION);
         propertiesFile.remove(entry.getId() + '.' + KEY_DELETE);
         propertiesFile.remove(entry.getId() + '.' + KEY_LAST_ACCESSED);
+        propertiesFile.remove(entry.getId() + '.' + KEY_SIZE);
         dirty = true;
     }
 
+    /**
+     * Finds the least recently used entries whose removal brings the size of the entries not marked for deletion
+     * down to the target size.
+     * Entries marked for deletion and entries accessed at or after the given time are not included.
+     *
+     * @param targetSize     the size in bytes to reach
+     * @param maxCount       the maximal number of entries to find
+     * @param accessedBefore only entries last accessed before this time (in ms) are included
+     * @param excluded       entries which are not included
+     * @return the entries, least recently used first
+     */
+    List<LeastRecentlyUsedCacheEntry> findLeastRecentlyUsed(long targetSize, int maxCount, long accessedBefore, Set<LeastRecentlyUsedCacheEntry> excluded) {
+        final List<LeastRecentlyUsedCacheEntry> found = new ArrayList<>();
+        long remainingSize = getSizeOfUnDeletedEntries();
+        // the entries are ordered from most to least recently accessed with the ones marked for deletion last
+        for (int i = entries.size() - 1; i >= 0 && remainingSize > targetSize && found.size() < maxCount; i--) {
+            final LeastRecentlyUsedCacheEntry entry = entries.get(i);
+            if (entry.isMarkedForDeletion() || excluded.contains(entry)) {
+                continue;
+            }
+            if (entry.getLastAccessed() >= accessedBefore) {
+                break;
+            }
+            found.add(entry);
+            remainingSize -= entry.getSize();
+        }
+        return found;
+    }
+
+    /**
+     * Removes the given entries in their order until the size of the entries not marked for deletion is at most
+     * the target size. Entries which
+     * have been removed, marked for deletion or accessed at or after the given time since they were found are kept.
+     *
+     * @param candidates     entries found by {@link #findLeastRecentlyUsed(long, int, long, Set)}
+     * @param targetSize     the size in bytes to reach
+     * @param accessedBefore only entries last accessed before this time (in ms) are removed
+     * @return the removed entries
+     */
+    List<LeastRecentlyUsedCacheEntry> removeLeastRecentlyUsed(List<LeastRecentlyUsedCacheEntry> candidates, long targetSize, long accessedBefore) {
+        final List<LeastRecentlyUsedCacheEntry> removed = new ArrayList<>();
+        for (LeastRecentlyUsedCacheEntry candidate : candidates) {
+            if (getSizeOfUnDeletedEntries() <= targetSize) {
+                break;
+            }
+            final int i = entries.indexOf(candidate);
+            if (i < 0) {
+                continue;
+            }
+            final LeastRecentlyUsedCacheEntry entry = entries.get(i);
+            if (entry.isMarkedForDeletion() || entry.getLastAccessed() >= accessedBefore) {
+                continue;
+            }
+            removeEntry(entry);
+            removed.add(entry);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes entries marked for deletion.
+     *
+     * @param maxCount the maximal number of entries to remove
+     * @return the removed entries
+     */
+    List<LeastRecentlyUsedCacheEntry> removeMarkedForDeletion(int maxCount) {
+        final List<LeastRecentlyUsedCacheEntry> removed = new ArrayList<>();
+        // the entries marked for deletion are the last ones
+        for (int i = entries.size() - 1; i >= 0 && removed.size() < maxCount && entries.get(i).isMarkedForDeletion(); i--) {
+            final LeastRecentlyUsedCacheEntry entry = entries.get(i);
+            removeEntry(entry);
+            removed.add(entry);
+        }
+        return removed;
+    }
+
+    /**
+     * Records the number of bytes used by the cached file of an entry.
+     * If the entry is not in the index nothing is changed.
+     */
+    void setSize(LeastRecentlyUsedCacheEntry entry, long size) {
+        final int i = entries.indexOf(entry);
+        if (i < 0) {
+            return;
+        }
+        final LeastRecentlyUsedCacheEntry current = entries.get(i);
+        entries.set(i, current.withSize(size));
+        totalSize += size - current.getSize();
+        if (current.isMarkedForDeletion()) {
+            markedForDeletionSize += size - current.getSize();
+        }
+        propertiesFile.setProperty(entry.getId() + '.' + KEY_SIZE, Long.toString(size));
+        dirty = true;
+    }
+
+    /**
+     * @return the sum of the sizes of all entries in bytes
+     */
+    long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * @return the sum of the sizes of the entries not marked for deletion in bytes
+     */
+    long getSizeOfUnDeletedEntries() {
+        return totalSize - markedForDeletionSize;
+    }
+
     /**
      * Removes all entries.
      */
     void clear() {
         entries.clear();
         propertiesFile.clear();
+        totalSize = 0;
+        markedForDeletionSize = 0;
         dirty = true;
     }
 
@@ -175,7 +313,7 @@ class LeastRecentlyUsedCacheIndex {
     private void markAccessed(LeastRecentlyUsedCacheEntry entry) {
         final long now = System.currentTimeMillis();
         entries.remove(entry);
-        entries.add(0, new LeastRecentlyUsedCacheEntry(entry.getId(), now, entry.getResourceHref(), entry.getVersion()));
+        entries.add(0, new LeastRecentlyUsedCacheEntry(entry.getId(), now, entry.getResourceHref(), entry.getVersion(), entry.getSize()));
         propertiesFile.setProperty(entry.getId() + '.' + KEY_LAST_ACCESSED, Long.toString(now));
         dirty = true;
     }
@@ -213,6 +351,7 @@ class LeastRecentlyUsedCacheIndex {
         // convert the properties to actual entries
         // collecting the IDs of the ones which have invalid data
         final List<LeastRecentlyUsedCacheEntry> entries = new ArrayList<>(id2ValueMap.size());
+        long totalSize = 0;
         for (Map.Entry<String, Map<String, String>> valuesEntry : id2ValueMap.entrySet()) {
             final Map<String, String> values = valuesEntry.getValue();
 
@@ -221,22 +360,26 @@ class LeastRecentlyUsedCacheIndex {
             final String markedForDeletionValue = values.get(KEY_DELETE);
             final String resourceHrefValue = values.get(KEY_HREF);
             final String versionValue = values.get(KEY_VERSION);
+            final String sizeValue = values.get(KEY_SIZE);
 
             try {
                 final VersionId version = versionValue != null ? VersionId.fromString(versionValue) : null;
                 final URL resourceHref = new URL(resourceHrefValue);
+                final long size = sizeValue != null ? Long.parseLong(sizeValue) : 0;
                 if (Boolean.parseBoolean(markedForDeletionValue)) {
-                    entries.add(new LeastRecentlyUsedCacheEntry(id, resourceHref, version));
+                    entries.add(new LeastRecentlyUsedCacheEntry(id, resourceHref, version, size));
                 } else {
                     final long lastAccessed = Long.parseLong(lastAccessedValue);
-                    entries.add(new LeastRecentlyUsedCacheEntry(id, lastAccessed, resourceHref, version));
+                    entries.add(new LeastRecentlyUsedCacheEntry(id, lastAccessed, resourceHref, version, size));
                 }
+                totalSize += size;
             } catch (Exception e) {
                 LOG.debug("found broken ID: {}", id);
                 props.remove(id + '.' + KEY_LAST_ACCESSED);
                 props.remove(id + '.' + KEY_DELETE);
                 props.remove(id + '.' + KEY_HREF);
                 props.remove(id + '.' + KEY_VERSION);
+                props.remove(id + '.' + KEY_SIZE);
                 modified = true;
             }
         }
@@ -244,7 +387,7 @@ class LeastRecentlyUsedCacheIndex {
         // make sure the entries are sorted most recent accessed to least recent accessed
         Collections.sort(entries);
 
-        return new ConversionResult(modified, entries);
+        return new ConversionResult(modified, entries, totalSize);
     }
 
     private static String[] splitKey(String key) {
@@ -258,10 +401,12 @@ class LeastRecentlyUsedCacheIndex {
     static class ConversionResult {
         final boolean propertiesNeedToBeStored;
         final List<LeastRecentlyUsedCacheEntry> entries;
+        final long totalSize;
 
-        private ConversionResult(boolean propertiesNeedToBeStored, List<LeastRecentlyUsedCacheEntry> entries) {
+        private ConversionResult(boolean propertiesNeedToBeStored, List<LeastRecentlyUsedCacheEntry> entries, long totalSize) {
             this.propertiesNeedToBeStored = propertiesNeedToBeStored;
             this.entries = entries;
+            this.totalSize = totalSize;
         }
     }
 }
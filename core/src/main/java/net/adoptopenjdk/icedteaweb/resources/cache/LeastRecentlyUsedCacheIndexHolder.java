@@ -9,6 +9,9 @@ import net.sourceforge.jnlp.util.RestrictedFileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
@@ -23,12 +26,18 @@ class LeastRecentlyUsedCacheIndexHolder {
 
     private static final Logger LOG = LoggerFactory.getLogger(LeastRecentlyUsedCacheIndexHolder.class);
 
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+
     private static ReentrantLock lock = new ReentrantLock();
 
     private final InfrastructureFileDescriptor recentlyUsed;
 
+    private FileChannel lockChannel;
+    private File lockChannelFile;
+
     private PropertiesFile cachedIndexPropertiesFile;
     private List<LeastRecentlyUsedCacheEntry> cachedEntries;
+    private long cachedTotalSize;
 
     LeastRecentlyUsedCacheIndexHolder(InfrastructureFileDescriptor recentlyUsed) {
         this.recentlyUsed = recentlyUsed;
@@ -51,11 +60,14 @@ class LeastRecentlyUsedCacheIndexHolder {
      */
     <T> T getSynchronized(Function<LeastRecentlyUsedCacheIndex, T> action) {
         lock.lock();
+        // file locks are not reentrant, nested calls already hold the lock
+        final FileLock indexLock = lock.getHoldCount() == 1 ? lockIndex() : null;
         try {
             final PropertiesFile propertiesFile = lockPropertiesFile();
             try {
                 final LeastRecentlyUsedCacheIndex index = load(propertiesFile);
                 final T result = action.apply(index);
+                cachedTotalSize = index.getTotalSize();
                 if (index.isDirty()) {
                     store(propertiesFile);
                 }
@@ -64,7 +76,58 @@ class LeastRecentlyUsedCacheIndexHolder {
                 unlockPropertiesFile(propertiesFile);
             }
         } finally {
-            lock.unlock();
+            try {
+                unlockIndex(indexLock);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Locks the index against other processes.
+     * <p>
+     * The lock is taken on a separate file as closing any stream of the index file, as done when
+     * loading or storing it, releases all locks this process holds on the index file.
+     * </p>
+     *
+     * @return the lock, {@code null} if the lock file cannot be locked
+     */
+    private FileLock lockIndex() {
+        final File recentlyUsedFile = recentlyUsed.getFile();
+        final File lockFile = new File(recentlyUsedFile.getParentFile(), recentlyUsedFile.getName() + LOCK_FILE_SUFFIX);
+        try {
+            FileUtils.createParentDir(lockFile);
+            if (lockChannel == null || !lockFile.equals(lockChannelFile)) {
+                closeLockChannel();
+                lockChannel = new RandomAccessFile(lockFile, "rw").getChannel();
+                lockChannelFile = lockFile;
+            }
+            return lockChannel.lock();
+        } catch (IOException e) {
+            LOG.error("Failed to lock the cache index " + lockFile, e);
+            return null;
+        }
+    }
+
+    private void unlockIndex(FileLock indexLock) {
+        if (indexLock != null) {
+            try {
+                indexLock.release();
+            } catch (IOException e) {
+                LOG.error("Failed to unlock the cache index", e);
+            }
+        }
+    }
+
+    private void closeLockChannel() {
+        if (lockChannel != null) {
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                LOG.debug("Failed to close {} - {}", lockChannelFile, e.getMessage());
+            }
+            lockChannel = null;
         }
     }
 
@@ -97,8 +160,9 @@ class LeastRecentlyUsedCacheIndexHolder {
             }
 
             cachedEntries = result.entries;
+            cachedTotalSize = result.totalSize;
         }
-        return new LeastRecentlyUsedCacheIndex(propertiesFile, cachedEntries);
+        return new LeastRecentlyUsedCacheIndex(propertiesFile, cachedEntries, cachedTotalSize);
     }
 
     /**
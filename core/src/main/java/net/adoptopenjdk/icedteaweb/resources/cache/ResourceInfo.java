@@ -32,4 +32,10 @@ public interface ResourceInfo {
      * @return the last time the resource was downloaded (in Java millis)
      */
     long getDownloadedAt();
+
+    /**
+     * @return the SHA-256 digest of the cached content as lower case hex string
+     * or {@code null} if the digest was not recorded when the resource was downloaded
+     */
+    String getContentDigest();
 }
@@ -0,0 +1,317 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+import net.adoptopenjdk.icedteaweb.io.IOUtils;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.adoptopenjdk.icedteaweb.StringUtils.isBlank;
+
+/**
+ * Read-only cache shared by all users of a machine.
+ * <p>
+ * The system cache is populated by an administrator and is consulted before the cache of the user.
+ * The content is stored in {@code <root>/entries/<sha-256>/<file name>} and described by a single index file
+ * {@code <root>/index}. Each line of the index describes one entry with the tab separated fields
+ * </p>
+ * <pre>
+ *     href  version  path  size  last-modified  downloaded-at  sha-256
+ * </pre>
+ * <p>
+ * where {@code version} is empty for unversioned resources and {@code path} is relative to the root.
+ * Lines starting with {@code #} are comments. The index is replaced atomically when entries are added,
+ * readers reload it whenever the file changes.
+ * </p>
+ */
+class SystemCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SystemCache.class);
+
+    static final String INDEX_FILE_NAME = "index";
+    static final String INDEX_HEADER = "# IcedTea-Web system cache index v1";
+    static final String ENTRIES_DIR_NAME = "entries";
+
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final int FIELD_COUNT = 7;
+    private static final String LOCK_FILE_NAME = "index.lock";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static volatile SystemCache instance;
+
+    private final File root;
+    private final File indexFile;
+
+    private volatile IndexSnapshot snapshot = IndexSnapshot.EMPTY;
+
+    /**
+     * @return the system cache configured with {@link ConfigurationConstants#KEY_SYSTEM_CACHE_DIR}
+     * or {@code empty} if no system cache is configured
+     */
+    static Optional<SystemCache> getInstance() {
+        final String dir = JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_SYSTEM_CACHE_DIR);
+        if (isBlank(dir)) {
+            return Optional.empty();
+        }
+        final File root = new File(dir.trim());
+        SystemCache current = instance;
+        if (current == null || !current.root.equals(root)) {
+            current = new SystemCache(root);
+            instance = current;
+        }
+        return Optional.of(current);
+    }
+
+    SystemCache(final File root) {
+        this.root = Assert.requireNonNull(root, "root");
+        this.indexFile = new File(root, INDEX_FILE_NAME);
+    }
+
+    /**
+     * @return the entry for exactly the given resource and version if its content is present
+     */
+    Optional<SystemCacheEntry> find(final URL resourceHref, final VersionId version) {
+        return getEntries(resourceHref).stream()
+                .filter(e -> e.matches(resourceHref, version))
+                .filter(SystemCacheEntry::isCached)
+                .findFirst();
+    }
+
+    /**
+     * @return all entries of the resource matching the version string whose content is present
+     */
+    List<SystemCacheEntry> findAll(final URL resourceHref, final VersionString version) {
+        return getEntries(resourceHref).stream()
+                .filter(e -> e.matches(resourceHref, version))
+                .filter(SystemCacheEntry::isCached)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return all versions of the resource whose content is present
+     */
+    List<SystemCacheEntry> findAll(final URL resourceHref) {
+        return getEntries(resourceHref).stream()
+                .filter(SystemCacheEntry::isCached)
+                .collect(Collectors.toList());
+    }
+
+    private List<SystemCacheEntry> getEntries(final URL resourceHref) {
+        return currentSnapshot().entries.getOrDefault(resourceHref.toString(), Collections.emptyList());
+    }
+
+    private IndexSnapshot currentSnapshot() {
+        final IndexSnapshot current = snapshot;
+        final long lastModified = indexFile.lastModified();
+        final long length = indexFile.length();
+        if (current.lastModified == lastModified && current.length == length) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot.lastModified != lastModified || snapshot.length != length) {
+                snapshot = new IndexSnapshot(lastModified, length, lastModified == 0 ? Collections.emptyList() : readIndex());
+            }
+            return snapshot;
+        }
+    }
+
+    private List<SystemCacheEntry> readIndex() {
+        try (final BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), UTF_8)) {
+            final List<SystemCacheEntry> result = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isBlank(line) || line.startsWith("#")) {
+                    continue;
+                }
+                final SystemCacheEntry entry = parseLine(line);
+                if (entry != null) {
+                    result.add(entry);
+                }
+            }
+            LOG.debug("Loaded {} entries from system cache index {}", result.size(), indexFile);
+            return result;
+        } catch (IOException e) {
+            LOG.warn("Could not read system cache index {} - {}", indexFile, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private SystemCacheEntry parseLine(final String line) {
+        final String[] fields = line.split(FIELD_SEPARATOR, -1);
+        if (fields.length != FIELD_COUNT) {
+            LOG.warn("Ignoring malformed line in system cache index: {}", line);
+            return null;
+        }
+        try {
+            final URL href = new URL(fields[0]);
+            final VersionId version = fields[1].isEmpty() ? null : VersionId.fromString(fields[1]);
+            final String path = fields[2];
+            final File file = new File(root, path);
+            return new SystemCacheEntry(href, version, path, file,
+                    Long.parseLong(fields[3]), Long.parseLong(fields[4]), Long.parseLong(fields[5]),
+                    fields[6].isEmpty() ? null : fields[6]);
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            LOG.warn("Ignoring malformed line in system cache index: {} - {}", line, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Copies a resource into the system cache and replaces any existing entry of the same resource and version.
+     * Files which are no longer referenced by the index are removed afterwards.
+     *
+     * @param info    the info about the resource
+     * @param content the file with the content of the resource
+     * @return the new entry
+     * @throws IOException if the system cache could not be written
+     */
+    SystemCacheEntry add(final ResourceInfo info, final File content) throws IOException {
+        final File entriesDir = new File(root, ENTRIES_DIR_NAME);
+        if (!entriesDir.isDirectory() && !entriesDir.mkdirs()) {
+            throw new IOException("Could not create system cache directory " + entriesDir);
+        }
+
+        try (final RandomAccessFile lockFile = new RandomAccessFile(new File(root, LOCK_FILE_NAME), "rw");
+             final FileLock ignored = lockFile.getChannel().lock()) {
+
+            final File tempFile = File.createTempFile("content", TEMP_SUFFIX, entriesDir);
+            final String digest;
+            try {
+                final MessageDigest contentDigest = LeastRecentlyUsedCache.createContentDigest();
+                try (final InputStream in = new FileInputStream(content);
+                     final OutputStream out = new DigestOutputStream(new FileOutputStream(tempFile), contentDigest)) {
+                    IOUtils.copy(in, out);
+                }
+                digest = LeastRecentlyUsedCache.toHex(contentDigest.digest());
+
+                final File targetDir = new File(entriesDir, digest);
+                final File target = new File(targetDir, content.getName());
+                if (!(target.isFile() && target.length() == tempFile.length())) {
+                    if (!targetDir.isDirectory() && !targetDir.mkdirs()) {
+                        throw new IOException("Could not create system cache directory " + targetDir);
+                    }
+                    Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+
+            final String path = ENTRIES_DIR_NAME + "/" + digest + "/" + content.getName();
+            final SystemCacheEntry entry = new SystemCacheEntry(info.getResourceHref(), info.getVersion(), path,
+                    new File(root, path), content.length(), info.getLastModified(), info.getDownloadedAt(), digest);
+
+            final List<SystemCacheEntry> entries = new ArrayList<>(readIndexIfPresent());
+            entries.removeIf(e -> e.matches(entry.getResourceHref(), entry.getVersion()));
+            entries.add(entry);
+            writeIndex(entries);
+            snapshot = IndexSnapshot.EMPTY;
+            removeUnreferencedContent(entriesDir, entries);
+
+            LOG.info("Added {} to system cache {}", entry, root);
+            return entry;
+        }
+    }
+
+    private List<SystemCacheEntry> readIndexIfPresent() {
+        return indexFile.isFile() ? readIndex() : Collections.emptyList();
+    }
+
+    private void writeIndex(final List<SystemCacheEntry> entries) throws IOException {
+        final File tempFile = new File(root, INDEX_FILE_NAME + TEMP_SUFFIX);
+        try (final BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), UTF_8)) {
+            writer.write(INDEX_HEADER);
+            writer.newLine();
+            writer.write("# href\tversion\tpath\tsize\tlast-modified\tdownloaded-at\tsha-256");
+            writer.newLine();
+            for (SystemCacheEntry entry : entries) {
+                writer.write(toLine(entry));
+                writer.newLine();
+            }
+        }
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String toLine(final SystemCacheEntry entry) {
+        return String.join(FIELD_SEPARATOR,
+                entry.getResourceHref().toString(),
+                entry.getVersion() != null ? entry.getVersion().toString() : "",
+                entry.getRelativePath(),
+                Long.toString(entry.getSize()),
+                Long.toString(entry.getLastModified()),
+                Long.toString(entry.getDownloadedAt()),
+                entry.getContentDigest() != null ? entry.getContentDigest() : "");
+    }
+
+    private void removeUnreferencedContent(final File entriesDir, final List<SystemCacheEntry> entries) {
+        final Set<String> referenced = new HashSet<>();
+        for (SystemCacheEntry entry : entries) {
+            referenced.add(entry.getCacheFile().getAbsolutePath());
+        }
+        final File[] contentDirs = entriesDir.listFiles(File::isDirectory);
+        if (contentDirs == null) {
+            return;
+        }
+        for (File contentDir : contentDirs) {
+            final File[] files = contentDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (!referenced.contains(file.getAbsolutePath()) && !file.delete()) {
+                        LOG.debug("Could not delete unreferenced system cache file {}", file);
+                    }
+                }
+            }
+            final String[] remaining = contentDir.list();
+            if (remaining != null && remaining.length == 0 && !contentDir.delete()) {
+                LOG.debug("Could not delete system cache directory {}", contentDir);
+            }
+        }
+    }
+
+    private static class IndexSnapshot {
+        private static final IndexSnapshot EMPTY = new IndexSnapshot(0, 0, Collections.emptyList());
+
+        private final long lastModified;
+        private final long length;
+        private final Map<String, List<SystemCacheEntry>> entries;
+
+        private IndexSnapshot(final long lastModified, final long length, final List<SystemCacheEntry> entries) {
+            this.lastModified = lastModified;
+            this.length = length;
+            final Map<String, List<SystemCacheEntry>> byHref = new HashMap<>();
+            for (SystemCacheEntry entry : entries) {
+                byHref.computeIfAbsent(entry.getResourceHref().toString(), k -> new ArrayList<>()).add(entry);
+            }
+            this.entries = byHref;
+        }
+    }
+}
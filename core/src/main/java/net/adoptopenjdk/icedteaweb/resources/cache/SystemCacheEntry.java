@@ -0,0 +1,114 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Objects;
+
+/**
+ * A single resource in the read-only {@link SystemCache}.
+ */
+class SystemCacheEntry implements ResourceInfo {
+
+    private final URL resourceHref;
+    private final VersionId version;
+    private final String relativePath;
+    private final File cacheFile;
+    private final long size;
+    private final long lastModified;
+    private final long downloadedAt;
+    private final String contentDigest;
+
+    SystemCacheEntry(URL resourceHref, VersionId version, String relativePath, File cacheFile, long size, long lastModified, long downloadedAt, String contentDigest) {
+        this.resourceHref = resourceHref;
+        this.version = version;
+        this.relativePath = relativePath;
+        this.cacheFile = cacheFile;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.downloadedAt = downloadedAt;
+        this.contentDigest = contentDigest;
+    }
+
+    @Override
+    public URL getResourceHref() {
+        return resourceHref;
+    }
+
+    @Override
+    public VersionId getVersion() {
+        return version;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public long getDownloadedAt() {
+        return downloadedAt;
+    }
+
+    @Override
+    public String getContentDigest() {
+        return contentDigest;
+    }
+
+    String getRelativePath() {
+        return relativePath;
+    }
+
+    File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Compares the external forms like the index of the system cache, {@link URL#equals} would resolve the hosts.
+     */
+    private boolean isSameHref(URL resource) {
+        return resource != null && resourceHref.toExternalForm().equals(resource.toExternalForm());
+    }
+
+    boolean matches(URL resource, VersionId versionId) {
+        return isSameHref(resource) && Objects.equals(versionId, version);
+    }
+
+    boolean matches(URL resource, VersionString versionString) {
+        if (isSameHref(resource)) {
+            if (versionString == null && version == null) {
+                return true;
+            }
+            if (versionString != null && version != null) {
+                return versionString.contains(version);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the file of the entry exists and has the size recorded in the index
+     */
+    boolean isCached() {
+        return cacheFile.isFile() && cacheFile.length() == size;
+    }
+
+    /**
+     * Same semantic as {@link CacheEntry#isCurrent(long)}.
+     */
+    boolean isCurrent(long remoteLastModified) {
+        return isCached() && remoteLastModified > 0 && remoteLastModified <= lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return resourceHref + " (" + version + ") -> " + relativePath;
+    }
+}
@@ -0,0 +1,94 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Input stream which limits the transfer rate while a condition holds.
+ * Once the condition no longer holds the stream is read at full speed.
+ */
+class BandwidthLimitedInputStream extends FilterInputStream {
+
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final long bytesPerSecond;
+    private final BooleanSupplier limitActive;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+
+    private long windowStart = -1;
+    private long bytesInWindow = 0;
+
+    BandwidthLimitedInputStream(final InputStream in, final long bytesPerSecond, final BooleanSupplier limitActive) {
+        this(in, bytesPerSecond, limitActive, System::currentTimeMillis, Thread::sleep);
+    }
+
+    BandwidthLimitedInputStream(final InputStream in, final long bytesPerSecond, final BooleanSupplier limitActive, final LongSupplier clock, final Sleeper sleeper) {
+        super(in);
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("bytesPerSecond must be positive");
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.limitActive = limitActive;
+        this.clock = clock;
+        this.sleeper = sleeper;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int value = super.read();
+        if (value >= 0) {
+            throttle(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int result = super.read(b, off, len);
+        if (result > 0) {
+            throttle(result);
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long result = super.skip(n);
+        if (result > 0) {
+            throttle(result);
+        }
+        return result;
+    }
+
+    private void throttle(final long numBytes) throws IOException {
+        if (!limitActive.getAsBoolean()) {
+            windowStart = -1;
+            return;
+        }
+
+        final long now = clock.getAsLong();
+        if (windowStart < 0) {
+            windowStart = now;
+            bytesInWindow = 0;
+        }
+        bytesInWindow += numBytes;
+
+        final long expectedMillis = (bytesInWindow * 1000) / bytesPerSecond;
+        final long elapsedMillis = now - windowStart;
+        if (expectedMillis > elapsedMillis) {
+            try {
+                sleeper.sleep(expectedMillis - elapsedMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while limiting bandwidth");
+            }
+        }
+    }
+}
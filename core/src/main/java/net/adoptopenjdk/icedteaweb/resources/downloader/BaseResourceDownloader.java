@@ -35,8 +35,10 @@ import java.util.stream.Stream;
 
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.ACCEPT_ENCODING_HEADER;
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.CONTENT_ENCODING_HEADER;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.CONTENT_RANGE_HEADER;
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.CONTENT_TYPE_HEADER;
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.ERROR_MIME_TYPE;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.ETAG_HEADER;
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.INVALID_HTTP_RESPONSE;
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.LAST_MODIFIED_HEADER;
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.PACK_200_OR_GZIP;
@@ -103,8 +105,10 @@ abstract class BaseResourceDownloader implements ResourceDownloader {
     }
 
     private Resource tryDownloading(final URL downloadFrom) throws IOException {
-        try (final CloseableConnection connection = getDownloadConnection(downloadFrom)) {
-            final DownloadDetails downloadDetails = getDownloadDetails(connection);
+        try (final PartialDownload partialDownload = PartialDownload.forLocation(downloadFrom).orElse(null);
+             final CloseableConnection connection = getDownloadConnection(downloadFrom, partialDownload)) {
+            final boolean resumable = partialDownload != null && startPartialDownload(connection, partialDownload);
+            final DownloadDetails downloadDetails = getDownloadDetails(connection, resumable ? partialDownload : null);
 
             if (downloadDetails.contentType != null && downloadDetails.contentType.startsWith(ERROR_MIME_TYPE)) {
                 final String serverResponse = StreamUtils.readStreamAsString(downloadDetails.inputStream);
@@ -112,7 +116,7 @@ abstract class BaseResourceDownloader implements ResourceDownloader {
             }
 
             resource.setSize(downloadDetails.totalSize);
-            final long bytesTransferred = tryDownloading(downloadDetails);
+            final long bytesTransferred = tryDownloading(downloadDetails, resumable ? partialDownload : null);
 
             resource.setStatus(DOWNLOADED);
             resource.setTransferred(bytesTransferred);
@@ -123,49 +127,100 @@ abstract class BaseResourceDownloader implements ResourceDownloader {
         }
     }
 
-    private CloseableConnection getDownloadConnection(final URL location) throws IOException {
+    private CloseableConnection getDownloadConnection(final URL location, final PartialDownload partialDownload) throws IOException {
         final Map<String, String> requestProperties = new HashMap<>();
         requestProperties.put(ACCEPT_ENCODING_HEADER, PACK_200_OR_GZIP);
+        if (partialDownload != null) {
+            requestProperties.putAll(partialDownload.getResumeRequestProperties());
+        }
         return ConnectionFactory.openConnection(location, HttpMethod.GET, requestProperties);
     }
 
-    private long tryDownloading(final DownloadDetails downloadDetails) throws IOException {
+    private boolean startPartialDownload(final CloseableConnection connection, final PartialDownload partialDownload) throws IOException {
+        try {
+            return partialDownload.start(connection.getResponseCode(),
+                    connection.getHeaderField(CONTENT_RANGE_HEADER),
+                    connection.getHeaderField(ETAG_HEADER),
+                    connection.getHeaderField(LAST_MODIFIED_HEADER),
+                    connection.getContentLength());
+        } catch (IOException ex) {
+            if (INVALID_HTTP_RESPONSE.equals(ex.getMessage())) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+
+    private long tryDownloading(final DownloadDetails downloadDetails, final PartialDownload partialDownload) throws IOException {
         final URL resourceHref = resource.getLocation();
         final VersionId version = getVersion(downloadDetails.downloadFrom, downloadDetails.version);
 
         if (isUpToDate(resourceHref, version, downloadDetails.lastModified)) {
+            if (partialDownload != null) {
+                partialDownload.delete();
+            }
             final File cacheFile = Cache.getCacheFile(resourceHref, version);
             resource.setLocalFile(cacheFile);
             return cacheFile.length();
+        } else if (partialDownload != null) {
+            // the bytes of previous attempts count as transferred, like in the progress of this attempt
+            final long offset = partialDownload.getOffset();
+            final CountingInputStream countingInputStream = new CountingInputStream(downloadDetails.inputStream);
+            try (final InputStream completeContent = partialDownload.transfer(countingInputStream)) {
+                addToCache(downloadDetails, version, completeContent);
+            }
+            partialDownload.delete();
+            return offset + countingInputStream.numBytesRead();
         } else {
             final CountingInputStream countingInputStream = new CountingInputStream(downloadDetails.inputStream);
+            addToCache(downloadDetails, version, countingInputStream);
+            return countingInputStream.numBytesRead();
+        }
+    }
 
-            final StreamUnpacker compressionUpacker = StreamUnpacker.getCompressionUnpacker(downloadDetails);
-            final InputStream unpackedStream = compressionUpacker.unpack(countingInputStream);
+    private void addToCache(final DownloadDetails downloadDetails, final VersionId version, final InputStream content) throws IOException {
+        final URL resourceHref = resource.getLocation();
 
-            final StreamUnpacker contentUnpacker = StreamUnpacker.getContentUnpacker(downloadDetails, resourceHref);
-            final InputStream unpackedContent = contentUnpacker.unpack(unpackedStream);
+        final StreamUnpacker compressionUpacker = StreamUnpacker.getCompressionUnpacker(downloadDetails);
+        final InputStream unpackedStream = compressionUpacker.unpack(content);
 
-            final DownloadInfo downloadInfo = new DownloadInfo(resourceHref, version, downloadDetails.lastModified);
-            final File cacheFile = Cache.addToCache(downloadInfo, unpackedContent);
-            resource.setLocalFile(cacheFile);
-            return countingInputStream.numBytesRead();
-        }
+        final StreamUnpacker contentUnpacker = StreamUnpacker.getContentUnpacker(downloadDetails, resourceHref);
+        final InputStream unpackedContent = contentUnpacker.unpack(unpackedStream);
+
+        final DownloadInfo downloadInfo = new DownloadInfo(resourceHref, version, downloadDetails.lastModified);
+        final File cacheFile = Cache.addToCache(downloadInfo, unpackedContent);
+        resource.setLocalFile(cacheFile);
     }
 
     protected abstract VersionId getVersion(URL downloadFrom, final String versionHeaderValue);
 
     protected abstract boolean isUpToDate(final URL resourceHref, final VersionId version, final long lastModified);
 
-    private DownloadDetails getDownloadDetails(final CloseableConnection connection) throws IOException {
+    /**
+     * Limits the bandwidth while the resource is prefetched in the background.
+     * The limit is lifted as soon as somebody waits for the resource.
+     */
+    private InputStream limitBandwidthOfBackgroundDownload(final InputStream inputStream) {
+        if (!resource.isBackgroundDownload()) {
+            return inputStream;
+        }
+        final long bytesPerSecond = JNLPRuntime.getConfiguration().getSnapshot().getPrefetchBandwidthInBytesPerSecond();
+        if (bytesPerSecond <= 0) {
+            return inputStream;
+        }
+        return new BandwidthLimitedInputStream(inputStream, bytesPerSecond, resource::isBackgroundDownload);
+    }
+
+    private DownloadDetails getDownloadDetails(final CloseableConnection connection, final PartialDownload partialDownload) throws IOException {
         final URL downloadFrom = connection.getURL();
         try {
             final long lastModified = connection.getLastModified();
             final String version = connection.getHeaderField(VERSION_ID_HEADER);
             final String contentType = connection.getHeaderField(CONTENT_TYPE_HEADER);
             final String contentEncoding = connection.getHeaderField(CONTENT_ENCODING_HEADER);
-            final long totalSize = connection.getContentLength();
-            final InputStream inputStream = new NotifyingInputStream(connection.getInputStream(), totalSize, resource::setTransferred);
+            final long offset = partialDownload != null ? partialDownload.getOffset() : 0;
+            final long totalSize = partialDownload != null ? partialDownload.getTotalSize() : connection.getContentLength();
+            final InputStream inputStream = new NotifyingInputStream(limitBandwidthOfBackgroundDownload(connection.getInputStream()), totalSize - offset, transferred -> resource.setTransferred(offset + transferred));
 
             if (!String.valueOf(connection.getResponseCode()).startsWith("2")) {
                 throw new IllegalStateException("Request returned " + connection.getResponseCode() + " for URL " + connection.getURL());
@@ -7,6 +7,7 @@ import java.util.function.Consumer;
 
 /**
  * Input stream which notifies a listener about its progress.
+ * Single byte reads as well as bulk reads and skips are counted.
  */
 class NotifyingInputStream extends FilterInputStream {
     private final Consumer<Long> downloadListener;
@@ -34,14 +35,37 @@ class NotifyingInputStream extends FilterInputStream {
     public int read() throws IOException {
         final int value = super.read();
         if (value >= 0) {
-            if (nextUpdateSize <= ++downloaded) {
-                nextUpdateSize = downloaded + updateChunkSize;
-                notifyListener(downloaded);
-            }
+            count(1);
         }
         return value;
     }
 
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int result = super.read(b, off, len);
+        if (result > 0) {
+            count(result);
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long result = super.skip(n);
+        if (result > 0) {
+            count(result);
+        }
+        return result;
+    }
+
+    private void count(final long numBytes) {
+        downloaded += numBytes;
+        if (nextUpdateSize <= downloaded) {
+            nextUpdateSize = downloaded + updateChunkSize;
+            notifyListener(downloaded);
+        }
+    }
+
     private void notifyListener(final long value) {
         try {
             downloadListener.accept(value);
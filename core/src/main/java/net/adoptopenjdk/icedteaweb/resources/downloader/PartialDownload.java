@@ -0,0 +1,380 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.IF_RANGE_HEADER;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.RANGE_HEADER;
+import static net.sourceforge.jnlp.config.PathsAndFiles.TMP_DIR;
+
+/**
+ * Keeps the content of a download in a sidecar file so an interrupted transfer can be resumed later.
+ * <p>
+ * The bytes received from the server are written to a {@code .part} file next to a properties file
+ * holding the validator of the response (a strong ETag or the Last-Modified date) and the total size.
+ * A later attempt sends {@code Range} and {@code If-Range} headers. A {@code 206} response is appended
+ * to the sidecar file while any other successful response restarts the transfer. Only the complete
+ * sidecar file is unpacked into the cache.
+ * </p>
+ * <p>
+ * The sidecar file is locked while it is written. If another process holds the lock the download
+ * is not resumable and is streamed directly as usual.
+ * </p>
+ * <p>
+ * Sidecar files of downloads which are not retried are removed after {@value #MAX_AGE_DAYS} days
+ * when the directory is first used by a process.
+ * </p>
+ */
+class PartialDownload implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartialDownload.class);
+
+    static final String PARTIAL_DOWNLOADS_DIR_NAME = "partial-downloads";
+
+    static final int MAX_AGE_DAYS = 7;
+
+    private static final AtomicBoolean STALE_FILES_REMOVED = new AtomicBoolean();
+
+    private static final String DATA_SUFFIX = ".part";
+    private static final String INFO_SUFFIX = ".properties";
+
+    private static final String LOCATION_KEY = "location";
+    private static final String VALIDATOR_KEY = "validator";
+    private static final String TOTAL_SIZE_KEY = "totalSize";
+
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+|\\*)");
+
+    private final URL location;
+    private final File dataFile;
+    private final File infoFile;
+    private final long minSize;
+
+    private FileChannel channel;
+    private FileLock lock;
+    private boolean lockedByOtherProcess = false;
+
+    private long resumeFrom = 0;
+    private long storedTotalSize = -1;
+    private long offset = 0;
+    private long totalSize = -1;
+
+    /**
+     * @param location the URL a resource is downloaded from
+     * @return the partial download for the URL, empty if downloads from the URL are not resumable
+     */
+    static Optional<PartialDownload> forLocation(final URL location) {
+        final String protocol = location.getProtocol();
+        if (!"http".equalsIgnoreCase(protocol) && !"https".equalsIgnoreCase(protocol)) {
+            return Optional.empty();
+        }
+
+        final long minSize = JNLPRuntime.getConfiguration().getSnapshot().getResumableDownloadMinSizeInBytes();
+        if (minSize < 0) {
+            return Optional.empty();
+        }
+
+        final File directory = new File(TMP_DIR.getFile(), PARTIAL_DOWNLOADS_DIR_NAME);
+        if (STALE_FILES_REMOVED.compareAndSet(false, true)) {
+            removeStaleFiles(directory, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS));
+        }
+        return Optional.of(new PartialDownload(directory, location, minSize));
+    }
+
+    /**
+     * Removes the sidecar files of downloads which have not been retried since the given time.
+     * Sidecar files locked by another process are kept.
+     *
+     * @param directory      the directory of the sidecar files
+     * @param modifiedBefore only files last modified before this time (in ms) are removed
+     */
+    static void removeStaleFiles(final File directory, final long modifiedBefore) {
+        final File[] infoFiles = directory.listFiles((dir, name) -> name.endsWith(INFO_SUFFIX));
+        if (infoFiles == null) {
+            return;
+        }
+        for (File infoFile : infoFiles) {
+            final String id = infoFile.getName().substring(0, infoFile.getName().length() - INFO_SUFFIX.length());
+            final File dataFile = new File(directory, id + DATA_SUFFIX);
+            if (infoFile.lastModified() >= modifiedBefore || dataFile.lastModified() >= modifiedBefore) {
+                continue;
+            }
+            if (!dataFile.exists()) {
+                deleteQuietly(infoFile);
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(dataFile.toPath(), WRITE);
+                 FileLock lock = channel.tryLock()) {
+                if (lock == null) {
+                    continue;
+                }
+                LOG.debug("Removing stale partial download {}", dataFile);
+                deleteQuietly(dataFile);
+                deleteQuietly(infoFile);
+            } catch (OverlappingFileLockException | IOException e) {
+                LOG.debug("Failed to remove stale partial download {} - {}", dataFile, e.getMessage());
+            }
+        }
+    }
+
+    PartialDownload(final File directory, final URL location, final long minSize) {
+        final String id = UUID.nameUUIDFromBytes(location.toString().getBytes(UTF_8)).toString();
+        this.location = location;
+        this.dataFile = new File(directory, id + DATA_SUFFIX);
+        this.infoFile = new File(directory, id + INFO_SUFFIX);
+        this.minSize = minSize;
+    }
+
+    /**
+     * @return the request properties to resume a previous transfer, empty if there is nothing to resume
+     */
+    Map<String, String> getResumeRequestProperties() {
+        if (!dataFile.isFile() || dataFile.length() == 0) {
+            return Collections.emptyMap();
+        }
+
+        final Properties info = readInfo();
+        final String validator = info.getProperty(VALIDATOR_KEY);
+        if (validator == null || !location.toString().equals(info.getProperty(LOCATION_KEY))) {
+            return Collections.emptyMap();
+        }
+        if (!tryLock()) {
+            return Collections.emptyMap();
+        }
+
+        storedTotalSize = parseLong(info.getProperty(TOTAL_SIZE_KEY));
+        resumeFrom = dataFile.length();
+        if (storedTotalSize >= 0 && resumeFrom >= storedTotalSize) {
+            // should not happen as complete files are promoted - start over
+            resumeFrom = 0;
+            return Collections.emptyMap();
+        }
+
+        final Map<String, String> requestProperties = new HashMap<>();
+        requestProperties.put(RANGE_HEADER, "bytes=" + resumeFrom + "-");
+        requestProperties.put(IF_RANGE_HEADER, validator);
+        return requestProperties;
+    }
+
+    /**
+     * Decides whether the content of a response is written to the sidecar file.
+     *
+     * @param responseCode  the HTTP status of the response
+     * @param contentRange  the Content-Range header of the response
+     * @param etag          the ETag header of the response
+     * @param lastModified  the Last-Modified header of the response
+     * @param contentLength the length of the content of the response
+     * @return {@code true} if the content has to be passed through {@link #transfer(InputStream)}
+     * @throws IOException if the server returned an unexpected range
+     */
+    boolean start(final int responseCode, final String contentRange, final String etag, final String lastModified, final long contentLength) throws IOException {
+        if (lockedByOtherProcess) {
+            return false;
+        }
+
+        if (responseCode == HttpURLConnection.HTTP_PARTIAL && resumeFrom > 0) {
+            final Matcher matcher = CONTENT_RANGE.matcher(contentRange != null ? contentRange.trim() : "");
+            if (!matcher.matches() || Long.parseLong(matcher.group(1)) != resumeFrom) {
+                delete();
+                throw new IOException("Unexpected Content-Range '" + contentRange + "' when resuming download of " + location);
+            }
+            offset = resumeFrom;
+            totalSize = "*".equals(matcher.group(3)) ? storedTotalSize : Long.parseLong(matcher.group(3));
+            LOG.info("Resuming download of {} at byte {} of {}", location, offset, totalSize);
+            return true;
+        }
+
+        if (responseCode == HTTP_RANGE_NOT_SATISFIABLE) {
+            LOG.debug("Server can not resume download of {} - discarding partial content", location);
+            delete();
+            return false;
+        }
+
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            return false;
+        }
+
+        offset = 0;
+        totalSize = contentLength;
+        final String validator = toValidator(etag, lastModified);
+        if (validator == null || contentLength < 0 || contentLength < minSize) {
+            if (resumeFrom > 0) {
+                delete();
+            }
+            close();
+            return false;
+        }
+        if (!tryLock()) {
+            return false;
+        }
+
+        writeInfo(validator, totalSize);
+        channel.truncate(0);
+        return true;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Appends the content of a response to the sidecar file.
+     * If the transfer is interrupted the content received so far is kept.
+     *
+     * @param content the content of the response
+     * @return a stream of the complete content
+     * @throws IOException if the transfer has been interrupted
+     */
+    InputStream transfer(final InputStream content) throws IOException {
+        channel.truncate(offset);
+        channel.position(offset);
+
+        final byte[] buffer = new byte[8192];
+        int numBytes;
+        while ((numBytes = content.read(buffer)) != -1) {
+            final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, numBytes);
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+        }
+
+        final long size = channel.size();
+        if (totalSize >= 0 && size != totalSize) {
+            throw new IOException("Download of " + location + " is incomplete: " + size + " of " + totalSize + " bytes received");
+        }
+        return new FileInputStream(dataFile);
+    }
+
+    /**
+     * Discards the sidecar file.
+     */
+    void delete() {
+        close();
+        deleteQuietly(dataFile);
+        deleteQuietly(infoFile);
+        resumeFrom = 0;
+    }
+
+    private static void deleteQuietly(final File file) {
+        if (file.exists() && !file.delete()) {
+            LOG.debug("Failed to delete {}", file);
+        }
+    }
+
+    /**
+     * Releases the lock on the sidecar file. The sidecar file is kept.
+     */
+    @Override
+    public void close() {
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            LOG.debug("Failed to release lock on {} - {}", dataFile, e.getMessage());
+        } finally {
+            lock = null;
+            channel = null;
+        }
+    }
+
+    private boolean tryLock() {
+        if (lock != null) {
+            return true;
+        }
+        try {
+            final File directory = dataFile.getParentFile();
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                LOG.debug("Failed to create directory {}", directory);
+                return false;
+            }
+            channel = FileChannel.open(dataFile.toPath(), CREATE, WRITE);
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException | IOException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            LOG.debug("Partial download of {} is in use by another process", location);
+            lockedByOtherProcess = true;
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    private Properties readInfo() {
+        final Properties info = new Properties();
+        if (infoFile.isFile()) {
+            try (InputStream in = new FileInputStream(infoFile)) {
+                info.load(in);
+            } catch (IOException e) {
+                LOG.debug("Failed to read {} - {}", infoFile, e.getMessage());
+            }
+        }
+        return info;
+    }
+
+    private void writeInfo(final String validator, final long size) throws IOException {
+        final Properties info = new Properties();
+        info.setProperty(LOCATION_KEY, location.toString());
+        info.setProperty(VALIDATOR_KEY, validator);
+        info.setProperty(TOTAL_SIZE_KEY, Long.toString(size));
+        try (OutputStream out = new FileOutputStream(infoFile)) {
+            info.store(out, null);
+        }
+    }
+
+    private static String toValidator(final String etag, final String lastModified) {
+        if (etag != null && !etag.trim().isEmpty() && !etag.trim().startsWith(WEAK_ETAG_PREFIX)) {
+            return etag.trim();
+        }
+        if (lastModified != null && !lastModified.trim().isEmpty()) {
+            return lastModified.trim();
+        }
+        return null;
+    }
+
+    private static long parseLong(final String value) {
+        try {
+            return value != null ? Long.parseLong(value) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -50,7 +50,6 @@ import static net.adoptopenjdk.icedteaweb.StringUtils.urlEncode;
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.CURRENT_VERSION_ID_QUERY_PARAM;
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.VERSION_ID_QUERY_PARAM;
 import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.VERSION_PREFIX;
-import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_HTTPS_DONT_ENFORCE;
 import static net.sourceforge.jnlp.runtime.JNLPRuntime.getConfiguration;
 import static net.sourceforge.jnlp.util.UrlUtils.HTTPS_PROTOCOL;
 import static net.sourceforge.jnlp.util.UrlUtils.HTTP_PROTOCOL;
@@ -60,8 +59,7 @@ class ResourceUrlCreator {
 
     static List<URL> prependHttps(List<URL> urls) {
         final List<URL> result = new ArrayList<>();
-        final boolean noHttpsPreferred = Boolean.parseBoolean(getConfiguration().getProperty(KEY_HTTPS_DONT_ENFORCE));
-        if (!noHttpsPreferred) {
+        if (getConfiguration().getSnapshot().isHttpsEnforced()) {
             //preferring https and  overriding case, when application was moved to https, but the jnlp stayed intact
             for (final URL url : urls) {
                 if (url.getProtocol().equals(HTTP_PROTOCOL) && url.getPort() < 0) { // port < 0 means default port
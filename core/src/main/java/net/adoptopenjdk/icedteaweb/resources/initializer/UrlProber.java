@@ -39,6 +39,8 @@ import net.adoptopenjdk.icedteaweb.http.HttpUtils;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
 
 import java.io.IOException;
 import java.net.URL;
@@ -59,7 +61,8 @@ class UrlProber {
      * @throws IOException if an I/O exception occurs.
      */
     static UrlRequestResult getUrlResponseCodeWithRedirectionResult(final URL url, final Map<String, String> requestProperties, final HttpMethod requestMethod) throws IOException {
-        try (final CloseableConnection connection = ConnectionFactory.openConnection(url, requestMethod, requestProperties)) {
+        try (final TraceSpan ignored = LaunchTrace.span("download", "probe").withResource(url).withDetail("method", requestMethod);
+             final CloseableConnection connection = ConnectionFactory.openConnection(url, requestMethod, requestProperties)) {
             connection.setConnectTimeout(5000);
 
             /* Fully consuming current request helps with connection re-use
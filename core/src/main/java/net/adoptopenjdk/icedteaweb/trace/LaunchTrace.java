@@ -0,0 +1,120 @@
+package net.adoptopenjdk.icedteaweb.trace;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Records a timeline of the launch of an application.
+ * <p>
+ * Code on the launch path opens nestable {@link TraceSpan spans} which record their thread,
+ * duration and optional details such as the resource URL or the number of bytes transferred.
+ * The timeline is written as Chrome trace-event JSON which can be opened in a trace viewer
+ * like {@code chrome://tracing} or Perfetto.
+ * </p>
+ * <p>
+ * Tracing is disabled unless {@link #enable(File)} has been called. While disabled every call
+ * returns a shared no-op span and does not allocate.
+ * </p>
+ * <pre>
+ * try (TraceSpan span = LaunchTrace.span("download", "downloadResource").withResource(url)) {
+ *     ...
+ *     span.withBytes(transferred);
+ * }
+ * </pre>
+ */
+public final class LaunchTrace {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LaunchTrace.class);
+
+    private static volatile TraceRecorder recorder;
+
+    private LaunchTrace() {
+        // do not instantiate
+    }
+
+    /**
+     * Starts recording. The trace is written to the file once the main class of the application
+     * is invoked and again when the JVM shuts down.
+     *
+     * @param output the file to write the trace to
+     */
+    public static synchronized void enable(final File output) {
+        Assert.requireNonNull(output, "output");
+        if (recorder != null) {
+            return;
+        }
+        final TraceRecorder newRecorder = new TraceRecorder(output);
+        recorder = newRecorder;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> write(newRecorder), "launch-trace-writer"));
+        LOG.info("Tracing launch to {}", output);
+    }
+
+    /**
+     * @return {@code true} if spans are recorded
+     */
+    public static boolean isEnabled() {
+        return recorder != null;
+    }
+
+    /**
+     * Opens a span which ends when it is closed.
+     *
+     * @param category the category of the span, e.g. {@code download}
+     * @param name     the name of the span
+     * @return the span, a no-op span if tracing is disabled
+     */
+    public static TraceSpan span(final String category, final String name) {
+        final TraceRecorder current = recorder;
+        if (current == null) {
+            return TraceSpan.NOOP;
+        }
+        return current.open(category, name);
+    }
+
+    /**
+     * Records a point in time.
+     *
+     * @param category the category of the event
+     * @param name     the name of the event
+     */
+    public static void instant(final String category, final String name) {
+        final TraceRecorder current = recorder;
+        if (current != null) {
+            current.instant(category, name);
+        }
+    }
+
+    /**
+     * Writes the events recorded so far. Recording continues.
+     */
+    public static void flush() {
+        final TraceRecorder current = recorder;
+        if (current != null) {
+            write(current);
+        }
+    }
+
+    /**
+     * Writes the events recorded so far and stops recording.
+     * Used when the launch is handed over to another JVM which writes its own trace.
+     */
+    public static synchronized void finish() {
+        final TraceRecorder current = recorder;
+        if (current != null) {
+            write(current);
+            current.close();
+        }
+    }
+
+    private static void write(final TraceRecorder traceRecorder) {
+        try {
+            traceRecorder.write();
+        } catch (IOException e) {
+            LOG.error("Failed to write launch trace", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package net.adoptopenjdk.icedteaweb.trace;
+
+import java.net.URL;
+
+/**
+ * Span which records nothing.
+ */
+final class NoopTraceSpan implements TraceSpan {
+
+    @Override
+    public TraceSpan withResource(final URL location) {
+        return this;
+    }
+
+    @Override
+    public TraceSpan withBytes(final long bytes) {
+        return this;
+    }
+
+    @Override
+    public TraceSpan withDetail(final String key, final Object value) {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        // nothing to do
+    }
+}
@@ -0,0 +1,251 @@
+package net.adoptopenjdk.icedteaweb.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Collects trace events and writes them in the Chrome trace-event format.
+ */
+class TraceRecorder {
+
+    private static final char COMPLETE_EVENT = 'X';
+    private static final char INSTANT_EVENT = 'i';
+
+    private final File output;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final String processId;
+    private final Queue<TraceEvent> events = new ConcurrentLinkedQueue<>();
+    private final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+
+    private volatile boolean closed = false;
+
+    TraceRecorder(final File output) {
+        this(output, System::nanoTime);
+    }
+
+    TraceRecorder(final File output, final LongSupplier nanoClock) {
+        this.output = output;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+        this.processId = currentProcessId();
+    }
+
+    TraceSpan open(final String category, final String name) {
+        if (closed) {
+            return TraceSpan.NOOP;
+        }
+        return new RecordedSpan(category, name, currentThreadId(), micros());
+    }
+
+    void instant(final String category, final String name) {
+        if (!closed) {
+            events.add(new TraceEvent(INSTANT_EVENT, category, name, currentThreadId(), micros(), 0, null));
+        }
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    synchronized void write() throws IOException {
+        if (closed) {
+            return;
+        }
+        final File parent = output.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Failed to create directory " + parent);
+        }
+        final File tmp = new File(output.getPath() + ".tmp");
+        Files.write(tmp.toPath(), toJson().getBytes(UTF_8));
+        Files.move(tmp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    String toJson() {
+        final List<TraceEvent> snapshot = new ArrayList<>(events);
+        final StringBuilder json = new StringBuilder(128 + snapshot.size() * 160);
+        json.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+
+        boolean first = true;
+        for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+            first = appendSeparator(json, first);
+            json.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(processId)
+                    .append(",\"tid\":").append(thread.getKey())
+                    .append(",\"args\":{\"name\":");
+            appendString(json, thread.getValue());
+            json.append("}}");
+        }
+
+        for (TraceEvent event : snapshot) {
+            first = appendSeparator(json, first);
+            event.appendTo(json, processId);
+        }
+        return json.append("]}").toString();
+    }
+
+    private long micros() {
+        return (nanoClock.getAsLong() - startNanos) / 1000;
+    }
+
+    private long currentThreadId() {
+        final Thread thread = Thread.currentThread();
+        final long id = thread.getId();
+        threadNames.putIfAbsent(id, thread.getName());
+        return id;
+    }
+
+    private static boolean appendSeparator(final StringBuilder json, final boolean first) {
+        if (!first) {
+            json.append(',');
+        }
+        return false;
+    }
+
+    private static String currentProcessId() {
+        final String name = ManagementFactory.getRuntimeMXBean().getName();
+        final int at = name.indexOf('@');
+        final String pid = at > 0 ? name.substring(0, at) : "";
+        return pid.matches("\\d+") ? pid : "1";
+    }
+
+    static void appendString(final StringBuilder json, final String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private class RecordedSpan implements TraceSpan {
+        private final String category;
+        private final String name;
+        private final long threadId;
+        private final long start;
+        private Map<String, Object> details;
+        private boolean ended = false;
+
+        RecordedSpan(final String category, final String name, final long threadId, final long start) {
+            this.category = category;
+            this.name = name;
+            this.threadId = threadId;
+            this.start = start;
+        }
+
+        @Override
+        public TraceSpan withResource(final URL location) {
+            return withDetail("url", location);
+        }
+
+        @Override
+        public TraceSpan withBytes(final long bytes) {
+            return withDetail("bytes", bytes);
+        }
+
+        @Override
+        public TraceSpan withDetail(final String key, final Object value) {
+            if (details == null) {
+                details = new LinkedHashMap<>();
+            }
+            details.put(key, value);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (!ended && !closed) {
+                ended = true;
+                events.add(new TraceEvent(COMPLETE_EVENT, category, name, threadId, start, micros() - start, details));
+            }
+        }
+    }
+
+    private static class TraceEvent {
+        private final char phase;
+        private final String category;
+        private final String name;
+        private final long threadId;
+        private final long timestamp;
+        private final long duration;
+        private final Map<String, Object> details;
+
+        TraceEvent(final char phase, final String category, final String name, final long threadId, final long timestamp, final long duration, final Map<String, Object> details) {
+            this.phase = phase;
+            this.category = category;
+            this.name = name;
+            this.threadId = threadId;
+            this.timestamp = timestamp;
+            this.duration = duration;
+            this.details = details;
+        }
+
+        void appendTo(final StringBuilder json, final String processId) {
+            json.append("{\"name\":");
+            appendString(json, name);
+            json.append(",\"cat\":");
+            appendString(json, category);
+            json.append(",\"ph\":\"").append(phase)
+                    .append("\",\"ts\":").append(timestamp);
+            if (phase == COMPLETE_EVENT) {
+                json.append(",\"dur\":").append(duration);
+            } else {
+                json.append(",\"s\":\"t\"");
+            }
+            json.append(",\"pid\":").append(processId)
+                    .append(",\"tid\":").append(threadId);
+            if (details != null && !details.isEmpty()) {
+                json.append(",\"args\":{");
+                boolean first = true;
+                for (Map.Entry<String, Object> detail : details.entrySet()) {
+                    first = appendSeparator(json, first);
+                    appendString(json, detail.getKey());
+                    json.append(':');
+                    final Object value = detail.getValue();
+                    if (value instanceof Number) {
+                        json.append(value);
+                    } else {
+                        appendString(json, String.valueOf(value));
+                    }
+                }
+                json.append('}');
+            }
+            json.append('}');
+        }
+    }
+}
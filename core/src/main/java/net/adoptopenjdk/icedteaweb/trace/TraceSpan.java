@@ -0,0 +1,42 @@
+package net.adoptopenjdk.icedteaweb.trace;
+
+import java.net.URL;
+
+/**
+ * A span of the launch timeline. The span ends when it is closed.
+ * Spans opened on the same thread while another span is open are nested within it.
+ *
+ * @see LaunchTrace#span(String, String)
+ */
+public interface TraceSpan extends AutoCloseable {
+
+    /**
+     * Span returned while tracing is disabled.
+     */
+    TraceSpan NOOP = new NoopTraceSpan();
+
+    /**
+     * @param location the resource the span is working on
+     * @return this span
+     */
+    TraceSpan withResource(URL location);
+
+    /**
+     * @param bytes the number of bytes processed within the span
+     * @return this span
+     */
+    TraceSpan withBytes(long bytes);
+
+    /**
+     * @param key   the name of the detail
+     * @param value the value of the detail
+     * @return this span
+     */
+    TraceSpan withDetail(String key, Object value);
+
+    /**
+     * Ends the span.
+     */
+    @Override
+    void close();
+}
@@ -39,10 +39,16 @@ public class DownloadOptions {
 
     private final boolean usePack200;
     private final boolean useVersion;
+    private final boolean prefetchLazy;
 
     public DownloadOptions(boolean usePack, boolean useVersion) {
+        this(usePack, useVersion, false);
+    }
+
+    public DownloadOptions(boolean usePack, boolean useVersion, boolean prefetchLazy) {
         this.usePack200 = usePack;
         this.useVersion = useVersion;
+        this.prefetchLazy = prefetchLazy;
     }
 
     public boolean useExplicitPack() {
@@ -53,10 +59,17 @@ public class DownloadOptions {
         return useVersion;
     }
 
+    /**
+     * @return true if lazy jars should be prefetched in the background once the application has been started
+     */
+    public boolean useLazyPrefetch() {
+        return prefetchLazy;
+    }
+
     @Override
     public String toString() {
         return "DownloadOptions[use pack: " + usePack200 + "; use version: " +
-            useVersion + "]";
+            useVersion + "; prefetch lazy: " + prefetchLazy + "]";
     }
 
 }
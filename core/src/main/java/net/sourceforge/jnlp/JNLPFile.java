@@ -609,6 +609,14 @@ public class JNLPFile {
         return getResourcesDescs(defaultLocale, defaultOS, defaultArch).toArray(new ResourcesDesc[0]);
     }
 
+    /**
+     * @return all resources sections of the JNLP file regardless of their
+     * locale, os and arch attributes.
+     */
+    public ResourcesDesc[] getAllResourcesDescs() {
+        return resources.toArray(new ResourcesDesc[0]);
+    }
+
     private List<ResourcesDesc> getResourcesDescs(Locale locale, String os, String arch) {
         return resources.stream()
                 .filter(rescDesc -> hasPrefixMatch(os, rescDesc.getOS()))
@@ -811,6 +819,7 @@ public class JNLPFile {
     public DownloadOptions getDownloadOptions() {
         boolean usePack = false;
         boolean useVersion = false;
+        boolean prefetchLazy = false;
         ResourcesDesc desc = getResources();
         if (Boolean.valueOf(desc.getPropertiesMap().get("jnlp.packEnabled"))) {
             usePack = true;
@@ -818,7 +827,10 @@ public class JNLPFile {
         if (Boolean.valueOf(desc.getPropertiesMap().get("jnlp.versionEnabled"))) {
             useVersion = true;
         }
-        return new DownloadOptions(usePack, useVersion);
+        if (Boolean.valueOf(desc.getPropertiesMap().get("jnlp.prefetchLazyEnabled"))) {
+            prefetchLazy = true;
+        }
+        return new DownloadOptions(usePack, useVersion, prefetchLazy);
     }
 
     /**
@@ -26,6 +26,8 @@ import net.adoptopenjdk.icedteaweb.Assert;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
 import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
 import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
 import net.adoptopenjdk.icedteaweb.xmlparser.ParseException;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
 
@@ -76,7 +78,8 @@ public class JNLPFileFactory {
      * @throws ParseException if the JNLP file was invalid
      */
     public JNLPFile create(final URL location, final String uniqueKey, final VersionString version, final ParserSettings settings, final UpdatePolicy policy) throws IOException, ParseException {
-        try (InputStream input = openURL(location, version, policy)) {
+        try (InputStream input = openURL(location, version, policy);
+             TraceSpan ignored = LaunchTrace.span("jnlp", "parseJnlp").withResource(location)) {
             return new JNLPFile(input, location, settings, uniqueKey);
         }
     }
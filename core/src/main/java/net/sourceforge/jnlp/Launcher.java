@@ -25,6 +25,8 @@ import net.adoptopenjdk.icedteaweb.launch.JvmLauncher;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
 import net.adoptopenjdk.icedteaweb.ui.swing.SwingUtils;
 import net.sourceforge.jnlp.config.DeploymentConfiguration;
 import net.sourceforge.jnlp.runtime.AppContextFactory;
@@ -363,14 +365,19 @@ public class Launcher {
                 final List<String> javawsArgs = new LinkedList<>();
                 javawsArgs.add("-Xnofork");
                 javawsArgs.addAll(JNLPRuntime.getInitialArguments());
+                // the forked JVM records its own trace
+                LaunchTrace.finish();
                 launchExternal(file, javawsArgs);
                 return null;
             }
 
             handler.launchInitialized(file);
 
-            final ApplicationInstance app = createApplication(file);
-            app.initialize();
+            final ApplicationInstance app;
+            try (TraceSpan ignored = LaunchTrace.span("launch", "createApplication")) {
+                app = createApplication(file);
+                app.initialize();
+            }
 
             final String mainName = app.getMainClassName();
 
@@ -382,7 +389,10 @@ public class Launcher {
 
             LOG.info("Starting application [{}] ...", mainName);
 
-            final Class<?> mainClass = app.getClassLoader().loadClass(mainName);
+            final Class<?> mainClass;
+            try (TraceSpan ignored = LaunchTrace.span("launch", "loadMainClass").withDetail("class", mainName)) {
+                mainClass = app.getClassLoader().loadClass(mainName);
+            }
 
             final Method main = mainClass.getMethod("main", String[].class);
             final String[] args = file.getApplication().getArguments();
@@ -397,6 +407,12 @@ public class Launcher {
 
             main.setAccessible(true);
 
+            app.getClassLoader().prefetchLazyJarsInBackground();
+            app.getClassLoader().applicationStarting();
+
+            LaunchTrace.instant("launch", "invokeMain");
+            LaunchTrace.flush();
+
             LOG.info("Invoking main() with args: {}", Arrays.toString(args));
             main.invoke(null, new Object[] { args });
             LOG.info("main completed");
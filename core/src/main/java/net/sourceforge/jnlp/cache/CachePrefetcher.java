@@ -0,0 +1,155 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.sourceforge.jnlp.security.JNLPAppVerifier;
+import net.sourceforge.jnlp.tools.JarCertVerifier;
+import net.sourceforge.jnlp.util.logging.OutputController;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Downloads all resources of JNLP files into the cache without launching them.
+ * <p>
+ * The JNLP files and their jars are resolved by a {@link JnlpResourceResolver}. All jars are
+ * downloaded in parallel and their signatures are verified once they are in the cache.
+ * </p>
+ * <p>
+ * The outcome is written as a report with one tab separated line per resource:
+ * status, kind, location, version, size, signing and message.
+ * </p>
+ */
+public class CachePrefetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachePrefetcher.class);
+
+    static final String REPORT_HEADER = "# IcedTea-Web prefetch report v1";
+
+    private static final String NONE = "-";
+
+    private final JnlpResourceResolver resolver = new JnlpResourceResolver();
+    private final List<ReportLine> report = new ArrayList<>();
+
+    /**
+     * Downloads all resources of the given JNLP files and prints the report.
+     *
+     * @param locations JNLP URLs or files listing one JNLP URL per line
+     * @return {@code true} if all resources have been downloaded and verified
+     */
+    public static boolean prefetch(final List<String> locations) {
+        final CachePrefetcher prefetcher = new CachePrefetcher();
+        for (String location : CacheUtil.expandJnlpLocations(locations)) {
+            prefetcher.resolve(location);
+        }
+        prefetcher.reportJnlps();
+        prefetcher.downloadAndVerify();
+
+        for (String line : prefetcher.getReport()) {
+            OutputController.getLogger().printOutLn(line);
+        }
+        return prefetcher.isSuccessful();
+    }
+
+    private void resolve(final String location) {
+        try {
+            resolver.resolve(new URL(location), null);
+        } catch (IOException e) {
+            LOG.error("Invalid JNLP location {}", location, e);
+            report.add(ReportLine.failed("jnlp", location, null, e));
+        }
+    }
+
+    private void reportJnlps() {
+        for (JnlpResourceResolver.ResolvedJnlp jnlp : resolver.getJnlps()) {
+            if (jnlp.getFailure() != null) {
+                report.add(ReportLine.failed("jnlp", jnlp.getLocation().toString(), jnlp.getVersion(), jnlp.getFailure()));
+            } else {
+                report.add(ReportLine.ok("jnlp", jnlp.getLocation().toString(), jnlp.getVersion(), NONE, NONE));
+            }
+        }
+    }
+
+    private void downloadAndVerify() {
+        for (JARDesc jar : resolver.getJars()) {
+            final String kind = jar.isNative() ? "nativelib" : "jar";
+            final String location = jar.getLocation().toString();
+            try {
+                final File file = resolver.getCacheFile(jar);
+                if (file == null || !file.isFile()) {
+                    report.add(ReportLine.failed(kind, location, jar.getVersion(), "download failed"));
+                    continue;
+                }
+                final boolean signed = JarCertVerifier.isJarSigned(jar, new JNLPAppVerifier(), resolver.getTracker(jar));
+                report.add(ReportLine.ok(kind, location, jar.getVersion(), Long.toString(file.length()), signed ? "signed" : "unsigned"));
+            } catch (Exception e) {
+                LOG.error("Failed to prefetch {}", location, e);
+                report.add(ReportLine.failed(kind, location, jar.getVersion(), e));
+            }
+        }
+    }
+
+    private boolean isSuccessful() {
+        return report.stream().allMatch(line -> line.ok);
+    }
+
+    private List<String> getReport() {
+        final List<String> lines = new ArrayList<>();
+        lines.add(REPORT_HEADER);
+        for (ReportLine line : report) {
+            lines.add(line.toString());
+        }
+        final long failed = report.stream().filter(line -> !line.ok).count();
+        lines.add("# " + report.size() + " resources, " + failed + " failed");
+        return lines;
+    }
+
+    static class ReportLine {
+        private final boolean ok;
+        private final String kind;
+        private final String location;
+        private final VersionString version;
+        private final String size;
+        private final String signing;
+        private final String message;
+
+        private ReportLine(final boolean ok, final String kind, final String location, final VersionString version, final String size, final String signing, final String message) {
+            this.ok = ok;
+            this.kind = kind;
+            this.location = location;
+            this.version = version;
+            this.size = size;
+            this.signing = signing;
+            this.message = message;
+        }
+
+        static ReportLine ok(final String kind, final String location, final VersionString version, final String size, final String signing) {
+            return new ReportLine(true, kind, location, version, size, signing, NONE);
+        }
+
+        static ReportLine failed(final String kind, final String location, final VersionString version, final Exception cause) {
+            return failed(kind, location, version, cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        }
+
+        static ReportLine failed(final String kind, final String location, final VersionString version, final String message) {
+            return new ReportLine(false, kind, location, version, NONE, NONE, message);
+        }
+
+        @Override
+        public String toString() {
+            return String.join("\t",
+                    ok ? "OK" : "FAILED",
+                    kind,
+                    location,
+                    version != null ? version.toString() : NONE,
+                    size,
+                    signing,
+                    message.replaceAll("\\s+", " "));
+        }
+    }
+}
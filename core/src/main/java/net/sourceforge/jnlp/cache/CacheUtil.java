@@ -24,6 +24,7 @@ import net.adoptopenjdk.icedteaweb.jnlp.element.EntryPoint;
 import net.adoptopenjdk.icedteaweb.jnlp.element.application.AppletDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.application.ApplicationDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.extension.InstallerDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
@@ -36,10 +37,14 @@ import net.sourceforge.jnlp.runtime.classloader.JNLPClassLoader;
 
 import javax.jnlp.DownloadServiceListener;
 import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -114,6 +119,97 @@ public class CacheUtil {
         }
     }
 
+    /**
+     * Downloads all resources of the given JNLP files including their extensions
+     * and copies them into the system cache.
+     *
+     * @param locations JNLP URLs or files listing one JNLP URL per line
+     * @return {@code true} if all resources are present in the system cache
+     */
+    public static boolean populateSystemCache(final List<String> locations) {
+        final JnlpResourceResolver resolver = new JnlpResourceResolver();
+        boolean success = true;
+        for (String location : expandJnlpLocations(locations)) {
+            try {
+                resolver.resolve(new URL(location), null);
+            } catch (MalformedURLException e) {
+                LOG.error("Failed to add {} to the system cache", location, e);
+                success = false;
+            }
+        }
+
+        for (JnlpResourceResolver.ResolvedJnlp jnlp : resolver.getJnlps()) {
+            if (jnlp.getFailure() != null) {
+                LOG.error("Failed to add {} to the system cache", jnlp.getLocation(), jnlp.getFailure());
+                success = false;
+            } else {
+                LOG.info("Adding resources of {} to the system cache", jnlp.getLocation());
+                success &= copyToSystemCache(jnlp.getLocation(), jnlp.getVersion());
+            }
+        }
+        for (JARDesc jar : resolver.getJars()) {
+            if (resolver.getCacheFile(jar) == null) {
+                LOG.error("Failed to download {}", jar.getLocation());
+                success = false;
+            } else {
+                success &= copyToSystemCache(jar.getLocation(), jar.getVersion());
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Expands the given locations into a list of JNLP URLs.
+     * Each location is either a URL or a file listing one URL per line;
+     * empty lines and lines starting with {@code #} are ignored.
+     */
+    static List<String> expandJnlpLocations(final List<String> locations) {
+        final List<String> result = new ArrayList<>();
+        for (String location : locations) {
+            final File file = new File(location);
+            if (isUrl(location) || !file.isFile()) {
+                result.add(location);
+                continue;
+            }
+            try {
+                for (String line : Files.readAllLines(file.toPath(), UTF_8)) {
+                    final String trimmed = line.trim();
+                    if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                        result.add(trimmed);
+                    }
+                }
+            } catch (IOException e) {
+                LOG.error("Failed to read list of JNLP files from {}", file, e);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isUrl(final String location) {
+        try {
+            new URL(location);
+            return true;
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
+
+    private static boolean copyToSystemCache(final URL location, final VersionString version) {
+        if (!isCacheable(location)) {
+            return true;
+        }
+        try {
+            if (!Cache.copyToSystemCache(location, version)) {
+                LOG.error("{} is neither in the cache of the user nor in the system cache", location);
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            LOG.error("Failed to copy {} to the system cache", location, e);
+            return false;
+        }
+    }
+
     /**
      * Returns whether the resource can be cached as a local file;
      * if not, then URLConnection.openStream can be used to obtain
@@ -239,10 +335,7 @@ public class CacheUtil {
                     .orElseGet(() -> new DummyDownloadIndicator());
             final DownloadServiceListener listener = getDownloadServiceListener(jnlpClassLoader, title, resources, indicator);
             try {
-                for (URL url : resources) {
-                    tracker.addDownloadListener(url, resources, listener);
-                }
-                tracker.waitForResources(resources);
+                tracker.waitForResources(listener, resources);
             } finally {
                 indicator.disposeListener(listener);
             }
@@ -0,0 +1,190 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ExtensionDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ResourcesDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
+import net.adoptopenjdk.icedteaweb.xmlparser.ParseException;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.JNLPFileFactory;
+import net.sourceforge.jnlp.ParserSettings;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the jars of JNLP files and their extensions and downloads them into the cache.
+ * <p>
+ * Every jar of every resources section is included regardless of the locale, os and arch
+ * attributes of the section and regardless of whether the jar is eager or lazy. Extensions are
+ * resolved recursively. Each JNLP file and each version of a jar is included once.
+ * </p>
+ * <p>
+ * The jars are downloaded in parallel as soon as they are resolved. A {@link ResourceTracker} tracks
+ * a single version of a location, so different versions of the same jar are downloaded by different trackers.
+ * </p>
+ */
+class JnlpResourceResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JnlpResourceResolver.class);
+
+    private final Set<String> visited = new HashSet<>();
+    private final List<ResolvedJnlp> jnlps = new ArrayList<>();
+    private final Map<String, JARDesc> jars = new LinkedHashMap<>();
+    private final Map<String, ResourceTracker> trackerByJar = new HashMap<>();
+
+    /**
+     * the trackers with the locations they track
+     */
+    private final Map<ResourceTracker, Set<String>> trackers = new LinkedHashMap<>();
+
+    /**
+     * Resolves the JNLP file and its extensions and starts downloading their jars.
+     *
+     * @param jnlpLocation the location of the JNLP file
+     * @param version      the version of the JNLP file, or {@code null}
+     */
+    void resolve(final URL jnlpLocation, final VersionString version) {
+        if (!visited.add(jnlpLocation.toString())) {
+            return;
+        }
+
+        final JNLPFile jnlpFile;
+        try {
+            LOG.info("Resolving resources of {}", jnlpLocation);
+            jnlpFile = new JNLPFileFactory().create(jnlpLocation, jnlpLocation.toString(), version, new ParserSettings(), JNLPRuntime.getDefaultUpdatePolicy());
+        } catch (IOException | ParseException e) {
+            LOG.error("Failed to resolve {}", jnlpLocation, e);
+            jnlps.add(new ResolvedJnlp(jnlpLocation, version, e));
+            return;
+        }
+        jnlps.add(new ResolvedJnlp(jnlpLocation, version, null));
+
+        for (JARDesc jar : collectJars(jnlpFile)) {
+            add(jar);
+        }
+
+        for (ResourcesDesc resources : jnlpFile.getAllResourcesDescs()) {
+            for (ExtensionDesc extension : resources.getExtensions()) {
+                resolve(extension.getLocation(), extension.getVersion());
+            }
+        }
+    }
+
+    /**
+     * @return the jars of all resources sections of the JNLP file
+     */
+    static List<JARDesc> collectJars(final JNLPFile jnlpFile) {
+        final List<JARDesc> result = new ArrayList<>();
+        for (ResourcesDesc resources : jnlpFile.getAllResourcesDescs()) {
+            for (JARDesc jar : resources.getJARs()) {
+                result.add(jar);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the JNLP files in the order they were resolved, including those which failed
+     */
+    List<ResolvedJnlp> getJnlps() {
+        return jnlps;
+    }
+
+    /**
+     * @return each version of each jar once, in the order they were resolved
+     */
+    Collection<JARDesc> getJars() {
+        return jars.values();
+    }
+
+    /**
+     * @param jar one of the resolved jars
+     * @return the tracker which downloads exactly this version of the jar
+     */
+    ResourceTracker getTracker(final JARDesc jar) {
+        return trackerByJar.get(key(jar.getLocation(), jar.getVersion()));
+    }
+
+    /**
+     * Waits for the download of the jar.
+     *
+     * @param jar one of the resolved jars
+     * @return the file of exactly this version of the jar in the cache, or {@code null} if the download failed
+     */
+    File getCacheFile(final JARDesc jar) {
+        return getTracker(jar).getCacheFile(jar.getLocation());
+    }
+
+    private void add(final JARDesc jar) {
+        final String key = key(jar.getLocation(), jar.getVersion());
+        if (jars.containsKey(key)) {
+            return;
+        }
+        jars.put(key, jar);
+
+        final ResourceTracker tracker = trackerWithout(jar.getLocation().toString());
+        tracker.addResource(jar.getLocation(), jar.getVersion());
+        trackerByJar.put(key, tracker);
+    }
+
+    private ResourceTracker trackerWithout(final String location) {
+        for (Map.Entry<ResourceTracker, Set<String>> entry : trackers.entrySet()) {
+            if (entry.getValue().add(location)) {
+                return entry.getKey();
+            }
+        }
+        final ResourceTracker tracker = new ResourceTracker(true);
+        final Set<String> locations = new HashSet<>();
+        locations.add(location);
+        trackers.put(tracker, locations);
+        return tracker;
+    }
+
+    private static String key(final URL location, final VersionString version) {
+        return location + " " + version;
+    }
+
+    /**
+     * A JNLP file which has been resolved or failed to resolve.
+     */
+    static class ResolvedJnlp {
+        private final URL location;
+        private final VersionString version;
+        private final Exception failure;
+
+        private ResolvedJnlp(final URL location, final VersionString version, final Exception failure) {
+            this.location = location;
+            this.version = version;
+            this.failure = failure;
+        }
+
+        URL getLocation() {
+            return location;
+        }
+
+        VersionString getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the reason the JNLP file could not be resolved, {@code null} if it was resolved
+         */
+        Exception getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package net.sourceforge.jnlp.config;
+
+import java.util.Set;
+
+/**
+ * Notified when the values of a {@link DeploymentConfiguration} change.
+ */
+public interface ConfigurationChangeListener {
+
+    /**
+     * Called after the new snapshot has replaced the previous one, on the thread which changed the
+     * configuration.
+     *
+     * @param snapshot    the new snapshot of the configuration
+     * @param changedKeys the keys whose value changed, never empty
+     */
+    void configurationChanged(ConfigurationSnapshot snapshot, Set<String> changedKeys);
+}
@@ -53,6 +53,12 @@ public interface ConfigurationConstants {
 
     String KEY_USER_PERSISTENCE_CACHE_DIR = "deployment.user.pcachedir";
 
+    /**
+     * Integer. Files of FileContents opened for random access in read-only mode which are not larger
+     * than this many KiB are memory mapped, 0 to never map
+     */
+    String KEY_FILE_CONTENTS_MAP_THRESHOLD = "deployment.filecontents.mapThreshold";
+
     String KEY_SYSTEM_CACHE_DIR = "deployment.system.cachedir";
 
     String KEY_CACHE_MAX_SIZE = "deployment.cache.max.size";
@@ -61,6 +67,11 @@ public interface ConfigurationConstants {
 
     String KEY_CACHE_COMPRESSION_ENABLED = "deployment.cache.jarcompression";
 
+    /**
+     * when enabled, cache files with identical content are stored only once and shared via hard links
+     */
+    String KEY_CACHE_DEDUPLICATION_ENABLED = "deployment.cache.deduplication";
+
     String KEY_USER_LOG_DIR = "deployment.user.logdir";
 
     String KEY_USER_TMP_DIR = "deployment.user.tmp";
@@ -133,6 +144,27 @@ public interface ConfigurationConstants {
 
     String KEY_PARALLEL_RESOURCE_DOWNLOAD_COUNT = "deployment.cache.parallelDownloadCount";
 
+    /**
+     * Boolean. Prefetch lazy jars in the background once the main class of an application has been started
+     */
+    String KEY_PREFETCH_LAZY_JARS = "deployment.cache.prefetchLazyJars";
+
+    /**
+     * Integer. Maximum bandwidth in KiB per second for background prefetching, 0 for unlimited
+     */
+    String KEY_PREFETCH_BANDWIDTH = "deployment.cache.prefetchBandwidth";
+
+    /**
+     * Integer. Seconds after the main class of an application is invoked during which the jars the application
+     * needs are recorded for the next launch, 0 to neither record nor use startup profiles
+     */
+    String KEY_STARTUP_PROFILE_WINDOW = "deployment.cache.startupProfileWindow";
+
+    /**
+     * Integer. Minimum size in KiB of a download which is kept on interruption and resumed later, -1 to disable
+     */
+    String KEY_RESUMABLE_DOWNLOAD_MIN_SIZE = "deployment.cache.resumableDownloadMinSize";
+
     /**
      * Boolean. Only install the custom authenticator if true
      */
@@ -145,6 +177,14 @@ public interface ConfigurationConstants {
 
     String KEY_STRICT_JNLP_CLASSLOADER = "deployment.jnlpclassloader.strict";
 
+    /**
+     * Boolean. Record the classes an application loads during the startup window and preload them
+     * in the background on the next launch
+     *
+     * @see #KEY_STARTUP_PROFILE_WINDOW
+     */
+    String KEY_PRELOAD_CLASSES = "deployment.jnlpclassloader.preloadClasses";
+
     /**
      * Boolean. Do not prefer https over http
      */
@@ -155,6 +195,11 @@ public interface ConfigurationConstants {
      */
     String KEY_PROXY_TYPE = "deployment.proxy.type";
 
+    /**
+     * How HTTP connections are handled. possible values are {@code ConnectionBackend.getConfigValue()}
+     */
+    String KEY_CONNECTION_BACKEND = "deployment.connection.backend";
+
     /**
      * Boolean. If true, the http host/port should be used for https and ftp as well
      */
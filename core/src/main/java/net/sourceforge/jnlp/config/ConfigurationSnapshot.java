@@ -0,0 +1,192 @@
+package net.sourceforge.jnlp.config;
+
+import net.adoptopenjdk.icedteaweb.StringUtils;
+import net.adoptopenjdk.icedteaweb.config.validators.ValueValidator;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static net.adoptopenjdk.icedteaweb.config.validators.ValidatorUtils.splitCombination;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_ASSUME_FILE_STEM_IN_CODEBASE;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_CACHE_DEDUPLICATION_ENABLED;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_CACHE_MAX_SIZE;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_FILE_CONTENTS_MAP_THRESHOLD;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_HTTPS_DONT_ENFORCE;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_PREFETCH_BANDWIDTH;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_RESUMABLE_DOWNLOAD_MIN_SIZE;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_SECURITY_SERVER_WHITELIST;
+
+/**
+ * Immutable view of the configuration at one point in time.
+ * <p>
+ * The settings read while loading resources are validated and parsed once when the snapshot is created.
+ * An invalid or missing value is replaced by its default. The {@link DeploymentConfiguration} replaces its
+ * snapshot whenever a value changes, so a snapshot never changes after it has been obtained.
+ * </p>
+ */
+public final class ConfigurationSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationSnapshot.class);
+
+    private static final long KIB = 1024;
+    private static final long MIB = 1024 * KIB;
+
+    private final Map<String, String> values;
+
+    private final long cacheMaxSizeInBytes;
+    private final boolean cacheDeduplicationEnabled;
+    private final boolean httpsEnforced;
+    private final boolean assumeFileStemInCodebase;
+    private final long fileContentsMapThresholdInBytes;
+    private final long prefetchBandwidthInBytesPerSecond;
+    private final long resumableDownloadMinSizeInBytes;
+    private final List<String> serverWhitelist;
+
+    private ConfigurationSnapshot(final Map<String, String> values) {
+        this.values = values;
+
+        final Map<String, Setting> defaults = Defaults.getDefaults();
+        cacheMaxSizeInBytes = toBytes(parseLong(KEY_CACHE_MAX_SIZE, defaults), MIB);
+        cacheDeduplicationEnabled = parseBoolean(KEY_CACHE_DEDUPLICATION_ENABLED, defaults);
+        httpsEnforced = !parseBoolean(KEY_HTTPS_DONT_ENFORCE, defaults);
+        assumeFileStemInCodebase = parseBoolean(KEY_ASSUME_FILE_STEM_IN_CODEBASE, defaults);
+        fileContentsMapThresholdInBytes = toBytes(parseLong(KEY_FILE_CONTENTS_MAP_THRESHOLD, defaults), KIB);
+        prefetchBandwidthInBytesPerSecond = toBytes(parseLong(KEY_PREFETCH_BANDWIDTH, defaults), KIB);
+        resumableDownloadMinSizeInBytes = toBytes(parseLong(KEY_RESUMABLE_DOWNLOAD_MIN_SIZE, defaults), KIB);
+        serverWhitelist = Collections.unmodifiableList(splitCombination(values.get(KEY_SECURITY_SERVER_WHITELIST)).stream()
+                .filter(s -> !StringUtils.isBlank(s))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @param settings the merged settings of the configuration
+     * @return a snapshot of the current values of the settings
+     */
+    static ConfigurationSnapshot of(final Map<String, Setting> settings) {
+        final Map<String, String> values = new HashMap<>();
+        for (final Map.Entry<String, Setting> entry : settings.entrySet()) {
+            final String value = entry.getValue().getValue();
+            if (value != null) {
+                values.put(entry.getKey(), value);
+            }
+        }
+        return new ConfigurationSnapshot(Collections.unmodifiableMap(values));
+    }
+
+    /**
+     * @param other another snapshot
+     * @return the keys whose value differs between this and the other snapshot
+     */
+    Set<String> changedKeys(final ConfigurationSnapshot other) {
+        final Set<String> changed = new HashSet<>();
+        for (final Map.Entry<String, String> entry : values.entrySet()) {
+            if (!Objects.equals(entry.getValue(), other.values.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (final String key : other.values.keySet()) {
+            if (!values.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * @param key the property key
+     * @return the unparsed value for the key, or null if it has no value
+     */
+    public String getProperty(final String key) {
+        return values.get(key);
+    }
+
+    /**
+     * @return the maximal size of the cache in bytes, negative for unlimited
+     */
+    public long getCacheMaxSizeInBytes() {
+        return cacheMaxSizeInBytes;
+    }
+
+    public boolean isCacheDeduplicationEnabled() {
+        return cacheDeduplicationEnabled;
+    }
+
+    /**
+     * @return whether https is tried before http for resources without an explicit port
+     */
+    public boolean isHttpsEnforced() {
+        return httpsEnforced;
+    }
+
+    public boolean isAssumeFileStemInCodebase() {
+        return assumeFileStemInCodebase;
+    }
+
+    /**
+     * @return the size in bytes up to which files opened for reading only are memory mapped
+     */
+    public long getFileContentsMapThresholdInBytes() {
+        return fileContentsMapThresholdInBytes;
+    }
+
+    /**
+     * @return the bandwidth available to background downloads in bytes per second, 0 for unlimited
+     */
+    public long getPrefetchBandwidthInBytesPerSecond() {
+        return prefetchBandwidthInBytesPerSecond;
+    }
+
+    /**
+     * @return the size in bytes from which interrupted downloads are resumed, negative if they are never resumed
+     */
+    public long getResumableDownloadMinSizeInBytes() {
+        return resumableDownloadMinSizeInBytes;
+    }
+
+    /**
+     * @return the non-blank entries of the server whitelist
+     */
+    public List<String> getServerWhitelist() {
+        return serverWhitelist;
+    }
+
+    private long parseLong(final String key, final Map<String, Setting> defaults) {
+        return Long.parseLong(validValue(key, defaults));
+    }
+
+    private boolean parseBoolean(final String key, final Map<String, Setting> defaults) {
+        return Boolean.parseBoolean(validValue(key, defaults));
+    }
+
+    private String validValue(final String key, final Map<String, Setting> defaults) {
+        final Setting defaultSetting = defaults.get(key);
+        final String value = values.get(key);
+        if (value != null) {
+            final ValueValidator validator = defaultSetting.getValidator();
+            try {
+                if (validator != null) {
+                    validator.validate(value);
+                }
+                return value;
+            } catch (final IllegalArgumentException e) {
+                LOG.warn("Property '{}' has incorrect value \"{}\", using the default \"{}\".", key, value, defaultSetting.getDefaultValue());
+            }
+        }
+        return defaultSetting.getDefaultValue();
+    }
+
+    /**
+     * negative values keep their meaning and are not scaled
+     */
+    private static long toBytes(final long value, final long unit) {
+        return value < 0 ? value : value * unit;
+    }
+}
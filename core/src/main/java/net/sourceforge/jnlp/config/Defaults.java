@@ -37,6 +37,7 @@ package net.sourceforge.jnlp.config;
 
 import net.adoptopenjdk.icedteaweb.config.ValidatorFactory;
 import net.adoptopenjdk.icedteaweb.config.validators.SecurityValueValidator;
+import net.adoptopenjdk.icedteaweb.http.ConnectionBackend;
 import net.adoptopenjdk.icedteaweb.jnlp.element.information.ShortcutDesc;
 import net.adoptopenjdk.icedteaweb.manifest.ManifestAttributesChecker;
 import net.sourceforge.jnlp.proxy.ProxyType;
@@ -92,6 +93,11 @@ public class Defaults {
                     PCACHE_DIR.getDefaultFullPath(),
                     ValidatorFactory.createFilePathValidator()
             ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_FILE_CONTENTS_MAP_THRESHOLD,
+                    String.valueOf(0),
+                    ValidatorFactory.createRangedIntegerValidator(0, 1024 * 1024)
+            ),
             Setting.createDefault(
                     ConfigurationConstants.KEY_SYSTEM_CACHE_DIR,
                     null,
@@ -230,6 +236,11 @@ public class Defaults {
                     String.valueOf(true),
                     ValidatorFactory.createBooleanValidator()
             ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_PRELOAD_CLASSES,
+                    String.valueOf(false),
+                    ValidatorFactory.createBooleanValidator()
+            ),
             Setting.createDefault(
                     ConfigurationConstants.KEY_HTTPS_DONT_ENFORCE,
                     String.valueOf(false),
@@ -255,6 +266,13 @@ public class Defaults {
                     ValidatorFactory.createRangedIntegerValidator(ProxyType.PROXY_TYPE_UNKNOWN.getConfigValue(),
                             ProxyType.PROXY_TYPE_SYSTEM.getConfigValue())
             ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_CONNECTION_BACKEND,
+                    ConnectionBackend.DISCONNECT.getConfigValue(),
+                    ValidatorFactory.createStringValidator(Arrays.stream(ConnectionBackend.values())
+                            .map(ConnectionBackend::getConfigValue)
+                            .toArray(String[]::new))
+            ),
             Setting.createDefault(
                     ConfigurationConstants.KEY_PROXY_SAME,
                     String.valueOf(false),
@@ -334,6 +352,11 @@ public class Defaults {
                     String.valueOf(0),
                     ValidatorFactory.createRangedIntegerValidator(0, 10)
             ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_CACHE_DEDUPLICATION_ENABLED,
+                    String.valueOf(false),
+                    ValidatorFactory.createBooleanValidator()
+            ),
             Setting.createDefault(
                     ConfigurationConstants.KEY_CACHE_ENABLED,
                     String.valueOf(false),
@@ -480,6 +503,26 @@ public class Defaults {
                     String.valueOf(6),
                     ValidatorFactory.createRangedIntegerValidator(1, 24)
             ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_PREFETCH_LAZY_JARS,
+                    String.valueOf(false),
+                    ValidatorFactory.createBooleanValidator()
+            ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_PREFETCH_BANDWIDTH,
+                    String.valueOf(256),
+                    ValidatorFactory.createRangedIntegerValidator(0, Integer.MAX_VALUE)
+            ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_STARTUP_PROFILE_WINDOW,
+                    String.valueOf(10),
+                    ValidatorFactory.createRangedIntegerValidator(0, 3600)
+            ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_RESUMABLE_DOWNLOAD_MIN_SIZE,
+                    String.valueOf(1024),
+                    ValidatorFactory.createRangedIntegerValidator(-1, Integer.MAX_VALUE)
+            ),
 
             /*
              * JVM executable for itw
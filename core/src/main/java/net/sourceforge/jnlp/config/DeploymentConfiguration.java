@@ -16,6 +16,7 @@
 
 package net.sourceforge.jnlp.config;
 
+import net.adoptopenjdk.icedteaweb.Assert;
 import net.adoptopenjdk.icedteaweb.config.validators.ValueValidator;
 import net.adoptopenjdk.icedteaweb.http.CloseableConnection;
 import net.adoptopenjdk.icedteaweb.http.ConnectionFactory;
@@ -42,6 +43,7 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -50,6 +52,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static net.adoptopenjdk.icedteaweb.config.validators.ValidatorUtils.splitCombination;
 import static net.adoptopenjdk.icedteaweb.i18n.Translator.R;
@@ -93,6 +96,11 @@ public final class DeploymentConfiguration {
     /** the deployment properties that cannot be changed */
     private final Map<String, Setting> unchangeableConfiguration;
 
+    /** the parsed values of the current deployment properties, replaced whenever a value changes */
+    private volatile ConfigurationSnapshot snapshot = ConfigurationSnapshot.of(Collections.emptyMap());
+
+    private final List<ConfigurationChangeListener> listeners = new CopyOnWriteArrayList<>();
+
     public DeploymentConfiguration() {
         this(PathsAndFiles.USER_DEPLOYMENT_FILE);
     }
@@ -139,6 +147,7 @@ public final class DeploymentConfiguration {
     public void resetToDefaults() {
         currentConfiguration.clear();
         currentConfiguration.putAll(Defaults.getDefaults());
+        updateSnapshot();
     }
 
     static boolean checkUrl(final URL file) {
@@ -213,6 +222,7 @@ public final class DeploymentConfiguration {
 
         currentConfiguration.clear();
         currentConfiguration.putAll(properties);
+        updateSnapshot();
     }
 
     /**
@@ -282,6 +292,57 @@ public final class DeploymentConfiguration {
         return splitCombination(getProperty(key));
     }
 
+    /**
+     * Get the parsed values of the current configuration. The snapshot does not change, a new one
+     * is created when the configuration is loaded, changed or saved.
+     *
+     * @return the snapshot of the current configuration
+     */
+    public ConfigurationSnapshot getSnapshot() {
+        final SecurityManager sm = System.getSecurityManager();
+        if (sm != null) {
+            if (userPropertiesFile != null) {
+                sm.checkRead(userPropertiesFile.toString());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @param listener notified after the snapshot has been replaced because values changed
+     */
+    public void addChangeListener(final ConfigurationChangeListener listener) {
+        listeners.add(Assert.requireNonNull(listener, "listener"));
+    }
+
+    public void removeChangeListener(final ConfigurationChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Replaces the snapshot by one of the current configuration and notifies the listeners
+     * about the keys whose value changed.
+     */
+    private void updateSnapshot() {
+        final ConfigurationSnapshot current;
+        final Set<String> changedKeys;
+        synchronized (listeners) {
+            current = ConfigurationSnapshot.of(currentConfiguration);
+            changedKeys = snapshot.changedKeys(current);
+            snapshot = current;
+        }
+        if (changedKeys.isEmpty()) {
+            return;
+        }
+        for (final ConfigurationChangeListener listener : listeners) {
+            try {
+                listener.configurationChanged(current, changedKeys);
+            } catch (final RuntimeException e) {
+                LOG.error("Configuration change listener failed.", e);
+            }
+        }
+    }
+
     /**
      * @return a Set containing all the property names
      */
@@ -333,6 +394,7 @@ public final class DeploymentConfiguration {
         } else {
             currentConfiguration.put(key, Setting.createUnknown(key, value));
         }
+        updateSnapshot();
     }
 
     /**
@@ -565,6 +627,7 @@ public final class DeploymentConfiguration {
             }
             toSave.store(out, comments);
         }
+        updateSnapshot();
     }
 
     /**
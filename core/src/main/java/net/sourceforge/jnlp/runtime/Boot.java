@@ -28,10 +28,13 @@ import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
 import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
 import net.adoptopenjdk.icedteaweb.ui.swing.SwingUtils;
 import net.sourceforge.jnlp.LaunchException;
 import net.sourceforge.jnlp.Launcher;
 import net.sourceforge.jnlp.ParserSettings;
+import net.sourceforge.jnlp.cache.CachePrefetcher;
 import net.sourceforge.jnlp.cache.CacheUtil;
 import net.sourceforge.jnlp.services.ServiceUtil;
 import net.sourceforge.jnlp.util.docprovider.IcedTeaWebTextsProvider;
@@ -152,11 +155,15 @@ public final class Boot implements PrivilegedAction<Integer> {
             JNLPRuntime.setDebug(true);
         }
 
+        if (optionParser.hasOption(CommandLineOptions.TRACELAUNCH)) {
+            LaunchTrace.enable(new File(optionParser.getParam(CommandLineOptions.TRACELAUNCH)));
+        }
+
         if (AppContext.getAppContext() == null) {
             SunToolkit.createNewAppContext();
         }
 
-        if (optionParser.hasOption(CommandLineOptions.HEADLESS)) {
+        if (optionParser.hasOption(CommandLineOptions.HEADLESS) || optionParser.hasOption(CommandLineOptions.PREFETCH)) {
             JNLPRuntime.setHeadless(true);
         }
 
@@ -255,7 +262,9 @@ public final class Boot implements PrivilegedAction<Integer> {
             JNLPRuntime.setOfflineForced(true);
         }
 
-        JNLPRuntime.initialize();
+        try (TraceSpan ignored = LaunchTrace.span("runtime", "initialize")) {
+            JNLPRuntime.initialize();
+        }
 
         if (optionParser.hasOption(CommandLineOptions.LISTCACHEIDS)) {
             List<String> optionArgs = optionParser.getMainArgs();
@@ -264,6 +273,14 @@ public final class Boot implements PrivilegedAction<Integer> {
             return 0;
         }
 
+        if (optionParser.hasOption(CommandLineOptions.POPULATESYSTEMCACHE)) {
+            return CacheUtil.populateSystemCache(optionParser.getParams(CommandLineOptions.POPULATESYSTEMCACHE)) ? 0 : 1;
+        }
+
+        if (optionParser.hasOption(CommandLineOptions.PREFETCH)) {
+            return CachePrefetcher.prefetch(optionParser.getParams(CommandLineOptions.PREFETCH)) ? 0 : 1;
+        }
+
         if (optionParser.hasOption(CommandLineOptions.CLEARCACHE)) {
             List<String> optionArgs = optionParser.getMainArgs();
             if (optionArgs.size() > 0) {
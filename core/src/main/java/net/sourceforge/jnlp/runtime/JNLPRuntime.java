@@ -24,6 +24,8 @@ import net.adoptopenjdk.icedteaweb.client.console.JavaConsole;
 import net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.SecurityDialogMessageHandler;
 import net.adoptopenjdk.icedteaweb.client.parts.downloadindicator.DownloadIndicator;
 import net.adoptopenjdk.icedteaweb.extensionpoint.ExtensionPoint;
+import net.adoptopenjdk.icedteaweb.http.ConnectionBackend;
+import net.adoptopenjdk.icedteaweb.http.ConnectionFactory;
 import net.adoptopenjdk.icedteaweb.io.FileUtils;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
@@ -57,9 +59,9 @@ import java.awt.EventQueue;
 import java.awt.GraphicsEnvironment;
 import java.awt.HeadlessException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.Authenticator;
@@ -106,6 +108,8 @@ public class JNLPRuntime {
 
     private final static Logger LOG = LoggerFactory.getLogger(JNLPRuntime.class);
 
+    private static final String HTTP_MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+
     /**
      * java-abrt-connector can print out specific application String method, it is good to save visited urls for reproduce purposes.
      * For javaws we can read the destination jnlp from commandline
@@ -289,6 +293,8 @@ public class JNLPRuntime {
         ProxySelector proxySelector = getExtensionPoint().createProxySelector(getConfiguration());
         ProxySelector.setDefault(proxySelector);
 
+        initializeConnectionBackend();
+
         // Restrict access to netx classes
         Security.setProperty("package.access",
                              Security.getProperty("package.access")+",net.sourceforge.jnlp");
@@ -304,6 +310,28 @@ public class JNLPRuntime {
 
     }
 
+    /**
+     * Selects the connection backend set in the deployment configuration.
+     * If connections are kept alive the keep-alive pool of the JDK is sized to the
+     * number of parallel downloads unless {@code http.maxConnections} is set explicitly.
+     */
+    private static void initializeConnectionBackend() {
+        final String configValue = getConfiguration().getProperty(ConfigurationConstants.KEY_CONNECTION_BACKEND);
+        final ConnectionBackend backend;
+        try {
+            backend = ConnectionBackend.fromConfigValue(configValue);
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Unknown connection backend '{}'. Using {}", configValue, ConnectionFactory.getBackend().getConfigValue());
+            return;
+        }
+
+        if (backend == ConnectionBackend.KEEP_ALIVE && System.getProperty(HTTP_MAX_CONNECTIONS_PROPERTY) == null) {
+            System.setProperty(HTTP_MAX_CONNECTIONS_PROPERTY, getConfiguration().getProperty(ConfigurationConstants.KEY_PARALLEL_RESOURCE_DOWNLOAD_COUNT));
+        }
+        LOG.debug("Using connection backend {}", backend.getConfigValue());
+        ConnectionFactory.setBackend(backend);
+    }
+
     /**
      * Returns a TrustManager ideal for the running VM.
      *
@@ -800,8 +828,8 @@ public class JNLPRuntime {
                 }
             }
 
-            FileInputStream is = new FileInputStream(netxRunningFile);
-            FileChannel channel = is.getChannel();
+            // writable to check for other instances, see isOnlyRunningInstance()
+            FileChannel channel = new RandomAccessFile(netxRunningFile, "rw").getChannel();
             fileLock = channel.lock(0, 1, true);
             if (!fileLock.isShared()){ // We know shared locks aren't offered on this system.
                 FileLock temp = null;
@@ -828,6 +856,45 @@ public class JNLPRuntime {
         });
     }
 
+    /**
+     * @return whether this instance holds the shared lock indicating that netx is running
+     */
+    public synchronized static boolean isMarkedRunning() {
+        return fileLock != null;
+    }
+
+    /**
+     * Checks whether other instances of netx hold the shared lock on
+     * {@link ConfigurationConstants#KEY_USER_NETX_RUNNING_FILE}. The shared lock of this
+     * instance is exchanged for an exclusive one, which only succeeds if no other instance
+     * holds a shared lock, and is taken again afterwards. Meanwhile an exclusive lock on the
+     * second byte keeps other instances from checking at the same time and lets processes
+     * which lock the whole file still see this instance running.
+     * <p>
+     * All locks are taken on the channel of the shared lock, as closing another channel of the
+     * file would release the shared lock on some systems.
+     * </p>
+     *
+     * @return true if this instance is marked as running and no other instance is running
+     */
+    public synchronized static boolean isOnlyRunningInstance() {
+        if (fileLock == null || !fileLock.isShared() || fileLock.position() != 0) {
+            return false;
+        }
+        final FileChannel channel = fileLock.channel();
+        try (FileLock ignored = channel.lock(1, 1, false)) {
+            fileLock.release();
+            try (FileLock exclusive = channel.tryLock(0, 1, false)) {
+                return exclusive != null;
+            } finally {
+                fileLock = channel.lock(0, 1, true);
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to check for other instances using " + PathsAndFiles.MAIN_LOCK.getFullPath(), e);
+            return false;
+        }
+    }
+
     /**
      * Indicate that netx is stopped by releasing the shared lock on
      * {@link ConfigurationConstants#KEY_USER_NETX_RUNNING_FILE}.
@@ -0,0 +1,120 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.CachedDaemonThreadPoolProvider;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
+
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Loads and links the classes an application loaded during the startup of its previous launch on a small
+ * pool of background threads while the main thread proceeds.
+ * <p>
+ * The classes are loaded with {@link Class#forName(String, boolean, ClassLoader)} without being initialized,
+ * so no code of the application runs on the preloading threads. Loading through the virtual machine takes
+ * the same locks as the class loading initiated by the application. As {@link JNLPClassLoader} is not
+ * registered as parallel capable, the loader itself is locked while a class is loaded, and only linking
+ * runs in parallel. There is no API to link a class without initializing it, so linking is triggered by
+ * reflecting on the declared constructors.
+ * </p>
+ * <p>
+ * The threads load the classes in the access control context of the class loader. Classes rejected by the
+ * filter, e.g. those not in an already activated jar, are skipped so that preloading never downloads or
+ * activates jars.
+ * </p>
+ */
+class ClassPreloader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClassPreloader.class);
+
+    static final int THREADS = 2;
+
+    /**
+     * set on the preloading threads to tell class loads by the application apart from preloading
+     */
+    private static final ThreadLocal<Boolean> PRELOADING = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private ClassPreloader() {
+        // do not instantiate
+    }
+
+    /**
+     * @return {@code true} if the current thread is preloading classes
+     */
+    static boolean isPreloading() {
+        return PRELOADING.get();
+    }
+
+    /**
+     * Starts preloading the classes in the given order.
+     *
+     * @param loader     the loader to load the classes with
+     * @param classNames the binary names of the classes
+     * @param filter     accepts the classes which can be loaded without activating further jars
+     * @param context    the access control context of the loader
+     * @return completes with the number of classes loaded once all classes have been processed
+     */
+    static CompletableFuture<Integer> start(final ClassLoader loader, final List<String> classNames, final Predicate<String> filter, final AccessControlContext context) {
+        Assert.requireNonNull(loader, "loader");
+        Assert.requireNonNull(classNames, "classNames");
+        Assert.requireNonNull(filter, "filter");
+
+        if (classNames.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        final List<String> names = new ArrayList<>(classNames);
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger loaded = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS, new CachedDaemonThreadPoolProvider.DaemonThreadFactory());
+        final List<CompletableFuture<Void>> workers = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(CompletableFuture.runAsync(() -> AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                preload(loader, names, next, loaded, filter);
+                return null;
+            }, context), executor));
+        }
+        executor.shutdown();
+
+        LOG.debug("Preloading {} classes", names.size());
+        return CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            LOG.debug("Preloaded {} of {} classes", loaded.get(), names.size());
+            return loaded.get();
+        });
+    }
+
+    private static void preload(final ClassLoader loader, final List<String> names, final AtomicInteger next, final AtomicInteger loaded, final Predicate<String> filter) {
+        PRELOADING.set(Boolean.TRUE);
+        try (TraceSpan ignored = LaunchTrace.span("classloader", "preloadClasses")) {
+            int index;
+            while ((index = next.getAndIncrement()) < names.size()) {
+                final String name = names.get(index);
+                if (!filter.test(name)) {
+                    continue;
+                }
+                try {
+                    final Class<?> clazz = Class.forName(name, false, loader);
+                    clazz.getDeclaredConstructors();
+                    loaded.incrementAndGet();
+                } catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+                    // the application gets the same error once it loads the class itself
+                    LOG.debug("Could not preload class {}: {}", name, e.toString());
+                }
+            }
+        } finally {
+            PRELOADING.remove();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ExtensionDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.CachedDaemonThreadPoolProvider;
+import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
+import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
+import net.adoptopenjdk.icedteaweb.xmlparser.ParseException;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Fetches and parses the JNLP files of sibling extensions concurrently and starts downloading their eager jars.
+ * <p>
+ * Only the network bound part of resolving an extension is done in parallel. The class loaders of the extensions
+ * are still created by the caller one after another in the order the extensions are declared. This keeps the order
+ * of the loaders deterministic and the per unique key locking of {@link JNLPClassLoader} unchanged. As the tasks never
+ * wait for other tasks the pool can not deadlock when extensions declare extensions themselves.
+ * </p>
+ * <p>
+ * The downloads started here are picked up by the tracker of the extension class loader as both share the
+ * same {@link net.adoptopenjdk.icedteaweb.resources.Resource Resource} instances.
+ * </p>
+ */
+class ExtensionResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExtensionResolver.class);
+
+    private static final ExecutorService EXECUTOR = CachedDaemonThreadPoolProvider.createDaemonThreadPool();
+
+    /**
+     * Fetches and parses the JNLP file of an extension.
+     */
+    interface JnlpFileLoader {
+        JNLPFile load(ExtensionDesc extension) throws IOException, ParseException;
+    }
+
+    private final ExtensionDesc[] extensions;
+    private final JnlpFileLoader fileLoader;
+    private final List<Future<ResolvedExtension>> resolutions;
+
+    private ExtensionResolver(final ExtensionDesc[] extensions, final JnlpFileLoader fileLoader, final List<Future<ResolvedExtension>> resolutions) {
+        this.extensions = extensions;
+        this.fileLoader = fileLoader;
+        this.resolutions = resolutions;
+    }
+
+    /**
+     * Starts resolving the given extensions. A single extension is resolved by the calling thread
+     * once it is requested.
+     *
+     * @param extensions the extensions to resolve
+     * @param fileLoader fetches and parses the JNLP file of an extension
+     * @return the resolver to get the JNLP files from, in the order of the extensions
+     */
+    static ExtensionResolver resolve(final ExtensionDesc[] extensions, final JnlpFileLoader fileLoader) {
+        Assert.requireNonNull(extensions, "extensions");
+        Assert.requireNonNull(fileLoader, "fileLoader");
+
+        if (extensions.length < 2) {
+            return new ExtensionResolver(extensions, fileLoader, null);
+        }
+
+        final AccessControlContext context = AccessController.getContext();
+        final List<Future<ResolvedExtension>> resolutions = new ArrayList<>(extensions.length);
+        for (ExtensionDesc extension : extensions) {
+            final CompletableFuture<ResolvedExtension> resolution = new CompletableFuture<>();
+            EXECUTOR.execute(() -> {
+                try {
+                    resolution.complete(resolveInContext(extension, fileLoader, context));
+                } catch (Throwable e) {
+                    resolution.completeExceptionally(e);
+                }
+            });
+            resolutions.add(resolution);
+        }
+        return new ExtensionResolver(extensions, fileLoader, resolutions);
+    }
+
+    /**
+     * Returns the JNLP file of the extension at the given index, waiting for it if needed.
+     *
+     * @param index the index of the extension
+     * @return the parsed JNLP file
+     * @throws IOException    if the JNLP file could not be fetched
+     * @throws ParseException if the JNLP file could not be parsed
+     */
+    JNLPFile getFile(final int index) throws IOException, ParseException {
+        if (resolutions == null) {
+            try (TraceSpan ignored = LaunchTrace.span("classloader", "resolveExtension").withResource(extensions[index].getLocation())) {
+                return fileLoader.load(extensions[index]);
+            }
+        }
+        try {
+            return resolutions.get(index).get().file;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while resolving extension " + extensions[index].getLocation());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof ParseException) {
+                throw (ParseException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Resolves the extension with the permissions of the thread which requested the extensions.
+     */
+    private static ResolvedExtension resolveInContext(final ExtensionDesc extension, final JnlpFileLoader fileLoader, final AccessControlContext context) throws Exception {
+        try {
+            return AccessController.doPrivileged((PrivilegedExceptionAction<ResolvedExtension>) () -> resolveExtension(extension, fileLoader), context);
+        } catch (PrivilegedActionException e) {
+            throw e.getException();
+        }
+    }
+
+    private static ResolvedExtension resolveExtension(final ExtensionDesc extension, final JnlpFileLoader fileLoader) throws IOException, ParseException {
+        try (TraceSpan ignored = LaunchTrace.span("classloader", "resolveExtension").withResource(extension.getLocation())) {
+            final JNLPFile file = fileLoader.load(extension);
+            return new ResolvedExtension(file, prefetchEagerJars(file));
+        }
+    }
+
+    /**
+     * Starts downloading the jars the class loader of the extension will request first.
+     * Uses the same update policy as {@link JNLPClassLoader} does for them.
+     */
+    private static ResourceTracker prefetchEagerJars(final JNLPFile file) {
+        if (file.getResources() == null) {
+            return null;
+        }
+        final ResourceTracker tracker = new ResourceTracker(true, file.getDownloadOptions(), JNLPRuntime.getDefaultUpdatePolicy());
+        for (JARDesc jar : file.getResources().getJARs()) {
+            if (jar.isEager() || jar.isMain()) {
+                final UpdatePolicy jarUpdatePolicy = jar.isCacheable() ? JNLPRuntime.getDefaultUpdatePolicy() : UpdatePolicy.FORCE;
+                try {
+                    tracker.addResource(jar.getLocation(), jar.getVersion(), jarUpdatePolicy);
+                } catch (RuntimeException e) {
+                    // the class loader of the extension reports the problem when it adds the jar
+                    LOG.debug("Could not prefetch jar {} of extension {}: {}", jar.getLocation(), file.getSourceLocation(), e.getMessage());
+                }
+            }
+        }
+        return tracker;
+    }
+
+    private static class ResolvedExtension {
+        private final JNLPFile file;
+
+        /**
+         * Keeps the prefetched resources alive until the class loader of the extension tracks them.
+         */
+        @SuppressWarnings({"unused", "FieldCanBeLocal"})
+        private final ResourceTracker prefetchTracker;
+
+        private ResolvedExtension(final JNLPFile file, final ResourceTracker prefetchTracker) {
+            this.file = file;
+            this.prefetchTracker = prefetchTracker;
+        }
+    }
+}
@@ -24,16 +24,20 @@ import net.adoptopenjdk.icedteaweb.jnlp.element.application.ApplicationDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ExtensionDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ResourcesDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.element.security.AppletPermissionLevel;
 import net.adoptopenjdk.icedteaweb.jnlp.element.security.SecurityDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.manifest.ManifestAttributesChecker;
 import net.adoptopenjdk.icedteaweb.manifest.ManifestAttributesReader;
+import net.adoptopenjdk.icedteaweb.resources.DownloadPriority;
 import net.adoptopenjdk.icedteaweb.resources.IllegalResourceDescriptorException;
 import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
 import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
 import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
 import net.adoptopenjdk.icedteaweb.xmlparser.ParseException;
 import net.sourceforge.jnlp.JNLPFile;
 import net.sourceforge.jnlp.JNLPFileFactory;
@@ -77,8 +81,10 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.security.ProtectionDomain;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -89,6 +95,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.jar.Attributes;
@@ -202,6 +210,21 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     private final ResourcesDesc resources;
 
+    /**
+     * the parts declared for packages by the resources section
+     */
+    private final PackageParts packageParts;
+
+    /**
+     * whether lazy jars are downloaded in the background once the application has been started
+     */
+    private final boolean backgroundPrefetch;
+
+    /**
+     * the jars the previous launch needed during startup and the recording of this launch
+     */
+    private final StartupProfile startupProfile;
+
     /**
      * the security section
      */
@@ -219,6 +242,12 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     private final List<JARDesc> available = Collections.synchronizedList(new ArrayList<>());
 
+    /**
+     * lazy jars and the eager jars the previous launch did not need during startup. They are neither
+     * downloaded nor verified during initialization but once they are activated.
+     */
+    private final Set<JARDesc> deferredJars = Collections.synchronizedSet(new LinkedHashSet<>());
+
     /**
      * the jar cert verifier tool to verify our jars
      */
@@ -319,6 +348,10 @@ public class JNLPClassLoader extends URLClassLoader {
         this.tracker = new ResourceTracker(true, file.getDownloadOptions(), JNLPRuntime.getDefaultUpdatePolicy());
         this.updatePolicy = policy;
         this.resources = file.getResources();
+        this.packageParts = new PackageParts(resources.getPackages());
+        this.backgroundPrefetch = Boolean.parseBoolean(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_PREFETCH_LAZY_JARS))
+                || file.getDownloadOptions().useLazyPrefetch();
+        this.startupProfile = StartupProfile.forApplication(file);
 
         this.nativeLibraryStorage = new NativeLibraryStorage(tracker);
 
@@ -345,9 +378,13 @@ public class JNLPClassLoader extends URLClassLoader {
         resourcePermissions = new ArrayList<>();
 
         // initialize extensions
-        initializeExtensions();
+        try (TraceSpan ignored = LaunchTrace.span("classloader", "initializeExtensions").withResource(file.getSourceLocation())) {
+            initializeExtensions();
+        }
 
-        initializeResources();
+        try (TraceSpan ignored = LaunchTrace.span("classloader", "initializeResources").withResource(file.getSourceLocation())) {
+            initializeResources();
+        }
 
         // initialize permissions
         initializeReadJarPermissions();
@@ -518,8 +555,8 @@ public class JNLPClassLoader extends URLClassLoader {
      *
      * @param location       the file's location
      * @param uniqueKey      key to manage applets/applications in shared vm
-     * @param version        the file's version
-     * @param settings       settings of parser
+     * @param resolver       provides the parsed file
+     * @param index          the index of the file in the resolver
      * @param policy         the update policy to use when downloading resources
      * @param mainName       Overrides the main class name of the application
      * @param enableCodeBase whether to enable codebase search or not
@@ -528,7 +565,7 @@ public class JNLPClassLoader extends URLClassLoader {
      * @throws ParseException                       when parsing fails
      * @throws net.sourceforge.jnlp.LaunchException when launch is doomed
      */
-    private static JNLPClassLoader getInstance(final URL location, final String uniqueKey, final VersionString version, final ParserSettings settings, final UpdatePolicy policy, final String mainName, boolean enableCodeBase)
+    private static JNLPClassLoader getInstance(final URL location, final String uniqueKey, final ExtensionResolver resolver, final int index, final UpdatePolicy policy, final String mainName, boolean enableCodeBase)
             throws IOException, ParseException, LaunchException {
 
         JNLPClassLoader loader;
@@ -537,7 +574,7 @@ public class JNLPClassLoader extends URLClassLoader {
             loader = uniqueKeyToLoader.get(uniqueKey);
 
             if (loader == null || !location.equals(loader.getJNLPFile().getFileLocation())) {
-                final JNLPFile jnlpFile = new JNLPFileFactory().create(location, uniqueKey, version, settings, policy);
+                final JNLPFile jnlpFile = resolver.getFile(index);
 
                 loader = getInstance(jnlpFile, policy, mainName, enableCodeBase);
             }
@@ -557,9 +594,14 @@ public class JNLPClassLoader extends URLClassLoader {
         final ExtensionDesc[] extDescs = resources.getExtensions();
         if (extDescs != null) {
             final String uniqueKey = this.getJNLPFile().getUniqueKey();
-            for (ExtensionDesc ext : extDescs) {
+            final ParserSettings settings = file.getParserSettings();
+            // the extension files are fetched concurrently, the loaders are created in the declared order
+            final ExtensionResolver resolver = ExtensionResolver.resolve(extDescs,
+                    ext -> new JNLPFileFactory().create(ext.getLocation(), uniqueKey, ext.getVersion(), settings, updatePolicy));
+            for (int i = 0; i < extDescs.length; i++) {
+                final ExtensionDesc ext = extDescs[i];
                 try {
-                    final JNLPClassLoader loader = getInstance(ext.getLocation(), uniqueKey, ext.getVersion(), file.getParserSettings(), updatePolicy, mainClass, enableCodeBase);
+                    final JNLPClassLoader loader = getInstance(ext.getLocation(), uniqueKey, resolver, i, updatePolicy, mainClass, enableCodeBase);
                     loaderList.add(loader);
                 } catch (Exception ex) {
                     exceptions.add(new Exception("Exception while initializing extension '" + ext.getLocation() + "'", ex));
@@ -582,6 +624,9 @@ public class JNLPClassLoader extends URLClassLoader {
 
         JARDesc[] jars = resources.getJARs();
         for (JARDesc jar : jars) {
+            if (deferredJars.contains(jar)) {
+                continue; // added once the jar is activated
+            }
             Permission p = getReadPermission(jar);
 
             if (p == null) {
@@ -639,6 +684,38 @@ public class JNLPClassLoader extends URLClassLoader {
         return isInvalid;
     }
 
+    private DownloadPriority getDownloadPriority(final JARDesc jar, final JARDesc mainJar, final String mainPart) {
+        if (jar == mainJar) {
+            return DownloadPriority.MAIN;
+        }
+        if (startupProfile.hasJarOrder()) {
+            return deferredJars.contains(jar) ? DownloadPriority.EAGER : DownloadPriority.STARTUP;
+        }
+        return Objects.equals(jar.getPart(), mainPart) ? DownloadPriority.EAGER_MAIN_PART : DownloadPriority.EAGER;
+    }
+
+    /**
+     * A jar is needed during startup if it is the main jar, contains native libraries or the previous
+     * launch needed it during startup. Without a profile all eager jars are needed.
+     */
+    private boolean isNeededAtStartup(final JARDesc jar, final JARDesc mainJar) {
+        return !startupProfile.hasJarOrder() || jar == mainJar || jar.isNative() || startupProfile.getJarRank(jar.getLocation()) >= 0;
+    }
+
+    /**
+     * @return the jars in the order the previous launch needed them, followed by the others in declaration order
+     */
+    private List<JARDesc> sortByStartupOrder(final JARDesc[] jars) {
+        final List<JARDesc> sorted = new ArrayList<>(Arrays.asList(jars));
+        if (startupProfile.hasJarOrder()) {
+            sorted.sort(Comparator.comparingInt(jar -> {
+                final int rank = startupProfile.getJarRank(jar.getLocation());
+                return rank >= 0 ? rank : Integer.MAX_VALUE;
+            }));
+        }
+        return sorted;
+    }
+
     /**
      * Load all of the JARs used in this JNLP file into the ResourceTracker for
      * downloading.
@@ -671,22 +748,25 @@ public class JNLPClassLoader extends URLClassLoader {
 
             setSecurity();
             initializeManifestAttributesChecker();
-            mac.checkAll();
+            try (TraceSpan ignored = LaunchTrace.span("verification", "checkManifestAttributes")) {
+                mac.checkAll();
+            }
             return;
         }
 
         final List<JARDesc> initialJars = new ArrayList<>();
+        final JARDesc mainJar = ResourcesDesc.getMainJAR(jars);
+        final String mainPart = mainJar != null ? mainJar.getPart() : null;
 
         for (JARDesc jar : jars) {
 
             available.add(jar);
 
-            if (jar.isEager() || jar.isMain()) {
+            if ((jar.isEager() || jar.isMain()) && isNeededAtStartup(jar, mainJar)) {
                 initialJars.add(jar); // regardless of part
+            } else {
+                deferredJars.add(jar);
             }
-            // FIXME: this will trigger an eager download as the tracker is created with prefetch == true
-            tracker.addResource(jar.getLocation(), jar.getVersion(),
-                    jar.isCacheable() ? JNLPRuntime.getDefaultUpdatePolicy() : UpdatePolicy.FORCE);
         }
 
         //If there are no eager jars, initialize the first jar
@@ -697,6 +777,22 @@ public class JNLPClassLoader extends URLClassLoader {
         if (strict) {
             fillInPartJars(initialJars); // add in each initial part's lazy jars
         }
+        deferredJars.removeAll(initialJars);
+
+        // the jars needed first are downloaded first, eager jars not needed during startup are downloaded
+        // once the application has been started
+        for (JARDesc jar : sortByStartupOrder(jars)) {
+            final UpdatePolicy jarUpdatePolicy = jar.isCacheable() ? JNLPRuntime.getDefaultUpdatePolicy() : UpdatePolicy.FORCE;
+            if ((jar.isEager() || jar.isMain()) && !deferredJars.contains(jar)) {
+                tracker.addResource(jar.getLocation(), jar.getVersion(), jarUpdatePolicy, getDownloadPriority(jar, mainJar, mainPart));
+            } else {
+                // lazy jars are downloaded on demand or by prefetchLazyJarsInBackground()
+                tracker.addDeferredResource(jar.getLocation(), jar.getVersion(), jarUpdatePolicy);
+            }
+        }
+        if (!deferredJars.isEmpty()) {
+            LOG.debug("Deferring {} jars of {} which are not needed during startup", deferredJars.size(), file.getSourceLocation());
+        }
 
         waitForJars(initialJars); //download the jars first.
 
@@ -774,6 +870,9 @@ public class JNLPClassLoader extends URLClassLoader {
         final Set<JARDesc> validJars = new HashSet<>();
         boolean containsSignedJar = false, containsUnsignedJar = false;
         for (JARDesc jarDesc : file.getResources().getJARs()) {
+            if (deferredJars.contains(jarDesc)) {
+                continue; // verified once the jar is activated
+            }
             File cachedFile;
 
             try {
@@ -812,7 +911,9 @@ public class JNLPClassLoader extends URLClassLoader {
         setSecurity();
 
         initializeManifestAttributesChecker();
-        mac.checkAll();
+        try (TraceSpan ignored = LaunchTrace.span("verification", "checkManifestAttributes")) {
+            mac.checkAll();
+        }
 
         for (JARDesc jarDesc : validJars) {
             final URL codebase = getJnlpFileCodebase();
@@ -1024,6 +1125,73 @@ public class JNLPClassLoader extends URLClassLoader {
         addToCodeBaseLoader(file.getCodeBase());
     }
 
+    /**
+     * Starts downloading the lazy jars which have not yet been loaded in the background.
+     * Does nothing unless background prefetching has been enabled either in the
+     * configuration or by the JNLP file.
+     * The jars are only downloaded, they are added to the classloader when they are needed.
+     */
+    public void prefetchLazyJarsInBackground() {
+        if (backgroundPrefetch) {
+            final URL[] urls;
+            synchronized (available) {
+                urls = available.stream().map(JARDesc::getLocation).toArray(URL[]::new);
+            }
+            if (urls.length > 0) {
+                LOG.debug("Prefetching {} lazy jars of {} in the background", urls.length, file.getFileLocation());
+                tracker.prefetchInBackground(urls);
+            }
+        }
+
+        for (int i = 1; i < loaders.length; i++) {
+            loaders[i].prefetchLazyJarsInBackground();
+        }
+    }
+
+    /**
+     * Called right before the main class of the application is invoked. Starts downloading the eager jars
+     * which were deferred as the previous launch did not need them during startup, starts preloading the
+     * classes the previous launch loaded during startup, and closes the recording of the startup profile
+     * once its window has passed.
+     */
+    public void applicationStarting() {
+        downloadDeferredJars();
+
+        final List<String> classNames = startupProfile.getClassOrder();
+        if (!classNames.isEmpty()) {
+            ClassPreloader.start(this, classNames, this::isInActivatedJar, acc);
+        }
+        startupProfile.closeAfterWindow();
+    }
+
+    private void downloadDeferredJars() {
+        final URL[] urls;
+        synchronized (deferredJars) {
+            urls = deferredJars.stream().filter(JARDesc::isEager).map(JARDesc::getLocation).toArray(URL[]::new);
+        }
+        if (urls.length > 0) {
+            LOG.debug("Downloading {} deferred jars of {} in the background", urls.length, file.getFileLocation());
+            tracker.startDownloads(DownloadPriority.EAGER, urls);
+        }
+
+        for (int i = 1; i < loaders.length; i++) {
+            loaders[i].downloadDeferredJars();
+        }
+    }
+
+    /**
+     * @return {@code true} if the class file is in a jar of this or an extension loader which has been activated
+     */
+    private boolean isInActivatedJar(final String className) {
+        final String entryName = className.replace('.', '/') + ".class";
+        for (JNLPClassLoader loader : loaders) {
+            if (loader.jarEntries.contains(entryName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Sets the JNLP app this group is for; can only be called once.
      *
@@ -1057,6 +1225,11 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     @Override
     public PermissionCollection getPermissions(CodeSource cs) {
+        // called once for each jar when the first class is defined from it
+        if (cs != null) {
+            startupProfile.recordJar(cs.getLocation());
+        }
+
         try {
             Permissions result = new Permissions();
 
@@ -1170,7 +1343,9 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     void activateJars(final List<JARDesc> jars) {
         PrivilegedAction<Void> activate = () -> doActivateJars(jars);
-        AccessController.doPrivileged(activate, acc);
+        try (TraceSpan ignored = LaunchTrace.span("classloader", "activateJars").withDetail("jars", jars.size())) {
+            AccessController.doPrivileged(activate, acc);
+        }
     }
 
     private Void doActivateJars(List<JARDesc> jars) {
@@ -1180,6 +1355,10 @@ public class JNLPClassLoader extends URLClassLoader {
         for (JARDesc jar : jars) {
             available.remove(jar);
 
+            if (deferredJars.remove(jar) && !verifyDeferredJar(jar)) {
+                continue;
+            }
+
             // add jar
             File localFile = tracker.getCacheFile(jar.getLocation());
             try {
@@ -1290,6 +1469,44 @@ public class JNLPClassLoader extends URLClassLoader {
         return null;
     }
 
+    /**
+     * Verifies a jar which was deferred during initialization and decides about its permissions.
+     * An unsigned jar of a signed application is treated like mixed signing during initialization:
+     * the user is asked once whether the application may run partially signed and the unsigned
+     * jar gets sandbox permissions.
+     *
+     * @param jar the jar to verify
+     * @return {@code false} if the jar must not be activated
+     */
+    private boolean verifyDeferredJar(final JARDesc jar) {
+        try {
+            final URL codebase = getJnlpFileCodebase();
+            SecurityDesc jarSecurity = securityDelegate.getCodebaseSecurityDesc(jar, codebase);
+
+            if (JNLPRuntime.isVerifying()) {
+                synchronized (jcv) {
+                    jcv.add(jar, tracker);
+                    if (jcv.isUnsigned(jar, tracker) && signing != SigningState.NONE) {
+                        // prompts only once, the first unsigned jar makes the signing partial
+                        checkPartialSigningWithUser();
+                        jarSecurity = new SecurityDesc(file, AppletPermissionLevel.NONE, SecurityDesc.SANDBOX_PERMISSIONS, codebase);
+                    }
+                }
+                checkTrustWithUser();
+            }
+            jarLocationSecurityMap.put(jar.getLocation(), jarSecurity);
+
+            final Permission p = getReadPermission(jar);
+            if (p != null) {
+                resourcePermissions.add(p);
+            }
+            return true;
+        } catch (Exception e) {
+            LOG.error("Failed to verify deferred jar " + jar.getLocation(), e);
+            return false;
+        }
+    }
+
     /**
      * Return the absolute path to the native library.
      */
@@ -1438,11 +1655,16 @@ public class JNLPClassLoader extends URLClassLoader {
         list.add(() -> loadClassFromInternalManifestClasspath(name));
         list.add(() -> loadFromJarIndexes(name));
 
-        return list.stream()
+        final Class<?> result = list.stream()
                 .map(ExceptionalSupplier::getResultOfCallOrNull)
                 .filter(Objects::nonNull)
                 .findFirst()
                 .orElseThrow(() -> new ClassNotFoundException(name));
+
+        if (startupProfile.isRecordingClasses() && result.getClassLoader() instanceof JNLPClassLoader && !ClassPreloader.isPreloading()) {
+            startupProfile.recordClass(name);
+        }
+        return result;
     }
 
     private Class<?> loadClassFromParentClassloader(final String name) throws ClassNotFoundException {
@@ -1594,6 +1816,13 @@ public class JNLPClassLoader extends URLClassLoader {
             } catch (ClassNotFoundException | PrivilegedActionException ignored) {
             } catch (ClassFormatError cfe) {
                 LOG.error("Error while trying to find class", cfe);
+            } catch (LinkageError e) {
+                // another thread defined the class in the meantime, e.g. while classes are preloaded
+                final Class<?> loaded = loader.findLoadedClass(name);
+                if (loaded == null) {
+                    throw e;
+                }
+                return loaded;
             } catch (NullJnlpFileException ex) {
                 throw new ClassNotFoundException(this.mainClass + " in main classloader ", ex);
             }
@@ -1622,12 +1851,27 @@ public class JNLPClassLoader extends URLClassLoader {
         } catch (ClassNotFoundException ignored) {
         }
 
+        // add the parts declared for the package of the class
+        final boolean declared;
+        try {
+            declared = addDeclaredParts(packageParts -> packageParts.getPartsForClass(name));
+        } catch (LaunchException e) {
+            throw new IllegalStateException(e);
+        }
+        if (declared) {
+            try {
+                return findClass(name);
+            } catch (ClassNotFoundException ignored) {
+            }
+        }
+
         // add resources until found
+        // if the package is declared only jars which do not belong to any part are searched
         while (true) {
             JNLPClassLoader addedTo;
 
             try {
-                addedTo = addNextResource();
+                addedTo = declared ? addNextResource(JNLPClassLoader::isWithoutPart) : addNextResource();
             } catch (LaunchException e) {
 
                 /*
@@ -1685,8 +1929,19 @@ public class JNLPClassLoader extends URLClassLoader {
         Enumeration<URL> lresources = findResourcesBySearching(name);
 
         try {
-            // if not found, load all lazy resources; repeat search
-            while (!lresources.hasMoreElements() && addNextResource() != null) {
+            if (lresources.hasMoreElements()) {
+                return lresources;
+            }
+
+            // if not found, load the parts declared for the package of the resource
+            final boolean declared = addDeclaredParts(packageParts -> packageParts.getPartsForResource(name));
+            if (declared) {
+                lresources = findResourcesBySearching(name);
+            }
+
+            // if still not found, load the remaining lazy resources; repeat search
+            final Predicate<JARDesc> filter = declared ? JNLPClassLoader::isWithoutPart : jar -> true;
+            while (!lresources.hasMoreElements() && addNextResource(filter) != null) {
                 lresources = findResourcesBySearching(name);
             }
         } catch (LaunchException le) {
@@ -1744,6 +1999,10 @@ public class JNLPClassLoader extends URLClassLoader {
             }
         }
 
+        if (startupProfile.isRecording()) {
+            lresources.forEach(startupProfile::recordResource);
+        }
+
         return Collections.enumeration(lresources);
     }
 
@@ -1770,9 +2029,24 @@ public class JNLPClassLoader extends URLClassLoader {
      *                         jar, fails to be verified or does not match
      */
     private JNLPClassLoader addNextResource() throws LaunchException {
-        if (available.isEmpty()) {
+        return addNextResource(jar -> true);
+    }
+
+    /**
+     * Adds the next unused resource accepted by the filter to the classloader.
+     *
+     * @param filter the filter for the resources to add
+     * @return the classloader that resources were added to, or null
+     * @throws LaunchException Thrown if the signed JNLP file, within the main
+     *                         jar, fails to be verified or does not match
+     * @see #addNextResource()
+     */
+    private JNLPClassLoader addNextResource(final Predicate<JARDesc> filter) throws LaunchException {
+        final List<JARDesc> jars = getNextJarsToLoad(filter);
+
+        if (jars.isEmpty()) {
             for (int i = 1; i < loaders.length; i++) {
-                JNLPClassLoader result = loaders[i].addNextResource();
+                JNLPClassLoader result = loaders[i].addNextResource(filter);
 
                 if (result != null) {
                     return result;
@@ -1781,16 +2055,20 @@ public class JNLPClassLoader extends URLClassLoader {
             return null;
         }
 
-        final List<JARDesc> jars = getNextJarsToLoad();
-
         checkForMain(jars);
         activateJars(jars);
 
         return this;
     }
 
-    private List<JARDesc> getNextJarsToLoad() {
-        final JARDesc nextJar = available.get(0);
+    private List<JARDesc> getNextJarsToLoad(final Predicate<JARDesc> filter) {
+        final JARDesc nextJar;
+        synchronized (available) {
+            nextJar = available.stream().filter(filter).findFirst().orElse(null);
+        }
+        if (nextJar == null) {
+            return Collections.emptyList();
+        }
 
         final LinkedHashSet<JARDesc> result = new LinkedHashSet<>();
         result.add(nextJar);
@@ -1799,6 +2077,40 @@ public class JNLPClassLoader extends URLClassLoader {
         return new ArrayList<>(result);
     }
 
+    /**
+     * Adds the jars of the parts which the package elements of this and the extension
+     * JNLP files declare for a class or resource.
+     *
+     * @param declaredParts the lookup of the parts declared for the class or resource
+     * @return {@code true} if any package element covers the class or resource
+     * @throws LaunchException Thrown if the signed JNLP file, within the main
+     *                         jar, fails to be verified or does not match
+     */
+    private boolean addDeclaredParts(final Function<PackageParts, Set<String>> declaredParts) throws LaunchException {
+        final Set<String> parts = declaredParts.apply(packageParts);
+        boolean declared = !parts.isEmpty();
+
+        final LinkedHashSet<JARDesc> jars = new LinkedHashSet<>();
+        for (String part : parts) {
+            jars.addAll(getAllAvailableJarsInPart(part));
+        }
+        if (!jars.isEmpty()) {
+            LOG.debug("Adding jars of declared parts {} of {}", parts, file.getSourceLocation());
+            final List<JARDesc> toLoad = new ArrayList<>(jars);
+            checkForMain(toLoad);
+            activateJars(toLoad);
+        }
+
+        for (int i = 1; i < loaders.length; i++) {
+            declared |= loaders[i].addDeclaredParts(declaredParts);
+        }
+        return declared;
+    }
+
+    private static boolean isWithoutPart(final JARDesc jar) {
+        return jar.getPart() == null;
+    }
+
     public boolean getSigning() {
         return signing == SigningState.FULL;
     }
@@ -2126,6 +2438,14 @@ public class JNLPClassLoader extends URLClassLoader {
         return tracker;
     }
 
+    /**
+     * @param jar a jar of the JNLP file of this classloader
+     * @return {@code true} if the jar is neither downloaded nor verified before it is activated
+     */
+    public boolean isDeferred(final JARDesc jar) {
+        return deferredJars.contains(jar);
+    }
+
     public String getMainClassNameFromManifest(JARDesc mainJarDesc) throws IOException {
         final File f = tracker.getCacheFile(mainJarDesc.getLocation());
         if (f != null) {
@@ -0,0 +1,68 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.PackageDesc;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Maps classes and resources to the parts declared for them by the {@code package} elements of a JNLP file.
+ */
+class PackageParts {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final PackageDesc[] packages;
+
+    PackageParts(final PackageDesc[] packages) {
+        this.packages = packages != null ? packages.clone() : new PackageDesc[0];
+    }
+
+    /**
+     * @param className the fully qualified class name
+     * @return the parts declared for the class, empty if no package element covers the class
+     */
+    Set<String> getPartsForClass(final String className) {
+        if (packages.length == 0) {
+            return Collections.emptySet();
+        }
+        final Set<String> parts = new LinkedHashSet<>();
+        for (PackageDesc pkg : packages) {
+            if (pkg.getPart() != null && pkg.matches(className)) {
+                parts.add(pkg.getPart());
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * @param resourceName the name of a resource as passed to {@link ClassLoader#getResource(String)}
+     * @return the parts declared for the package containing the resource, empty if no package element covers it
+     */
+    Set<String> getPartsForResource(final String resourceName) {
+        if (packages.length == 0) {
+            return Collections.emptySet();
+        }
+        return getPartsForClass(toClassName(resourceName));
+    }
+
+    /**
+     * Converts a resource name into the name of a class in the same package.
+     * The file extension is removed as the package elements only match on class names.
+     * E.g. {@code com/example/icon.png} is converted into {@code com.example.icon}.
+     */
+    static String toClassName(final String resourceName) {
+        String name = resourceName.startsWith("/") ? resourceName.substring(1) : resourceName;
+        if (name.endsWith(CLASS_SUFFIX)) {
+            name = name.substring(0, name.length() - CLASS_SUFFIX.length());
+        } else {
+            final int lastSlash = name.lastIndexOf('/');
+            final int extension = name.indexOf('.', lastSlash + 1);
+            if (extension > lastSlash + 1) {
+                name = name.substring(0, extension);
+            }
+        }
+        return name.replace('/', '.');
+    }
+}
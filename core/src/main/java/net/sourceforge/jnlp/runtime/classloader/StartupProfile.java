@@ -0,0 +1,322 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.CachedDaemonThreadPoolProvider;
+import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.cache.CacheUtil;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Records the order in which the jars of an application are first needed during its startup and
+ * remembers the order of the previous launch.
+ * <p>
+ * A jar is needed once the first class is defined from it or a resource is found in it. Recording
+ * starts with the creation of the class loader and ends the configured number of seconds after the
+ * main class is invoked. The recorded order is then stored with the cache entry of the application
+ * and replaces the order of the previous launch.
+ * </p>
+ * <p>
+ * If classes are preloaded the names of the classes the application loads from its jars are recorded
+ * the same way.
+ * </p>
+ * <p>
+ * The class loaders of an application and its extensions share the unique key of the application and
+ * therefore also the profile.
+ * </p>
+ *
+ * @see ConfigurationConstants#KEY_STARTUP_PROFILE_WINDOW
+ */
+class StartupProfile {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupProfile.class);
+
+    private static final String HEADER = "# jars and classes needed during the startup of the application in the order they were first needed";
+    private static final String JAR_ENTRY = "jar ";
+    private static final String CLASS_ENTRY = "class ";
+
+    /**
+     * upper bound for the number of recorded classes
+     */
+    static final int MAX_CLASSES = 20_000;
+
+    private static final Map<String, StartupProfile> PROFILES = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new CachedDaemonThreadPoolProvider.DaemonThreadFactory());
+
+    /**
+     * A profile which neither records nor knows any jars.
+     */
+    static final StartupProfile DISABLED = new StartupProfile(null, () -> null, 0, false);
+
+    private final String uniqueKey;
+    private final Supplier<File> profileFile;
+    private final long windowMillis;
+    private final boolean recordClasses;
+    private final List<String> previousJars = new ArrayList<>();
+    private final List<String> previousClasses = new ArrayList<>();
+    private final Map<String, Integer> previousJarRanks = new HashMap<>();
+    private final Set<String> recordedJars = new LinkedHashSet<>();
+    private final Set<String> recordedClasses = new LinkedHashSet<>();
+    private final AtomicBoolean windowStarted = new AtomicBoolean();
+    private volatile boolean recording;
+
+    /**
+     * @param uniqueKey     the unique key of the application, {@code null} if the profile is not shared
+     * @param profileFile   supplies the file the profile is kept in, may supply {@code null}
+     * @param windowMillis  how long recording continues once the main class is invoked, {@code 0} to disable the profile
+     * @param recordClasses whether the names of loaded classes are recorded and read
+     */
+    StartupProfile(final String uniqueKey, final Supplier<File> profileFile, final long windowMillis, final boolean recordClasses) {
+        this.uniqueKey = uniqueKey;
+        this.profileFile = profileFile;
+        this.windowMillis = windowMillis;
+        this.recordClasses = recordClasses;
+        if (windowMillis > 0) {
+            read();
+        }
+        for (String jar : previousJars) {
+            previousJarRanks.putIfAbsent(jar, previousJarRanks.size());
+        }
+        this.recording = windowMillis > 0;
+    }
+
+    /**
+     * Returns the profile of the application the JNLP file belongs to.
+     *
+     * @param file the JNLP file of the application or of one of its extensions
+     * @return the profile, {@link #DISABLED} if startup profiles are disabled
+     */
+    static StartupProfile forApplication(final JNLPFile file) {
+        final int windowSeconds = Integer.parseInt(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_STARTUP_PROFILE_WINDOW));
+        final String uniqueKey = file.getUniqueKey();
+        if (windowSeconds <= 0 || uniqueKey == null) {
+            return DISABLED;
+        }
+        final boolean recordClasses = Boolean.parseBoolean(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_PRELOAD_CLASSES));
+        return PROFILES.computeIfAbsent(uniqueKey, key -> new StartupProfile(key, profileFileOf(file), TimeUnit.SECONDS.toMillis(windowSeconds), recordClasses));
+    }
+
+    /**
+     * The profile is kept with the cache entry of the JNLP file. A JNLP file which is not cached, e.g. a local
+     * file, keeps it with the cache entry of its main jar.
+     */
+    private static Supplier<File> profileFileOf(final JNLPFile file) {
+        final URL location = file.getFileLocation();
+        final JARDesc mainJar = file.getResources() != null ? file.getResources().getMainJAR() : null;
+        return () -> {
+            if (location != null && CacheUtil.isCacheable(location)) {
+                return Cache.getProfileFile(location, null);
+            }
+            if (mainJar != null && CacheUtil.isCacheable(mainJar.getLocation())) {
+                return Cache.getProfileFile(mainJar.getLocation(), mainJar.getVersion());
+            }
+            return null;
+        };
+    }
+
+    /**
+     * @return {@code true} if the previous launch recorded the jars it needed during startup
+     */
+    boolean hasJarOrder() {
+        return !previousJarRanks.isEmpty();
+    }
+
+    /**
+     * @param location the location of a jar
+     * @return the position of the jar in the order of the previous launch, {@code -1} if the jar was not needed
+     */
+    int getJarRank(final URL location) {
+        return previousJarRanks.getOrDefault(location.toString(), -1);
+    }
+
+    /**
+     * @return the names of the classes the previous launch loaded during startup in the order they were
+     * loaded, empty if classes are not recorded
+     */
+    List<String> getClassOrder() {
+        return Collections.unmodifiableList(previousClasses);
+    }
+
+    /**
+     * @return {@code true} while the startup window is open
+     */
+    boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * @return {@code true} while the startup window is open and the names of loaded classes are recorded
+     */
+    boolean isRecordingClasses() {
+        return recording && recordClasses;
+    }
+
+    /**
+     * Records that a class has been defined from the jar.
+     *
+     * @param location the location of the jar
+     */
+    void recordJar(final URL location) {
+        if (recording && location != null) {
+            record(location.toString());
+        }
+    }
+
+    /**
+     * Records that a resource has been found. Only resources in jars are recorded.
+     *
+     * @param resource the URL of the resource, e.g. {@code jar:http://host/app.jar!/icon.png}
+     */
+    void recordResource(final URL resource) {
+        if (recording && resource != null && "jar".equals(resource.getProtocol())) {
+            final String spec = resource.getFile();
+            final int separator = spec.indexOf("!/");
+            if (separator > 0) {
+                record(spec.substring(0, separator));
+            }
+        }
+    }
+
+    private void record(final String jar) {
+        synchronized (recordedJars) {
+            recordedJars.add(jar);
+        }
+    }
+
+    /**
+     * Records that the application loaded a class from one of its jars.
+     *
+     * @param className the binary name of the class
+     */
+    void recordClass(final String className) {
+        if (isRecordingClasses()) {
+            synchronized (recordedClasses) {
+                if (recordedClasses.size() < MAX_CLASSES) {
+                    recordedClasses.add(className);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the startup window once the configured time has passed. Only the first call has an effect.
+     */
+    void closeAfterWindow() {
+        if (recording && windowStarted.compareAndSet(false, true)) {
+            SCHEDULER.schedule(this::close, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops recording and stores the recorded order if it differs from the order of the previous launch.
+     */
+    void close() {
+        if (!recording) {
+            return;
+        }
+        recording = false;
+        if (uniqueKey != null) {
+            PROFILES.remove(uniqueKey, this);
+        }
+
+        final List<String> jars;
+        synchronized (recordedJars) {
+            jars = new ArrayList<>(recordedJars);
+        }
+        final List<String> classes;
+        synchronized (recordedClasses) {
+            classes = new ArrayList<>(recordedClasses);
+        }
+        if (!jars.isEmpty() && !(jars.equals(previousJars) && classes.equals(previousClasses))) {
+            AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                store(jars, classes);
+                return null;
+            });
+        }
+    }
+
+    private void store(final List<String> jars, final List<String> classes) {
+        try {
+            final File file = profileFile.get();
+            if (file == null) {
+                LOG.debug("No cache entry to keep the startup profile in");
+                return;
+            }
+            final File tempFile = File.createTempFile("startup", ".tmp", file.getParentFile());
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), UTF_8)) {
+                    writer.write(HEADER);
+                    writer.newLine();
+                    for (String jar : jars) {
+                        writer.write(JAR_ENTRY);
+                        writer.write(jar);
+                        writer.newLine();
+                    }
+                    for (String className : classes) {
+                        writer.write(CLASS_ENTRY);
+                        writer.write(className);
+                        writer.newLine();
+                    }
+                }
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+            LOG.debug("Stored startup profile with {} jars and {} classes in {}", jars.size(), classes.size(), file);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not store startup profile: {}", e.getMessage());
+        }
+    }
+
+    private void read() {
+        try {
+            final File file = profileFile.get();
+            if (file == null || !file.isFile()) {
+                return;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(JAR_ENTRY)) {
+                        previousJars.add(line.substring(JAR_ENTRY.length()));
+                    } else if (recordClasses && line.startsWith(CLASS_ENTRY)) {
+                        previousClasses.add(line.substring(CLASS_ENTRY.length()));
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not read startup profile: {}", e.getMessage());
+            previousJars.clear();
+            previousClasses.clear();
+        }
+    }
+}
@@ -0,0 +1,767 @@
+package net.sourceforge.jnlp.services;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
+import javax.jnlp.BasicService;
+import javax.jnlp.ClipboardService;
+import javax.jnlp.DownloadService;
+import javax.jnlp.DownloadService2;
+import javax.jnlp.DownloadServiceListener;
+import javax.jnlp.ExtendedService;
+import javax.jnlp.ExtensionInstallerService;
+import javax.jnlp.FileContents;
+import javax.jnlp.FileOpenService;
+import javax.jnlp.FileSaveService;
+import javax.jnlp.JNLPRandomAccessFile;
+import javax.jnlp.PersistenceService;
+import javax.jnlp.PrintService;
+import javax.jnlp.SingleInstanceListener;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.print.PageFormat;
+import java.awt.print.Pageable;
+import java.awt.print.Printable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.Arrays;
+
+/**
+ * Wrappers which make all calls to the JNLP services in the security context of the system classes
+ * (ie, AllPermissions). This means that the services must be more than extremely careful in the
+ * operations they perform.
+ * <p>
+ * Exceptions thrown by the services are passed on unchanged. The calls and their results are logged
+ * if debugging is enabled.
+ * </p>
+ */
+final class PrivilegedServices {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrivilegedServices.class);
+
+    private PrivilegedServices() {
+        // do not instantiate
+    }
+
+    static BasicService basicService(final BasicService service) {
+        return new PrivilegedBasicService(service);
+    }
+
+    static DownloadService downloadService(final DownloadService service) {
+        return new PrivilegedDownloadService(service);
+    }
+
+    static DownloadService2 downloadService2(final DownloadService2 service) {
+        return new PrivilegedDownloadService2(service);
+    }
+
+    static ExtendedService extendedService(final ExtendedService service) {
+        return new PrivilegedExtendedService(service);
+    }
+
+    static ExtensionInstallerService extensionInstallerService(final ExtensionInstallerService service) {
+        return new PrivilegedExtensionInstallerService(service);
+    }
+
+    static PersistenceService persistenceService(final PersistenceService service) {
+        return new PrivilegedPersistenceService(service);
+    }
+
+    static FileOpenService fileOpenService(final FileOpenService service) {
+        return new PrivilegedFileOpenService(service);
+    }
+
+    static FileSaveService fileSaveService(final FileSaveService service) {
+        return new PrivilegedFileSaveService(service);
+    }
+
+    static ClipboardService clipboardService(final ClipboardService service) {
+        return new PrivilegedClipboardService(service);
+    }
+
+    static PrintService printService(final PrintService service) {
+        return new PrivilegedPrintService(service);
+    }
+
+    static ExtendedSingleInstanceService singleInstanceService(final ExtendedSingleInstanceService service) {
+        return new PrivilegedSingleInstanceService(service);
+    }
+
+    static FileContents fileContents(final FileContents contents) {
+        return new PrivilegedFileContents(contents);
+    }
+
+    /**
+     * @return the wrapped contents, {@code null} if the contents are {@code null}
+     */
+    static Transferable transferable(final Transferable contents) {
+        return contents == null ? null : new PrivilegedTransferable(contents);
+    }
+
+    private static <T> T call(final PrivilegedAction<T> action) {
+        return logResult(AccessController.doPrivileged(action));
+    }
+
+    private static <T> T callWithIO(final PrivilegedExceptionAction<T> action) throws IOException {
+        try {
+            return logResult(AccessController.doPrivileged(action));
+        } catch (PrivilegedActionException e) {
+            // the actions only call methods which throw no other checked exceptions
+            throw (IOException) e.getException();
+        }
+    }
+
+    private static <T> T logResult(final T result) {
+        if (JNLPRuntime.isDebug()) {
+            LOG.debug("result: {}", result);
+        }
+        return result;
+    }
+
+    private static void trace(final String method) {
+        if (JNLPRuntime.isDebug()) {
+            LOG.debug("call privileged method: {}()", method);
+        }
+    }
+
+    private static void trace(final String method, final Object arg) {
+        if (JNLPRuntime.isDebug()) {
+            LOG.debug("call privileged method: {}({})", method, toString(arg));
+        }
+    }
+
+    private static void trace(final String method, final Object arg1, final Object arg2) {
+        if (JNLPRuntime.isDebug()) {
+            LOG.debug("call privileged method: {}({}, {})", method, toString(arg1), toString(arg2));
+        }
+    }
+
+    private static void trace(final String method, final Object arg1, final Object arg2, final Object arg3) {
+        if (JNLPRuntime.isDebug()) {
+            LOG.debug("call privileged method: {}({}, {}, {})", method, toString(arg1), toString(arg2), toString(arg3));
+        }
+    }
+
+    private static void trace(final String method, final Object arg1, final Object arg2, final Object arg3, final Object arg4) {
+        if (JNLPRuntime.isDebug()) {
+            LOG.debug("call privileged method: {}({}, {}, {}, {})", method, toString(arg1), toString(arg2), toString(arg3), toString(arg4));
+        }
+    }
+
+    private static String toString(final Object arg) {
+        return arg instanceof Object[] ? Arrays.toString((Object[]) arg) : String.valueOf(arg);
+    }
+
+    private static final class PrivilegedBasicService implements BasicService {
+        private final BasicService delegate;
+
+        PrivilegedBasicService(final BasicService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public URL getCodeBase() {
+            trace("getCodeBase");
+            return call(delegate::getCodeBase);
+        }
+
+        @Override
+        public boolean isOffline() {
+            trace("isOffline");
+            return call(delegate::isOffline);
+        }
+
+        @Override
+        public boolean showDocument(final URL url) {
+            trace("showDocument", url);
+            return call(() -> delegate.showDocument(url));
+        }
+
+        @Override
+        public boolean isWebBrowserSupported() {
+            trace("isWebBrowserSupported");
+            return call(delegate::isWebBrowserSupported);
+        }
+    }
+
+    private static final class PrivilegedDownloadService implements DownloadService {
+        private final DownloadService delegate;
+
+        PrivilegedDownloadService(final DownloadService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean isResourceCached(final URL ref, final String version) {
+            trace("isResourceCached", ref, version);
+            return call(() -> delegate.isResourceCached(ref, version));
+        }
+
+        @Override
+        public boolean isPartCached(final String part) {
+            trace("isPartCached", part);
+            return call(() -> delegate.isPartCached(part));
+        }
+
+        @Override
+        public boolean isPartCached(final String[] parts) {
+            trace("isPartCached", parts);
+            return call(() -> delegate.isPartCached(parts));
+        }
+
+        @Override
+        public boolean isExtensionPartCached(final URL ref, final String version, final String part) {
+            trace("isExtensionPartCached", ref, version, part);
+            return call(() -> delegate.isExtensionPartCached(ref, version, part));
+        }
+
+        @Override
+        public boolean isExtensionPartCached(final URL ref, final String version, final String[] parts) {
+            trace("isExtensionPartCached", ref, version, parts);
+            return call(() -> delegate.isExtensionPartCached(ref, version, parts));
+        }
+
+        @Override
+        public void loadResource(final URL ref, final String version, final DownloadServiceListener progress) throws IOException {
+            trace("loadResource", ref, version, progress);
+            callWithIO(() -> {
+                delegate.loadResource(ref, version, progress);
+                return null;
+            });
+        }
+
+        @Override
+        public void loadPart(final String part, final DownloadServiceListener progress) throws IOException {
+            trace("loadPart", part, progress);
+            callWithIO(() -> {
+                delegate.loadPart(part, progress);
+                return null;
+            });
+        }
+
+        @Override
+        public void loadPart(final String[] parts, final DownloadServiceListener progress) throws IOException {
+            trace("loadPart", parts, progress);
+            callWithIO(() -> {
+                delegate.loadPart(parts, progress);
+                return null;
+            });
+        }
+
+        @Override
+        public void loadExtensionPart(final URL ref, final String version, final String part, final DownloadServiceListener progress) throws IOException {
+            trace("loadExtensionPart", ref, version, part, progress);
+            callWithIO(() -> {
+                delegate.loadExtensionPart(ref, version, part, progress);
+                return null;
+            });
+        }
+
+        @Override
+        public void loadExtensionPart(final URL ref, final String version, final String[] parts, final DownloadServiceListener progress) throws IOException {
+            trace("loadExtensionPart", ref, version, parts, progress);
+            callWithIO(() -> {
+                delegate.loadExtensionPart(ref, version, parts, progress);
+                return null;
+            });
+        }
+
+        @Override
+        public void removeResource(final URL ref, final String version) throws IOException {
+            trace("removeResource", ref, version);
+            callWithIO(() -> {
+                delegate.removeResource(ref, version);
+                return null;
+            });
+        }
+
+        @Override
+        public void removePart(final String part) throws IOException {
+            trace("removePart", part);
+            callWithIO(() -> {
+                delegate.removePart(part);
+                return null;
+            });
+        }
+
+        @Override
+        public void removePart(final String[] parts) throws IOException {
+            trace("removePart", parts);
+            callWithIO(() -> {
+                delegate.removePart(parts);
+                return null;
+            });
+        }
+
+        @Override
+        public void removeExtensionPart(final URL ref, final String version, final String part) throws IOException {
+            trace("removeExtensionPart", ref, version, part);
+            callWithIO(() -> {
+                delegate.removeExtensionPart(ref, version, part);
+                return null;
+            });
+        }
+
+        @Override
+        public void removeExtensionPart(final URL ref, final String version, final String[] parts) throws IOException {
+            trace("removeExtensionPart", ref, version, parts);
+            callWithIO(() -> {
+                delegate.removeExtensionPart(ref, version, parts);
+                return null;
+            });
+        }
+
+        @Override
+        public DownloadServiceListener getDefaultProgressWindow() {
+            trace("getDefaultProgressWindow");
+            return call(delegate::getDefaultProgressWindow);
+        }
+    }
+
+    private static final class PrivilegedDownloadService2 implements DownloadService2 {
+        private final DownloadService2 delegate;
+
+        PrivilegedDownloadService2(final DownloadService2 delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ResourceSpec[] getCachedResources(final ResourceSpec resourceSpec) {
+            trace("getCachedResources", resourceSpec);
+            return call(() -> delegate.getCachedResources(resourceSpec));
+        }
+
+        @Override
+        public ResourceSpec[] getUpdateAvailableResources(final ResourceSpec resourceSpec) {
+            trace("getUpdateAvailableResources", resourceSpec);
+            return call(() -> delegate.getUpdateAvailableResources(resourceSpec));
+        }
+    }
+
+    private static final class PrivilegedExtendedService implements ExtendedService {
+        private final ExtendedService delegate;
+
+        PrivilegedExtendedService(final ExtendedService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public FileContents openFile(final File file) throws IOException {
+            trace("openFile", file);
+            return callWithIO(() -> delegate.openFile(file));
+        }
+
+        @Override
+        public FileContents[] openFiles(final File[] files) throws IOException {
+            trace("openFiles", files);
+            return callWithIO(() -> delegate.openFiles(files));
+        }
+    }
+
+    private static final class PrivilegedExtensionInstallerService implements ExtensionInstallerService {
+        private final ExtensionInstallerService delegate;
+
+        PrivilegedExtensionInstallerService(final ExtensionInstallerService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getInstallPath() {
+            trace("getInstallPath");
+            return call(delegate::getInstallPath);
+        }
+
+        @Override
+        public String getExtensionVersion() {
+            trace("getExtensionVersion");
+            return call(delegate::getExtensionVersion);
+        }
+
+        @Override
+        public URL getExtensionLocation() {
+            trace("getExtensionLocation");
+            return call(delegate::getExtensionLocation);
+        }
+
+        @Override
+        public void hideProgressBar() {
+            trace("hideProgressBar");
+            call(() -> {
+                delegate.hideProgressBar();
+                return null;
+            });
+        }
+
+        @Override
+        public void hideStatusWindow() {
+            trace("hideStatusWindow");
+            call(() -> {
+                delegate.hideStatusWindow();
+                return null;
+            });
+        }
+
+        @Override
+        public void setHeading(final String heading) {
+            trace("setHeading", heading);
+            call(() -> {
+                delegate.setHeading(heading);
+                return null;
+            });
+        }
+
+        @Override
+        public void setStatus(final String status) {
+            trace("setStatus", status);
+            call(() -> {
+                delegate.setStatus(status);
+                return null;
+            });
+        }
+
+        @Override
+        public void updateProgress(final int value) {
+            trace("updateProgress", value);
+            call(() -> {
+                delegate.updateProgress(value);
+                return null;
+            });
+        }
+
+        @Override
+        public void installSucceeded(final boolean needsReboot) {
+            trace("installSucceeded", needsReboot);
+            call(() -> {
+                delegate.installSucceeded(needsReboot);
+                return null;
+            });
+        }
+
+        @Override
+        public void installFailed() {
+            trace("installFailed");
+            call(() -> {
+                delegate.installFailed();
+                return null;
+            });
+        }
+
+        @Override
+        public void setJREInfo(final String platformVersion, final String jrePath) {
+            trace("setJREInfo", platformVersion, jrePath);
+            call(() -> {
+                delegate.setJREInfo(platformVersion, jrePath);
+                return null;
+            });
+        }
+
+        @Override
+        public void setNativeLibraryInfo(final String path) {
+            trace("setNativeLibraryInfo", path);
+            call(() -> {
+                delegate.setNativeLibraryInfo(path);
+                return null;
+            });
+        }
+
+        @Override
+        public String getInstalledJRE(final URL url, final String version) {
+            trace("getInstalledJRE", url, version);
+            return call(() -> delegate.getInstalledJRE(url, version));
+        }
+    }
+
+    private static final class PrivilegedPersistenceService implements PersistenceService {
+        private final PersistenceService delegate;
+
+        PrivilegedPersistenceService(final PersistenceService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long create(final URL url, final long maxsize) throws IOException {
+            trace("create", url, maxsize);
+            return callWithIO(() -> delegate.create(url, maxsize));
+        }
+
+        @Override
+        public FileContents get(final URL url) throws IOException {
+            trace("get", url);
+            return callWithIO(() -> delegate.get(url));
+        }
+
+        @Override
+        public void delete(final URL url) throws IOException {
+            trace("delete", url);
+            callWithIO(() -> {
+                delegate.delete(url);
+                return null;
+            });
+        }
+
+        @Override
+        public String[] getNames(final URL url) throws IOException {
+            trace("getNames", url);
+            return callWithIO(() -> delegate.getNames(url));
+        }
+
+        @Override
+        public int getTag(final URL url) throws IOException {
+            trace("getTag", url);
+            return callWithIO(() -> delegate.getTag(url));
+        }
+
+        @Override
+        public void setTag(final URL url, final int tag) throws IOException {
+            trace("setTag", url, tag);
+            callWithIO(() -> {
+                delegate.setTag(url, tag);
+                return null;
+            });
+        }
+    }
+
+    private static final class PrivilegedFileOpenService implements FileOpenService {
+        private final FileOpenService delegate;
+
+        PrivilegedFileOpenService(final FileOpenService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public FileContents openFileDialog(final String pathHint, final String[] extensions) throws IOException {
+            trace("openFileDialog", pathHint, extensions);
+            return callWithIO(() -> delegate.openFileDialog(pathHint, extensions));
+        }
+
+        @Override
+        public FileContents[] openMultiFileDialog(final String pathHint, final String[] extensions) throws IOException {
+            trace("openMultiFileDialog", pathHint, extensions);
+            return callWithIO(() -> delegate.openMultiFileDialog(pathHint, extensions));
+        }
+    }
+
+    private static final class PrivilegedFileSaveService implements FileSaveService {
+        private final FileSaveService delegate;
+
+        PrivilegedFileSaveService(final FileSaveService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public FileContents saveFileDialog(final String pathHint, final String[] extensions, final InputStream stream, final String name) throws IOException {
+            trace("saveFileDialog", pathHint, extensions, stream, name);
+            return callWithIO(() -> delegate.saveFileDialog(pathHint, extensions, stream, name));
+        }
+
+        @Override
+        public FileContents saveAsFileDialog(final String pathHint, final String[] extensions, final FileContents contents) throws IOException {
+            trace("saveAsFileDialog", pathHint, extensions, contents);
+            return callWithIO(() -> delegate.saveAsFileDialog(pathHint, extensions, contents));
+        }
+    }
+
+    private static final class PrivilegedClipboardService implements ClipboardService {
+        private final ClipboardService delegate;
+
+        PrivilegedClipboardService(final ClipboardService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Transferable getContents() {
+            trace("getContents");
+            return call(delegate::getContents);
+        }
+
+        @Override
+        public void setContents(final Transferable contents) {
+            trace("setContents", contents);
+            call(() -> {
+                delegate.setContents(contents);
+                return null;
+            });
+        }
+    }
+
+    private static final class PrivilegedPrintService implements PrintService {
+        private final PrintService delegate;
+
+        PrivilegedPrintService(final PrintService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public PageFormat getDefaultPage() {
+            trace("getDefaultPage");
+            return call(delegate::getDefaultPage);
+        }
+
+        @Override
+        public PageFormat showPageFormatDialog(final PageFormat page) {
+            trace("showPageFormatDialog", page);
+            return call(() -> delegate.showPageFormatDialog(page));
+        }
+
+        @Override
+        public boolean print(final Pageable document) {
+            trace("print", document);
+            return call(() -> delegate.print(document));
+        }
+
+        @Override
+        public boolean print(final Printable painter) {
+            trace("print", painter);
+            return call(() -> delegate.print(painter));
+        }
+    }
+
+    private static final class PrivilegedSingleInstanceService implements ExtendedSingleInstanceService {
+        private final ExtendedSingleInstanceService delegate;
+
+        PrivilegedSingleInstanceService(final ExtendedSingleInstanceService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void checkSingleInstanceRunning(final JNLPFile jnlpFile) {
+            trace("checkSingleInstanceRunning", jnlpFile);
+            call(() -> {
+                delegate.checkSingleInstanceRunning(jnlpFile);
+                return null;
+            });
+        }
+
+        @Override
+        public void initializeSingleInstance() {
+            trace("initializeSingleInstance");
+            call(() -> {
+                delegate.initializeSingleInstance();
+                return null;
+            });
+        }
+
+        @Override
+        public void addSingleInstanceListener(final SingleInstanceListener listener) {
+            trace("addSingleInstanceListener", listener);
+            call(() -> {
+                delegate.addSingleInstanceListener(listener);
+                return null;
+            });
+        }
+
+        @Override
+        public void removeSingleInstanceListener(final SingleInstanceListener listener) {
+            trace("removeSingleInstanceListener", listener);
+            call(() -> {
+                delegate.removeSingleInstanceListener(listener);
+                return null;
+            });
+        }
+    }
+
+    private static final class PrivilegedFileContents implements FileContents {
+        private final FileContents delegate;
+
+        PrivilegedFileContents(final FileContents delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getName() throws IOException {
+            trace("getName");
+            return callWithIO(delegate::getName);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            trace("getInputStream");
+            return callWithIO(delegate::getInputStream);
+        }
+
+        @Override
+        public OutputStream getOutputStream(final boolean overwrite) throws IOException {
+            trace("getOutputStream", overwrite);
+            return callWithIO(() -> delegate.getOutputStream(overwrite));
+        }
+
+        @Override
+        public long getLength() throws IOException {
+            trace("getLength");
+            return callWithIO(delegate::getLength);
+        }
+
+        @Override
+        public boolean canRead() throws IOException {
+            trace("canRead");
+            return callWithIO(delegate::canRead);
+        }
+
+        @Override
+        public boolean canWrite() throws IOException {
+            trace("canWrite");
+            return callWithIO(delegate::canWrite);
+        }
+
+        @Override
+        public JNLPRandomAccessFile getRandomAccessFile(final String mode) throws IOException {
+            trace("getRandomAccessFile", mode);
+            return callWithIO(() -> delegate.getRandomAccessFile(mode));
+        }
+
+        @Override
+        public long getMaxLength() throws IOException {
+            trace("getMaxLength");
+            return callWithIO(delegate::getMaxLength);
+        }
+
+        @Override
+        public long setMaxLength(final long maxlength) throws IOException {
+            trace("setMaxLength", maxlength);
+            return callWithIO(() -> delegate.setMaxLength(maxlength));
+        }
+    }
+
+    private static final class PrivilegedTransferable implements Transferable {
+        private final Transferable delegate;
+
+        PrivilegedTransferable(final Transferable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public DataFlavor[] getTransferDataFlavors() {
+            trace("getTransferDataFlavors");
+            return call(delegate::getTransferDataFlavors);
+        }
+
+        @Override
+        public boolean isDataFlavorSupported(final DataFlavor flavor) {
+            trace("isDataFlavorSupported", flavor);
+            return call(() -> delegate.isDataFlavorSupported(flavor));
+        }
+
+        @Override
+        public Object getTransferData(final DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+            trace("getTransferData", flavor);
+            try {
+                return logResult(AccessController.doPrivileged((PrivilegedExceptionAction<Object>) () -> delegate.getTransferData(flavor)));
+            } catch (PrivilegedActionException e) {
+                if (e.getException() instanceof UnsupportedFlavorException) {
+                    throw (UnsupportedFlavorException) e.getException();
+                }
+                throw (IOException) e.getException();
+            }
+        }
+    }
+}
@@ -29,8 +29,6 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.net.BindException;
-import java.net.ServerSocket;
 
 /**
  * This class represents a Lock for single instance jnlp applications.
@@ -83,7 +81,7 @@ class SingleInstanceLock {
      * points to is listening for incoming messages.
      */
     public boolean isValid() {
-        return (exists() && getPort() != INVALID_PORT && !isPortFree(getPort()));
+        return (exists() && getPort() != INVALID_PORT && SingleInstanceServer.isListening(getPort()));
     }
 
     /**
@@ -112,19 +110,6 @@ class SingleInstanceLock {
         return lockFile.exists();
     }
 
-    /**
-     * Returns true if the port is free.
-     */
-    private boolean isPortFree(int port) {
-        try (final ServerSocket ignored = new ServerSocket(port)) {
-            return true;
-        } catch (BindException e) {
-            return false;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     /**
      * Return a file object that represents the lock file. The lock file itself
      * may or may not exist.
@@ -0,0 +1,331 @@
+package net.sourceforge.jnlp.services;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.CachedDaemonThreadPoolProvider;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Receives the arguments of new instances of a single instance application.
+ * <p>
+ * The server listens on the loopback interface only. A single thread accepts the connections and reads
+ * the messages without blocking, so a slow or stalled client cannot delay other clients. Complete messages
+ * are decoded and handed to the handler on a separate thread, one after another in the order they arrived.
+ * </p>
+ * <p>
+ * A message is a 4 byte length followed by that many bytes of payload. The payload is the number of
+ * arguments followed by each argument as a 4 byte length and its UTF-8 bytes. A length of {@code -1}
+ * stands for {@code null}. All numbers are big endian. A connection carries a single message; a connection
+ * closed before the first byte is a liveness probe and is ignored.
+ * </p>
+ */
+final class SingleInstanceServer implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SingleInstanceServer.class);
+
+    /**
+     * upper bound for the payload of a message, larger messages are rejected
+     */
+    static final int MAX_MESSAGE_LENGTH = 1024 * 1024;
+
+    private static final int NULL_LENGTH = -1;
+
+    private final Consumer<String[]> handler;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService dispatcher;
+
+    private SingleInstanceServer(final Consumer<String[]> handler, final ServerSocketChannel serverChannel, final Selector selector) {
+        this.handler = handler;
+        this.serverChannel = serverChannel;
+        this.selector = selector;
+        this.dispatcher = Executors.newSingleThreadExecutor(new CachedDaemonThreadPoolProvider.DaemonThreadFactory());
+    }
+
+    /**
+     * Starts a server on a free port of the loopback interface.
+     *
+     * @param handler receives the arguments of each message
+     * @return the running server
+     * @throws IOException if the server cannot be bound
+     */
+    static SingleInstanceServer start(final Consumer<String[]> handler) throws IOException {
+        Assert.requireNonNull(handler, "handler");
+
+        final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            serverChannel.configureBlocking(false);
+            final Selector selector = Selector.open();
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+            final SingleInstanceServer server = new SingleInstanceServer(handler, serverChannel, selector);
+            final Thread acceptThread = new Thread(server::run, "SingleInstanceServer");
+            // mark as daemon so the JVM can shutdown if the server is the only thread running
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+            LOG.debug("Started SingleInstanceServer on port {}", server.getPort());
+            return server;
+        } catch (IOException | RuntimeException e) {
+            serverChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections. Messages already received are still handed to the handler.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            selector.close();
+        } finally {
+            serverChannel.close();
+            dispatcher.shutdown();
+        }
+    }
+
+    private void run() {
+        try {
+            while (selector.isOpen()) {
+                selector.select();
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            LOG.debug("SingleInstanceServer stopped");
+        } catch (IOException e) {
+            LOG.error("Exception in SingleInstanceServer", e);
+        }
+    }
+
+    private void accept() {
+        try {
+            final SocketChannel channel = serverChannel.accept();
+            if (channel != null) {
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new PendingMessage());
+            }
+        } catch (IOException e) {
+            LOG.error("Exception in SingleInstanceServer", e);
+        }
+    }
+
+    private void read(final SelectionKey key) {
+        final SocketChannel channel = (SocketChannel) key.channel();
+        final PendingMessage message = (PendingMessage) key.attachment();
+        try {
+            final ByteBuffer payload = message.readFrom(channel);
+            if (payload != null) {
+                closeQuietly(key);
+                dispatcher.execute(() -> dispatch(payload));
+            }
+        } catch (EOFException e) {
+            if (message.isStarted()) {
+                LOG.error("Incomplete message in SingleInstanceServer");
+            }
+            closeQuietly(key);
+        } catch (IOException e) {
+            LOG.error("Exception in SingleInstanceServer", e);
+            closeQuietly(key);
+        }
+    }
+
+    private void dispatch(final ByteBuffer payload) {
+        try {
+            handler.accept(decode(payload));
+        } catch (ProtocolException e) {
+            LOG.error("Invalid message in SingleInstanceServer: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.error("Exception in SingleInstanceServer", e);
+        }
+    }
+
+    private static void closeQuietly(final SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            LOG.debug("Could not close connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the arguments to the server listening on the port of the loopback interface.
+     *
+     * @param port      the port the server listens on
+     * @param arguments the arguments, may be {@code null}
+     * @return {@code false} if no server is listening on the port
+     * @throws IOException if the arguments cannot be sent
+     */
+    static boolean send(final int port, final String[] arguments) throws IOException {
+        final ByteBuffer message = encode(arguments);
+        try (final SocketChannel channel = SocketChannel.open()) {
+            try {
+                channel.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            } catch (ConnectException e) {
+                return false;
+            }
+            while (message.hasRemaining()) {
+                channel.write(message);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param port a port of the loopback interface
+     * @return {@code true} if a server accepts connections on the port
+     */
+    static boolean isListening(final int port) {
+        try (final SocketChannel ignored = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    static ByteBuffer encode(final String[] arguments) throws ProtocolException {
+        final byte[][] encoded = arguments == null ? null : new byte[arguments.length][];
+        int length = Integer.BYTES;
+        if (arguments != null) {
+            for (int i = 0; i < arguments.length; i++) {
+                encoded[i] = arguments[i] == null ? null : arguments[i].getBytes(UTF_8);
+                length += Integer.BYTES + (encoded[i] == null ? 0 : encoded[i].length);
+                if (length > MAX_MESSAGE_LENGTH) {
+                    throw new ProtocolException("Arguments exceed " + MAX_MESSAGE_LENGTH + " bytes");
+                }
+            }
+        }
+
+        final ByteBuffer message = ByteBuffer.allocate(Integer.BYTES + length);
+        message.putInt(length);
+        if (encoded == null) {
+            message.putInt(NULL_LENGTH);
+        } else {
+            message.putInt(encoded.length);
+            for (byte[] argument : encoded) {
+                if (argument == null) {
+                    message.putInt(NULL_LENGTH);
+                } else {
+                    message.putInt(argument.length);
+                    message.put(argument);
+                }
+            }
+        }
+        message.flip();
+        return message;
+    }
+
+    static String[] decode(final ByteBuffer payload) throws ProtocolException {
+        try {
+            final int count = payload.getInt();
+            if (count == NULL_LENGTH) {
+                return null;
+            }
+            // every argument takes at least its length
+            if (count < 0 || count > payload.remaining() / Integer.BYTES) {
+                throw new ProtocolException("Invalid number of arguments: " + count);
+            }
+            final String[] arguments = new String[count];
+            for (int i = 0; i < count; i++) {
+                final int length = payload.getInt();
+                if (length == NULL_LENGTH) {
+                    continue;
+                }
+                if (length < 0 || length > payload.remaining()) {
+                    throw new ProtocolException("Invalid argument length: " + length);
+                }
+                arguments[i] = new String(payload.array(), payload.arrayOffset() + payload.position(), length, UTF_8);
+                payload.position(payload.position() + length);
+            }
+            if (payload.hasRemaining()) {
+                throw new ProtocolException(payload.remaining() + " unexpected bytes after the arguments");
+            }
+            return arguments;
+        } catch (BufferUnderflowException e) {
+            throw new ProtocolException("Truncated message");
+        }
+    }
+
+    /**
+     * The state of a message which has not been read completely.
+     */
+    private static class PendingMessage {
+        private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        private ByteBuffer payload;
+
+        boolean isStarted() {
+            return header.position() > 0;
+        }
+
+        /**
+         * Reads whatever is available.
+         *
+         * @return the payload once the message is complete, {@code null} before
+         * @throws EOFException if the connection is closed before the message is complete
+         */
+        ByteBuffer readFrom(final SocketChannel channel) throws IOException {
+            if (payload == null) {
+                if (channel.read(header) < 0) {
+                    throw new EOFException();
+                }
+                if (header.hasRemaining()) {
+                    return null;
+                }
+                final int length = header.getInt(0);
+                if (length < Integer.BYTES || length > MAX_MESSAGE_LENGTH) {
+                    throw new ProtocolException("Invalid message length: " + length);
+                }
+                payload = ByteBuffer.allocate(length);
+            }
+            if (channel.read(payload) < 0) {
+                throw new EOFException();
+            }
+            if (payload.hasRemaining()) {
+                return null;
+            }
+            payload.flip();
+            return payload;
+        }
+    }
+}
@@ -56,8 +56,7 @@ class XClipboardService implements ClipboardService {
 
         if (ServiceUtil.checkAccess(AccessType.CLIPBOARD_READ)) {
             Transferable t = Toolkit.getDefaultToolkit().getSystemClipboard().getContents(null);
-            return (Transferable) ServiceUtil.createPrivilegedProxy(
-                                Transferable.class, t);
+            return PrivilegedServices.transferable(t);
         } else {
             return null;
         }
@@ -36,7 +36,7 @@ public class XExtendedService implements ExtendedService {
         File secureFile = new File(file.getPath());
 
         if (ServiceUtil.checkAccess(AccessType.READ_WRITE_FILE, new Object[] { secureFile.getAbsolutePath() })) {
-            return (FileContents) ServiceUtil.createPrivilegedProxy(FileContents.class,
+            return PrivilegedServices.fileContents(
                     new XFileContents(secureFile));
         } else {
             return null;
@@ -16,6 +16,8 @@
 
 package net.sourceforge.jnlp.services;
 
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
 import javax.jnlp.FileContents;
 import javax.jnlp.JNLPRandomAccessFile;
 import java.io.File;
@@ -106,7 +108,14 @@ class XFileContents implements FileContents {
      * @throws IOException if an I/O exception occurs.
      */
     public JNLPRandomAccessFile getRandomAccessFile(String mode) throws IOException {
-        return new XJNLPRandomAccessFile(file, mode);
+        return new XJNLPRandomAccessFile(file, mode, getMapThreshold());
+    }
+
+    /**
+     * @return the size in bytes up to which files opened for reading only are memory mapped
+     */
+    private static long getMapThreshold() {
+        return JNLPRuntime.getConfiguration().getSnapshot().getFileContentsMapThresholdInBytes();
     }
 
     /**
@@ -69,8 +69,7 @@ class XFileSaveService implements FileSaveService {
 
             if (chosen == JFileChooser.APPROVE_OPTION) {
                 writeToFile(stream, chooser.getSelectedFile());
-                return (FileContents) ServiceUtil.createPrivilegedProxy(
-                           FileContents.class,
+                return PrivilegedServices.fileContents(
                            new XFileContents(chooser.getSelectedFile()));
             } else {
                 return null;
@@ -95,8 +94,7 @@ class XFileSaveService implements FileSaveService {
                 writeToFile(contents.getInputStream(),
                             chooser.getSelectedFile());
 
-                return (FileContents) ServiceUtil.createPrivilegedProxy(
-                           FileContents.class,
+                return PrivilegedServices.fileContents(
                            new XFileContents(chooser.getSelectedFile()));
             } else {
                 return null;
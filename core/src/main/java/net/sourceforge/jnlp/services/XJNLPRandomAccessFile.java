@@ -33,167 +33,563 @@ statement from your version.
 */
 package net.sourceforge.jnlp.services;
 
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+
 import javax.jnlp.JNLPRandomAccessFile;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-
-public class XJNLPRandomAccessFile implements JNLPRandomAccessFile {
-
-    private RandomAccessFile raf;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link JNLPRandomAccessFile} which reads and writes a page of the file at a time instead of
+ * every single byte.
+ * <p>
+ * Reads fill a page sized buffer and writes are collected in it until a read or write outside of
+ * the buffered page, {@link #length()}, {@link #setLength(long)} or {@link #close()}. Files opened in
+ * mode {@code "rws"} or {@code "rwd"} write through on every write. Pending writes of files which are
+ * not closed are written when the virtual machine exits.
+ * </p>
+ * <p>
+ * Files opened for reading only which are not larger than the map threshold are memory mapped
+ * instead. The file must not be truncated by someone else while it is mapped.
+ * </p>
+ * <p>
+ * The methods behave exactly like those of {@link RandomAccessFile}, including the file pointer
+ * after reaching the end of the file. Changes made to the file through another handle are only seen
+ * once the buffered page is read again.
+ * </p>
+ */
+public class XJNLPRandomAccessFile implements JNLPRandomAccessFile, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(XJNLPRandomAccessFile.class);
+
+    static final int PAGE_SIZE = 8192;
+
+    /**
+     * files with writes which have not been written to the file yet
+     */
+    private static final Set<XJNLPRandomAccessFile> PENDING = ConcurrentHashMap.newKeySet();
+
+    static {
+        AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+            Runtime.getRuntime().addShutdownHook(new Thread(XJNLPRandomAccessFile::flushPending, "random-access-file-flusher"));
+            return null;
+        });
+    }
+
+    private final RandomAccessFile raf;
+    private final boolean readOnly;
+    private final boolean writeThrough;
+
+    private ByteBuffer buffer;
+    private boolean mapped;
+    /**
+     * position of the first byte of the buffer in the file
+     */
+    private long bufferStart;
+    /**
+     * number of valid bytes in the buffer
+     */
+    private int bufferLength;
+    private int dirtyStart = PAGE_SIZE;
+    private int dirtyEnd;
+    private long position;
+    private boolean closed;
 
     public XJNLPRandomAccessFile(File file, String mode) throws IOException {
-        raf = new RandomAccessFile(file, mode);
-
-    }
-
-    public void close() throws IOException {
-        raf.close();
-    }
-
-    public long getFilePointer() throws IOException {
-        return raf.getFilePointer();
-    }
-
-    public long length() throws IOException {
-        return raf.length();
-    }
-
-    public int read() throws IOException {
-        return raf.read();
-    }
-
-    public int read(byte[] b, int off, int len) throws IOException {
-        return raf.read(b, off, len);
-    }
-
-    public int read(byte[] b) throws IOException {
-        return raf.read(b);
-    }
-
-    public boolean readBoolean() throws IOException {
-        return raf.readBoolean();
-    }
-
-    public byte readByte() throws IOException {
-        return raf.readByte();
-    }
-
-    public char readChar() throws IOException {
-        return raf.readChar();
-    }
-
-    public double readDouble() throws IOException {
-        return raf.readDouble();
-    }
-
-    public float readFloat() throws IOException {
-        return raf.readFloat();
-    }
-
-    public void readFully(byte[] b) throws IOException {
-        raf.readFully(b);
-    }
-
-    public void readFully(byte[] b, int off, int len) throws IOException {
-        raf.readFully(b, off, len);
+        this(file, mode, 0);
     }
 
-    public int readInt() throws IOException {
-        return raf.readInt();
-    }
-
-    public String readLine() throws IOException {
-        return raf.readLine();
-    }
-
-    public long readLong() throws IOException {
-        return raf.readLong();
-    }
-
-    public short readShort() throws IOException {
-        return raf.readShort();
-    }
-
-    public String readUTF() throws IOException {
-        return raf.readUTF();
-    }
-
-    public int readUnsignedByte() throws IOException {
-        return raf.readUnsignedByte();
-    }
-
-    public int readUnsignedShort() throws IOException {
-        return raf.readUnsignedShort();
-    }
-
-    public void seek(long pos) throws IOException {
-        raf.seek(pos);
-    }
-
-    public void setLength(long newLength) throws IOException {
+    /**
+     * @param file         the file
+     * @param mode         the access mode as for {@link RandomAccessFile}
+     * @param mapThreshold files opened for reading only which are not larger than this many bytes are
+     *                     memory mapped, {@code 0} to never map
+     * @throws IOException if the file cannot be opened
+     */
+    XJNLPRandomAccessFile(File file, String mode, long mapThreshold) throws IOException {
+        raf = new RandomAccessFile(file, mode);
+        readOnly = "r".equals(mode);
+        writeThrough = "rws".equals(mode) || "rwd".equals(mode);
+
+        if (readOnly && mapThreshold > 0) {
+            try {
+                final long length = raf.length();
+                if (length > 0 && length <= mapThreshold) {
+                    buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+                    bufferLength = (int) length;
+                    mapped = true;
+                }
+            } catch (IOException e) {
+                LOG.debug("Could not map {}: {}", file, e.getMessage());
+            }
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(PAGE_SIZE);
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            PENDING.remove(this);
+            raf.close();
+        }
+    }
+
+    public synchronized long getFilePointer() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    public synchronized long length() throws IOException {
+        ensureOpen();
+        final long length = raf.length();
+        return dirtyEnd > dirtyStart ? Math.max(length, bufferStart + dirtyEnd) : length;
+    }
+
+    public synchronized int read() throws IOException {
+        if (!ensureAvailable(1)) {
+            return -1;
+        }
+        final int b = buffer.get(offset()) & 0xff;
+        position++;
+        return b;
+    }
+
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int total = 0;
+        while (total < len) {
+            if (available() == 0 && len - total >= PAGE_SIZE && !mapped) {
+                // large reads go straight to the caller
+                flush();
+                raf.seek(position);
+                final int count = raf.read(b, off + total, len - total);
+                if (count <= 0) {
+                    break;
+                }
+                position += count;
+                total += count;
+                continue;
+            }
+            if (!ensureAvailable(1)) {
+                break;
+            }
+            final int count = Math.min(available(), len - total);
+            buffer.position(offset());
+            buffer.get(b, off + total, count);
+            position += count;
+            total += count;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    public synchronized int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    public synchronized boolean readBoolean() throws IOException {
+        final int ch = read();
+        if (ch < 0) {
+            throw new EOFException();
+        }
+        return ch != 0;
+    }
+
+    public synchronized byte readByte() throws IOException {
+        final int ch = read();
+        if (ch < 0) {
+            throw new EOFException();
+        }
+        return (byte) ch;
+    }
+
+    public synchronized char readChar() throws IOException {
+        if (ensureAvailable(Character.BYTES)) {
+            final char v = buffer.getChar(offset());
+            position += Character.BYTES;
+            return v;
+        }
+        final int ch1 = read();
+        final int ch2 = read();
+        if ((ch1 | ch2) < 0) {
+            throw new EOFException();
+        }
+        return (char) ((ch1 << 8) + ch2);
+    }
+
+    public synchronized double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public synchronized float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public synchronized void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    public synchronized void readFully(byte[] b, int off, int len) throws IOException {
+        int n = 0;
+        do {
+            final int count = read(b, off + n, len - n);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            n += count;
+        } while (n < len);
+    }
+
+    public synchronized int readInt() throws IOException {
+        if (ensureAvailable(Integer.BYTES)) {
+            final int v = buffer.getInt(offset());
+            position += Integer.BYTES;
+            return v;
+        }
+        final int ch1 = read();
+        final int ch2 = read();
+        final int ch3 = read();
+        final int ch4 = read();
+        if ((ch1 | ch2 | ch3 | ch4) < 0) {
+            throw new EOFException();
+        }
+        return (ch1 << 24) + (ch2 << 16) + (ch3 << 8) + ch4;
+    }
+
+    public synchronized String readLine() throws IOException {
+        final StringBuilder input = new StringBuilder();
+        int c = -1;
+        boolean eol = false;
+
+        while (!eol) {
+            switch (c = read()) {
+                case -1:
+                case '\n':
+                    eol = true;
+                    break;
+                case '\r':
+                    eol = true;
+                    final long cur = getFilePointer();
+                    if ((read()) != '\n') {
+                        seek(cur);
+                    }
+                    break;
+                default:
+                    input.append((char) c);
+                    break;
+            }
+        }
+
+        if ((c == -1) && (input.length() == 0)) {
+            return null;
+        }
+        return input.toString();
+    }
+
+    public synchronized long readLong() throws IOException {
+        if (ensureAvailable(Long.BYTES)) {
+            final long v = buffer.getLong(offset());
+            position += Long.BYTES;
+            return v;
+        }
+        return ((long) (readInt()) << 32) + (readInt() & 0xFFFFFFFFL);
+    }
+
+    public synchronized short readShort() throws IOException {
+        if (ensureAvailable(Short.BYTES)) {
+            final short v = buffer.getShort(offset());
+            position += Short.BYTES;
+            return v;
+        }
+        final int ch1 = read();
+        final int ch2 = read();
+        if ((ch1 | ch2) < 0) {
+            throw new EOFException();
+        }
+        return (short) ((ch1 << 8) + ch2);
+    }
+
+    public synchronized String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    public synchronized int readUnsignedByte() throws IOException {
+        final int ch = read();
+        if (ch < 0) {
+            throw new EOFException();
+        }
+        return ch;
+    }
+
+    public synchronized int readUnsignedShort() throws IOException {
+        return readShort() & 0xffff;
+    }
+
+    public synchronized void seek(long pos) throws IOException {
+        ensureOpen();
+        if (pos < 0) {
+            throw new IOException("Negative seek offset");
+        }
+        position = pos;
+    }
+
+    public synchronized void setLength(long newLength) throws IOException {
+        ensureWritable();
+        flush();
+        bufferLength = 0;
         raf.setLength(newLength);
+        if (position > newLength) {
+            position = newLength;
+        }
     }
 
-    public int skipBytes(int n) throws IOException {
-        return raf.skipBytes(n);
-    }
-
-    public void write(int b) throws IOException {
-        raf.write(b);
-
-    }
-
-    public void write(byte[] b) throws IOException {
-        raf.write(b);
-    }
+    public synchronized int skipBytes(int n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        final long pos = getFilePointer();
+        final long len = length();
+        long newpos = pos + n;
+        if (newpos > len) {
+            newpos = len;
+        }
+        seek(newpos);
 
-    public void write(byte[] b, int off, int len) throws IOException {
-        raf.write(b, off, len);
+        // return the actual number of bytes skipped
+        return (int) (newpos - pos);
     }
 
-    public void writeBoolean(boolean v) throws IOException {
-        raf.writeBoolean(v);
+    public synchronized void write(int b) throws IOException {
+        prepareWrite(1);
+        buffer.put(offset(), (byte) b);
+        written(1);
     }
 
-    public void writeByte(int v) throws IOException {
-        raf.writeByte(v);
+    public synchronized void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
     }
 
-    public void writeBytes(String s) throws IOException {
-        raf.writeBytes(s);
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        ensureWritable();
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len >= PAGE_SIZE) {
+            // large writes go straight to the file
+            flush();
+            bufferLength = 0;
+            raf.seek(position);
+            raf.write(b, off, len);
+            position += len;
+            return;
+        }
+        prepareWrite(len);
+        buffer.position(offset());
+        buffer.put(b, off, len);
+        written(len);
     }
 
-    public void writeChar(int v) throws IOException {
-        raf.writeChar(v);
+    public synchronized void writeBoolean(boolean v) throws IOException {
+        write(v ? 1 : 0);
     }
 
-    public void writeChars(String s) throws IOException {
-        raf.writeChars(s);
+    public synchronized void writeByte(int v) throws IOException {
+        write(v);
     }
 
-    public void writeDouble(double v) throws IOException {
-        raf.writeDouble(v);
+    public synchronized void writeBytes(String s) throws IOException {
+        final byte[] b = new byte[s.length()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) s.charAt(i);
+        }
+        write(b, 0, b.length);
     }
 
-    public void writeFloat(float v) throws IOException {
-        raf.writeFloat(v);
+    public synchronized void writeChar(int v) throws IOException {
+        prepareWrite(Character.BYTES);
+        buffer.putChar(offset(), (char) v);
+        written(Character.BYTES);
     }
 
-    public void writeInt(int v) throws IOException {
-        raf.writeInt(v);
+    public synchronized void writeChars(String s) throws IOException {
+        final byte[] b = new byte[s.length() * Character.BYTES];
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            b[2 * i] = (byte) (c >>> 8);
+            b[2 * i + 1] = (byte) c;
+        }
+        write(b, 0, b.length);
+    }
+
+    public synchronized void writeDouble(double v) throws IOException {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    public synchronized void writeFloat(float v) throws IOException {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    public synchronized void writeInt(int v) throws IOException {
+        prepareWrite(Integer.BYTES);
+        buffer.putInt(offset(), v);
+        written(Integer.BYTES);
+    }
+
+    public synchronized void writeLong(long v) throws IOException {
+        prepareWrite(Long.BYTES);
+        buffer.putLong(offset(), v);
+        written(Long.BYTES);
+    }
+
+    public synchronized void writeShort(int v) throws IOException {
+        prepareWrite(Short.BYTES);
+        buffer.putShort(offset(), (short) v);
+        written(Short.BYTES);
+    }
+
+    public synchronized void writeUTF(String str) throws IOException {
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream(str.length() + 2);
+        new DataOutputStream(encoded).writeUTF(str);
+        write(encoded.toByteArray());
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream Closed");
+        }
+    }
+
+    private void ensureWritable() throws IOException {
+        ensureOpen();
+        if (readOnly) {
+            throw new IOException("File is opened for reading only");
+        }
+    }
+
+    /**
+     * @return the position of the file pointer in the buffer, only valid if the buffer contains it
+     */
+    private int offset() {
+        return (int) (position - bufferStart);
+    }
+
+    /**
+     * @return the number of bytes which can be read from the buffer at the file pointer
+     */
+    private int available() {
+        final long offset = position - bufferStart;
+        return offset >= 0 && offset < bufferLength ? bufferLength - (int) offset : 0;
+    }
+
+    /**
+     * Reads the page containing the file pointer into the buffer unless the buffer already contains
+     * the requested number of bytes at the file pointer.
+     *
+     * @param count the number of bytes, at most {@link #PAGE_SIZE}
+     * @return {@code true} if the buffer contains the bytes, {@code false} if the end of the file
+     * is reached before
+     */
+    private boolean ensureAvailable(final int count) throws IOException {
+        ensureOpen();
+        if (available() >= count) {
+            return true;
+        }
+        flush();
+        if (mapped) {
+            // the file grew after it was mapped
+            buffer = ByteBuffer.allocate(PAGE_SIZE);
+            mapped = false;
+        }
+        final long pageStart = position - position % PAGE_SIZE;
+        bufferStart = position - pageStart <= PAGE_SIZE - count ? pageStart : position;
+        bufferLength = 0;
+        raf.seek(bufferStart);
+        final int read = raf.read(buffer.array(), 0, PAGE_SIZE);
+        bufferLength = Math.max(read, 0);
+        return available() >= count;
+    }
+
+    /**
+     * Makes sure the bytes can be written to the buffer at the file pointer.
+     *
+     * @param count the number of bytes, at most {@link #PAGE_SIZE}
+     */
+    private void prepareWrite(final int count) throws IOException {
+        ensureWritable();
+        final long offset = position - bufferStart;
+        if (offset < 0 || offset > bufferLength || offset + count > PAGE_SIZE) {
+            // the buffer must stay contiguous, so start a new one at the file pointer
+            flush();
+            bufferStart = position;
+            bufferLength = 0;
+        }
+    }
+
+    /**
+     * Updates the state after the bytes have been put into the buffer at the file pointer.
+     */
+    private void written(final int count) throws IOException {
+        final int offset = offset();
+        if (!writeThrough && dirtyEnd <= dirtyStart) {
+            PENDING.add(this);
+        }
+        dirtyStart = Math.min(dirtyStart, offset);
+        dirtyEnd = Math.max(dirtyEnd, offset + count);
+        bufferLength = Math.max(bufferLength, offset + count);
+        position += count;
+        if (writeThrough) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the pending writes to the file.
+     */
+    private void flush() throws IOException {
+        if (dirtyEnd > dirtyStart) {
+            raf.seek(bufferStart + dirtyStart);
+            raf.write(buffer.array(), dirtyStart, dirtyEnd - dirtyStart);
+            dirtyStart = PAGE_SIZE;
+            dirtyEnd = 0;
+            PENDING.remove(this);
+        }
+    }
+
+    private static void flushPending() {
+        for (XJNLPRandomAccessFile file : PENDING) {
+            synchronized (file) {
+                try {
+                    file.flush();
+                } catch (IOException e) {
+                    LOG.error("Could not write pending changes", e);
+                }
+            }
+        }
     }
-
-    public void writeLong(long v) throws IOException {
-        raf.writeLong(v);
-    }
-
-    public void writeShort(int v) throws IOException {
-        raf.writeShort(v);
-    }
-
-    public void writeUTF(String str) throws IOException {
-        raf.writeUTF(str);
-    }
-
 }
@@ -139,7 +139,7 @@ class XPersistenceService implements PersistenceService {
         FileUtils.createParentDir(file, "Persistence store for "
                 + location.toString());
 
-        return (FileContents) ServiceUtil.createPrivilegedProxy(FileContents.class, new XFileContents(file));
+        return PrivilegedServices.fileContents(new XFileContents(file));
     }
 
     /**
@@ -23,15 +23,10 @@ import net.sourceforge.jnlp.runtime.JNLPRuntime;
 
 import javax.jnlp.SingleInstanceListener;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.UnknownHostException;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class implements SingleInstanceService
@@ -42,46 +37,11 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
 
     private static final Logger LOG = LoggerFactory.getLogger(XSingleInstanceService.class);
 
-    private final List<SingleInstanceListener> listeners = new LinkedList<>();
+    // notified on the thread of the server while the application may add or remove listeners
+    private final List<SingleInstanceListener> listeners = new CopyOnWriteArrayList<>();
 
     boolean initialized = false;
 
-    /**
-     * Implements a server that listens for arguments from new instances of this
-     * application
-     */
-    private class SingleInstanceServer implements Runnable {
-
-        private final SingleInstanceLock lockFile;
-
-        public SingleInstanceServer(SingleInstanceLock lockFile) {
-            this.lockFile = lockFile;
-        }
-
-        public void run() {
-            try (final ServerSocket listeningSocket = new ServerSocket(0)) {
-                lockFile.createWithPort(listeningSocket.getLocalPort());
-
-                LOG.debug("Starting SingleInstanceServer on port {}", listeningSocket);
-
-                while (true) {
-                    try {
-                        final Socket communicationSocket = listeningSocket.accept();
-                        ObjectInputStream ois = new ObjectInputStream(communicationSocket
-                                .getInputStream());
-                        String[] arguments = (String[]) ois.readObject();
-                        notifySingleInstanceListeners(arguments);
-                    } catch (Exception exception) {
-                        // not much to do here...
-                        LOG.error("Exception in SingleInstanceServer", exception);
-                    }
-                }
-            } catch (IOException e) {
-                LOG.error("Failed to create SingleInstanceServer", e);
-            }
-        }
-    }
-
     /**
      * Create a new XSingleInstanceService
      */
@@ -119,10 +79,8 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
     @Override
     public void checkSingleInstanceRunning(JNLPFile jnlpFile) {
         final SingleInstanceLock lockFile = new SingleInstanceLock(jnlpFile);
-        if (lockFile.isValid()) {
-            final int port = lockFile.getPort();
-            LOG.debug("Lock file is valid (port={}). Exiting.", port);
-
+        final int port = lockFile.getPort();
+        if (port != SingleInstanceLock.INVALID_PORT) {
             String[] args = null;
             if (jnlpFile.isApplet()) {
                 // FIXME Proprietary plug-in is unclear about how to handle
@@ -142,12 +100,18 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
                 args = jnlpFile.getApplication().getArguments();
             }
 
+            // connecting directly tells a running instance apart from a stale lock file
+            final boolean sent;
             try {
-                sendProgramArgumentsToExistingApplication(port, args);
-                throw new InstanceExistsException(String.valueOf(port));
+                sent = SingleInstanceServer.send(port, args);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
+            if (sent) {
+                LOG.debug("Lock file is valid (port={}). Exiting.", port);
+                throw new InstanceExistsException(String.valueOf(port));
+            }
+            LOG.debug("Lock file is stale (port={}).", port);
         }
     }
 
@@ -158,30 +122,16 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
      * @param lockFile the {@link SingleInstanceLock} that the server should use
      */
     private void startListeningServer(SingleInstanceLock lockFile) {
-        final Thread serverThread = new Thread(new SingleInstanceServer(lockFile));
-        /*
-         * mark as daemon so the JVM can shutdown if the server is the only
-         * thread running
-         */
-        serverThread.setDaemon(true);
-        serverThread.start();
-    }
-
-    /**
-     * Send the arguments for this application to the main instance
-     *
-     * @param port      the port at which the SingleInstanceServer is listening at
-     * @param arguments the new arguments
-     * @throws IOException on any io exception
-     */
-    private void sendProgramArgumentsToExistingApplication(int port, String[] arguments) throws IOException {
-        try (final Socket serverCommunicationSocket = new Socket((String) null, port)) {
-            try (final ObjectOutputStream argumentStream = new ObjectOutputStream(serverCommunicationSocket.getOutputStream())) {
-                argumentStream.writeObject(arguments);
+        try {
+            final SingleInstanceServer server = SingleInstanceServer.start(this::notifySingleInstanceListeners);
+            try {
+                lockFile.createWithPort(server.getPort());
+            } catch (IOException e) {
+                server.close();
+                throw e;
             }
-        } catch (UnknownHostException unknownHost) {
-            LOG.error("Unable to find localhost");
-            throw new RuntimeException(unknownHost);
+        } catch (IOException e) {
+            LOG.error("Failed to create SingleInstanceServer", e);
         }
     }
 
@@ -29,6 +29,8 @@ import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
+import net.adoptopenjdk.icedteaweb.trace.LaunchTrace;
+import net.adoptopenjdk.icedteaweb.trace.TraceSpan;
 import net.sourceforge.jnlp.JNLPFile;
 import net.sourceforge.jnlp.LaunchException;
 import net.sourceforge.jnlp.runtime.classloader.SecurityDelegate;
@@ -247,7 +249,11 @@ public class JarCertVerifier implements CertVerifier {
                 continue;
             }
 
-            final VerifyResult result = verifyJar(jarPath);
+            final VerifyResult result;
+            try (TraceSpan span = LaunchTrace.span("verification", "verifyJar").withResource(jar.getLocation())) {
+                result = verifyJar(jarPath);
+                span.withBytes(jarFile.length()).withDetail("result", result);
+            }
             if (result == VerifyResult.UNSIGNED) {
                 unverifiedJars.add(jarPath);
             } else if (result == VerifyResult.SIGNED_NOT_OK) {
@@ -600,6 +606,19 @@ public class JarCertVerifier implements CertVerifier {
         }
     }
 
+    /**
+     * Returns if the given jar has been verified and found to be unsigned.
+     *
+     * @param jar     the jar to check
+     * @param tracker Resource tracker used to obtain the jar from cache
+     * @return True if the jar has no signature, false if it is signed or has not been verified
+     * @throws IOException if the path of the cached jar cannot be resolved
+     */
+    public boolean isUnsigned(final JARDesc jar, final ResourceTracker tracker) throws IOException {
+        final File jarFile = tracker.getCacheFile(jar.getLocation());
+        return jarFile != null && unverifiedJars.contains(jarFile.getCanonicalFile().getAbsolutePath());
+    }
+
     /**
      * Returns if all jars are signed.
      *
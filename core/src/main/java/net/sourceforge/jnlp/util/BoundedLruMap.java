@@ -0,0 +1,29 @@
+package net.sourceforge.jnlp.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map which holds at most a fixed number of entries and drops the least recently accessed entry when it
+ * grows beyond that. The map is not synchronized.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class BoundedLruMap<K, V> extends LinkedHashMap<K, V> {
+
+    private final int maxSize;
+
+    /**
+     * @param maxSize the maximal number of entries
+     */
+    public BoundedLruMap(final int maxSize) {
+        super(16, 0.75f, true);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+        return size() > maxSize;
+    }
+}
@@ -17,14 +17,19 @@ package net.sourceforge.jnlp.util;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 public class ClasspathMatcher {
 
     public static class ClasspathMatchers {
 
+        static final int DEFAULT_MEMO_SIZE = 256;
+
         private final ArrayList<ClasspathMatcher> matchers;
         private final boolean includePath;
+        private final Map<String, Boolean> memo;
 
         ArrayList<ClasspathMatcher> getMatchers() {
             return matchers;
@@ -54,11 +59,33 @@ public class ClasspathMatcher {
         }
 
         public ClasspathMatchers(ArrayList<ClasspathMatcher> matchers, boolean includePath) {
+            this(matchers, includePath, DEFAULT_MEMO_SIZE);
+        }
+
+        /**
+         * @param memoSize the number of decisions to remember, {@code 0} to disable memoization
+         */
+        ClasspathMatchers(ArrayList<ClasspathMatcher> matchers, boolean includePath, int memoSize) {
             this.matchers = matchers;
             this.includePath = includePath;
+            this.memo = memoSize > 0 ? Collections.synchronizedMap(new BoundedLruMap<>(memoSize)) : null;
         }
 
         public boolean matches(URL s) {
+            if (memo == null) {
+                return matchesAny(s);
+            }
+            final String key = memoKey(s);
+            final Boolean memoized = memo.get(key);
+            if (memoized != null) {
+                return memoized;
+            }
+            final boolean result = matchesAny(s);
+            memo.put(key, result);
+            return result;
+        }
+
+        private boolean matchesAny(URL s) {
             for (ClasspathMatcher classpathMatcher : matchers) {
                 if (classpathMatcher.match(s, includePath)) {
                     return true;
@@ -67,6 +94,12 @@ public class ClasspathMatcher {
             return false;
         }
 
+        private String memoKey(URL s) {
+            // only the parts which are looked at by the matchers make up the key
+            final String key = s.getProtocol() + PROTOCOL_DELIMITER + s.getHost() + PORT_DELIMITER + s.getPort();
+            return includePath ? key + PATH_DELIMITER + s.getPath() : key;
+        }
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder();
@@ -88,10 +121,10 @@ public class ClasspathMatcher {
         String domain;
         String port;
         String path;
-        Pattern protocolRegEx;
-        Pattern domainRegEx;
-        Pattern portRegEx;
-        Pattern pathRegEx;
+        WildcardPart protocolMatcher;
+        WildcardPart domainMatcher;
+        WildcardPart portMatcher;
+        WildcardPart pathMatcher;
 
         @Override
         public String toString() {
@@ -99,50 +132,145 @@ public class ClasspathMatcher {
         }
 
         public void compilePartsToPatterns() {
-            protocolRegEx = ClasspathMatcher.sourceToRegEx(protocol);
+            protocolMatcher = WildcardPart.compile(protocol);
             //the http://docs.oracle.com/javase/7/docs/technotes/guides/jweb/manifest.html#codebase
             //clearly says: *.example.com  matches  both
             //https://example.com, http://example.com
             //it sounds like bug, but well, who am I...
-            domainRegEx = domainToRegEx(domain);
-            portRegEx = ClasspathMatcher.sourceToRegEx(port);
-            pathRegEx = ClasspathMatcher.sourceToRegEx(path);
+            domainMatcher = compileDomain(domain);
+            portMatcher = WildcardPart.compile(port);
+            pathMatcher = WildcardPart.compile(path);
         }
 
         private boolean matchDomain(String source) {
-            return generalMatch(source, domainRegEx);
+            return domainMatcher.matches(source);
         }
 
         private boolean matchProtocol(String source) {
-            return generalMatch(source, protocolRegEx);
+            return protocolMatcher.matches(source);
         }
 
         private boolean matchPath(String source) {
             if (source.startsWith(PATH_DELIMITER)) {
                 source = source.substring(1);
             }
-            return generalMatch(source, pathRegEx);
+            return pathMatcher.matches(source);
         }
 
         private boolean matchPort(int port) {
-            return generalMatch(Integer.toString(port), portRegEx);
-        }
-
-        private static boolean generalMatch(String input, Pattern pattern) {
-            return pattern.matcher(input).matches();
+            return portMatcher.matches(Integer.toString(port));
         }
 
-        private static Pattern domainToRegEx(String domain) {
-            String pre = "";
-            String post = "";
+        private static WildcardPart compileDomain(String domain) {
             if (domain.startsWith("*.")) {
                 //this is handling case, when *.abc.xy
                 //should match also abc.xy except whatever.abc.xz
                 //but NOT whatewerabc.xy
-                pre = "(" + convertWildcardToRegEx(domain.substring(2)) + ")|(";
-                post = ")";
+                return WildcardPart.either(WildcardPart.compileWildcard(domain.substring(2)), WildcardPart.compile(domain));
+            }
+            return WildcardPart.compile(domain);
+        }
+    }
+
+    /**
+     * One part of a matcher source compiled to a literal comparison.
+     * <p>
+     * A wildcard can only stand at the start and/or the end of a part, so every part is either
+     * anything, an exact value, a prefix, a suffix or an infix. The result is the same as matching
+     * the regular expression of {@link #sourceToRegExString(String)}. As {@code .} of a regular
+     * expression does not match line terminators, input containing one is matched by the
+     * regular expression, which is only compiled when it is needed.
+     * </p>
+     */
+    static final class WildcardPart {
+
+        private enum Kind {ANY, EXACT, PREFIX, SUFFIX, INFIX}
+
+        private final Kind kind;
+        private final String literal;
+        private final String regEx;
+        private final WildcardPart alternative;
+        private volatile Pattern pattern;
+
+        private WildcardPart(Kind kind, String literal, String regEx, WildcardPart alternative) {
+            this.kind = kind;
+            this.literal = literal;
+            this.regEx = regEx;
+            this.alternative = alternative;
+        }
+
+        /**
+         * Same as {@link #sourceToRegEx(String)}.
+         */
+        static WildcardPart compile(String s) {
+            if (s.equals("*")) {
+                return new WildcardPart(Kind.ANY, "", sourceToRegExString(s), null);
             }
-            return Pattern.compile(pre + ClasspathMatcher.sourceToRegExString(domain) + post);
+            return compileWildcard(s);
+        }
+
+        /**
+         * Same as {@link #convertWildcardToRegEx(String)}.
+         */
+        static WildcardPart compileWildcard(String s) {
+            final String regEx = convertWildcardToRegEx(s);
+            if (s.startsWith("*") && s.endsWith("*")) {
+                return new WildcardPart(Kind.INFIX, s.substring(1, s.length() - 1), regEx, null);
+            } else if (s.endsWith("*")) {
+                return new WildcardPart(Kind.PREFIX, s.substring(0, s.length() - 1), regEx, null);
+            } else if (s.startsWith("*")) {
+                return new WildcardPart(Kind.SUFFIX, s.substring(1), regEx, null);
+            } else {
+                return new WildcardPart(Kind.EXACT, s, regEx, null);
+            }
+        }
+
+        /**
+         * @return a part which matches if one of the given parts matches
+         */
+        static WildcardPart either(WildcardPart first, WildcardPart second) {
+            return new WildcardPart(first.kind, first.literal, first.regEx, second);
+        }
+
+        boolean matches(String input) {
+            return matchesThis(input) || (alternative != null && alternative.matches(input));
+        }
+
+        private boolean matchesThis(String input) {
+            if (kind != Kind.EXACT && hasLineTerminator(input)) {
+                return getPattern().matcher(input).matches();
+            }
+            switch (kind) {
+                case ANY:
+                    return true;
+                case PREFIX:
+                    return input.startsWith(literal);
+                case SUFFIX:
+                    return input.endsWith(literal);
+                case INFIX:
+                    return input.contains(literal);
+                default:
+                    return input.equals(literal);
+            }
+        }
+
+        private Pattern getPattern() {
+            Pattern result = pattern;
+            if (result == null) {
+                result = Pattern.compile(regEx);
+                pattern = result;
+            }
+            return result;
+        }
+
+        private static boolean hasLineTerminator(String input) {
+            for (int i = 0; i < input.length(); i++) {
+                final char c = input.charAt(i);
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
@@ -0,0 +1,116 @@
+package net.sourceforge.jnlp.util.whitelist;
+
+import net.adoptopenjdk.icedteaweb.Assert;
+import net.sourceforge.jnlp.util.BoundedLruMap;
+import net.sourceforge.jnlp.util.IpUtil;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A whitelist compiled for fast lookups.
+ * <p>
+ * The valid entries are partitioned by protocol and port. Each partition holds a {@link WhitelistHostTrie}
+ * of the whitelisted hosts. A check looks at most at two partitions, the one for the port of the URL and
+ * the one for the wildcard port. The decisions for recently checked URLs are memoized.
+ * <p>
+ * The result of a check is the same as checking the URL against every entry with {@link WhitelistEntry#matches(URL)}.
+ */
+class CompiledWhitelist {
+
+    static final int DEFAULT_MEMO_SIZE = 512;
+
+    private final boolean empty;
+    private final Map<String, WhitelistHostTrie> partitions;
+    private final List<WhitelistEntry> uncompiledEntries;
+    private final Map<String, Boolean> memo;
+
+    private CompiledWhitelist(final boolean empty, final Map<String, WhitelistHostTrie> partitions, final List<WhitelistEntry> uncompiledEntries, final int memoSize) {
+        this.empty = empty;
+        this.partitions = partitions;
+        this.uncompiledEntries = uncompiledEntries;
+        this.memo = memoSize > 0 ? Collections.synchronizedMap(new BoundedLruMap<>(memoSize)) : null;
+    }
+
+    static CompiledWhitelist compile(final List<WhitelistEntry> entries) {
+        return compile(entries, DEFAULT_MEMO_SIZE);
+    }
+
+    /**
+     * @param entries  the entries of the whitelist
+     * @param memoSize the number of decisions to remember, {@code 0} to disable memoization
+     */
+    static CompiledWhitelist compile(final List<WhitelistEntry> entries, final int memoSize) {
+        Assert.requireNonNull(entries, "entries");
+
+        final Map<String, WhitelistHostTrie> partitions = new HashMap<>();
+        final List<WhitelistEntry> uncompiledEntries = new ArrayList<>();
+        for (WhitelistEntry entry : entries) {
+            if (entry instanceof ParsedWhitelistEntry) {
+                final ParsedWhitelistEntry parsed = (ParsedWhitelistEntry) entry;
+                if (parsed.isValid()) {
+                    final String key = partitionKey(parsed.getProtocol().effective(), parsed.getPort().effective());
+                    parsed.getHost().addTo(partitions.computeIfAbsent(key, k -> new WhitelistHostTrie()));
+                }
+            } else if (!(entry instanceof UnparsableWhitelistEntry)) {
+                uncompiledEntries.add(entry);
+            }
+        }
+        return new CompiledWhitelist(entries.isEmpty(), partitions, uncompiledEntries, memoSize);
+    }
+
+    /**
+     * Same as {@link UrlWhiteListUtils#isUrlInWhitelist(URL, List)} for the compiled entries.
+     * An empty whitelist allows all URLs and localhost need not be whitelisted.
+     */
+    boolean isUrlInWhitelist(final URL url) {
+        Assert.requireNonNull(url, "url");
+
+        if (empty) {
+            return true;
+        }
+        if (memo == null) {
+            return decide(url);
+        }
+
+        final String key = url.getProtocol() + "://" + url.getHost() + ":" + url.getPort();
+        final Boolean memoized = memo.get(key);
+        if (memoized != null) {
+            return memoized;
+        }
+        final boolean result = decide(url);
+        memo.put(key, result);
+        return result;
+    }
+
+    /**
+     * @return {@code true} if at least one entry matches the URL
+     */
+    boolean matches(final URL url) {
+        final String protocol = WhitelistHostTrie.fold(url.getProtocol());
+        final String host = url.getHost();
+
+        final WhitelistHostTrie exactPort = partitions.get(partitionKey(protocol, Integer.toString(WhitelistEntryPort.portOf(url))));
+        if (exactPort != null && exactPort.matches(host)) {
+            return true;
+        }
+        final WhitelistHostTrie anyPort = partitions.get(partitionKey(protocol, WhitelistEntryPort.WILDCARD));
+        if (anyPort != null && anyPort.matches(host)) {
+            return true;
+        }
+        return uncompiledEntries.stream().anyMatch(entry -> entry.matches(url));
+    }
+
+    private boolean decide(final URL url) {
+        // the whitelist is checked first as the localhost check may need to resolve the host
+        return matches(url) || IpUtil.isLocalhostOrLoopback(url);
+    }
+
+    private static String partitionKey(final String protocol, final String port) {
+        return protocol + ":" + port;
+    }
+}
@@ -57,6 +57,18 @@ class ParsedWhitelistEntry implements WhitelistEntry {
         return valid;
     }
 
+    WhitelistEntryProtocol getProtocol() {
+        return protocol;
+    }
+
+    WhitelistEntryHost getHost() {
+        return host;
+    }
+
+    WhitelistEntryPort getPort() {
+        return port;
+    }
+
     @Override
     public boolean matches(final URL url) {
         if (!isValid() || url == null) {
@@ -3,23 +3,20 @@ package net.sourceforge.jnlp.util.whitelist;
 import net.adoptopenjdk.icedteaweb.Assert;
 import net.adoptopenjdk.icedteaweb.StringUtils;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
-import net.sourceforge.jnlp.util.IpUtil;
 
 import java.net.URL;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_SECURITY_SERVER_WHITELIST;
-
 public class UrlWhiteListUtils {
 
-    private static List<WhitelistEntry> applicationUrlWhiteList;
+    /**
+     * the application whitelist of the configuration it was last compiled from
+     */
+    private static volatile ApplicationUrlWhiteList applicationUrlWhiteList;
 
     public static List<WhitelistEntry> getApplicationUrlWhiteList() {
-        if (applicationUrlWhiteList == null) {
-            applicationUrlWhiteList = loadWhitelistFromConfiguration(KEY_SECURITY_SERVER_WHITELIST);
-        }
-        return applicationUrlWhiteList;
+        return getCurrentApplicationUrlWhiteList().entries;
     }
 
     public static List<WhitelistEntry> loadWhitelistFromConfiguration(final String whitelistPropertyName) {
@@ -30,28 +27,53 @@ public class UrlWhiteListUtils {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The whitelist is parsed and compiled again only if the configured entries have changed,
+     * not whenever another property changes the configuration snapshot.
+     */
+    private static ApplicationUrlWhiteList getCurrentApplicationUrlWhiteList() {
+        final List<String> configured = JNLPRuntime.getConfiguration().getSnapshot().getServerWhitelist();
+        ApplicationUrlWhiteList current = applicationUrlWhiteList;
+        if (current == null || !current.configured.equals(configured)) {
+            current = new ApplicationUrlWhiteList(configured);
+            applicationUrlWhiteList = current;
+        }
+        return current;
+    }
+
+    /**
+     * Checks the URL against the application whitelist. The whitelist is compiled on first use and
+     * whenever the configuration changed, the decisions for recently checked URLs are remembered.
+     */
     public static boolean isUrlInApplicationUrlWhitelist(final URL url) {
-        return isUrlInWhitelist(url, getApplicationUrlWhiteList());
+        Assert.requireNonNull(url, "url");
+        return getCurrentApplicationUrlWhiteList().compiled.isUrlInWhitelist(url);
     }
 
     public static boolean isUrlInWhitelist(final URL url, final List<WhitelistEntry> whiteList) {
         Assert.requireNonNull(url, "url");
         Assert.requireNonNull(whiteList, "whiteList");
 
-        if (whiteList.isEmpty()) {
-            return true; // empty whitelist == allow all connections
-        }
-
-        // is it localhost or loopback
-        if (IpUtil.isLocalhostOrLoopback(url)) {
-            return true; // localhost need not be in whitelist
-        }
-
-        return whiteList.stream().anyMatch(wlEntry -> wlEntry.matches(url));
+        // empty whitelist == allow all connections, localhost need not be in whitelist
+        return CompiledWhitelist.compile(whiteList, 0).isUrlInWhitelist(url);
     }
 
     static WhitelistEntry parseEntry(final String wlUrlStr) {
         Assert.requireNonNull(wlUrlStr, "wlUrlStr");
         return WhitelistEntry.parse(wlUrlStr);
     }
+
+    private static class ApplicationUrlWhiteList {
+        private final List<String> configured;
+        private final List<WhitelistEntry> entries;
+        private final CompiledWhitelist compiled;
+
+        private ApplicationUrlWhiteList(final List<String> configured) {
+            this.configured = configured;
+            this.entries = configured.stream()
+                    .map(UrlWhiteListUtils::parseEntry)
+                    .collect(Collectors.toList());
+            this.compiled = CompiledWhitelist.compile(entries);
+        }
+    }
 }
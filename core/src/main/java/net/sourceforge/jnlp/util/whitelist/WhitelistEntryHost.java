@@ -53,6 +53,8 @@ abstract class WhitelistEntryHost extends WhitelistEntryPart {
         super(valid, effective, error);
     }
 
+    abstract void addTo(WhitelistHostTrie trie);
+
     /**
      * Exact host. Does not contain a wildcard.
      */
@@ -68,6 +70,11 @@ abstract class WhitelistEntryHost extends WhitelistEntryPart {
         public boolean matches(final URL url) {
             return host.equalsIgnoreCase(url.getHost());
         }
+
+        @Override
+        void addTo(final WhitelistHostTrie trie) {
+            trie.addHost(host);
+        }
     }
 
     /**
@@ -95,6 +102,11 @@ abstract class WhitelistEntryHost extends WhitelistEntryPart {
             final String postfix = fromUrl.substring(fromUrlLength - hostPostfixLength);
             return hostPostfix.equalsIgnoreCase(postfix);
         }
+
+        @Override
+        void addTo(final WhitelistHostTrie trie) {
+            trie.addSubdomainsOf(hostPostfix.substring(1));
+        }
     }
 
     /**
@@ -111,6 +123,11 @@ abstract class WhitelistEntryHost extends WhitelistEntryPart {
         public boolean matches(final URL url) {
             return true;
         }
+
+        @Override
+        void addTo(final WhitelistHostTrie trie) {
+            trie.addAnyHost();
+        }
     }
 
     /**
@@ -131,5 +148,10 @@ abstract class WhitelistEntryHost extends WhitelistEntryPart {
         public boolean matches(final URL url) {
             return false;
         }
+
+        @Override
+        void addTo(final WhitelistHostTrie trie) {
+            // never matches
+        }
     }
 }
@@ -10,7 +10,7 @@ import java.net.URL;
  */
 abstract class WhitelistEntryPort extends WhitelistEntryPart {
 
-    private static final String WILDCARD = "*";
+    static final String WILDCARD = "*";
 
     static WhitelistEntryPort parse(final String candidate, final WhitelistEntryProtocol protocol) {
         if (StringUtils.isBlank(candidate)) {
@@ -32,6 +32,17 @@ abstract class WhitelistEntryPort extends WhitelistEntryPart {
         super(valid, effective, error);
     }
 
+    /**
+     * @return the port of the URL or the default port of its protocol if none is given
+     */
+    static int portOf(final URL url) {
+        final int port = url.getPort();
+        if (port > 0) {
+            return port;
+        }
+        return url.getDefaultPort();
+    }
+
     /**
      * Exact port given.
      */
@@ -45,15 +56,7 @@ abstract class WhitelistEntryPort extends WhitelistEntryPart {
 
         @Override
         public boolean matches(final URL url) {
-            return port == getPort(url);
-        }
-
-        private int getPort(final URL url) {
-            final int port = url.getPort();
-            if (port > 0) {
-                return port;
-            }
-            return url.getDefaultPort();
+            return port == portOf(url);
         }
     }
 
@@ -0,0 +1,108 @@
+package net.sourceforge.jnlp.util.whitelist;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Trie of whitelisted hosts keyed by the labels of the host in reverse order.
+ * <p>
+ * {@code www.example.com} is stored as {@code com -> example -> www}. A wildcard entry like
+ * {@code *.example.com} marks the node {@code com -> example} as matching all its subdomains.
+ * A lookup therefore walks the labels of a host once instead of comparing it with every entry.
+ * <p>
+ * Hosts are compared ignoring case with the same rules as {@link String#equalsIgnoreCase(String)}.
+ */
+class WhitelistHostTrie {
+
+    private static final char SUBDOMAIN_SEPARATOR = '.';
+
+    private final Node root = new Node();
+
+    /**
+     * Adds a host which matches only itself.
+     */
+    void addHost(final String host) {
+        nodeFor(fold(host)).exactHost = true;
+    }
+
+    /**
+     * Adds a postfix like {@code example.com} which matches all hosts ending with {@code .example.com}.
+     */
+    void addSubdomainsOf(final String postfix) {
+        nodeFor(fold(postfix)).subdomains = true;
+    }
+
+    /**
+     * Adds the wildcard which matches every host.
+     */
+    void addAnyHost() {
+        root.anyHost = true;
+    }
+
+    boolean matches(final String host) {
+        if (root.anyHost) {
+            return true;
+        }
+
+        final String folded = fold(host);
+        Node node = root;
+        int end = folded.length();
+        while (true) {
+            final int separator = folded.lastIndexOf(SUBDOMAIN_SEPARATOR, end - 1);
+            node = node.children.get(folded.substring(separator + 1, end));
+            if (node == null) {
+                return false;
+            }
+            if (separator < 0) {
+                return node.exactHost;
+            }
+            // a wildcard requires at least one character in front of the separator
+            if (node.subdomains && separator > 0) {
+                return true;
+            }
+            end = separator;
+        }
+    }
+
+    private Node nodeFor(final String host) {
+        Node node = root;
+        int end = host.length();
+        while (true) {
+            final int separator = host.lastIndexOf(SUBDOMAIN_SEPARATOR, end - 1);
+            node = node.children.computeIfAbsent(host.substring(separator + 1, end), label -> new Node());
+            if (separator < 0) {
+                return node;
+            }
+            end = separator;
+        }
+    }
+
+    /**
+     * Folds the case of every character such that two strings are equal
+     * if and only if they are equal ignoring case.
+     */
+    static String fold(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c != foldChar(c)) {
+                final char[] chars = value.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    chars[j] = foldChar(chars[j]);
+                }
+                return new String(chars);
+            }
+        }
+        return value;
+    }
+
+    private static char foldChar(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean exactHost = false;
+        private boolean subdomains = false;
+        private boolean anyHost = false;
+    }
+}
@@ -0,0 +1,112 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+import net.sourceforge.jnlp.DownloadOptions;
+import org.junit.Test;
+
+import javax.jnlp.DownloadServiceListener;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class DownloadProgressAggregatorTest {
+
+    private final AtomicLong clock = new AtomicLong(0);
+
+    @Test
+    public void onlyChangedResourcesAreReported() throws Exception {
+        final Resource first = createResource("first.jar");
+        final Resource second = createResource("second.jar");
+        final RecordingListener listener = new RecordingListener();
+        final DownloadProgressAggregator aggregator = new DownloadProgressAggregator(new Resource[]{first, second}, listener, clock::get);
+
+        aggregator.publish();
+        assertEquals(2, listener.progressCalls.size());
+
+        first.setSize(1000);
+        first.setTransferred(10);
+        first.setTransferred(500);
+        aggregator.publish();
+        assertEquals(3, listener.progressCalls.size());
+        assertEquals("first.jar 500/1000 25%", listener.progressCalls.get(2));
+
+        aggregator.publish();
+        assertEquals(3, listener.progressCalls.size());
+    }
+
+    @Test
+    public void failedResourceIsReportedOnce() throws Exception {
+        final Resource resource = createResource("failed.jar");
+        final RecordingListener listener = new RecordingListener();
+        final DownloadProgressAggregator aggregator = new DownloadProgressAggregator(new Resource[]{resource}, listener, clock::get);
+
+        resource.setStatus(Resource.Status.ERROR);
+        aggregator.publish();
+        aggregator.publish();
+
+        assertEquals(1, listener.failedCalls);
+    }
+
+    @Test
+    public void rateAndEtaAreCalculated() throws Exception {
+        final Resource resource = createResource("rate.jar");
+        resource.setSize(10_000);
+        final RecordingListener listener = new RecordingListener();
+        final DownloadProgressAggregator aggregator = new DownloadProgressAggregator(new Resource[]{resource}, listener, clock::get);
+
+        clock.set(1000);
+        resource.setTransferred(1000);
+        final DownloadProgress progress = aggregator.publish();
+
+        assertEquals(1000, progress.getTransferred());
+        assertEquals(10_000, progress.getTotalSize());
+        assertEquals(10, progress.getOverallPercent());
+        assertEquals(1000, progress.getBytesPerSecond());
+        assertEquals(9000, progress.getEtaMillis());
+    }
+
+    @Test
+    public void etaIsUnknownIfSizeIsUnknown() throws Exception {
+        final Resource resource = createResource("unknown.jar");
+        final DownloadProgressAggregator aggregator = new DownloadProgressAggregator(new Resource[]{resource}, new RecordingListener(), clock::get);
+
+        clock.set(1000);
+        resource.setTransferred(1000);
+        final DownloadProgress progress = aggregator.publish();
+
+        assertEquals(DownloadProgress.UNKNOWN, progress.getTotalSize());
+        assertEquals(DownloadProgress.UNKNOWN, progress.getEtaMillis());
+    }
+
+    private static Resource createResource(final String name) throws MalformedURLException {
+        final URL url = new URL("http://example.com/" + DownloadProgressAggregatorTest.class.getSimpleName() + "/" + name);
+        return Resource.createResource(url, null, DownloadOptions.NONE, UpdatePolicy.ALWAYS);
+    }
+
+    private static class RecordingListener implements DownloadServiceListener {
+        private final List<String> progressCalls = new ArrayList<>();
+        private int failedCalls = 0;
+
+        @Override
+        public void progress(final URL url, final String version, final long readSoFar, final long total, final int overallPercent) {
+            final String path = url.getPath();
+            progressCalls.add(path.substring(path.lastIndexOf('/') + 1) + " " + readSoFar + "/" + total + " " + overallPercent + "%");
+        }
+
+        @Override
+        public void validating(final URL url, final String version, final long entry, final long total, final int overallPercent) {
+        }
+
+        @Override
+        public void upgradingArchive(final URL url, final String version, final int patchPercent, final int overallPercent) {
+        }
+
+        @Override
+        public void downloadFailed(final URL url, final String version) {
+            failedCalls++;
+        }
+    }
+}
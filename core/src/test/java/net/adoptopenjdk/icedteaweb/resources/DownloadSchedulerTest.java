@@ -0,0 +1,120 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+import net.sourceforge.jnlp.DownloadOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DownloadSchedulerTest {
+
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch blockerStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseBlocker = new CountDownLatch(1);
+
+    private DownloadScheduler scheduler;
+    private CountDownLatch done;
+
+    @Before
+    public void setUp() throws Exception {
+        scheduler = new DownloadScheduler(1);
+        // occupy the only thread so all further downloads are queued
+        scheduler.executorFor(resource("blocker"), DownloadPriority.REQUESTED).execute(() -> {
+            blockerStarted.countDown();
+            awaitQuietly(releaseBlocker);
+        });
+        assertTrue(blockerStarted.await(10, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        releaseBlocker.countDown();
+    }
+
+    @Test
+    public void queuedDownloadsRunInPriorityOrder() throws Exception {
+        done = new CountDownLatch(5);
+        schedule("eager", DownloadPriority.EAGER);
+        schedule("eagerMainPart", DownloadPriority.EAGER_MAIN_PART);
+        schedule("startup", DownloadPriority.STARTUP);
+        schedule("main", DownloadPriority.MAIN);
+        schedule("otherEager", DownloadPriority.EAGER);
+
+        releaseBlocker.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("main", "startup", "eagerMainPart", "eager", "otherEager"), order);
+    }
+
+    @Test
+    public void promotedDownloadRunsFirst() throws Exception {
+        done = new CountDownLatch(3);
+        schedule("first", DownloadPriority.EAGER);
+        schedule("second", DownloadPriority.EAGER);
+        final Resource requested = schedule("requested", DownloadPriority.EAGER);
+
+        scheduler.promote(requested, DownloadPriority.REQUESTED);
+        releaseBlocker.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("requested", "first", "second"), order);
+    }
+
+    @Test
+    public void downloadIsNeverDemoted() throws Exception {
+        done = new CountDownLatch(2);
+        schedule("eager", DownloadPriority.EAGER);
+        final Resource main = schedule("main", DownloadPriority.MAIN);
+
+        scheduler.promote(main, DownloadPriority.EAGER);
+        releaseBlocker.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("main", "eager"), order);
+    }
+
+    @Test
+    public void waitingThreadRunsQueuedDownload() throws Exception {
+        done = new CountDownLatch(1);
+        final Thread[] runner = new Thread[1];
+        final Resource resource = resource("waitedFor");
+        scheduler.executorFor(resource, DownloadPriority.EAGER).execute(() -> runner[0] = Thread.currentThread());
+
+        assertTrue(scheduler.runIfQueued(resource));
+        assertSame(Thread.currentThread(), runner[0]);
+        assertFalse(scheduler.runIfQueued(resource));
+    }
+
+    private Resource schedule(final String name, final DownloadPriority priority) throws Exception {
+        final Resource resource = resource(name);
+        scheduler.executorFor(resource, priority).execute(() -> {
+            order.add(name);
+            done.countDown();
+        });
+        return resource;
+    }
+
+    private static Resource resource(final String name) throws Exception {
+        return Resource.createResource(new URL("http://localhost/" + name + ".jar"), null, DownloadOptions.NONE, UpdatePolicy.ALWAYS);
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
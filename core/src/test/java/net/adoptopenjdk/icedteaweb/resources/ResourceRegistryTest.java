@@ -0,0 +1,72 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.sourceforge.jnlp.DownloadOptions;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ResourceRegistryTest {
+
+    private final ResourceRegistry registry = new ResourceRegistry();
+
+    @Test
+    public void sameLocationAndVersionReturnsSameResource() throws Exception {
+        final Resource first = getOrCreate("http://example.com/applet.jar", "1.0");
+        final Resource second = getOrCreate("http://example.com/applet.jar", "1.0");
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void protocolAndHostAreCaseInsensitive() throws Exception {
+        final Resource first = getOrCreate("http://example.com/applet.jar", "1.0");
+        final Resource second = getOrCreate("HTTP://EXAMPLE.com/applet.jar", "1.0");
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void pathIsCaseSensitive() throws Exception {
+        final Resource first = getOrCreate("http://example.com/applet.jar", "1.0");
+        final Resource second = getOrCreate("http://example.com/Applet.jar", "1.0");
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void defaultPortMatchesMissingPort() throws Exception {
+        final Resource first = getOrCreate("http://example.com/applet.jar", "1.0");
+        final Resource second = getOrCreate("http://example.com:80/applet.jar", "1.0");
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void differentPortReturnsDifferentResource() throws Exception {
+        final Resource first = getOrCreate("http://example.com/applet.jar", "1.0");
+        final Resource second = getOrCreate("http://example.com:8080/applet.jar", "1.0");
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void differentVersionReturnsDifferentResource() throws Exception {
+        final Resource first = getOrCreate("http://example.com/applet.jar", "1.0");
+        final Resource second = getOrCreate("http://example.com/applet.jar", "2.0");
+        final Resource third = getOrCreate("http://example.com/applet.jar", null);
+
+        assertNotSame(first, second);
+        assertNotSame(first, third);
+    }
+
+    private Resource getOrCreate(final String location, final String version) throws MalformedURLException {
+        final URL url = new URL(location);
+        final VersionString versionString = version != null ? VersionString.fromString(version) : null;
+        return registry.getOrCreate(url, versionString, () -> ResourceFactory.createResource(url, versionString, DownloadOptions.NONE, UpdatePolicy.ALWAYS));
+    }
+}
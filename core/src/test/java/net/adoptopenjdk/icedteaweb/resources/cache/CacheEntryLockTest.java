@@ -0,0 +1,283 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.InfrastructureFileDescriptor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CacheEntryLockTest {
+
+    private static final int APPS = 4;
+    private static final int JARS_PER_APP = 10;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File root;
+    private LeastRecentlyUsedCache cache;
+
+    @Before
+    public void setup() {
+        root = temporaryFolder.getRoot();
+        cache = createCache(root);
+    }
+
+    @Test
+    public void entryIsLockedForOtherThreadsOnly() throws Exception {
+        final File first = temporaryFolder.newFolder("0", "0");
+        final File second = temporaryFolder.newFolder("0", "1");
+
+        try (CacheEntryLock ignored = CacheEntryLock.lock(first)) {
+            try (CacheEntryLock reentered = CacheEntryLock.tryLock(first)) {
+                assertNotNull(reentered);
+            }
+            assertNull(CompletableFuture.supplyAsync(() -> tryLockAndRelease(first)).get(10, TimeUnit.SECONDS));
+            assertEquals(second, CompletableFuture.supplyAsync(() -> tryLockAndRelease(second)).get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(first, CompletableFuture.supplyAsync(() -> tryLockAndRelease(first)).get(10, TimeUnit.SECONDS));
+        assertFalse(CacheEntryLock.isUsedByThreads(first));
+        assertFalse(CacheEntryLock.isUsedByThreads(second));
+    }
+
+    @Test
+    public void creatingAnEntryDoesNotWaitForOtherEntries() throws Exception {
+        final File locked = temporaryFolder.newFolder("0", "0");
+
+        try (CacheEntryLock ignored = CacheEntryLock.lock(locked)) {
+            final File created = CompletableFuture.supplyAsync(() -> {
+                try (CacheEntryLock lock = CacheEntryLock.create(new File(root, "0/1"))) {
+                    return lock.getDirectory();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }).get(10, TimeUnit.SECONDS);
+            assertEquals(new File(root, "0/1").getAbsoluteFile(), created);
+        }
+    }
+
+    @Test
+    public void createdDirectoryIsLockedUntilReleased() throws Exception {
+        final File directory = new File(root, "0/0");
+
+        try (CacheEntryLock lock = CacheEntryLock.create(directory)) {
+            assertNotNull(lock);
+            assertTrue(directory.isDirectory());
+            assertNull(CompletableFuture.supplyAsync(() -> tryLockAndRelease(directory)).get(10, TimeUnit.SECONDS));
+        }
+        assertNull(CacheEntryLock.create(directory));
+        assertEquals(directory, CompletableFuture.supplyAsync(() -> tryLockAndRelease(directory)).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void directoryIsDeletedBeforeWaitingThreadsGetTheLock() throws Exception {
+        final File directory = temporaryFolder.newFolder("0", "0");
+
+        final CompletableFuture<File> waiting;
+        try (CacheEntryLock lock = CacheEntryLock.lock(directory)) {
+            waiting = CompletableFuture.supplyAsync(() -> lockAndRelease(directory));
+            final long timeout = System.currentTimeMillis() + 10_000;
+            while (!CacheEntryLock.hasQueuedThreads(directory) && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            lock.deleteDirectoryOnClose();
+        }
+
+        assertFalse(directory.exists());
+        assertNull(waiting.get(10, TimeUnit.SECONDS));
+        assertFalse(CacheEntryLock.isUsedByThreads(directory));
+    }
+
+    @Test
+    public void launchesOfDifferentAppsDoNotBlockEachOther() throws Exception {
+        final CountDownLatch downloadStarted = new CountDownLatch(1);
+        final CountDownLatch releaseDownload = new CountDownLatch(1);
+        final URL slowJar = new URL("http://localhost/slow/slow.jar");
+        final CompletableFuture<File> slowDownload = CompletableFuture.supplyAsync(() -> {
+            try {
+                return cache.addToCache(new DownloadInfo(slowJar, null, 1), new BlockingInputStream(downloadStarted, releaseDownload));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(downloadStarted.await(10, TimeUnit.SECONDS));
+
+        // all launches complete while the download of the slow jar holds the lock of its entry
+        final List<Process> launches = new ArrayList<>();
+        for (int i = 0; i < APPS; i++) {
+            launches.add(launch("app" + i, JARS_PER_APP));
+        }
+        for (int i = 0; i < APPS; i++) {
+            assertCompleted(launches.get(i), "app" + i);
+        }
+        assertFalse(slowDownload.isDone());
+
+        releaseDownload.countDown();
+        slowDownload.get(10, TimeUnit.SECONDS);
+
+        final LeastRecentlyUsedCache reloaded = createCache(root);
+        assertTrue(reloaded.isCached(slowJar, null));
+        for (int i = 0; i < APPS; i++) {
+            for (int j = 0; j < JARS_PER_APP; j++) {
+                final URL jar = jarUrl("app" + i, j);
+                assertTrue(reloaded.isCached(jar, null));
+                assertArrayEquals(content(jar), Files.readAllBytes(reloaded.getOrCreateCacheFile(jar, null).toPath()));
+            }
+        }
+    }
+
+    @Test
+    public void downloadsOfTheSameEntryAreSerializedAcrossProcesses() throws Exception {
+        final URL jar = jarUrl("shared", 0);
+        final File directory = cache.getOrCreateCacheFile(jar, null).getParentFile();
+
+        final Process launch;
+        try (CacheEntryLock ignored = CacheEntryLock.lock(directory)) {
+            launch = launch("shared", 1);
+            assertFalse("download did not wait for the lock", launch.waitFor(2, TimeUnit.SECONDS));
+        }
+        assertCompleted(launch, "shared");
+
+        assertTrue(createCache(root).isCached(jar, null));
+        assertEquals(directory, createCache(root).getOrCreateCacheFile(jar, null).getParentFile());
+    }
+
+    private static File tryLockAndRelease(final File directory) {
+        try (CacheEntryLock lock = CacheEntryLock.tryLock(directory)) {
+            return lock != null ? directory : null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the directory, {@code null} if it has been deleted
+     */
+    private static File lockAndRelease(final File directory) {
+        try (CacheEntryLock ignored = CacheEntryLock.lock(directory)) {
+            return directory;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Process launch(final String app, final int jars) throws IOException {
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), Launch.class.getName(),
+                root.getAbsolutePath(), app, Integer.toString(jars))
+                .redirectErrorStream(true)
+                .redirectOutput(new File(root, app + ".log"))
+                .start();
+    }
+
+    private void assertCompleted(final Process launch, final String app) throws Exception {
+        final boolean completed = launch.waitFor(60, TimeUnit.SECONDS);
+        if (!completed) {
+            launch.destroyForcibly();
+        }
+        final String log = new String(Files.readAllBytes(new File(root, app + ".log").toPath()), UTF_8);
+        assertTrue("launch of " + app + " did not complete: " + log, completed);
+        assertEquals("launch of " + app + " failed: " + log, 0, launch.exitValue());
+    }
+
+    private static LeastRecentlyUsedCache createCache(final File root) {
+        return new LeastRecentlyUsedCache(new DummyInfrastructureFileDescriptor(new File(root, ConfigurationConstants.CACHE_INDEX_FILE_NAME)),
+                new DummyInfrastructureFileDescriptor(new File(root, "cache")));
+    }
+
+    private static URL jarUrl(final String app, final int index) throws IOException {
+        return new URL("http://localhost/" + app + "/jar" + index + ".jar");
+    }
+
+    private static byte[] content(final URL jar) {
+        final byte[] line = (jar + "\n").getBytes(UTF_8);
+        final byte[] content = new byte[16 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = line[i % line.length];
+        }
+        return content;
+    }
+
+    /**
+     * Downloads the jars of one app into the cache, run in a separate process.
+     */
+    public static class Launch {
+        public static void main(final String[] args) throws Exception {
+            final LeastRecentlyUsedCache cache = createCache(new File(args[0]));
+            final int jars = Integer.parseInt(args[2]);
+            for (int i = 0; i < jars; i++) {
+                final URL jar = jarUrl(args[1], i);
+                cache.addToCache(new DownloadInfo(jar, null, 1), new ByteArrayInputStream(content(jar)));
+                if (!cache.isCached(jar, null) || !cache.getBestMatchingEntryInCache(jar, null).isPresent()) {
+                    throw new IllegalStateException(jar + " is not cached");
+                }
+            }
+            System.out.println("cached " + Arrays.toString(args));
+        }
+    }
+
+    private static class BlockingInputStream extends InputStream {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+        private int remaining = 1024;
+
+        private BlockingInputStream(final CountDownLatch started, final CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public int read() throws IOException {
+            started.countDown();
+            try {
+                if (!release.await(60, TimeUnit.SECONDS)) {
+                    throw new IOException("download was not released");
+                }
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return remaining-- > 0 ? 'x' : -1;
+        }
+    }
+
+    private static class DummyInfrastructureFileDescriptor extends InfrastructureFileDescriptor {
+        private final File backend;
+
+        private DummyInfrastructureFileDescriptor(File backend) {
+            super();
+            this.backend = backend;
+        }
+
+        @Override
+        public File getFile() {
+            return backend;
+        }
+
+        @Override
+        public String getFullPath() {
+            return backend.getAbsolutePath();
+        }
+    }
+}
@@ -50,6 +50,7 @@ import java.net.URL;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class CacheEntryTest {
@@ -105,6 +106,20 @@ public class CacheEntryTest {
         assertEquals(CONTENT_LENGTH, secondEntry.getSize());
     }
 
+    @Test
+    public void verifyContentDigestIsStored() {
+        final String digest = "d7a8fbb307d7809469ca9abcb0082e4f8d5651e46d3cdb762d02d0bf37c9e592";
+
+        final CacheEntry firstEntry = createEntry();
+        assertNull(firstEntry.getContentDigest());
+
+        firstEntry.storeInfo(downloadedAt, cacheFile.lastModified(), cacheFile.length(), digest);
+        assertEquals(digest, createEntry().getContentDigest());
+
+        firstEntry.storeInfo(downloadedAt, cacheFile.lastModified(), cacheFile.length());
+        assertNull(createEntry().getContentDigest());
+    }
+
     @Test
     public void verifyCachedIfFileExistsAndLengthIsSame() {
         final CacheEntry entry = createEntry();
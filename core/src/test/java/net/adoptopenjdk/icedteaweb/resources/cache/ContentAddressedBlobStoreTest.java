@@ -0,0 +1,94 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContentAddressedBlobStoreTest {
+
+    private static final String DIGEST = "d7a8fbb307d7809469ca9abcb0082e4f8d5651e46d3cdb762d02d0bf37c9e592";
+    private static final String CONTENT = "The quick brown fox jumps over the lazy dog";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File cacheRoot;
+    private ContentAddressedBlobStore blobStore;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheRoot = temporaryFolder.newFolder();
+        blobStore = new ContentAddressedBlobStore(cacheRoot);
+    }
+
+    @Test
+    public void firstFileBecomesTheBlob() throws Exception {
+        final File cacheFile = createCacheFile("0/0/lib.jar", CONTENT);
+
+        assertFalse(blobStore.exists());
+        assertTrue(blobStore.share(cacheFile, DIGEST));
+
+        assertTrue(blobStore.exists());
+        assertTrue(Files.isSameFile(cacheFile.toPath(), blobStore.getBlobFile(DIGEST).toPath()));
+    }
+
+    @Test
+    public void identicalFilesAreLinkedToTheSameBlob() throws Exception {
+        final File first = createCacheFile("0/0/lib.jar", CONTENT);
+        final File second = createCacheFile("0/1/lib.jar", CONTENT);
+
+        assertTrue(blobStore.share(first, DIGEST));
+        assertTrue(blobStore.share(second, DIGEST));
+
+        assertTrue(Files.isSameFile(first.toPath(), second.toPath()));
+        assertEquals(CONTENT, readContent(second));
+        assertFalse(new File(second.getParentFile(), "lib.jar.link").exists());
+    }
+
+    @Test
+    public void fileWithDifferentSizeIsNotLinked() throws Exception {
+        final File first = createCacheFile("0/0/lib.jar", CONTENT);
+        final File second = createCacheFile("0/1/lib.jar", CONTENT + "!");
+
+        assertTrue(blobStore.share(first, DIGEST));
+        assertFalse(blobStore.share(second, DIGEST));
+
+        assertEquals(CONTENT + "!", readContent(second));
+    }
+
+    @Test
+    public void unreferencedBlobIsRemovedWithoutLosingContent() throws Exception {
+        final File cacheFile = createCacheFile("0/0/lib.jar", CONTENT);
+        assertTrue(blobStore.share(cacheFile, DIGEST));
+
+        blobStore.removeUnreferencedBlobs(Collections.singleton(DIGEST));
+        assertTrue(blobStore.getBlobFile(DIGEST).isFile());
+
+        blobStore.removeUnreferencedBlobs(Collections.emptySet());
+        assertFalse(blobStore.getBlobFile(DIGEST).exists());
+        assertEquals(CONTENT, readContent(cacheFile));
+    }
+
+    private File createCacheFile(final String path, final String content) throws IOException {
+        final File file = new File(cacheRoot, path);
+        assertTrue(file.getParentFile().mkdirs());
+        FileUtils.saveFileUtf8(content, file);
+        return file;
+    }
+
+    private static String readContent(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
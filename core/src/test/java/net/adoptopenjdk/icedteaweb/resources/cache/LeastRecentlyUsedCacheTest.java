@@ -0,0 +1,228 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.InfrastructureFileDescriptor;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.channels.FileLock;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LeastRecentlyUsedCacheTest {
+
+    private static final VersionId VERSION = VersionId.fromString("1.0");
+
+    /**
+     * clock of a cache created after the sweep delay, everything cached before looks old to it
+     */
+    private static final LongSupplier LATER = () -> System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File recentlyUsedFile;
+    private File cacheDir;
+
+    @Before
+    public void setup() {
+        recentlyUsedFile = new File(temporaryFolder.getRoot(), ConfigurationConstants.CACHE_INDEX_FILE_NAME);
+        cacheDir = new File(temporaryFolder.getRoot(), "cache");
+    }
+
+    @Test
+    public void totalSizeIsUpdatedOnAddReplaceAndDelete() throws Exception {
+        final LeastRecentlyUsedCache cache = createCache(-1);
+        add(cache, "a", 1000);
+        add(cache, "b", 2000);
+        assertEquals(3000, cache.getTotalSize());
+
+        // the replaced file is counted until the old entry is removed
+        cache.replaceExistingCacheFile(jar("a"), VERSION);
+        add(cache, "a", 500);
+        assertEquals(3500, cache.getTotalSize());
+
+        cache.deleteFromCache(jar("b"), VERSION);
+        assertEquals(1500, cache.getTotalSize());
+        assertEquals(1500, createCache(-1).getTotalSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedInTheBackground() throws Exception {
+        final LeastRecentlyUsedCache previousLaunch = createCache(10_000);
+        for (int i = 0; i < 10; i++) {
+            add(previousLaunch, "jar" + i, 1000);
+        }
+        previousLaunch.isUpToDate(jar("jar0"), VERSION, 1);
+        assertEquals(10_000, previousLaunch.getTotalSize());
+
+        final LeastRecentlyUsedCache cache = createCache(10_000, LATER);
+        add(cache, "new", 1000);
+        awaitTotalSize(cache, 9000);
+
+        assertFalse(cache.isCached(jar("jar1"), VERSION));
+        assertFalse(cache.isCached(jar("jar2"), VERSION));
+        assertTrue(cache.isCached(jar("jar0"), VERSION));
+        assertTrue(cache.isCached(jar("jar3"), VERSION));
+        assertTrue(cache.isCached(jar("new"), VERSION));
+    }
+
+    @Test
+    public void nothingIsEvictedInTheBackgroundWhileOtherInstancesRun() throws Exception {
+        final LeastRecentlyUsedCache previousLaunch = createCache(10_000);
+        for (int i = 0; i < 10; i++) {
+            add(previousLaunch, "jar" + i, 1000);
+        }
+
+        final String mainLock = PathsAndFiles.MAIN_LOCK.getFullPath();
+        final File otherInstanceRunning = temporaryFolder.newFile();
+        PathsAndFiles.MAIN_LOCK.setValue(otherInstanceRunning.getAbsolutePath());
+        try {
+            final LeastRecentlyUsedCache cache = createCache(10_000, LATER);
+            try (RandomAccessFile file = new RandomAccessFile(otherInstanceRunning, "rw");
+                 FileLock ignored = file.getChannel().lock(0, 1, true)) {
+                add(cache, "new", 1000);
+                Thread.sleep(500);
+                assertEquals(11_000, cache.getTotalSize());
+            }
+            add(cache, "newer", 1000);
+            awaitTotalSize(cache, 9000);
+        } finally {
+            PathsAndFiles.MAIN_LOCK.setValue(mainLock);
+        }
+    }
+
+    @Test
+    public void sweepRecordsMissingSizesAndDeletesDirectoriesWithoutEntry() throws Exception {
+        final LeastRecentlyUsedCache previousLaunch = createCache(-1);
+        final File cacheFile = add(previousLaunch, "a", 1000);
+        final File orphan = new File(cacheDir, "5/5");
+        assertTrue(orphan.mkdirs());
+        assertTrue(new File(orphan, CacheEntry.INFO_SUFFIX).createNewFile());
+
+        // caches created before the sizes were recorded in the index
+        final Properties index = new Properties();
+        try (InputStream in = new FileInputStream(recentlyUsedFile)) {
+            index.load(in);
+        }
+        index.stringPropertyNames().stream()
+                .filter(key -> key.endsWith(".size"))
+                .forEach(index::remove);
+        try (OutputStream out = new FileOutputStream(recentlyUsedFile)) {
+            index.store(out, null);
+        }
+
+        final LeastRecentlyUsedCache cache = createCache(-1, LATER);
+        assertEquals(0, cache.getTotalSize());
+        cache.sweepEntries();
+        assertEquals(1000, cache.getTotalSize());
+
+        cache.sweepDirectoriesWithoutEntry();
+        assertFalse(orphan.exists());
+        assertTrue(cacheFile.isFile());
+    }
+
+    @Test
+    public void lockedAndReplacedEntriesAreNotEvictedInTheBackground() throws Exception {
+        final LeastRecentlyUsedCache previousLaunch = createCache(10_000);
+        final File replaced = add(previousLaunch, "replaced", 1000);
+        final File locked = add(previousLaunch, "locked", 1000);
+        for (int i = 0; i < 8; i++) {
+            add(previousLaunch, "jar" + i, 1000);
+        }
+        previousLaunch.replaceExistingCacheFile(jar("replaced"), VERSION);
+        add(previousLaunch, "replaced", 1000);
+        assertEquals(11_000, previousLaunch.getTotalSize());
+
+        final LeastRecentlyUsedCache cache = createCache(10_000, LATER);
+        try (CacheEntryLock ignored = CacheEntryLock.lock(locked.getParentFile())) {
+            add(cache, "new", 1000);
+            // the replaced file is not counted against the low-water mark of 9000 bytes
+            awaitTotalSize(cache, 10_000);
+        }
+
+        assertTrue(replaced.isFile());
+        assertTrue(cache.isCached(jar("locked"), VERSION));
+        assertFalse(cache.isCached(jar("jar0"), VERSION));
+        assertFalse(cache.isCached(jar("jar1"), VERSION));
+        assertTrue(cache.isCached(jar("jar2"), VERSION));
+    }
+
+    @Test
+    public void sweepKeepsDirectoriesYoungerThanTheSweepDelay() throws Exception {
+        final File orphan = new File(cacheDir, "5/5");
+        assertTrue(orphan.mkdirs());
+        assertTrue(new File(orphan, CacheEntry.INFO_SUFFIX).createNewFile());
+
+        createCache(-1).sweepDirectoriesWithoutEntry();
+        assertTrue(orphan.isDirectory());
+
+        createCache(-1, LATER).sweepDirectoriesWithoutEntry();
+        assertFalse(orphan.exists());
+        assertFalse(orphan.getParentFile().exists());
+    }
+
+    private LeastRecentlyUsedCache createCache(final long maxSize) {
+        return createCache(maxSize, System::currentTimeMillis);
+    }
+
+    private LeastRecentlyUsedCache createCache(final long maxSize, final LongSupplier clock) {
+        return new LeastRecentlyUsedCache(new DummyInfrastructureFileDescriptor(recentlyUsedFile), new DummyInfrastructureFileDescriptor(cacheDir), () -> maxSize, clock);
+    }
+
+    /**
+     * waits for the eviction in the background
+     */
+    private static void awaitTotalSize(final LeastRecentlyUsedCache cache, final long totalSize) throws InterruptedException {
+        final long timeout = System.currentTimeMillis() + 10_000;
+        while (cache.getTotalSize() > totalSize && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(totalSize, cache.getTotalSize());
+    }
+
+    private static File add(final LeastRecentlyUsedCache cache, final String name, final int size) throws IOException {
+        return cache.addToCache(new DownloadInfo(jar(name), VERSION, 1), new ByteArrayInputStream(new byte[size]));
+    }
+
+    private static URL jar(final String name) throws IOException {
+        return new URL("http://localhost/" + name + ".jar");
+    }
+
+    private static class DummyInfrastructureFileDescriptor extends InfrastructureFileDescriptor {
+        private final File backend;
+
+        private DummyInfrastructureFileDescriptor(File backend) {
+            super();
+            this.backend = backend;
+        }
+
+        @Override
+        public File getFile() {
+            return backend;
+        }
+
+        @Override
+        public String getFullPath() {
+            return backend.getAbsolutePath();
+        }
+    }
+}
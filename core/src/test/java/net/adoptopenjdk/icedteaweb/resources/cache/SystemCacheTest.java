@@ -0,0 +1,118 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.io.FileUtils;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SystemCacheTest {
+
+    private static final String DIGEST = "d7a8fbb307d7809469ca9abcb0082e4f8d5651e46d3cdb762d02d0bf37c9e592";
+    private static final String CONTENT = "The quick brown fox jumps over the lazy dog";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File root;
+    private URL href;
+
+    @Before
+    public void setUp() throws IOException {
+        root = temporaryFolder.newFolder("system");
+        href = new URL("http://example.com/lib.jar");
+    }
+
+    @Test
+    public void addedEntryIsFoundByNewInstance() throws Exception {
+        new SystemCache(root).add(info(href, null, 1000), createFile("lib.jar", CONTENT));
+
+        final Optional<SystemCacheEntry> entry = new SystemCache(root).find(href, null);
+
+        assertTrue(entry.isPresent());
+        assertEquals(DIGEST, entry.get().getContentDigest());
+        assertEquals(1000, entry.get().getLastModified());
+        assertEquals(CONTENT.length(), entry.get().getSize());
+        assertEquals(CONTENT, readContent(entry.get().getCacheFile()));
+        assertTrue(entry.get().isCurrent(1000));
+        assertFalse(entry.get().isCurrent(1001));
+    }
+
+    @Test
+    public void versionedEntriesAreMatchedByVersionString() throws Exception {
+        final SystemCache systemCache = new SystemCache(root);
+        systemCache.add(info(href, VersionId.fromString("1.0"), 1000), createFile("lib.jar", CONTENT));
+        systemCache.add(info(href, VersionId.fromString("2.0"), 1000), createFile("lib.jar", CONTENT + "!"));
+
+        final List<SystemCacheEntry> matching = systemCache.findAll(href, VersionString.fromString("1.5+"));
+
+        assertEquals(1, matching.size());
+        assertEquals(VersionId.fromString("2.0"), matching.get(0).getVersion());
+        assertEquals(2, systemCache.findAll(href).size());
+        assertFalse(systemCache.find(href, null).isPresent());
+    }
+
+    @Test
+    public void replacedContentIsRemoved() throws Exception {
+        final SystemCache systemCache = new SystemCache(root);
+        final File oldFile = systemCache.add(info(href, null, 1000), createFile("lib.jar", CONTENT)).getCacheFile();
+        final File newFile = systemCache.add(info(href, null, 2000), createFile("lib.jar", CONTENT + "!")).getCacheFile();
+
+        assertFalse(oldFile.exists());
+        assertFalse(oldFile.getParentFile().exists());
+        assertEquals(CONTENT + "!", readContent(newFile));
+        assertEquals(2000, systemCache.find(href, null).get().getLastModified());
+    }
+
+    @Test
+    public void entryWithMissingContentIsIgnored() throws Exception {
+        final SystemCache systemCache = new SystemCache(root);
+        final File cacheFile = systemCache.add(info(href, null, 1000), createFile("lib.jar", CONTENT)).getCacheFile();
+        assertTrue(cacheFile.delete());
+
+        assertFalse(systemCache.find(href, null).isPresent());
+    }
+
+    @Test
+    public void malformedLinesAreIgnored() throws Exception {
+        final File content = new File(root, "lib.jar");
+        FileUtils.saveFileUtf8(CONTENT, content);
+        FileUtils.saveFileUtf8(SystemCache.INDEX_HEADER + "\n"
+                + "not an entry\n"
+                + "http://example.com/lib.jar\t\tlib.jar\t" + CONTENT.length() + "\t1000\t2000\t\n", new File(root, SystemCache.INDEX_FILE_NAME));
+
+        final Optional<SystemCacheEntry> entry = new SystemCache(root).find(href, null);
+
+        assertTrue(entry.isPresent());
+        assertEquals(content, entry.get().getCacheFile());
+        assertEquals(2000, entry.get().getDownloadedAt());
+    }
+
+    private File createFile(final String name, final String content) throws IOException {
+        final File file = new File(temporaryFolder.newFolder(), name);
+        FileUtils.saveFileUtf8(content, file);
+        return file;
+    }
+
+    private static ResourceInfo info(final URL href, final VersionId version, final long lastModified) {
+        return new SystemCacheEntry(href, version, null, null, 0, lastModified, 2000, null);
+    }
+
+    private static String readContent(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
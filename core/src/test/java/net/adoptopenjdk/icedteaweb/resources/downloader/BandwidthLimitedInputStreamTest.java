@@ -0,0 +1,84 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BandwidthLimitedInputStreamTest {
+
+    private final AtomicLong clock = new AtomicLong(1000);
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private InputStream limitedStream(final byte[] data, final long bytesPerSecond, final AtomicBoolean active) {
+        return new BandwidthLimitedInputStream(new ByteArrayInputStream(data), bytesPerSecond, active::get, clock::get, millis -> {
+            sleeps.add(millis);
+            clock.addAndGet(millis);
+        });
+    }
+
+    @Test
+    public void readsAreDelayedToMatchBandwidth() throws IOException {
+        final InputStream in = limitedStream(new byte[4000], 1000, new AtomicBoolean(true));
+
+        final byte[] buffer = new byte[1000];
+        assertEquals(1000, in.read(buffer));
+        assertEquals(1000, in.read(buffer));
+
+        assertEquals(asList(1000L, 1000L), sleeps);
+    }
+
+    @Test
+    public void elapsedTimeIsDeductedFromDelay() throws IOException {
+        final InputStream in = limitedStream(new byte[4000], 1000, new AtomicBoolean(true));
+
+        final byte[] buffer = new byte[500];
+        assertEquals(500, in.read(buffer));
+        clock.addAndGet(300);
+        assertEquals(500, in.read(buffer));
+
+        assertEquals(asList(500L, 200L), sleeps);
+    }
+
+    @Test
+    public void noDelayWhileLimitIsInactive() throws IOException {
+        final AtomicBoolean active = new AtomicBoolean(true);
+        final InputStream in = limitedStream(new byte[4000], 1000, active);
+
+        final byte[] buffer = new byte[1000];
+        assertEquals(1000, in.read(buffer));
+        active.set(false);
+        assertEquals(1000, in.read(buffer));
+        assertEquals(1000, in.read(buffer));
+
+        assertEquals(asList(1000L), sleeps);
+    }
+
+    @Test
+    public void unlimitedStreamIsNotDelayed() throws IOException {
+        final byte[] data = {1, 2, 3, 4};
+        final InputStream in = limitedStream(data, 1, new AtomicBoolean(false));
+
+        final byte[] buffer = new byte[4];
+        assertEquals(4, in.read(buffer));
+        assertEquals(-1, in.read());
+
+        assertArrayEquals(data, buffer);
+        assertEquals(emptyList(), sleeps);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bandwidthMustBePositive() {
+        new BandwidthLimitedInputStream(new ByteArrayInputStream(new byte[0]), 0, () -> true);
+    }
+}
@@ -0,0 +1,175 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import net.adoptopenjdk.icedteaweb.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.IF_RANGE_HEADER;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.RANGE_HEADER;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PartialDownloadTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final byte[] content = new byte[100];
+    private File directory;
+    private URL location;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        directory = temporaryFolder.newFolder();
+        location = new URL("http://localhost/app/large.jar");
+    }
+
+    @Test
+    public void interruptedDownloadIsResumed() throws Exception {
+        try (PartialDownload first = new PartialDownload(directory, location, 10)) {
+            assertTrue(first.getResumeRequestProperties().isEmpty());
+            assertTrue(first.start(200, null, ETAG, LAST_MODIFIED, content.length));
+            first.transfer(new InterruptedInputStream(Arrays.copyOf(content, 40)));
+            fail("transfer should have been interrupted");
+        } catch (IOException expected) {
+            // connection dropped
+        }
+
+        try (PartialDownload second = new PartialDownload(directory, location, 10)) {
+            final Map<String, String> requestProperties = second.getResumeRequestProperties();
+            assertEquals("bytes=40-", requestProperties.get(RANGE_HEADER));
+            assertEquals(ETAG, requestProperties.get(IF_RANGE_HEADER));
+
+            assertTrue(second.start(206, "bytes 40-99/100", ETAG, LAST_MODIFIED, 60));
+            assertEquals(40, second.getOffset());
+            assertEquals(100, second.getTotalSize());
+
+            try (InputStream complete = second.transfer(new ByteArrayInputStream(Arrays.copyOfRange(content, 40, 100)))) {
+                assertArrayEquals(content, IOUtils.readContent(complete));
+            }
+            second.delete();
+        }
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void lastModifiedIsUsedIfThereIsNoStrongETag() throws Exception {
+        interruptAfter(40, "W/\"weak\"");
+
+        try (PartialDownload partialDownload = new PartialDownload(directory, location, 10)) {
+            assertEquals(LAST_MODIFIED, partialDownload.getResumeRequestProperties().get(IF_RANGE_HEADER));
+        }
+    }
+
+    @Test
+    public void fullResponseRestartsTransfer() throws Exception {
+        interruptAfter(40, ETAG);
+
+        try (PartialDownload partialDownload = new PartialDownload(directory, location, 10)) {
+            assertEquals("bytes=40-", partialDownload.getResumeRequestProperties().get(RANGE_HEADER));
+            assertTrue(partialDownload.start(200, null, "\"v2\"", LAST_MODIFIED, content.length));
+            assertEquals(0, partialDownload.getOffset());
+
+            try (InputStream complete = partialDownload.transfer(new ByteArrayInputStream(content))) {
+                assertArrayEquals(content, IOUtils.readContent(complete));
+            }
+        }
+    }
+
+    @Test
+    public void unexpectedRangeDiscardsPartialContent() throws Exception {
+        interruptAfter(40, ETAG);
+
+        try (PartialDownload partialDownload = new PartialDownload(directory, location, 10)) {
+            partialDownload.getResumeRequestProperties();
+            partialDownload.start(206, "bytes 0-99/100", ETAG, LAST_MODIFIED, content.length);
+            fail("unexpected range should be rejected");
+        } catch (IOException expected) {
+            // range does not match the partial content
+        }
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void smallDownloadsAreNotResumable() throws Exception {
+        try (PartialDownload partialDownload = new PartialDownload(directory, location, 1024)) {
+            assertFalse(partialDownload.start(200, null, ETAG, LAST_MODIFIED, content.length));
+        }
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void downloadsWithoutValidatorAreNotResumable() throws Exception {
+        try (PartialDownload partialDownload = new PartialDownload(directory, location, 10)) {
+            assertFalse(partialDownload.start(200, null, "W/\"weak\"", null, content.length));
+        }
+        try (PartialDownload partialDownload = new PartialDownload(directory, location, 10)) {
+            assertFalse(partialDownload.start(200, null, null, LAST_MODIFIED, -1));
+        }
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void staleFilesAreRemoved() throws Exception {
+        interruptAfter(40, ETAG);
+        final long weekAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(PartialDownload.MAX_AGE_DAYS);
+
+        PartialDownload.removeStaleFiles(directory, weekAgo);
+        assertEquals(2, directory.list().length);
+
+        for (File file : directory.listFiles()) {
+            assertTrue(file.setLastModified(weekAgo - 1000));
+        }
+        PartialDownload.removeStaleFiles(directory, weekAgo);
+        assertEquals(0, directory.list().length);
+    }
+
+    private void interruptAfter(final int numBytes, final String etag) {
+        try (PartialDownload partialDownload = new PartialDownload(directory, location, 10)) {
+            assertTrue(partialDownload.start(200, null, etag, LAST_MODIFIED, content.length));
+            partialDownload.transfer(new InterruptedInputStream(Arrays.copyOf(content, numBytes)));
+            fail("transfer should have been interrupted");
+        } catch (IOException expected) {
+            // connection dropped
+        }
+    }
+
+    /**
+     * Returns the given bytes and then fails as if the connection dropped.
+     */
+    private static class InterruptedInputStream extends FilterInputStream {
+        InterruptedInputStream(final byte[] buf) {
+            super(new ByteArrayInputStream(buf));
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int result = super.read(b, off, len);
+            if (result == -1) {
+                throw new IOException("Connection reset");
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package net.adoptopenjdk.icedteaweb.trace;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TraceRecorderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicLong nanos = new AtomicLong(5_000_000);
+
+    @Test
+    public void nestedSpansAreRecordedAsCompleteEvents() throws Exception {
+        final TraceRecorder recorder = new TraceRecorder(new File("unused"), nanos::get);
+
+        try (TraceSpan outer = recorder.open("launch", "outer")) {
+            nanos.addAndGet(1_000_000);
+            try (TraceSpan inner = recorder.open("download", "inner").withResource(new URL("http://localhost/app.jar"))) {
+                nanos.addAndGet(2_000_000);
+                inner.withBytes(1234);
+            }
+            nanos.addAndGet(500_000);
+        }
+
+        final String json = recorder.toJson();
+        final long tid = Thread.currentThread().getId();
+        assertTrue(json, json.contains("{\"name\":\"inner\",\"cat\":\"download\",\"ph\":\"X\",\"ts\":1000,\"dur\":2000,"));
+        assertTrue(json, json.contains("\"tid\":" + tid + ",\"args\":{\"url\":\"http://localhost/app.jar\",\"bytes\":1234}}"));
+        assertTrue(json, json.contains("{\"name\":\"outer\",\"cat\":\"launch\",\"ph\":\"X\",\"ts\":0,\"dur\":3500,"));
+        assertTrue(json, json.contains("\"name\":\"thread_name\",\"ph\":\"M\""));
+        assertTrue(json, json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+        assertTrue(json, json.endsWith("]}"));
+    }
+
+    @Test
+    public void spanIsRecordedOnlyOnce() {
+        final TraceRecorder recorder = new TraceRecorder(new File("unused"), nanos::get);
+
+        final TraceSpan span = recorder.open("launch", "once");
+        span.close();
+        span.close();
+
+        final String json = recorder.toJson();
+        assertEquals(json.indexOf("\"once\""), json.lastIndexOf("\"once\""));
+    }
+
+    @Test
+    public void instantEventsAreRecorded() {
+        final TraceRecorder recorder = new TraceRecorder(new File("unused"), nanos::get);
+        nanos.addAndGet(42_000);
+
+        recorder.instant("launch", "invokeMain");
+
+        assertTrue(recorder.toJson().contains("{\"name\":\"invokeMain\",\"cat\":\"launch\",\"ph\":\"i\",\"ts\":42,\"s\":\"t\","));
+    }
+
+    @Test
+    public void stringsAreEscaped() {
+        final StringBuilder json = new StringBuilder();
+
+        TraceRecorder.appendString(json, "a\"b\\c\nd\te\u0001");
+
+        assertEquals("\"a\\\"b\\\\c\\nd\\te\\u0001\"", json.toString());
+    }
+
+    @Test
+    public void closedRecorderReturnsNoopSpans() throws Exception {
+        final File output = new File(temporaryFolder.getRoot(), "trace.json");
+        final TraceRecorder recorder = new TraceRecorder(output, nanos::get);
+
+        final TraceSpan open = recorder.open("launch", "open");
+        recorder.write();
+        recorder.close();
+        open.close();
+
+        assertSame(TraceSpan.NOOP, recorder.open("launch", "late"));
+        assertFalse(recorder.toJson().contains("\"open\""));
+
+        recorder.write();
+        assertEquals("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[", new String(Files.readAllBytes(output.toPath()), UTF_8).substring(0, 39));
+    }
+
+    @Test
+    public void writeCreatesParentDirectories() throws Exception {
+        final File output = new File(temporaryFolder.getRoot(), "sub/dir/trace.json");
+        final TraceRecorder recorder = new TraceRecorder(output, nanos::get);
+        recorder.open("launch", "written").close();
+
+        recorder.write();
+
+        final String content = new String(Files.readAllBytes(output.toPath()), UTF_8);
+        assertTrue(content, content.contains("\"written\""));
+    }
+
+    @Test
+    public void disabledTraceReturnsNoopSpan() {
+        if (!LaunchTrace.isEnabled()) {
+            assertSame(TraceSpan.NOOP, LaunchTrace.span("launch", "disabled"));
+        }
+    }
+}
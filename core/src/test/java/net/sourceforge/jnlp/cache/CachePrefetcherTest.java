@@ -0,0 +1,65 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.ParserSettings;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+public class CachePrefetcherTest {
+
+    @Test
+    public void jarsOfAllVariantsAreCollected() throws Exception {
+        final String jnlpContents = "<?xml version='1.0'?>\n" +
+                "<jnlp spec='1.5' href='foo' codebase='http://localhost/app/'>\n" +
+                "  <information>\n" +
+                "    <title>Prefetch Test</title>\n" +
+                "    <vendor>IcedTea</vendor>\n" +
+                "  </information>\n" +
+                "  <security>\n" +
+                "    <all-permissions/>\n" +
+                "  </security>\n" +
+                "  <resources>\n" +
+                "    <jar href='main.jar' main='true'/>\n" +
+                "    <jar href='lazy.jar' download='lazy' part='lazy'/>\n" +
+                "  </resources>\n" +
+                "  <resources os='SomeOtherOS'>\n" +
+                "    <nativelib href='native-other.jar'/>\n" +
+                "  </resources>\n" +
+                "  <resources arch='some-other-arch' locale='xx'>\n" +
+                "    <jar href='other-arch.jar'/>\n" +
+                "  </resources>\n" +
+                "  <application-desc main-class='Main'/>\n" +
+                "</jnlp>";
+
+        final JNLPFile jnlpFile = new JNLPFile(new ByteArrayInputStream(jnlpContents.getBytes()), new URL("http://localhost/app/"), new ParserSettings(false, false, false));
+
+        final List<String> jars = JnlpResourceResolver.collectJars(jnlpFile).stream()
+                .map(JARDesc::getLocation)
+                .map(URL::toString)
+                .collect(toList());
+
+        assertEquals(asList(
+                "http://localhost/app/main.jar",
+                "http://localhost/app/lazy.jar",
+                "http://localhost/app/native-other.jar",
+                "http://localhost/app/other-arch.jar"), jars);
+    }
+
+    @Test
+    public void reportLinesAreTabSeparated() {
+        assertEquals("OK\tjar\thttp://localhost/app/main.jar\t1.0\t1024\tsigned\t-",
+                CachePrefetcher.ReportLine.ok("jar", "http://localhost/app/main.jar", VersionString.fromString("1.0"), "1024", "signed").toString());
+        assertEquals("FAILED\tjnlp\thttp://localhost/app.jnlp\t-\t-\t-\tIOException: not found on server",
+                CachePrefetcher.ReportLine.failed("jnlp", "http://localhost/app.jnlp", null, new IOException("not found\ton\nserver")).toString());
+    }
+}
@@ -34,7 +34,13 @@ statement from your version.
 package net.sourceforge.jnlp.cache;
 
 import net.adoptopenjdk.icedteaweb.resources.ResourceTrackerTest;
+import net.adoptopenjdk.icedteaweb.testing.ServerAccess;
+import net.adoptopenjdk.icedteaweb.testing.ServerLauncher;
 import net.adoptopenjdk.icedteaweb.testing.annotations.Bug;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.DeploymentConfiguration;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
 import net.sourceforge.jnlp.util.UrlUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -44,6 +50,11 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class CacheUtilTest {
 
@@ -178,4 +189,36 @@ public class CacheUtilTest {
         final File expected = new File(cacheDir, "https/example.com/443/applet/applet.php");
         Assert.assertEquals(expected, CacheUtil.urlToPath(u, cacheDir.getAbsolutePath()));
     }
+
+    @Test
+    public void populatingAnUpToDateSystemCacheSucceeds() throws Exception {
+        final File serverDir = temporaryFolder.newFolder();
+        Files.write(new File(serverDir, "lib.jar").toPath(), "content".getBytes(UTF_8));
+        final ServerLauncher server = ServerAccess.getIndependentInstance(serverDir.getAbsolutePath(), ServerAccess.findFreePort());
+        Files.write(new File(serverDir, "app.jnlp").toPath(), ("<?xml version='1.0'?>\n" +
+                "<jnlp spec='1.5' codebase='" + server.getUrl() + "' href='app.jnlp'>\n" +
+                "  <information><title>System Cache Test</title><vendor>IcedTea</vendor></information>\n" +
+                "  <resources><jar href='lib.jar'/></resources>\n" +
+                "  <application-desc main-class='Main'/>\n" +
+                "</jnlp>").getBytes(UTF_8));
+
+        final String userCacheDir = PathsAndFiles.CACHE_DIR.getFullPath();
+        final DeploymentConfiguration config = JNLPRuntime.getConfiguration();
+        final String systemCacheDir = config.getProperty(ConfigurationConstants.KEY_SYSTEM_CACHE_DIR);
+        try {
+            config.setProperty(ConfigurationConstants.KEY_SYSTEM_CACHE_DIR, temporaryFolder.newFolder().getCanonicalPath());
+            final List<String> locations = Collections.singletonList(server.getUrl("app.jnlp").toString());
+
+            PathsAndFiles.CACHE_DIR.setValue(temporaryFolder.newFolder().getCanonicalPath());
+            Assert.assertTrue(CacheUtil.populateSystemCache(locations));
+
+            // a second run with an empty cache of the user finds everything in the system cache
+            PathsAndFiles.CACHE_DIR.setValue(temporaryFolder.newFolder().getCanonicalPath());
+            Assert.assertTrue(CacheUtil.populateSystemCache(locations));
+        } finally {
+            config.setProperty(ConfigurationConstants.KEY_SYSTEM_CACHE_DIR, systemCacheDir);
+            PathsAndFiles.CACHE_DIR.setValue(userCacheDir);
+            server.stop();
+        }
+    }
 }
@@ -0,0 +1,74 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JnlpResourceResolverTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void versionsOfTheSameJarAreTrackedSeparately() throws Exception {
+        final File app = writeJnlp("app.jnlp", "<jar href='lib.jar' version='1.0'/><jar href='main.jar'/><extension href='ext.jnlp'/>");
+        writeJnlp("ext.jnlp", "<jar href='lib.jar' version='2.0'/><jar href='main.jar'/><extension href='app.jnlp'/>");
+
+        final JnlpResourceResolver resolver = new JnlpResourceResolver();
+        resolver.resolve(app.toURI().toURL(), null);
+
+        assertEquals(2, resolver.getJnlps().size());
+        assertNull(resolver.getJnlps().get(0).getFailure());
+        assertNull(resolver.getJnlps().get(1).getFailure());
+
+        final List<JARDesc> jars = new ArrayList<>(resolver.getJars());
+        final List<String> names = new ArrayList<>();
+        for (JARDesc jar : jars) {
+            names.add(new File(jar.getLocation().getPath()).getName() + " " + jar.getVersion());
+        }
+        assertEquals(3, jars.size());
+        assertEquals("[lib.jar 1.0, main.jar null, lib.jar 2.0]", names.toString());
+        assertSame(resolver.getTracker(jars.get(0)), resolver.getTracker(jars.get(1)));
+        assertNotSame(resolver.getTracker(jars.get(0)), resolver.getTracker(jars.get(2)));
+    }
+
+    @Test
+    public void unreadableJnlpIsReportedAsFailure() throws Exception {
+        final JnlpResourceResolver resolver = new JnlpResourceResolver();
+        resolver.resolve(new URL(temporaryFolder.getRoot().toURI().toURL(), "missing.jnlp"), null);
+
+        assertEquals(1, resolver.getJnlps().size());
+        assertTrue(resolver.getJnlps().get(0).getFailure() instanceof IOException);
+        assertEquals(0, resolver.getJars().size());
+    }
+
+    private File writeJnlp(final String name, final String resources) throws IOException {
+        final File file = new File(temporaryFolder.getRoot(), name);
+        final String contents = "<?xml version='1.0'?>\n" +
+                "<jnlp spec='1.5' codebase='" + temporaryFolder.getRoot().toURI() + "' href='" + name + "'>\n" +
+                "  <information>\n" +
+                "    <title>Resolver Test</title>\n" +
+                "    <vendor>IcedTea</vendor>\n" +
+                "  </information>\n" +
+                "  <resources>" + resources + "</resources>\n" +
+                "  <application-desc main-class='Main'/>\n" +
+                "</jnlp>";
+        Files.write(file.toPath(), contents.getBytes(UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,87 @@
+package net.sourceforge.jnlp.config;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_CACHE_MAX_SIZE;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_HTTPS_DONT_ENFORCE;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_PREFETCH_BANDWIDTH;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_RESUMABLE_DOWNLOAD_MIN_SIZE;
+import static net.sourceforge.jnlp.config.ConfigurationConstants.KEY_SECURITY_SERVER_WHITELIST;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationSnapshotTest {
+
+    @Test
+    public void valuesAreParsedAndInvalidValuesReplacedByDefaults() {
+        final Map<String, Setting> settings = new HashMap<>();
+        put(settings, KEY_CACHE_MAX_SIZE, "2");
+        put(settings, KEY_HTTPS_DONT_ENFORCE, "TRUE");
+        put(settings, KEY_PREFETCH_BANDWIDTH, "fast");
+        put(settings, KEY_RESUMABLE_DOWNLOAD_MIN_SIZE, "-1");
+        put(settings, KEY_SECURITY_SERVER_WHITELIST, " a.com , ,b.com:8080 ");
+
+        final ConfigurationSnapshot snapshot = ConfigurationSnapshot.of(settings);
+
+        assertEquals(2 * 1024 * 1024, snapshot.getCacheMaxSizeInBytes());
+        assertFalse(snapshot.isHttpsEnforced());
+        assertEquals(256 * 1024, snapshot.getPrefetchBandwidthInBytesPerSecond());
+        assertEquals(-1, snapshot.getResumableDownloadMinSizeInBytes());
+        assertEquals(Arrays.asList("a.com", "b.com:8080"), snapshot.getServerWhitelist());
+        assertEquals("fast", snapshot.getProperty(KEY_PREFETCH_BANDWIDTH));
+    }
+
+    @Test
+    public void missingValuesAreDefaults() {
+        final ConfigurationSnapshot snapshot = ConfigurationSnapshot.of(Collections.emptyMap());
+
+        assertEquals(-1, snapshot.getCacheMaxSizeInBytes());
+        assertTrue(snapshot.isHttpsEnforced());
+        assertFalse(snapshot.isCacheDeduplicationEnabled());
+        assertEquals(1024 * 1024, snapshot.getResumableDownloadMinSizeInBytes());
+        assertEquals(Collections.emptyList(), snapshot.getServerWhitelist());
+    }
+
+    @Test
+    public void listenersAreToldWhichKeysChanged() {
+        final DeploymentConfiguration config = new DeploymentConfiguration();
+        config.resetToDefaults();
+        final ConfigurationSnapshot initial = config.getSnapshot();
+        assertSame(initial, config.getSnapshot());
+
+        final List<Set<String>> notifications = new ArrayList<>();
+        config.addChangeListener((snapshot, changedKeys) -> {
+            assertSame(snapshot, config.getSnapshot());
+            notifications.add(changedKeys);
+        });
+
+        config.setProperty(KEY_CACHE_MAX_SIZE, "5");
+        config.setProperty(KEY_CACHE_MAX_SIZE, "5");
+        config.setProperty("unknown.key", "value");
+
+        assertEquals(Arrays.asList(Collections.singleton(KEY_CACHE_MAX_SIZE), Collections.singleton("unknown.key")), notifications);
+        assertNotSame(initial, config.getSnapshot());
+        assertEquals(-1, initial.getCacheMaxSizeInBytes());
+        assertEquals(5 * 1024 * 1024, config.getSnapshot().getCacheMaxSizeInBytes());
+
+        config.resetToDefaults();
+        assertEquals(new HashSet<>(Arrays.asList(KEY_CACHE_MAX_SIZE, "unknown.key")), notifications.get(2));
+        assertEquals(-1, config.getSnapshot().getCacheMaxSizeInBytes());
+    }
+
+    private static void put(final Map<String, Setting> settings, final String key, final String value) {
+        settings.put(key, Setting.createUnknown(key, value));
+    }
+}
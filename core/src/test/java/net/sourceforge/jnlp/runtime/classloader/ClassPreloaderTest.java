@@ -0,0 +1,81 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import org.junit.Test;
+
+import java.security.AccessController;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ClassPreloaderTest {
+
+    private static final String INITIALIZED_PROPERTY = ClassPreloaderTest.class.getName() + ".initialized";
+
+    @Test
+    public void classesAreLoadedWithoutBeingInitialized() throws Exception {
+        final RecordingClassLoader loader = new RecordingClassLoader();
+        final String preloadable = ClassPreloaderTest.class.getName() + "$Preloadable";
+
+        final int loaded = ClassPreloader.start(loader, Collections.singletonList(preloadable), name -> true, AccessController.getContext())
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, loaded);
+        assertTrue(loader.requested.contains(preloadable));
+        assertTrue(loader.requestedWhilePreloading);
+        assertNull(System.getProperty(INITIALIZED_PROPERTY));
+    }
+
+    @Test
+    public void filteredAndMissingClassesAreSkipped() throws Exception {
+        final RecordingClassLoader loader = new RecordingClassLoader();
+        final List<String> names = Arrays.asList("does.not.Exist", ClassPreloaderTest.class.getName() + "$Filtered", String.class.getName());
+
+        final int loaded = ClassPreloader.start(loader, names, name -> !name.endsWith("$Filtered"), AccessController.getContext())
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, loaded);
+        assertEquals(new HashSet<>(Arrays.asList("does.not.Exist", String.class.getName())), new HashSet<>(loader.requested));
+        assertEquals(2, loader.requested.size());
+    }
+
+    @Test
+    public void emptyProfileCompletesImmediately() throws Exception {
+        assertEquals(0, (int) ClassPreloader.start(new RecordingClassLoader(), Collections.emptyList(), name -> true, AccessController.getContext()).get());
+        assertFalse(ClassPreloader.isPreloading());
+    }
+
+    private static class RecordingClassLoader extends ClassLoader {
+        private final List<String> requested = new CopyOnWriteArrayList<>();
+        private volatile boolean requestedWhilePreloading;
+
+        RecordingClassLoader() {
+            super(ClassPreloaderTest.class.getClassLoader());
+        }
+
+        @Override
+        public Class<?> loadClass(final String name) throws ClassNotFoundException {
+            requested.add(name);
+            requestedWhilePreloading = ClassPreloader.isPreloading();
+            return super.loadClass(name);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Preloadable {
+        static {
+            System.setProperty(INITIALIZED_PROPERTY, "true");
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Filtered {
+    }
+}
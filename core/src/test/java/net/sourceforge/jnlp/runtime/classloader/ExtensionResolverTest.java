@@ -0,0 +1,97 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ExtensionDesc;
+import net.adoptopenjdk.icedteaweb.testing.mock.DummyJNLPFile;
+import net.adoptopenjdk.icedteaweb.xmlparser.ParseException;
+import net.sourceforge.jnlp.JNLPFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ExtensionResolverTest {
+
+    @Test
+    public void siblingExtensionsAreFetchedConcurrently() throws Exception {
+        final ExtensionDesc[] extensions = extensions(4);
+        final CountDownLatch allStarted = new CountDownLatch(extensions.length);
+        final Map<URL, JNLPFile> files = new ConcurrentHashMap<>();
+
+        final ExtensionResolver resolver = ExtensionResolver.resolve(extensions, extension -> {
+            allStarted.countDown();
+            // only returns if all extensions are fetched at the same time
+            if (!awaitQuietly(allStarted)) {
+                throw new IOException("extensions are fetched one after another");
+            }
+            final JNLPFile file = new DummyJNLPFile();
+            files.put(extension.getLocation(), file);
+            return file;
+        });
+
+        for (int i = 0; i < extensions.length; i++) {
+            final JNLPFile file = resolver.getFile(i);
+            assertSame(files.get(extensions[i].getLocation()), file);
+        }
+    }
+
+    @Test
+    public void failuresAreReportedForTheFailingExtension() throws Exception {
+        final ExtensionDesc[] extensions = extensions(3);
+
+        final ExtensionResolver resolver = ExtensionResolver.resolve(extensions, extension -> {
+            if (extension == extensions[1]) {
+                throw new ParseException("broken extension");
+            }
+            return new DummyJNLPFile();
+        });
+
+        resolver.getFile(0);
+        resolver.getFile(2);
+        try {
+            resolver.getFile(1);
+            fail("expected ParseException");
+        } catch (ParseException e) {
+            assertEquals("broken extension", e.getMessage());
+        }
+    }
+
+    @Test
+    public void singleExtensionIsFetchedByTheCallingThread() throws Exception {
+        final Thread caller = Thread.currentThread();
+        final Thread[] loadingThread = new Thread[1];
+
+        final ExtensionResolver resolver = ExtensionResolver.resolve(extensions(1), extension -> {
+            loadingThread[0] = Thread.currentThread();
+            return new DummyJNLPFile();
+        });
+
+        assertTrue(resolver.getFile(0) instanceof DummyJNLPFile);
+        assertSame(caller, loadingThread[0]);
+    }
+
+    private static ExtensionDesc[] extensions(final int count) throws Exception {
+        final ExtensionDesc[] extensions = new ExtensionDesc[count];
+        for (int i = 0; i < count; i++) {
+            extensions[i] = new ExtensionDesc("ext" + i, null, new URL("http://localhost/ext" + i + ".jnlp"));
+        }
+        return extensions;
+    }
+
+    private static boolean awaitQuietly(final CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import net.adoptopenjdk.icedteaweb.io.IOUtils;
+import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.adoptopenjdk.icedteaweb.testing.ServerAccess;
+import net.adoptopenjdk.icedteaweb.testing.ServerLauncher;
+import net.adoptopenjdk.icedteaweb.testing.util.FileTestUtils;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.JNLPFileFactory;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.sourceforge.jnlp.runtime.JNLPRuntime.getConfiguration;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class LazyJarTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String cacheDir;
+    private boolean verify;
+    private boolean trustAll;
+    private boolean securityEnabled;
+    private String manifestAttributesCheck;
+    private ServerLauncher server;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDir = PathsAndFiles.CACHE_DIR.getFullPath();
+        PathsAndFiles.CACHE_DIR.setValue(temporaryFolder.newFolder().getCanonicalPath());
+
+        verify = JNLPRuntime.isVerifying();
+        trustAll = JNLPRuntime.isTrustAll();
+        securityEnabled = JNLPRuntime.isSecurityEnabled();
+        manifestAttributesCheck = getConfiguration().getProperty(ConfigurationConstants.KEY_ENABLE_MANIFEST_ATTRIBUTES_CHECK);
+        JNLPRuntime.setVerify(true);
+        JNLPRuntime.setTrustAll(true);
+        JNLPRuntime.setSecurityEnabled(false);
+        getConfiguration().setProperty(ConfigurationConstants.KEY_ENABLE_MANIFEST_ATTRIBUTES_CHECK, "NONE");
+
+        final File serverDir = temporaryFolder.newFolder();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("net/sourceforge/jnlp/runtime/j1.jar");
+             FileOutputStream out = new FileOutputStream(new File(serverDir, "main.jar"))) {
+            IOUtils.copy(in, out);
+        }
+        FileTestUtils.createJarWithContents(new File(serverDir, "lazy.jar"));
+        server = ServerAccess.getIndependentInstance(serverDir.getAbsolutePath(), ServerAccess.findFreePort());
+        Files.write(new File(serverDir, "app.jnlp").toPath(), ("<?xml version='1.0'?>\n" +
+                "<jnlp spec='1.5' codebase='" + server.getUrl() + "' href='app.jnlp'>\n" +
+                "  <information><title>Lazy Jar Test</title><vendor>IcedTea</vendor></information>\n" +
+                "  <resources>\n" +
+                "    <jar href='main.jar' main='true'/>\n" +
+                "    <jar href='lazy.jar' download='lazy'/>\n" +
+                "  </resources>\n" +
+                "  <application-desc main-class='Hello1'/>\n" +
+                "</jnlp>").getBytes(UTF_8));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        JNLPRuntime.setVerify(verify);
+        JNLPRuntime.setTrustAll(trustAll);
+        JNLPRuntime.setSecurityEnabled(securityEnabled);
+        getConfiguration().setProperty(ConfigurationConstants.KEY_ENABLE_MANIFEST_ATTRIBUTES_CHECK, manifestAttributesCheck);
+        PathsAndFiles.CACHE_DIR.setValue(cacheDir);
+    }
+
+    @Test
+    public void lazyJarIsNotDownloadedBeforeMainClassIsLoaded() throws Exception {
+        final JNLPFile file = new JNLPFileFactory().create(server.getUrl("app.jnlp"));
+        final JNLPClassLoader classLoader = new JNLPClassLoader(file, UpdatePolicy.ALWAYS);
+
+        assertTrue(Cache.isAnyCached(server.getUrl("main.jar"), null));
+        assertFalse(Cache.isAnyCached(server.getUrl("lazy.jar"), null));
+
+        assertNotNull(classLoader.loadClass("Hello1"));
+        assertFalse(Cache.isAnyCached(server.getUrl("lazy.jar"), null));
+    }
+}
@@ -0,0 +1,59 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.PackageDesc;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PackagePartsTest {
+
+    private final PackageParts packageParts = new PackageParts(new PackageDesc[]{
+            new PackageDesc("com.example.report.*", "report", true),
+            new PackageDesc("com.example.chart.*", "chart", false),
+            new PackageDesc("com.example.chart.ChartFactory", "charts-factory", false),
+    });
+
+    @Test
+    public void classIsMappedToDeclaredPart() {
+        assertEquals(Collections.singleton("report"), packageParts.getPartsForClass("com.example.report.Report"));
+        assertEquals(Collections.singleton("report"), packageParts.getPartsForClass("com.example.report.pdf.PdfExporter"));
+        assertEquals(Collections.singleton("chart"), packageParts.getPartsForClass("com.example.chart.Chart"));
+    }
+
+    @Test
+    public void allMatchingPartsAreReturned() {
+        assertEquals(new HashSet<>(Arrays.asList("chart", "charts-factory")), packageParts.getPartsForClass("com.example.chart.ChartFactory"));
+    }
+
+    @Test
+    public void nonRecursivePackageDoesNotCoverSubPackages() {
+        assertTrue(packageParts.getPartsForClass("com.example.chart.bar.BarChart").isEmpty());
+        assertTrue(packageParts.getPartsForClass("com.example.Main").isEmpty());
+    }
+
+    @Test
+    public void resourceIsMappedToPartOfItsPackage() {
+        assertEquals(Collections.singleton("report"), packageParts.getPartsForResource("com/example/report/template.xml"));
+        assertEquals(Collections.singleton("chart"), packageParts.getPartsForResource("com/example/chart/Chart.class"));
+        assertTrue(packageParts.getPartsForResource("com/example/chart/bar/colors.properties").isEmpty());
+        assertTrue(packageParts.getPartsForResource("com/example/").isEmpty());
+    }
+
+    @Test
+    public void resourceNameIsConvertedToClassName() {
+        assertEquals("com.example.icon", PackageParts.toClassName("com/example/icon.png"));
+        assertEquals("com.example.Main", PackageParts.toClassName("/com/example/Main.class"));
+        assertEquals("com.example.messages_de", PackageParts.toClassName("com/example/messages_de.properties"));
+        assertEquals("com.example..hidden", PackageParts.toClassName("com/example/.hidden"));
+    }
+
+    @Test
+    public void noPackagesDeclared() {
+        assertTrue(new PackageParts(null).getPartsForClass("com.example.Main").isEmpty());
+    }
+}
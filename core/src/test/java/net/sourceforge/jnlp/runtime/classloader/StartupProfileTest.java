@@ -0,0 +1,126 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StartupProfileTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void jarsAreRecordedInTheOrderTheyAreFirstNeeded() throws Exception {
+        final File file = new File(temporaryFolder.getRoot(), ".profile");
+
+        final StartupProfile profile = new StartupProfile(null, () -> file, 1000, false);
+        assertFalse(profile.hasJarOrder());
+        profile.recordJar(new URL("http://localhost/b.jar"));
+        profile.recordResource(new URL("jar:http://localhost/a.jar!/images/icon.png"));
+        profile.recordJar(new URL("http://localhost/b.jar"));
+        profile.recordResource(new URL("http://localhost/codebase/resource.txt"));
+        profile.recordResource(new URL("jar:http://localhost/c.jar!/META-INF/services/x.y.Z"));
+        profile.close();
+
+        assertEquals(Arrays.asList("http://localhost/b.jar", "http://localhost/a.jar", "http://localhost/c.jar"), jarEntries(file));
+
+        final StartupProfile nextLaunch = new StartupProfile(null, () -> file, 1000, false);
+        assertTrue(nextLaunch.hasJarOrder());
+        assertEquals(0, nextLaunch.getJarRank(new URL("http://localhost/b.jar")));
+        assertEquals(1, nextLaunch.getJarRank(new URL("http://localhost/a.jar")));
+        assertEquals(2, nextLaunch.getJarRank(new URL("http://localhost/c.jar")));
+        assertEquals(-1, nextLaunch.getJarRank(new URL("http://localhost/lazy.jar")));
+    }
+
+    @Test
+    public void nothingIsRecordedAfterTheWindowClosed() throws Exception {
+        final File file = new File(temporaryFolder.getRoot(), ".profile");
+
+        final StartupProfile profile = new StartupProfile(null, () -> file, 1000, false);
+        profile.recordJar(new URL("http://localhost/a.jar"));
+        profile.close();
+        assertFalse(profile.isRecording());
+        profile.recordJar(new URL("http://localhost/b.jar"));
+        profile.close();
+
+        assertEquals(Arrays.asList("http://localhost/a.jar"), jarEntries(file));
+    }
+
+    @Test
+    public void unchangedOrderIsNotStoredAgain() throws Exception {
+        final File file = new File(temporaryFolder.getRoot(), ".profile");
+        Files.write(file.toPath(), Arrays.asList("# profile", "jar http://localhost/a.jar"), UTF_8);
+        assertTrue(file.setLastModified(1000));
+
+        final StartupProfile profile = new StartupProfile(null, () -> file, 1000, false);
+        profile.recordJar(new URL("http://localhost/a.jar"));
+        profile.close();
+
+        assertEquals(1000, file.lastModified());
+    }
+
+    @Test
+    public void disabledProfileRecordsNothing() throws Exception {
+        final File file = new File(temporaryFolder.getRoot(), ".profile");
+        Files.write(file.toPath(), Arrays.asList("jar http://localhost/a.jar"), UTF_8);
+
+        final StartupProfile profile = new StartupProfile(null, () -> file, 0, false);
+        assertFalse(profile.hasJarOrder());
+        assertFalse(profile.isRecording());
+        profile.recordJar(new URL("http://localhost/b.jar"));
+        profile.close();
+
+        assertEquals(Arrays.asList("http://localhost/a.jar"), jarEntries(file));
+    }
+
+    @Test
+    public void classesAreOnlyRecordedIfEnabled() throws Exception {
+        final File file = new File(temporaryFolder.getRoot(), ".profile");
+
+        final StartupProfile withoutClasses = new StartupProfile(null, () -> file, 1000, false);
+        assertFalse(withoutClasses.isRecordingClasses());
+        withoutClasses.recordJar(new URL("http://localhost/a.jar"));
+        withoutClasses.recordClass("a.Main");
+        withoutClasses.close();
+
+        final StartupProfile withClasses = new StartupProfile(null, () -> file, 1000, true);
+        assertTrue(withClasses.getClassOrder().isEmpty());
+        assertTrue(withClasses.isRecordingClasses());
+        withClasses.recordJar(new URL("http://localhost/a.jar"));
+        withClasses.recordClass("a.Main");
+        withClasses.recordClass("a.Window");
+        withClasses.recordClass("a.Main");
+        withClasses.close();
+
+        assertEquals(Arrays.asList("a.Main", "a.Window"), new StartupProfile(null, () -> file, 1000, true).getClassOrder());
+        assertTrue(new StartupProfile(null, () -> file, 1000, false).getClassOrder().isEmpty());
+        assertEquals(Arrays.asList("http://localhost/a.jar"), jarEntries(file));
+    }
+
+    @Test
+    public void missingCacheEntryIsIgnored() throws Exception {
+        final StartupProfile profile = new StartupProfile(null, () -> null, 1000, false);
+        assertFalse(profile.hasJarOrder());
+        profile.recordJar(new URL("http://localhost/a.jar"));
+        profile.close();
+    }
+
+    private static List<String> jarEntries(final File file) throws Exception {
+        return Files.readAllLines(file.toPath(), UTF_8).stream()
+                .filter(line -> line.startsWith("jar "))
+                .map(line -> line.substring("jar ".length()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,120 @@
+package net.sourceforge.jnlp.services;
+
+import org.junit.Test;
+
+import javax.jnlp.FileContents;
+import javax.jnlp.JNLPRandomAccessFile;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.StringSelection;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrivilegedServicesTest {
+
+    @Test
+    public void callsAreDelegated() throws Exception {
+        final FileContents contents = PrivilegedServices.fileContents(new StubFileContents());
+
+        assertEquals("stub", contents.getName());
+        assertEquals(42L, contents.getLength());
+        assertEquals(7L, contents.setMaxLength(7));
+    }
+
+    @Test
+    public void checkedExceptionsAreNotWrapped() throws Exception {
+        final FileContents contents = PrivilegedServices.fileContents(new StubFileContents());
+        try {
+            contents.getInputStream();
+            fail("FileNotFoundException expected");
+        } catch (FileNotFoundException e) {
+            assertEquals("missing", e.getMessage());
+        }
+    }
+
+    @Test
+    public void runtimeExceptionsAreNotWrapped() throws Exception {
+        final FileContents contents = PrivilegedServices.fileContents(new StubFileContents());
+        try {
+            contents.canWrite();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("read only", e.getMessage());
+        }
+    }
+
+    @Test
+    public void transferableIsWrappedUnlessMissing() throws Exception {
+        assertNull(PrivilegedServices.transferable(null));
+
+        final Transferable transferable = PrivilegedServices.transferable(new StringSelection("text"));
+        assertTrue(transferable.isDataFlavorSupported(DataFlavor.stringFlavor));
+        assertEquals("text", transferable.getTransferData(DataFlavor.stringFlavor));
+        try {
+            transferable.getTransferData(DataFlavor.imageFlavor);
+            fail("UnsupportedFlavorException expected");
+        } catch (UnsupportedFlavorException e) {
+            // passed on unchanged
+        }
+    }
+
+    @Test
+    public void singleInstanceServiceIsExtended() throws Exception {
+        assertTrue(new XServiceManagerStub().lookup("javax.jnlp.SingleInstanceService") instanceof ExtendedSingleInstanceService);
+    }
+
+    private static class StubFileContents implements FileContents {
+        @Override
+        public String getName() {
+            return "stub";
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            throw new FileNotFoundException("missing");
+        }
+
+        @Override
+        public OutputStream getOutputStream(final boolean overwrite) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getLength() {
+            return 42;
+        }
+
+        @Override
+        public boolean canRead() {
+            return true;
+        }
+
+        @Override
+        public boolean canWrite() {
+            throw new IllegalStateException("read only");
+        }
+
+        @Override
+        public JNLPRandomAccessFile getRandomAccessFile(final String mode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getMaxLength() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public long setMaxLength(final long maxlength) {
+            return maxlength;
+        }
+    }
+}
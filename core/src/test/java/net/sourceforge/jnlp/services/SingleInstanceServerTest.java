@@ -0,0 +1,130 @@
+package net.sourceforge.jnlp.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SingleInstanceServerTest {
+
+    private static final String[] NO_ARGUMENTS = new String[]{"<null>"};
+
+    private final BlockingQueue<String[]> received = new LinkedBlockingQueue<>();
+
+    private SingleInstanceServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = SingleInstanceServer.start(arguments -> received.add(arguments == null ? NO_ARGUMENTS : arguments));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void argumentsAreHandedOver() throws Exception {
+        final String[] arguments = {"-open", "/home/user/Dokumente/Übersicht.txt", "", null, "日本語"};
+
+        assertTrue(SingleInstanceServer.send(server.getPort(), arguments));
+
+        assertArrayEquals(arguments, next());
+    }
+
+    @Test
+    public void missingAndEmptyArgumentsAreHandedOver() throws Exception {
+        assertTrue(SingleInstanceServer.send(server.getPort(), null));
+        assertTrue(SingleInstanceServer.send(server.getPort(), new String[0]));
+
+        assertArrayEquals(NO_ARGUMENTS, next());
+        assertArrayEquals(new String[0], next());
+    }
+
+    @Test
+    public void messageSentInPiecesIsHandedOver() throws Exception {
+        final ByteBuffer message = SingleInstanceServer.encode(new String[]{"a", "b"});
+        try (SocketChannel channel = connect()) {
+            while (message.hasRemaining()) {
+                final ByteBuffer piece = ByteBuffer.wrap(new byte[]{message.get()});
+                channel.write(piece);
+                Thread.sleep(1);
+            }
+        }
+
+        assertArrayEquals(new String[]{"a", "b"}, next());
+    }
+
+    @Test
+    public void stalledClientDoesNotBlockOthers() throws Exception {
+        try (SocketChannel stalled = connect()) {
+            stalled.write(ByteBuffer.wrap(new byte[]{0, 0}));
+
+            assertTrue(SingleInstanceServer.send(server.getPort(), new String[]{"other"}));
+
+            assertArrayEquals(new String[]{"other"}, next());
+        }
+    }
+
+    @Test
+    public void invalidMessagesAreRejected() throws Exception {
+        // too long
+        send(ByteBuffer.allocate(Integer.BYTES).putInt(0, SingleInstanceServer.MAX_MESSAGE_LENGTH + 1));
+        // more arguments than bytes
+        send(ByteBuffer.allocate(2 * Integer.BYTES).putInt(0, Integer.BYTES).putInt(Integer.BYTES, 1000));
+        // argument longer than the message
+        send(ByteBuffer.allocate(4 * Integer.BYTES).putInt(0, 3 * Integer.BYTES).putInt(Integer.BYTES, 1).putInt(2 * Integer.BYTES, 100));
+        // liveness probe
+        assertTrue(SingleInstanceServer.isListening(server.getPort()));
+
+        assertTrue(SingleInstanceServer.send(server.getPort(), new String[]{"valid"}));
+        assertArrayEquals(new String[]{"valid"}, next());
+        assertNull(received.poll());
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void tooManyArgumentsAreNotSent() throws Exception {
+        SingleInstanceServer.encode(new String[]{new String(new char[SingleInstanceServer.MAX_MESSAGE_LENGTH])});
+    }
+
+    @Test
+    public void closedServerIsNotListening() throws Exception {
+        final int port = server.getPort();
+        server.close();
+
+        assertFalse(SingleInstanceServer.isListening(port));
+        assertFalse(SingleInstanceServer.send(port, new String[]{"lost"}));
+    }
+
+    private String[] next() throws InterruptedException {
+        final String[] arguments = received.poll(10, TimeUnit.SECONDS);
+        assertTrue("no arguments received", arguments != null);
+        return arguments;
+    }
+
+    private SocketChannel connect() throws IOException {
+        return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+    }
+
+    private void send(final ByteBuffer message) throws IOException {
+        try (SocketChannel channel = connect()) {
+            while (message.hasRemaining()) {
+                channel.write(message);
+            }
+        }
+    }
+}
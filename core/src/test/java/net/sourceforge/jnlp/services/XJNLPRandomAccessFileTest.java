@@ -0,0 +1,231 @@
+package net.sourceforge.jnlp.services;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.jnlp.JNLPRandomAccessFile;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class XJNLPRandomAccessFileTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void randomOperationsBehaveLikeRandomAccessFile() throws Exception {
+        for (long seed = 0; seed < 20; seed++) {
+            final File expectedFile = temporaryFolder.newFile();
+            final File actualFile = temporaryFolder.newFile();
+            try (RandomAccessFile expected = new RandomAccessFile(expectedFile, "rw");
+                 XJNLPRandomAccessFile actual = new XJNLPRandomAccessFile(actualFile, "rw")) {
+                final Random random = new Random(seed);
+                for (int i = 0; i < 2000; i++) {
+                    final int operation = random.nextInt(20);
+                    final long operationSeed = random.nextLong();
+                    final String result = apply(expected, expectedFile, operation, operationSeed);
+                    assertEquals("seed " + seed + ", operation " + i + " (" + operation + ")", result, apply(actual, actualFile, operation, operationSeed));
+                    assertEquals(expected.getFilePointer(), actual.getFilePointer());
+                }
+                assertEquals(expected.length(), actual.length());
+            }
+            assertArrayEquals(Files.readAllBytes(expectedFile.toPath()), Files.readAllBytes(actualFile.toPath()));
+        }
+    }
+
+    @Test
+    public void mappedFileBehavesLikeRandomAccessFile() throws Exception {
+        final File file = temporaryFolder.newFile();
+        final byte[] content = new byte[3 * XJNLPRandomAccessFile.PAGE_SIZE + 17];
+        new Random(1).nextBytes(content);
+        content[100] = '\r';
+        content[200] = '\n';
+        Files.write(file.toPath(), content);
+
+        try (RandomAccessFile expected = new RandomAccessFile(file, "r");
+             XJNLPRandomAccessFile actual = new XJNLPRandomAccessFile(file, "r", content.length)) {
+            final Random random = new Random(2);
+            for (int i = 0; i < 5000; i++) {
+                final int operation = random.nextInt(13);
+                final long operationSeed = random.nextLong();
+                assertEquals("operation " + i, apply(expected, file, operation, operationSeed), apply(actual, file, operation, operationSeed));
+                assertEquals(expected.getFilePointer(), actual.getFilePointer());
+            }
+        }
+    }
+
+    @Test
+    public void readingStopsAtTheEndOfTheFileLikeRandomAccessFile() throws Exception {
+        final File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+
+        try (XJNLPRandomAccessFile actual = new XJNLPRandomAccessFile(file, "r")) {
+            actual.seek(1);
+            try {
+                actual.readInt();
+                fail("EOFException expected");
+            } catch (EOFException expected) {
+                // the available bytes are consumed like by RandomAccessFile
+                assertEquals(3, actual.getFilePointer());
+            }
+            assertEquals(-1, actual.read());
+            assertEquals(-1, actual.read(new byte[4]));
+        }
+    }
+
+    @Test
+    public void pendingWritesAreWrittenOnLengthAndClose() throws Exception {
+        final File file = temporaryFolder.newFile();
+
+        final XJNLPRandomAccessFile actual = new XJNLPRandomAccessFile(file, "rw");
+        actual.writeInt(42);
+        actual.writeUTF("record");
+        assertEquals(12, actual.length());
+        actual.close();
+
+        assertEquals(12, file.length());
+        try (RandomAccessFile expected = new RandomAccessFile(file, "r")) {
+            assertEquals(42, expected.readInt());
+            assertEquals("record", expected.readUTF());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void readOnlyFileCannotBeWritten() throws Exception {
+        try (XJNLPRandomAccessFile actual = new XJNLPRandomAccessFile(temporaryFolder.newFile(), "r")) {
+            actual.writeInt(1);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void closedFileCannotBeRead() throws Exception {
+        final XJNLPRandomAccessFile actual = new XJNLPRandomAccessFile(temporaryFolder.newFile(), "rw");
+        actual.writeInt(1);
+        actual.seek(0);
+        actual.close();
+        actual.readInt();
+    }
+
+    /**
+     * Applies the operation to the file and describes the outcome. Operations below 13 only read.
+     */
+    private static String apply(final Object file, final File path, final int operation, final long seed) throws IOException {
+        final DataInput in = (DataInput) file;
+        final DataOutput out = (DataOutput) file;
+        final Random random = new Random(seed);
+        try {
+            switch (operation) {
+                case 0:
+                    seek(file, random.nextInt((int) length(file) + 3 * XJNLPRandomAccessFile.PAGE_SIZE / 2 + 1));
+                    return "seek";
+                case 1:
+                    return "read " + read(file);
+                case 2:
+                    return "readInt " + in.readInt();
+                case 3:
+                    return "readLong " + in.readLong();
+                case 4:
+                    return "readShort " + in.readShort() + " " + in.readUnsignedShort();
+                case 5:
+                    return "readChar " + (int) in.readChar();
+                case 6:
+                    return "readByte " + in.readByte() + " " + in.readUnsignedByte() + " " + in.readBoolean();
+                case 7:
+                    return "readDouble " + in.readDouble() + " " + in.readFloat();
+                case 8: {
+                    final byte[] b = new byte[random.nextInt(2 * XJNLPRandomAccessFile.PAGE_SIZE)];
+                    final int off = b.length == 0 ? 0 : random.nextInt(b.length);
+                    return "read[] " + read(file, b, off, random.nextInt(b.length - off + 1)) + " " + Arrays.hashCode(b);
+                }
+                case 9: {
+                    final byte[] b = new byte[random.nextInt(64)];
+                    in.readFully(b);
+                    return "readFully " + Arrays.toString(b);
+                }
+                case 10:
+                    return "skipBytes " + in.skipBytes(random.nextInt(200) - 20);
+                case 11:
+                    return "readLine " + in.readLine();
+                case 12:
+                    return "length " + length(file);
+                case 13:
+                    out.writeInt(random.nextInt());
+                    out.writeLong(random.nextLong());
+                    return "writeInt";
+                case 14:
+                    out.writeShort(random.nextInt());
+                    out.writeChar(random.nextInt());
+                    out.writeByte(random.nextInt());
+                    out.writeBoolean(random.nextBoolean());
+                    return "writeShort";
+                case 15:
+                    out.writeDouble(random.nextDouble());
+                    out.writeFloat(random.nextFloat());
+                    return "writeDouble";
+                case 16: {
+                    final byte[] b = new byte[random.nextInt(3 * XJNLPRandomAccessFile.PAGE_SIZE / 2)];
+                    random.nextBytes(b);
+                    out.write(b, random.nextInt(b.length / 2 + 1), b.length / 2);
+                    return "write[]";
+                }
+                case 17:
+                    out.writeUTF("récord " + random.nextInt());
+                    out.writeChars("line\r");
+                    out.writeBytes("line\r\n");
+                    return "writeUTF " + in.readUTF();
+                case 18:
+                    setLength(file, random.nextInt((int) length(file) + 100));
+                    return "setLength";
+                default:
+                    out.write(random.nextInt());
+                    out.write('\n');
+                    return "write";
+            }
+        } catch (EOFException | UTFDataFormatException e) {
+            return e.getClass().getSimpleName();
+        } catch (IndexOutOfBoundsException e) {
+            return "IOOBE";
+        }
+    }
+
+    private static void seek(final Object file, final long pos) throws IOException {
+        if (file instanceof RandomAccessFile) {
+            ((RandomAccessFile) file).seek(pos);
+        } else {
+            ((JNLPRandomAccessFile) file).seek(pos);
+        }
+    }
+
+    private static long length(final Object file) throws IOException {
+        return file instanceof RandomAccessFile ? ((RandomAccessFile) file).length() : ((JNLPRandomAccessFile) file).length();
+    }
+
+    private static int read(final Object file) throws IOException {
+        return file instanceof RandomAccessFile ? ((RandomAccessFile) file).read() : ((JNLPRandomAccessFile) file).read();
+    }
+
+    private static int read(final Object file, final byte[] b, final int off, final int len) throws IOException {
+        return file instanceof RandomAccessFile ? ((RandomAccessFile) file).read(b, off, len) : ((JNLPRandomAccessFile) file).read(b, off, len);
+    }
+
+    private static void setLength(final Object file, final long newLength) throws IOException {
+        if (file instanceof RandomAccessFile) {
+            ((RandomAccessFile) file).setLength(newLength);
+        } else {
+            ((JNLPRandomAccessFile) file).setLength(newLength);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package net.sourceforge.jnlp.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class BoundedLruMapTest {
+
+    @Test
+    public void leastRecentlyAccessedEntryIsDropped() {
+        final BoundedLruMap<String, Boolean> map = new BoundedLruMap<>(2);
+        map.put("a", true);
+        map.put("b", true);
+        map.get("a");
+        map.put("c", true);
+
+        assertEquals(Arrays.asList("a", "c"), new ArrayList<>(map.keySet()));
+    }
+}
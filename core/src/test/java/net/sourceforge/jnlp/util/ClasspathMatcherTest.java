@@ -691,4 +691,42 @@ public class ClasspathMatcherTest {
         Assert.assertTrue(cps22.matches(new URL("http://aaa.com/some/path/")));
 
     }
+
+    @Test
+    public void wildcardPartMatchesLikeRegEx() {
+        final String[] sources = {"*", "**", "abcd", "*abcd", "abcd*", "*abcd*", "*.abcd", "a*b", ""};
+        final String[] inputs = {"", "abcd", "xabcd", "abcdx", "xabcdx", ".abcd", "x.abcd", "a*b", "ab",
+                "abcd\n", "\nabcd", "x\u2028abcd", "abcd\r\n"};
+        for (String source : sources) {
+            final ClasspathMatcher.WildcardPart part = ClasspathMatcher.WildcardPart.compile(source);
+            final java.util.regex.Pattern regEx = ClasspathMatcher.sourceToRegEx(source);
+            for (String input : inputs) {
+                Assert.assertEquals(source + " -> " + input, regEx.matcher(input).matches(), part.matches(input));
+            }
+        }
+    }
+
+    @Test
+    public void memoizedMatchersDecideLikePlainMatchers() throws MalformedURLException {
+        final String source = "*.example.com*/*.abc.cde* https://secure.org:8443/app/* *.net";
+        final URL[] candidates = {
+                new URL("http://www.example.com/xyz.abc.cde"),
+                new URL("http://www.example.com/abc.cde"),
+                new URL("http://aaaexample.com/xyz.abc.cde"),
+                new URL("https://secure.org:8443/app/main.jar"),
+                new URL("https://secure.org:8443/other/main.jar"),
+                new URL("https://secure.org/app/main.jar"),
+                new URL("http://some.net/any"),
+                new URL("http://net/any")
+        };
+        for (boolean includePath : new boolean[]{true, false}) {
+            final ClasspathMatchers plain = new ClasspathMatchers(ClasspathMatchers.compile(source).getMatchers(), includePath, 0);
+            final ClasspathMatchers memoizing = new ClasspathMatchers(ClasspathMatchers.compile(source).getMatchers(), includePath, 2);
+            for (int round = 0; round < 3; round++) {
+                for (URL candidate : candidates) {
+                    Assert.assertEquals(includePath + " " + candidate, plain.matches(candidate), memoizing.matches(candidate));
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package net.sourceforge.jnlp.util.whitelist;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static net.sourceforge.jnlp.util.whitelist.UrlWhiteListUtils.parseEntry;
+
+public class CompiledWhitelistTest {
+
+    private static final List<String> ENTRIES = Arrays.asList(
+            "rfy.m-b.com",
+            "http://rfy.m-b.com:8080",
+            "*.mydomain.com",
+            "http://*.mydomain.com",
+            "https://*.Cintra.NET:*",
+            "*.dmlr.com:446",
+            "http://*.org:*",
+            "123.134.145.156",
+            "https://subdomain.domain.com/abc/efg",
+            "*.a.b.example.com",
+            "exact.example.com",
+            ".dot.example.com",
+            "trailing.example.com.",
+            "*.trailing.example.com.",
+            "*.domain.com:ABC",
+            "https://*jvms.domain.com:443",
+            "ftp://ftp.domain.com",
+            "://*.domain.com:123",
+            "",
+            "http://*:81"
+    );
+
+    private static final List<String> URLS = Arrays.asList(
+            "https://rfy.m-b.com/some_URL",
+            "https://RFY.M-B.COM:443/some_URL",
+            "https://rfy.m-b.com:445/some_URL",
+            "http://rfy.m-b.com:8080/",
+            "http://rfy.m-b.com/",
+            "https://abc.mydomain.com/",
+            "https://a.b.c.mydomain.com:443/",
+            "https://mydomain.com/",
+            "https://xmydomain.com/",
+            "http://abc.mydomain.com/",
+            "http://abc.mydomain.com:81/",
+            "https://abc.cintra.net:9999/",
+            "http://abc.cintra.net:443/",
+            "https://abc.dmlr.com:446/",
+            "https://abc.dmlr.com:443/",
+            "http://www.example.org:1234/",
+            "http://org/",
+            "https://123.134.145.156/",
+            "https://123.134.145.157/",
+            "https://subdomain.domain.com/",
+            "https://x.a.b.example.com/",
+            "https://a.b.example.com/",
+            "https://b.example.com/",
+            "https://exact.example.com/",
+            "https://sub.exact.example.com/",
+            "https://.dot.example.com/",
+            "https://x.dot.example.com/",
+            "https://trailing.example.com./",
+            "https://x.trailing.example.com./",
+            "https://trailing.example.com/",
+            "ftp://ftp.domain.com/",
+            "http://anything.at.all:81/",
+            "http://anything.at.all:82/"
+    );
+
+    @Test
+    public void compiledWhitelistMatchesLikeTheEntries() throws MalformedURLException {
+        final List<WhitelistEntry> entries = ENTRIES.stream().map(UrlWhiteListUtils::parseEntry).collect(Collectors.toList());
+        final CompiledWhitelist compiled = CompiledWhitelist.compile(entries);
+
+        for (String candidate : URLS) {
+            final URL url = new URL(candidate);
+            final boolean expected = entries.stream().anyMatch(e -> e.matches(url));
+            Assert.assertEquals(candidate, expected, compiled.matches(url));
+        }
+    }
+
+    @Test
+    public void eachEntryMatchesLikeTheCompiledEntry() throws MalformedURLException {
+        for (String raw : ENTRIES) {
+            final WhitelistEntry entry = parseEntry(raw);
+            final CompiledWhitelist compiled = CompiledWhitelist.compile(Collections.singletonList(entry));
+            for (String candidate : URLS) {
+                final URL url = new URL(candidate);
+                Assert.assertEquals(raw + " -> " + candidate, entry.matches(url), compiled.matches(url));
+            }
+        }
+    }
+
+    @Test
+    public void emptyWhitelistAllowsAllUrls() throws MalformedURLException {
+        final CompiledWhitelist compiled = CompiledWhitelist.compile(Collections.emptyList());
+
+        Assert.assertTrue(compiled.isUrlInWhitelist(new URL("https://any.host.invalid/")));
+    }
+
+    @Test
+    public void whitelistWithOnlyInvalidEntriesAllowsOnlyLocalhost() throws MalformedURLException {
+        final CompiledWhitelist compiled = CompiledWhitelist.compile(Collections.singletonList(parseEntry("*.domain.com:ABC")));
+
+        Assert.assertFalse(compiled.isUrlInWhitelist(new URL("https://www.domain.com/")));
+        Assert.assertTrue(compiled.isUrlInWhitelist(new URL("http://localhost:8080/")));
+        Assert.assertTrue(compiled.isUrlInWhitelist(new URL("http://127.0.0.1/")));
+    }
+
+    @Test
+    public void memoizedDecisionsAreTheSame() throws MalformedURLException {
+        final List<WhitelistEntry> entries = ENTRIES.stream().map(UrlWhiteListUtils::parseEntry).collect(Collectors.toList());
+        final CompiledWhitelist memoizing = CompiledWhitelist.compile(entries, 4);
+        final CompiledWhitelist plain = CompiledWhitelist.compile(entries, 0);
+
+        for (int round = 0; round < 3; round++) {
+            for (String candidate : URLS) {
+                final URL url = new URL(candidate);
+                Assert.assertEquals(candidate, plain.isUrlInWhitelist(url), memoizing.isUrlInWhitelist(url));
+            }
+        }
+    }
+
+    @Test
+    public void otherEntryImplementationsAreChecked() throws MalformedURLException {
+        final WhitelistEntry custom = new WhitelistEntry() {
+            @Override
+            public boolean matches(final URL url) {
+                return url.getHost().endsWith(".custom.invalid");
+            }
+
+            @Override
+            public boolean isValid() {
+                return true;
+            }
+
+            @Override
+            public String getRawWhitelistEntry() {
+                return "custom";
+            }
+
+            @Override
+            public String getEffectiveWhitelistEntry() {
+                return "custom";
+            }
+
+            @Override
+            public String getErrorMessage() {
+                return "";
+            }
+        };
+        final CompiledWhitelist compiled = CompiledWhitelist.compile(Arrays.asList(parseEntry("exact.example.com"), custom));
+
+        Assert.assertTrue(compiled.matches(new URL("https://www.custom.invalid/")));
+        Assert.assertTrue(compiled.matches(new URL("https://exact.example.com/")));
+        Assert.assertFalse(compiled.matches(new URL("https://www.example.invalid/")));
+    }
+
+    @Test
+    public void hostsAreFoldedLikeEqualsIgnoreCase() {
+        Assert.assertEquals("www.example.com", WhitelistHostTrie.fold("WWW.Example.COM"));
+        Assert.assertEquals(WhitelistHostTrie.fold("STRASSE"), WhitelistHostTrie.fold("strasse"));
+        Assert.assertEquals("ı".equalsIgnoreCase("I"), WhitelistHostTrie.fold("ı").equals(WhitelistHostTrie.fold("I")));
+    }
+}